@@ -12,6 +12,7 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -21,6 +22,13 @@ import java.util.Properties;
 import javax.swing.JOptionPane;
 import javax.swing.JPasswordField;
 
+import org.apache.log4j.AsyncAppender;
+import org.apache.log4j.ConsoleAppender;
+import org.apache.log4j.Level;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+
 import com.opencsv.CSVWriter;
 
 
@@ -31,6 +39,12 @@ import com.opencsv.CSVWriter;
 public class AthenaScanner {
 
     public static final String version="0.3";
+    private static final Logger log = Logger.getLogger(AthenaScanner.class);
+    
+    static {
+    	// console output (same format as before) - until log.* properties are read
+    	initLogging("INFO", true, 8192);
+    }
     
     private String jdbcDriver="";
     private String jdbcUrl="";
@@ -40,6 +54,8 @@ public class AthenaScanner {
     private ArrayList<String> schemaExcludeFilters = new ArrayList<String>();
     private ArrayList<String> tableIncludeFilters = new ArrayList<String>();
     private ArrayList<String> tableExcludeFilters = new ArrayList<String>();
+    // jdbc.fetch.size - rows fetched per round trip (0 = driver default)
+    private int fetchSize = 1000;
     
     private String otherObjectCsvName="athenaObjects.csv";
     private String tabCsvName="athenaTablesViews.csv";
@@ -64,7 +80,7 @@ public class AthenaScanner {
      * @param propertyFile - controls how to connect and what to extract
      */
     AthenaScanner(String propertyFile) {
-        System.out.println(this.getClass().getSimpleName() + " " + version +  " initializing properties from: " + propertyFile);
+        log.info(this.getClass().getSimpleName() + " " + version +  " initializing properties from: " + propertyFile);
 		try {			
 			File file = new File(propertyFile);
 			FileInputStream fileInput = new FileInputStream(file);
@@ -76,20 +92,44 @@ public class AthenaScanner {
 			jdbcDriver = prop.getProperty("jdbc.driver.class");
 			jdbcUrl =  prop.getProperty("jdbc.url");
 			userId =  prop.getProperty("user");
+			String bufferText = prop.getProperty("log.bufferSize", "8192");
+			int bufferSize = 8192;
+			boolean bufferSizeValid = true;
+			try {
+				bufferSize = Integer.parseInt(bufferText.trim());
+			} catch (NumberFormatException ex) {
+				bufferSizeValid = false;
+			}
+			initLogging(prop.getProperty("log.level", "INFO"), Boolean.parseBoolean(prop.getProperty("log.async", "true")),
+					bufferSize);
+			if (!bufferSizeValid) {
+				log.info("invalid log.bufferSize=" + bufferText + " using " + bufferSize);
+			}
 			passwd = prop.getProperty("pwd");			
 			if (passwd==null || passwd.equals("<prompt>") || passwd.equals("")) {
-				System.out.println("password set to <prompt> for user " + userId  + " - waiting for user input...");
+				log.info("password set to <prompt> for user " + userId  + " - waiting for user input...");
 				passwd = getPassword();
 //				System.out.println("pwd chars entered (debug):  " + passwd.length());
 			}
 			
-			System.out.println("   jdbc driver=" + jdbcDriver);
-			System.out.println("      jdbc url=" + jdbcUrl);
-			System.out.println("          user=" + userId);
-			System.out.println("           pwd=" + passwd.replaceAll(".", "*"));
+			log.info("   jdbc driver=" + jdbcDriver);
+			log.info("      jdbc url=" + jdbcUrl);
+			log.info("          user=" + userId);
+			log.info("           pwd=" + passwd.replaceAll(".", "*"));
+
+			String fetchText = prop.getProperty("jdbc.fetch.size", "");
+			if (fetchText.trim().length()>0) {
+				try {
+					fetchSize = Integer.parseInt(fetchText.trim());
+				} catch (NumberFormatException ex) {
+					log.info("invalid jdbc.fetch.size=" + fetchText + " using " + fetchSize);
+				}
+			}
+			log.info("    fetch size=" + fetchSize);
+			log.info("     log level=" + log.getLevel());
 			
 			
-			System.out.println("Include/Exclude settings");
+			log.info("Include/Exclude settings");
 			
 			String filterText = prop.getProperty("schema.include.filter");
 			if (filterText != null && filterText.length()>0) {
@@ -97,9 +137,9 @@ public class AthenaScanner {
 			}
 		
 			if (schemaIncludeFilters.size()==0) {
-				System.out.println("\tschemas include filters=none - all (not excluded) will be extracted");			
+				log.info("\tschemas include filters=none - all (not excluded) will be extracted");			
 			} else {
-				System.out.println("\tschemas to include=" + schemaIncludeFilters.toString());
+				log.info("\tschemas to include=" + schemaIncludeFilters.toString());
 			}
 
 			filterText = prop.getProperty("schema.exclude.filter");
@@ -107,9 +147,9 @@ public class AthenaScanner {
 				schemaExcludeFilters = new ArrayList<String>(Arrays.asList(filterText.split(";"))); 
 			}
 			if (schemaExcludeFilters.size()==0) {
-				System.out.println("\tschemas exclude filters=none - all will be excluded");			
+				log.info("\tschemas exclude filters=none - all will be excluded");			
 			} else {
-				System.out.println("\tschemas to exclude=" + schemaExcludeFilters.toString());
+				log.info("\tschemas to exclude=" + schemaExcludeFilters.toString());
 			}
 
 			filterText = prop.getProperty("table.include.filter");
@@ -117,9 +157,9 @@ public class AthenaScanner {
 				tableIncludeFilters = new ArrayList<String>(Arrays.asList(filterText.split(";"))); 
 			}
 			if (tableIncludeFilters.size()==0) {
-				System.out.println("\ttables include  filters=none - all tables be extracted (in not excluded)");			
+				log.info("\ttables include  filters=none - all tables be extracted (in not excluded)");			
 			} else {
-				System.out.println("\ttables to include=" + tableIncludeFilters.toString());
+				log.info("\ttables to include=" + tableIncludeFilters.toString());
 			}
 
 			
@@ -128,14 +168,14 @@ public class AthenaScanner {
 				tableExcludeFilters = new ArrayList<String>(Arrays.asList(filterText.split(";"))); 
 			}
 			if (tableExcludeFilters.size()==0) {
-				System.out.println("\ttables exclude  filters=none - no tables will be excluded (except for table.include.filter settings)");			
+				log.info("\ttables exclude  filters=none - no tables will be excluded (except for table.include.filter settings)");			
 			} else {
-				System.out.println("\ttables to exclude=" + tableExcludeFilters.toString());
+				log.info("\ttables to exclude=" + tableExcludeFilters.toString());
 			}
 
 			
 	     } catch(Exception e) {
-	     	System.out.println("error reading properties file: " + propertyFile);
+	     	log.error("error reading properties file: " + propertyFile);
 	     	e.printStackTrace();
 	     }
 
@@ -146,52 +186,53 @@ public class AthenaScanner {
      */
     protected void run() {
     	
+		Connection con = null;
 		try {  
 			
-			System.out.println("Initializing output files");
+			log.info("Initializing output files");
 			this.initFiles();
 			
-			System.out.println("Initializing jdbc driver class: " + jdbcDriver);
+			log.info("Initializing jdbc driver class: " + jdbcDriver);
 			Class.forName(jdbcDriver);  
 			
-			System.out.println("establishing connection to: " + jdbcUrl);
-			Connection con=DriverManager.getConnection(jdbcUrl, userId, passwd);  
-			System.out.println("Connected!");
+			log.info("establishing connection to: " + jdbcUrl);
+			con=DriverManager.getConnection(jdbcUrl, userId, passwd);  
+			log.info("Connected!");
 
-			System.out.println("getting database metadata object (con.getMetaData())");
+			log.info("getting database metadata object (con.getMetaData())");
 			DatabaseMetaData dbMetaData = con.getMetaData();
 			
 			String catalog="";
 			// get the catalogs - if any...
 
 
-		    Statement stmntSchems = con.createStatement();
+		    Statement stmntSchems = createStatement(con);
 		    String schemaName="";
 		    String tableName="";
 		    
-			System.out.println("getting catalogs:  DatabaseMetaData.getCatalogs()");
-			ResultSet catalogs = dbMetaData.getCatalogs();
+			log.info("getting catalogs:  DatabaseMetaData.getCatalogs()");
+			ResultSet catalogs = cursor(dbMetaData.getCatalogs());
 		    while (catalogs.next()) {
 		        catalog = catalogs.getString(1);  //"TABLE_CATALOG"
-		        System.out.println("catalog: "+catalog);
+		        log.info("catalog: "+catalog);
 		        createDatabase(catalog);
 
 		        ResultSet schemas=null;
 		        boolean option1=true;
 		        try {
-			        System.out.println("\tgetting schemas - using 'show databases' command");
+			        log.info("\tgetting schemas - using 'show databases' command");
 				    schemas = stmntSchems.executeQuery("show databases");
 		        } catch (Exception ex) {
 				    option1=false;
-		        	System.out.println("Error getting list of databases using: show databases; " + ex.getMessage());
+		        	log.error("Error getting list of databases using: show databases; " + ex.getMessage());
 		        }
 		        
 		        if (schemas==null) {
 			        try {
-				        System.out.println("\tgetting schemas - jdbc DatabaseMetaData.getSchemas()");
-					    schemas = dbMetaData.getSchemas();
+				        log.info("\tgetting schemas - jdbc DatabaseMetaData.getSchemas()");
+					    schemas = cursor(dbMetaData.getSchemas());
 			        } catch (Exception ex) {
-			        	System.out.println("Error getting list of databases using: getSchemas. " + ex.getMessage());
+			        	log.error("Error getting list of databases using: getSchemas. " + ex.getMessage());
 			        }
 		        	
 		        }
@@ -208,62 +249,75 @@ public class AthenaScanner {
 			    	} else {
 			    		schemaName = schemas.getString("TABLE_SCHEM");			    		
 			    	}
-			    	System.out.println("\tschema=" + schemaName);
+			    	log.info("\tschema=" + schemaName);
 			    	
 			    	if (isObjectIncluded(schemaName, schemaIncludeFilters, schemaExcludeFilters)) {
 //			    		System.out.println("\tschema: " + schemaName + " skipped - does not match any filter expressions");
 //			    	} else { 
 			    		// good to go for this schema
 				    	createSchema(catalog, schemaName);
+				    	int schemaTables = 0;
+				    	int schemaViews = 0;
+				    	int schemaColumns = 0;
 				    	
 				    	// get a list of views - they also get listed as tables - so we need to get a list of the 
 				    	// views first so they are not processed 2x (and we can extract the view sql)
-				    	System.out.println("\t\tgetting view list using: 'show views in " + schemaName + "' command");
-					    ResultSet viewRs = con.createStatement().executeQuery("show views in " + schemaName);
+				    	log.debug("\t\tgetting view list using: 'show views in " + schemaName + "' command");
+					    Statement viewSt = createStatement(con);
+					    ResultSet viewRs = viewSt.executeQuery("show views in " + schemaName);
 					    List<String> views = new ArrayList<String>();
 					    while (viewRs.next()) {
 					    	views.add(viewRs.getString("views"));
 					    }
-					    System.out.println("\t\tviews found: " + views.toString());
+					    closeQuietly(viewRs, viewSt);
+					    log.debug("\t\tviews found: " + views.toString());
 				    	
-				    	System.out.println("\t\tgetting table list using: 'show tables in " + schemaName + "' command");
-					    ResultSet tables = con.createStatement().executeQuery("show tables in " + schemaName);
+				    	log.debug("\t\tgetting table list using: 'show tables in " + schemaName + "' command");
+					    Statement tableSt = createStatement(con);
+					    ResultSet tables = tableSt.executeQuery("show tables in " + schemaName);
 					    while(tables.next()) {
 					        //Print
 					    	tableName = tables.getString("tab_name");
-					        System.out.println("\t\t" + tableName);
+					        log.debug("\t\t" + tableName);
 					        
 					        if (! isObjectIncluded(tableName, tableIncludeFilters, tableExcludeFilters)) {
-					        	System.out.println("table not processed:  " + tableName);
+					        	log.debug("table not processed:  " + tableName);
 					        } else {
 					        	// is it a table or view
 						        boolean isTable=true;
 					        	ResultSet tabSQL;
+					        	Statement tabSt = null;
 					        	StringBuffer viewBuf = new StringBuffer();
 					        	String s3Location = "";
 					        	if (views.contains(tableName)) {
 					        		isTable=false;  // its a view
-					        		System.out.println("\t\t\t" + tableName  + " is a view");
-					        		System.out.println("\t\t\textracting create view statement:  "  + "SHOW CREATE VIEW " + schemaName + "." + tableName);
+					        		log.debug("\t\t\t" + tableName  + " is a view");
+					        		log.debug("\t\t\textracting create view statement:  "  + "SHOW CREATE VIEW " + schemaName + "." + tableName);
 					        		try {
-						        	tabSQL = con.createStatement().executeQuery("SHOW CREATE VIEW " + schemaName + "." + tableName);
+						        	tabSt = createStatement(con);
+						        	tabSQL = tabSt.executeQuery("SHOW CREATE VIEW " + schemaName + "." + tableName);
 							        	while (tabSQL.next()) {
 							        		viewBuf.append(tabSQL.getString("create view") + "\n");
 							        	}
 					        		} catch (Exception ex) {
 					        			ex.printStackTrace();
+					        		} finally {
+					        			closeQuietly(tabSt);
 					        		}
 					        	} else {
-					        		System.out.println("\t\t\textracting create table statement:  "  + "SHOW CREATE TABLE " + schemaName + "." + tableName);
+					        		log.debug("\t\t\textracting create table statement:  "  + "SHOW CREATE TABLE " + schemaName + "." + tableName);
 					        		try {
-						        	tabSQL = con.createStatement().executeQuery("SHOW CREATE TABLE " + schemaName + "." + tableName);
+						        	tabSt = createStatement(con);
+						        	tabSQL = tabSt.executeQuery("SHOW CREATE TABLE " + schemaName + "." + tableName);
 							        	while (tabSQL.next()) {
 							        		viewBuf.append(tabSQL.getString("createtab_stmt") + "\n");
 							        	}
 							        	s3Location = extractLocation(viewBuf.toString());
-							        	System.out.println("\t\t\tLocation=" + s3Location);
+							        	log.debug("\t\t\tLocation=" + s3Location);
 					        		} catch (Exception ex) {
 					        			ex.printStackTrace();
+					        		} finally {
+					        			closeQuietly(tabSt);
 					        		}
 					        	}
 					   
@@ -272,8 +326,10 @@ public class AthenaScanner {
 					        	
 					        	if (isTable) {
 					        		createTable(catalog, schemaName, tableName, "TABLE", viewBuf.toString(), s3Location);
+					        		schemaTables++;
 					        	} else {
 					        		createTable(catalog, schemaName, tableName, "VIEW", viewBuf.toString(), "");					        		
+					        		schemaViews++;
 					        	}
 						        
 						        //[TABLE_CAT, TABLE_SCHEM, TABLE_NAME, COLUMN_NAME, 
@@ -284,8 +340,9 @@ public class AthenaScanner {
 						        // SOURCE_DATA_TYPE, IS_AUTOINCREMENT, IS_GENERATEDCOLUMN]
 						    	
 					        	int colCount=0;
+					        	ResultSet columns = null;
 					        	try {
-								    ResultSet columns = dbMetaData.getColumns(catalog, schemaName, tableName, null);
+								    columns = cursor(dbMetaData.getColumns(catalog, schemaName, tableName, null));
 								    while(columns.next()) {
 								    	colCount++;
 						                String columnName = columns.getString("COLUMN_NAME");
@@ -315,32 +372,104 @@ public class AthenaScanner {
 	//					                		);
 								    }  // end for each column
 					        	} catch (Exception ex) {
-					        		System.out.println("error extracting column metadata...");
+					        		log.error("error extracting column metadata...");
 					        		ex.printStackTrace();
+					        	} finally {
+					        		closeQuietly(columns);
 					        	}
-							    System.out.println("\t\t\tcolumns extracted: " + colCount);
+							    log.debug("\t\t\tcolumns extracted: " + colCount);
+							    schemaColumns += colCount;
 					        } // if the table should be processed
 					    }  // end for each table
-					    System.out.println("finished tables");
+					    closeQuietly(tables, tableSt);
+					    // 1 summary per schema (the messages per table are debug)
+					    log.info("\t\ttables=" + schemaTables + " views=" + schemaViews + " columns=" + schemaColumns);
 					    
 			    	} // end of schema filter
 	
 			    }  // end loop for each schema
-			    System.out.println("finished schemas");
+			    closeQuietly(schemas);
+			    log.info("finished schemas");
 
 		    }  // end loop for each catalog (usually only 1)		    
+		    closeQuietly(catalogs, stmntSchems);
 
-		    System.out.println("closing athena jdbc connection...");
-		    con.close();  
 		} catch(ClassNotFoundException cne) {
-				System.out.println("\tcannot initialize class=" + jdbcDriver + " " + cne.getClass().getName() + " jdbc driver needs to be in current folder or CLASSPATH");
+				log.error("\tcannot initialize class=" + jdbcDriver + " " + cne.getClass().getName() + " jdbc driver needs to be in current folder or CLASSPATH");
 		} catch(Exception e) { 
-			 	System.out.println(e);
+			 	log.error(e);
 				e.printStackTrace();
-		}  
+		} finally {
+			if (con != null) {
+			    log.info("closing athena jdbc connection...");
+			    closeQuietly(con);
+			}
+		}
     	
     }
 
+    /**
+     * forward only, read only statement - using jdbc.fetch.size
+     */
+    private Statement createStatement(Connection con) throws SQLException {
+    	Statement st = con.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    	if (fetchSize > 0) {
+    		st.setFetchSize(fetchSize);
+    	}
+    	return st;
+    }
+
+    /**
+     * apply jdbc.fetch.size to a DatabaseMetaData result set (a hint - may be ignored by the driver)
+     */
+    private ResultSet cursor(ResultSet rs) {
+    	if (rs != null && fetchSize > 0) {
+    		try {
+    			rs.setFetchSize(fetchSize);
+    		} catch (SQLException ex) {
+    			// not supported - use the driver default
+    		}
+    	}
+    	return rs;
+    }
+
+    /**
+     * log4j - console output, using an AsyncAppender (log.async=true) so the scan 
+     * does not wait for the console.  the level is set by log.level (default INFO, 
+     * DEBUG for a message per table/view)
+     */
+    private static void initLogging(String level, boolean async, int bufferSize) {
+    	ConsoleAppender console = new ConsoleAppender(new PatternLayout("%m%n"));
+    	log.removeAllAppenders();
+    	if (async) {
+    		AsyncAppender asyncAppender = new AsyncAppender();
+    		asyncAppender.setBufferSize(bufferSize);
+    		// wait when the buffer is full - messages are not discarded
+    		asyncAppender.setBlocking(true);
+    		asyncAppender.addAppender(console);
+    		log.addAppender(asyncAppender);
+    	} else {
+    		log.addAppender(console);
+    	}
+    	log.setAdditivity(false);
+    	log.setLevel(Level.toLevel(level.trim(), Level.INFO));
+    }
+    
+    /**
+     * close result sets/statements/connections - ignoring nulls and errors
+     */
+    private static void closeQuietly(AutoCloseable... resources) {
+    	for (AutoCloseable resource : resources) {
+    		if (resource != null) {
+    			try {
+    				resource.close();
+    			} catch (Exception ex) {
+    				// already closed
+    			}
+    		}
+    	}
+    }
+
 	private boolean isObjectIncluded(String objectName, List<String> includedRegexes, List<String> excludedRegexes) {
 //		System.out.println("checking to exclude" + objectName);
 		boolean processSchema = true;  // assume true - until we find out otherwise
@@ -349,7 +478,7 @@ public class AthenaScanner {
 		if (excludedRegexes.size() > 0) {
 			for (String filter: excludedRegexes) {
 				if (objectName.matches(filter)) {
-					System.out.println("\t\tobject: " + objectName + " is excluded");
+					log.debug("\t\tobject: " + objectName + " is excluded");
 					processSchema = false;
 					return false;
 				}							
@@ -367,7 +496,7 @@ public class AthenaScanner {
 				}							
 			}
 		}
-		System.out.println("\t\tobject: " + objectName + " included:" + processSchema);
+		log.debug("\t\tobject: " + objectName + " included:" + processSchema);
 		return processSchema;
 	}
     
@@ -402,7 +531,7 @@ public class AthenaScanner {
     
     
     private boolean closeFiles() {
-		System.out.println("closing output files");
+		log.info("closing output files");
 
 		try { 
 			otherObjWriter.close(); 
@@ -420,7 +549,7 @@ public class AthenaScanner {
     }
     
     private void createDatabase(String dbName) {
-    	System.out.println("\tcreating database: " + dbName);
+    	log.info("\tcreating database: " + dbName);
     	
     	try {
     		this.otherObjWriter.writeNext(new String[] {dbType,dbName,dbName});
@@ -513,10 +642,10 @@ public class AthenaScanner {
 	public static void main(String[] args) {
 		AthenaScanner scanner;
 		if (args.length==0) {
-			System.out.println("AthenaScanner: missing configuration properties file: using athena.properties in current folder");
+			log.info("AthenaScanner: missing configuration properties file: using athena.properties in current folder");
 			scanner = new AthenaScanner("athena.properties");
 		} else {
-			System.out.println("AthenaScanner: " + args[0] + " currentTimeMillis=" +System.currentTimeMillis());
+			log.info("AthenaScanner: " + args[0] + " currentTimeMillis=" +System.currentTimeMillis());
 			
 			// pass the property file - the constructor will read all input properties
 			scanner = new AthenaScanner(args[0]);			
@@ -525,7 +654,9 @@ public class AthenaScanner {
 		scanner.run();
 		scanner.closeFiles();
 		
-		System.out.println("Finished");
+		log.info("Finished");
+		// write any buffered messages
+		LogManager.shutdown();
 
 	}  // end main()
 	
@@ -16,6 +16,8 @@ propfile=$1
 export SCANNER_TRUSTSTORE=$INFA_HOME/services/shared/security/infa_truststore.jks
 export SCANNER_TRUSTSTORE_PWD=
 export JAVA_OPTS="-Djavax.net.ssl.trustStore=$SCANNER_TRUSTSTORE -Djavax.net.ssl.trustStorePassword=$SCANNER_TRUSTSTORE_PWD -Djavax.net.ssl.trustStoreType=JKS"
+# java flight recorder - metadata call/csv output/vql parse events (open the .jfr file in jdk mission control)
+# export JAVA_OPTS="${JAVA_OPTS} -XX:StartFlightRecording=filename=denodo_scan.jfr"
 
 java ${JAVA_OPTS} -cp "denodoCustomScanner.jar:lib/*" com.infa.edc.scanner.denodo.DenodoScanner ${propfile} $2
 
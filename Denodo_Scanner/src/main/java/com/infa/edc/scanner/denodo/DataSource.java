@@ -10,6 +10,9 @@ import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.infa.edc.scanner.jdbc.ScanEvents;
+import com.infa.edc.scanner.jdbc.ScanLogger;
+
 /**
  * @author dwrigley
  * 
@@ -22,6 +25,7 @@ import java.util.regex.Pattern;
  *
  */
 public class DataSource {
+	private static final ScanLogger log = ScanLogger.getLogger(DataSource.class);
 	// type will be JDBC, ODBC, DF etc...
 	private String type;
 	private String name;
@@ -52,7 +56,11 @@ public class DataSource {
 		DataSource ds = new DataSource();
 //		System.out.println("raw ds=" + ds);
 		
+		ScanEvents.Parse event = ScanEvents.parse("datasource", datasourceDef);
 		ds = ds.parse(datasourceDef, inDatabase);
+		if (event != null) {
+			event.finish(inDatabase + "." + ds.getName());
+		}
 //		System.out.println("cooked ds=" + ds);
 		
 		return ds;
@@ -139,13 +147,18 @@ public class DataSource {
 				if (regexMatcher.find() && regexMatcher.groupCount() ==2) {
 					this.type = regexMatcher.group(1);
 					this.name = regexMatcher.group(2);
-					if (cache.containsKey(inDatabase +"." + this.name)) {
-						System.out.println("cached entry for datasource: " + inDatabase +"." + this.name);
-						return cache.get(inDatabase +"." + this.name);
+					// the cache is only used if the vql is the same (scanner service - the datasource
+					// may have changed since the last scan)
+					DataSource cached = cache.get(inDatabase +"." + this.name);
+					if (cached != null && datasourceDef.equals(cached.vql)) {
+						log.debug("cached entry for datasource: " + inDatabase +"." + this.name);
+						return cached;
+					} else if (cached != null) {
+						log.debug("datasource changed since it was cached: " + inDatabase +"." + this.name);
 					}
 
 				} else {
-					System.out.println("Error:  unable to extract connection name from: " + aLine + " groupcount != 2, using regex=" + dsPattern);
+					log.warn("Error:  unable to extract connection name from: " + aLine + " groupcount != 2, using regex=" + dsPattern);
 				}
 
 				// end of CREATE DATASOURCE
@@ -202,7 +215,7 @@ public class DataSource {
 					}
 				} else {
 					// could be fto
-					System.out.println("\n Error: HELP!!..." + aLine);
+					log.warn("\n Error: HELP!!..." + aLine);
 				}
 				// end of ROUTE
 			} else if (aLine.trim().startsWith("COLUMNDELIMITER ")) {
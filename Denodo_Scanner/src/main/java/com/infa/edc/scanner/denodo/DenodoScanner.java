@@ -1,29 +1,40 @@
 package com.infa.edc.scanner.denodo;
 
 import com.infa.edc.scanner.jdbc.GenericScanner;
+import com.infa.edc.scanner.jdbc.ScanMetrics;
+import com.infa.edc.scanner.jdbc.ScanLogger;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.Console;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.FileReader;
 import java.io.FileWriter;
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.StringReader;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.concurrent.atomic.LongAdder;
 import java.sql.Connection;
 import javax.swing.JOptionPane;
 import javax.swing.JPasswordField;
@@ -32,9 +43,14 @@ import java.util.regex.Pattern;
 
 import scanner_util.EncryptionUtil;
 
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
 import com.opencsv.CSVWriter;
+import com.opencsv.enums.CSVReaderNullFieldIndicator;
+import com.opencsv.exceptions.CsvValidationException;
 
 public class DenodoScanner extends GenericScanner {
+    private static final ScanLogger log = ScanLogger.getLogger(DenodoScanner.class);
     public static final String version = "1.0.000";
 
     protected static String DISCLAIMER = "\n************************************ Disclaimer *************************************\n"
@@ -51,11 +67,28 @@ public class DenodoScanner extends GenericScanner {
     protected CSVWriter custLineageWriter = null;
     protected PrintWriter debugWriter = null;
 
+    // call types for the scan metrics (see ScanMetrics)
+    protected static final String CALL_GET_ELEMENTS = "get_elements";
+    protected static final String CALL_GET_VIEWS = "get_views";
+    protected static final String CALL_GET_VIEWS_COUNT = "get_views (progress estimate)";
+    protected static final String CALL_VIEW_COLUMNS = "catalog_vdp_metadata_views";
+    protected static final String CALL_DATABASE_COLUMNS = "catalog_vdp_metadata_views (database)";
+    protected static final String CALL_DESC_VQL_DATASOURCE = "desc vql datasource";
+    protected static final String CALL_DESC_VQL_VIEW = "desc vql view";
+    protected static final String CALL_DESC_VQL_WRAPPER = "desc vql wrapper";
+    protected static final String CALL_DESC_VQL_DATABASE = "desc vql database";
+    protected static final String CALL_VIEW_DEPENDENCIES = "view_dependencies";
+    protected static final String CALL_COLUMN_DEPENDENCIES = "column_dependencies";
+    protected static final String CALL_EXPRESSIONS = "column_dependencies (expressions)";
+
     protected int expressionsFound = 0;
-    protected int expressionsProcessed = 0;
-    protected int expressionLinks = 0;
-    protected int totalColumnLineage = 0;
-    protected int totalTableLineage = 0;
+    // lineage counters - lock-free, lineage can be extracted by parallel workers
+    protected final LongAdder expressionsProcessed = new LongAdder();
+    protected final LongAdder expressionLinks = new LongAdder();
+    protected final LongAdder totalColumnLineage = new LongAdder();
+    protected final LongAdder totalTableLineage = new LongAdder();
+    // private view dependency edges ignored because they close a cycle
+    protected final LongAdder lineageCycles = new LongAdder();
 
     protected Set<String> datasetsScanned = new HashSet<String>();
     protected Set<String> elementsScanned = new HashSet<String>();
@@ -81,8 +114,8 @@ public class DenodoScanner extends GenericScanner {
     protected boolean doDebug = false;
     protected boolean exportCustLineageInScanner = false;
 
-    // schema to schema links
-    Set<String> schemaSchemaLinks = new HashSet<String>();
+    // schema to schema links (concurrent - written by the lineage workers)
+    Set<String> schemaSchemaLinks = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     protected int descVQLErrors = 0;
     protected int objects_excluded_count = 0;
@@ -91,7 +124,7 @@ public class DenodoScanner extends GenericScanner {
 
     protected CSVWriter filteredOutWriter = null;
     protected CSVWriter missingObjectWriter = null;
-    protected int missingObjectCount = 0;
+    protected final LongAdder missingObjectCount = new LongAdder();
 
     /**
      * experimental features skip_expr_collection view_query_filter
@@ -103,6 +136,22 @@ public class DenodoScanner extends GenericScanner {
     // - for troubleshooting
     protected String view_query_filter = "%";
 
+    // lineage.bulk - 1 COLUMN_DEPENDENCIES call per database for the expressions &
+    // column lineage (spooled to a file until the lineage is extracted)
+    protected boolean bulkColumnDependencies = false;
+    protected Map<String, File> dependencySpools = new ConcurrentHashMap<String, File>();
+    // views with rows that were not together in the spool - extracted per view
+    protected Set<String> splitDependencyViews = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    // bulk.columns (GenericScanner.bulkColumns) - CATALOG_VDP_METADATA_VIEWS for the
+    // database being extracted, read in name order as the tables/views are extracted
+    protected ColumnStream schemaColumns = null;
+
+    // vql.bulk - 1 DESC VQL DATABASE call per database for the wrappers & view
+    // statements (only for the database being extracted - pass 2)
+    protected boolean bulkVql = false;
+    protected DatabaseVql databaseVql = null;
+
     /**
      * Scanner constructor - passing the property file that controls the scan
      *
@@ -112,7 +161,7 @@ public class DenodoScanner extends GenericScanner {
         super(propertyFile);
 
         // denodo specific settings read here (default settings in generic superclass)
-        System.out.println(
+        log.info(
                 this.getClass().getSimpleName() + " " + version + " initializing properties from: " + propertyFile);
 
         // store the property file
@@ -128,50 +177,50 @@ public class DenodoScanner extends GenericScanner {
 
             databaseName = prop.getProperty("denodo.databaseName", "denodo_vdp");
             if (databaseName == null || databaseName.equals("")) {
-                System.out.println("empty value set for denodo.databaseName: using 'denodo_vdp'");
+                log.info("empty value set for denodo.databaseName: using 'denodo_vdp'");
                 databaseName = "denodo_vdp";
             }
-            System.out.println("Database name used for Denodo export:" + databaseName);
+            log.info("Database name used for Denodo export:" + databaseName);
 
             // check for an encrypted password
             String encPwd = prop.getProperty("encryptedPwd", "");
             if (!encPwd.equals("")) {
-                System.out.println("\tusing encrypted password from encryptedPwd property");
+                log.info("\tusing encrypted password from encryptedPwd property");
                 if (pwd.length() > 0) {
-                    System.out.println("replacing pwd with encryptedPwd");
+                    log.info("replacing pwd with encryptedPwd");
                 }
                 pwd = EncryptionUtil.decryptString(encPwd);
             }
 
             doDebug = Boolean.parseBoolean(prop.getProperty("debug", "false"));
-            System.out.println("debug mode=" + doDebug);
+            log.info("debug mode=" + doDebug);
 
             exportCustLineageInScanner = Boolean.parseBoolean(prop.getProperty("include.custlineage", "false"));
-            System.out.println(
+            log.info(
                     "export custom lineage in scanner zip=" + exportCustLineageInScanner + " 10.2.2hf1+ feature");
 
             // look for any tables to skip in ep.skipTables
             String epSkip = prop.getProperty("ep.skipobjects", "");
             if (epSkip != null && epSkip.length() > 0) {
                 String[] elements = epSkip.split(",");
-                System.out.println("processing ep.skipobjects=" + epSkip);
+                log.info("processing ep.skipobjects=" + epSkip);
                 // System.out.println("filter conditions for catalog " + catalogs);
                 for (String filteredView : elements) {
                     epSkipViews.add(filteredView.trim().toLowerCase());
 
                 }
-                System.out.println("skipping extra processing for: " + epSkipViews);
+                log.info("skipping extra processing for: " + epSkipViews);
             }
 
             String exclude_exprs = prop.getProperty("exclude.datasets", "");
             if (exclude_exprs != null && exclude_exprs.length() > 0) {
-                System.out.println("exclude filters = " + exclude_exprs);
+                log.info("exclude filters = " + exclude_exprs);
                 String[] elements = exclude_exprs.split(",");
                 // System.out.println("exclude parts = " + elements);
                 // System.out.println("filter conditions for catalog " + catalogs);
                 for (String filteredView : elements) {
                     if (filteredView.trim().equalsIgnoreCase("*")) {
-                        System.out.println("exclude filter * is not allowed is skipped as it would not scan anything");
+                        log.info("exclude filter * is not allowed is skipped as it would not scan anything");
                         continue;
                     }
                     exclude_objects.add(filteredView.trim().toLowerCase());
@@ -181,13 +230,13 @@ public class DenodoScanner extends GenericScanner {
                     exclude_regex.add(regex);
 
                 }
-                System.out.println("exclude filter parts: " + exclude_objects);
-                System.out.println("exclude filter regex: " + exclude_regex);
+                log.info("exclude filter parts: " + exclude_objects);
+                log.info("exclude filter regex: " + exclude_regex);
             }
 
             String include_exprs = prop.getProperty("include.datasets", "");
             if (include_exprs != null && include_exprs.length() > 0) {
-                System.out.println("include filters = " + include_exprs);
+                log.info("include filters = " + include_exprs);
                 String[] elements = include_exprs.split(",");
                 // System.out.println("exclude parts = " + elements);
                 // System.out.println("filter conditions for catalog " + catalogs);
@@ -199,8 +248,8 @@ public class DenodoScanner extends GenericScanner {
                     include_regex.add(regex);
 
                 }
-                System.out.println("include filter parts: " + include_objects);
-                System.out.println("include filter regex: " + include_regex);
+                log.info("include filter parts: " + include_objects);
+                log.info("include filter regex: " + include_regex);
             }
 
             /**
@@ -208,17 +257,21 @@ public class DenodoScanner extends GenericScanner {
              */
             skip_expr_collection = Boolean.parseBoolean(prop.getProperty("skip_expression_collection", "false"));
             if (skip_expr_collection) {
-                System.out.println("Expression Collection skipped - skip_expr_collection=true");
+                log.info("Expression Collection skipped - skip_expr_collection=true");
             }
             // view query filter - default get all views - allows for db filtering for views
             // - for troubleshooting
             view_query_filter = prop.getProperty("view_select_filter", "%");
             if (!view_query_filter.equalsIgnoreCase("%")) {
-                System.out.println("View sql query filter input_name='" + view_query_filter + "' will be used");
+                log.info("View sql query filter input_name='" + view_query_filter + "' will be used");
             }
+            bulkColumnDependencies = Boolean.parseBoolean(prop.getProperty("lineage.bulk", "false"));
+            log.info("\tlineage.bulk=" + bulkColumnDependencies);
+            bulkVql = Boolean.parseBoolean(prop.getProperty("vql.bulk", "false"));
+            log.info("\tvql.bulk=" + bulkVql);
 
         } catch (Exception e) {
-            System.out.println("ERROR: reading properties file: " + propertyFile);
+            log.error("ERROR: reading properties file: " + propertyFile);
             e.printStackTrace();
         }
 
@@ -229,12 +282,12 @@ public class DenodoScanner extends GenericScanner {
      */
     public static void main(String[] args) {
         if (args.length == 0) {
-            System.out.println(
+            log.info(
                     "Denodo Custom scanner for EDC: missing configuration properties file: usage:  DenodoScanner <folder>/<config file>.properties");
             System.exit(0);
         }
 
-        System.out.println("Denodo Custom scanner: " + args[0] + " currentTimeMillis=" + System.currentTimeMillis());
+        log.info("Denodo Custom scanner: " + args[0] + " currentTimeMillis=" + System.currentTimeMillis());
         // System.out.println(System.getProperty("java.class.path").replace(';', '\n'));
 
         // check to see if a disclaimer override parameter was passed
@@ -244,9 +297,9 @@ public class DenodoScanner extends GenericScanner {
             disclaimerParm = args[1];
             // System.out.println("disclaimer parameter passed: " + disclaimerParm);
             if ("agreeToDisclaimer".equalsIgnoreCase(disclaimerParm)) {
-                System.out.println(
+                log.info(
                         "the following disclaimer was agreed to by passing 'agreeToDisclaimer' as 2nd parameter");
-                System.out.println(DISCLAIMER);
+                log.info(DISCLAIMER);
             }
         }
 
@@ -264,8 +317,9 @@ public class DenodoScanner extends GenericScanner {
             DenodoScanner scanner = new DenodoScanner(args[0]);
             scanner.run();
         } else {
-            System.out.println("Disclaimer was declined - exiting");
+            log.info("Disclaimer was declined - exiting");
         }
+        ScanLogger.shutdown();
 
     }
 
@@ -274,12 +328,12 @@ public class DenodoScanner extends GenericScanner {
      * pass the disclaimer)
      */
     public static boolean showDisclaimer() {
-        System.out.println(DISCLAIMER);
+        log.info(DISCLAIMER);
         Console c = System.console();
         String response;
         boolean hasAgreed = false;
         if (c == null) { // IN ECLIPSE IDE (prompt for password using swing ui
-            System.out.println("no console found...");
+            log.info("no console found...");
             final JPasswordField pf = new JPasswordField();
             String message = "Do you agree to this disclaimer? Y or N ";
             response = JOptionPane.showConfirmDialog(null, pf, message, JOptionPane.OK_CANCEL_OPTION,
@@ -288,7 +342,7 @@ public class DenodoScanner extends GenericScanner {
         } else { // Outside Eclipse IDE (e.g. windows/linux console)
             response = new String(c.readLine("agree (Y|N)? "));
         }
-        System.out.println("user entered:" + response);
+        log.info("user entered:" + response);
         if (response != null && response.equalsIgnoreCase("Y")) {
             hasAgreed = true;
         }
@@ -302,9 +356,12 @@ public class DenodoScanner extends GenericScanner {
      */
     @Override
     public void getCatalogs() {
-        System.out.println("Step 5: creating denodo catalog...");
+        log.info("Step 5: creating denodo catalog...");
 
-        this.createDatabase(databaseName);
+        if (!isCheckpointed("db/" + databaseName)) {
+            this.createDatabase(databaseName);
+            checkpoint("db/" + databaseName);
+        }
 
         getSchemas(databaseName);
     }
@@ -316,16 +373,17 @@ public class DenodoScanner extends GenericScanner {
      */
     @Override
     public void getSchemas(String catalogName) {
-        System.out.println("Step 6: creating denodo schemas (from catalogs)");
-        System.out.println("pass 1 - extracting datasources for datbase/schemas");
-        ResultSet catalogs;
+        log.info("Step 6: creating denodo schemas (from catalogs)");
+        log.info("pass 1 - extracting datasources for datbase/schemas");
         List<String> schemasToProcess = new ArrayList<String>();
+        ResultSet catalogs = null;
         try {
-            catalogs = dbMetaData.getCatalogs();
+            long started = startCall();
+            catalogs = cursor(ScanMetrics.GET_CATALOGS, null, started, dbMetaData.getCatalogs());
             String schemaName;
             while (catalogs.next()) {
                 schemaName = catalogs.getString(1); // "TABLE_CATALOG"
-                System.out.print("\tschema: " + schemaName);
+                log.info("\tschema: " + schemaName);
 
                 if (isCatalogScanned(schemaName)) {
                     schemasToProcess.add(schemaName);
@@ -335,47 +393,256 @@ public class DenodoScanner extends GenericScanner {
                     this.flushFiles();
                 } else {
                     // message for catalog is not exported...
-                    System.out.println(
+                    log.info(
                             "\tschema=" + schemaName + " skipped - not included in catalog filter: " + catalogFilter);
                 }
 
             }
         } catch (SQLException e) {
+            callFailed();
             e.printStackTrace();
+        } finally {
+            closeQuietly(catalogs);
         }
 
+        // resumed scan - schemas already extracted are not extracted again, but the
+        // lineage needs the tables/views/columns (read back from the output files)
+        List<String> schemasExtracted = new ArrayList<String>();
+        for (String schemaName : schemasToProcess) {
+            if (isCheckpointed("schema/" + catalogName + "/" + schemaName)) {
+                schemasExtracted.add(schemaName);
+            }
+        }
+        if (schemasExtracted.size() > 0) {
+            restoreExtractedSchemas(catalogName, schemasExtracted);
+        }
+
+        List<String> schemasToExtract = new ArrayList<String>(schemasToProcess);
+        schemasToExtract.removeAll(schemasExtracted);
+        estimateObjects(catalogName, schemasToExtract);
+
         // pass 2 - extract the schema metatata
-        System.out.println("pass 2 - extracting structure for datbase/schema");
+        log.info("pass 2 - extracting structure for datbase/schema");
         for (String schemaName : schemasToProcess) {
-            System.out.println("\tschema: " + schemaName);
+            log.info("\tschema: " + schemaName);
+            if (schemasExtracted.contains(schemaName)) {
+                log.info("\t\talready extracted (checkpoint) - skipped");
+                continue;
+            }
             createSchema(catalogName, schemaName);
 
             // extract datasources - we need these later, since they are used across
             // databases
+            // vql.bulk - the view & wrapper statements for this database
+            if (bulkVql) {
+                harvestDatabaseVql(schemaName);
+            }
             // process tables
+            // bulk.columns - the columns of all tables, then all views (1 call each)
+            long failedBefore = failedTasks.sum();
+            schemaColumns = bulkColumns ? getColumnsForSchema(schemaName) : null;
             getTables(catalogName, schemaName);
+            closeSchemaColumns();
+            schemaColumns = bulkColumns ? getColumnsForSchema(schemaName) : null;
             getViews(catalogName, schemaName);
+            closeSchemaColumns();
+            databaseVql = null;
 
+            // flushes the files & records the schema as extracted (if checkpoint=true)
             this.flushFiles();
+            if (failedTasks.sum() > failedBefore) {
+                log.error("\tdatabase: " + schemaName + " not checkpointed - " + (failedTasks.sum() - failedBefore)
+                        + " task(s) failed");
+                continue;
+            }
+            checkpoint("schema/" + catalogName + "/" + schemaName);
 
         }
     } // getSchemas
 
+    /**
+     * progress estimate - the number of rows from GET_VIEWS() (base views/tables &
+     * views) for each schema to extract
+     *
+     * @param catalogName
+     * @param schemaNames the schemas to extract
+     */
+    @Override
+    protected void estimateObjects(String catalogName, Collection<String> schemaNames) {
+        if (!progressEstimate || schemaNames.isEmpty()) {
+            return;
+        }
+        long count = 0;
+        PreparedStatement viewCount = null;
+        try {
+            viewCount = prepareStatement(connection,
+                    "SELECT name FROM GET_VIEWS() WHERE input_database_name = ? and input_name = ?");
+            for (String schemaName : schemaNames) {
+                viewCount.setString(1, schemaName);
+                viewCount.setString(2, view_query_filter);
+                ResultSet rs = executeQuery(CALL_GET_VIEWS_COUNT, schemaName, viewCount);
+                while (rs.next()) {
+                    count++;
+                }
+                rs.close();
+            }
+        } catch (SQLException e) {
+            log.warn("\tunable to estimate the number of tables/views: " + e.getMessage());
+            return;
+        } finally {
+            closeQuietly(viewCount);
+        }
+        log.info("\testimated tables/views: " + count);
+        progress.addExpected(count);
+    }
+
+    /**
+     * resume from a checkpoint - rebuild what the lineage (extraProcessing) needs
+     * for schemas extracted by the interrupted scan, from the output files: the
+     * tables, views & columns scanned & the wrappers for the tables (desc vql -
+     * not stored in the output)
+     *
+     * @param catalogName
+     * @param schemaNames schemas that were already extracted
+     */
+    protected void restoreExtractedSchemas(String catalogName, List<String> schemaNames) {
+        log.info("restoring " + schemaNames.size() + " schemas extracted before the checkpoint: "
+                + schemaNames);
+        Set<String> schemas = new HashSet<String>(schemaNames);
+        CSVReader reader = null;
+        try {
+            // tables - identity=<db>/<schema>/<table>, name, description, sql
+            reader = openOutputFile(TABLEVIEWS_FILENAME);
+            String[] row;
+            while ((row = reader.readNext()) != null) {
+                String schemaName = row.length < 3 ? null : getSchemaFromIdentity(catalogName, row[1], schemas);
+                if (schemaName == null) {
+                    continue;
+                }
+                String tableName = row[2];
+                List<String> values = tableDbNameMap.get(schemaName);
+                if (values == null) {
+                    values = new ArrayList<String>();
+                    tableDbNameMap.put(schemaName, values);
+                }
+                values.add(tableName);
+                datasetsScanned.add(schemaName + "/" + tableName);
+                if (row.length > 4 && !row[4].equals("")) {
+                    tablesWithSQL.add(schemaName + "." + tableName);
+                }
+                tabCount.increment();
+                // the wrapper is needed for the external (custom) lineage
+                extractWrapper(schemaName, tableName);
+            }
+            reader.close();
+
+            reader = openOutputFile(VIEWS_FILENAME);
+            while ((row = reader.readNext()) != null) {
+                String schemaName = row.length < 3 ? null : getSchemaFromIdentity(catalogName, row[1], schemas);
+                if (schemaName == null) {
+                    continue;
+                }
+                List<String> values = viewDbNameMap.get(schemaName);
+                if (values == null) {
+                    values = new ArrayList<String>();
+                    viewDbNameMap.put(schemaName, values);
+                }
+                values.add(row[2]);
+                datasetsScanned.add(schemaName + "/" + row[2]);
+                vwCount.increment();
+            }
+            reader.close();
+
+            // columns - name, table identity (core.dataSetUuid)
+            for (String fileName : new String[] { COLUMN_FILENAME, VCOLUMN_FILENAME }) {
+                reader = openOutputFile(fileName);
+                while ((row = reader.readNext()) != null) {
+                    restoreColumn(catalogName, row, schemas, fileName.equals(VCOLUMN_FILENAME));
+                }
+                reader.close();
+            }
+        } catch (IOException | CsvValidationException e) {
+            log.error("ERROR: restoring schemas from the output files - lineage may be incomplete");
+            e.printStackTrace();
+        } finally {
+            closeQuietly(reader);
+        }
+        log.info("\trestored tables=" + tableDbNameMap.size() + " views=" + viewDbNameMap.size()
+                + " columns=" + elementsScanned.size());
+    }
+
+    /**
+     * restore a column (row from the columns or view columns file)
+     */
+    private void restoreColumn(String catalogName, String[] row, Set<String> schemas, boolean isView) {
+        if (row.length < 7) {
+            return;
+        }
+        String schemaName = getSchemaFromIdentity(catalogName, row[6], schemas);
+        if (schemaName == null) {
+            return;
+        }
+        if (isView) {
+            vwColCount.increment();
+        } else {
+            colCount.increment();
+        }
+        String tableName = row[6].substring(catalogName.length() + schemaName.length() + 2);
+        elementsScanned.add(schemaName + "/" + tableName + "/" + row[2]);
+        Map<String, List<String>> schemaMap = colDbNameMap.get(schemaName);
+        if (schemaMap == null) {
+            schemaMap = new HashMap<String, List<String>>();
+            colDbNameMap.put(schemaName, schemaMap);
+        }
+        List<String> cols = schemaMap.get(tableName);
+        if (cols == null) {
+            cols = new ArrayList<String>();
+            schemaMap.put(tableName, cols);
+        }
+        cols.add(row[2]);
+    }
+
+    /**
+     * @return the schema of an identity <catalog>/<schema>/<table>, or null if not
+     *         one of the schemas
+     */
+    private String getSchemaFromIdentity(String catalogName, String identity, Set<String> schemas) {
+        String prefix = catalogName + "/";
+        if (identity == null || !identity.startsWith(prefix)) {
+            return null;
+        }
+        int end = identity.indexOf('/', prefix.length());
+        if (end < 0) {
+            return null;
+        }
+        String schemaName = identity.substring(prefix.length(), end);
+        return schemas.contains(schemaName) ? schemaName : null;
+    }
+
+    /**
+     * open a csv file in the output folder - positioned after the header
+     */
+    private CSVReader openOutputFile(String fileName) throws IOException, CsvValidationException {
+        CSVReader reader = new CSVReader(new FileReader(customMetadataFolder + "/" + fileName));
+        reader.readNext();
+        return reader;
+    }
+
     protected void collectDataSourcesforSchema(String aSchema) {
         String sqlQuery = "select * from get_elements() where input_database_name = ? and input_type='DataSources'";
         int dsCount = 0;
+        PreparedStatement dsStmnt = null;
         try {
             // ResultSet rsViews = dbMetaData.getTables(schemaName, null, null, new String[]
             // { "VIEW" });
-            PreparedStatement dsStmnt = null;
-            dsStmnt = connection.prepareStatement(sqlQuery);
+            dsStmnt = prepareStatement(connection, sqlQuery);
             dsStmnt.setString(1, aSchema);
             if (doDebug && debugWriter != null) {
                 debugWriter.println("collectDataSourcesforSchema:\tprepared sql statement=" + sqlQuery);
                 debugWriter.flush();
             }
 
-            ResultSet rsDataSources = dsStmnt.executeQuery();
+            ResultSet rsDataSources = executeQuery(CALL_GET_ELEMENTS, aSchema, dsStmnt);
             while (rsDataSources.next()) {
                 // Print
                 dsCount++;
@@ -390,9 +657,11 @@ public class DenodoScanner extends GenericScanner {
                 // PreparedStatement wrapperStmnt = null;
                 // String wrapperQuery = "DESC VQL WRAPPER JDBC ";
                 String viewSqlStmnt = "";
+                Statement stViewSql = null;
                 try {
-                    Statement stViewSql = connection.createStatement();
-                    ResultSet rs = stViewSql.executeQuery(viewSQL);
+                    stViewSql = createStatement(connection);
+                    ResultSet rs = executeQuery(CALL_DESC_VQL_DATASOURCE, objectName(aSchema, dsName), stViewSql,
+                            viewSQL);
                     while (rs.next()) {
                         // System.out.println("\t\twrapper.....");
                         // System.out.println("view sql^^^^=" + viewSQL);
@@ -401,7 +670,7 @@ public class DenodoScanner extends GenericScanner {
                         int startPos = viewSqlStmnt.indexOf("CREATE DATASOURCE");
                         int endPos = viewSqlStmnt.indexOf(";\n", startPos + 15);
                         if (startPos == -1 | endPos == -1) {
-                            System.out.println("ERROR: cant find create datasource for " + aSchema + "." + dsName);
+                            log.warn("ERROR: cant find create datasource for " + aSchema + "." + dsName);
                             startPos = 0; // work to do here - where there is no datasource because it is in a different
                                           // folder
                         }
@@ -415,7 +684,7 @@ public class DenodoScanner extends GenericScanner {
                     }
                 } catch (SQLException e) {
                     descVQLErrors++;
-                    System.out.println(
+                    log.warn(
                             "collectDataSourcesforSchema: error executing query: " + viewSQL + "\n\t" + e.getMessage());
                     if (doDebug && debugWriter != null) {
                         debugWriter.println("collectDataSourcesforSchema: error executing query: " + viewSQL + "\n\t"
@@ -426,6 +695,8 @@ public class DenodoScanner extends GenericScanner {
                     }
 
                     // e.printStackTrace();
+                } finally {
+                    closeQuietly(stViewSql);
                 }
 
                 // System.out.println("\treading datasource: " + aSchema + "." + dsName + "
@@ -434,11 +705,184 @@ public class DenodoScanner extends GenericScanner {
 
         } catch (SQLException e) {
             e.printStackTrace();
+        } finally {
+            closeQuietly(dsStmnt);
         }
-        System.out.println("\tdatasources=" + dsCount + " allDataSources=" + allDataSources.size());
+        log.info("\t\tdatasources=" + dsCount + " allDataSources=" + allDataSources.size());
 
     } // collectDataSourcesforSchema
 
+    // a vql name - "quoted" or not
+    protected static final String VQL_NAME = "(\"(?:[^\"]|\"\")*\"|[^\\s(;)]+)";
+    // CREATE [OR REPLACE] DATASOURCE|WRAPPER <type> <name>
+    protected static final Pattern VQL_CREATE_ELEMENT = Pattern.compile(
+            "^CREATE\\s+(?:OR\\s+REPLACE\\s+)?(DATASOURCE|WRAPPER)\\s+(\\w+)\\s+" + VQL_NAME,
+            Pattern.CASE_INSENSITIVE);
+    // CREATE [OR REPLACE] VIEW|INTERFACE VIEW|MATERIALIZED TABLE|TABLE <name>
+    protected static final Pattern VQL_CREATE_VIEW = Pattern.compile(
+            "^CREATE\\s+(?:OR\\s+REPLACE\\s+)?(VIEW|INTERFACE\\s+VIEW|MATERIALIZED\\s+TABLE|TABLE)\\s+" + VQL_NAME,
+            Pattern.CASE_INSENSITIVE);
+    // ALTER TABLE <name> ADD SEARCHMETHOD ... WRAPPER (<type> <name>)
+    protected static final Pattern VQL_TABLE_WRAPPER = Pattern.compile(
+            "^ALTER\\s+TABLE\\s+" + VQL_NAME + ".*?\\bWRAPPER\\s*\\(\\s*\\w+\\s+" + VQL_NAME,
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    // ADD SEARCHMETHOD ... WRAPPER (<type> <name>) - in a CREATE TABLE statement
+    protected static final Pattern VQL_SEARCHMETHOD_WRAPPER = Pattern.compile(
+            "\\bADD\\s+SEARCHMETHOD\\b.*?\\bWRAPPER\\s*\\(\\s*\\w+\\s+" + VQL_NAME,
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    protected static final Pattern VQL_CONNECT = Pattern.compile("^CONNECT\\s+DATABASE\\s+" + VQL_NAME,
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * the vql for a database (vql.bulk) - the view statements & the wrappers for
+     * the base tables (used instead of desc vql view for each view/table)
+     *
+     * the wrapper vql is kept as-is & parsed when a base table uses it (pass 2)
+     */
+    protected static class DatabaseVql {
+        protected final String database;
+        // view name > CREATE VIEW statement
+        protected final Map<String, String> views = new HashMap<String, String>();
+        // wrapper name > CREATE WRAPPER statement
+        protected final Map<String, String> wrappers = new HashMap<String, String>();
+        // wrapper name > parsed wrapper
+        protected final Map<String, Wrapper> parsedWrappers = new HashMap<String, Wrapper>();
+        // base table name > wrapper name (from the ADD SEARCHMETHOD)
+        protected final Map<String, String> tableWrappers = new HashMap<String, String>();
+
+        protected DatabaseVql(String database) {
+            this.database = database;
+        }
+
+        /**
+         * @return the wrapper for a base table - if there is no searchmethod, the
+         *         wrapper with the same name as the table (or null)
+         */
+        protected synchronized Wrapper getTableWrapper(String table) {
+            String wrapperName = tableWrappers.get(table);
+            if (wrapperName == null) {
+                wrapperName = table;
+            }
+            Wrapper wrapper = parsedWrappers.get(wrapperName);
+            if (wrapper == null && wrappers.containsKey(wrapperName)) {
+                wrapper = Wrapper.createWrapper(wrappers.get(wrapperName), database);
+                parsedWrappers.put(wrapperName, wrapper);
+            }
+            return wrapper;
+        }
+    }
+
+    /**
+     * @return a vql statement starting with CREATE (not CREATE OR REPLACE) - as
+     *         expected by the parsers & returned for desc vql of 1 object
+     */
+    protected static String normaliseVqlCreate(String statement) {
+        return statement.replaceFirst("^(?i)CREATE\\s+OR\\s+REPLACE\\s+", "CREATE ");
+    }
+
+    /**
+     * remove the quotes from a vql name - "name" or name
+     */
+    protected static String unquoteVqlName(String name) {
+        if (name.length() >= 2 && name.startsWith("\"") && name.endsWith("\"")) {
+            return name.substring(1, name.length() - 1).replace("\"\"", "\"");
+        }
+        return name;
+    }
+
+    /**
+     * vql.bulk - get the vql for a database (DESC VQL DATABASE) in 1 call & split
+     * it into statements (VqlSplitter). called in pass 2 for the database being
+     * extracted - the view & wrapper statements and the base table wrapper names
+     * are kept until the database is done (getTables/getViews). the datasources
+     * are skipped (all were collected in pass 1, 1 at a time).
+     *
+     * @return true if the database vql was read, false if the call failed - the
+     *         wrappers & views are described 1 at a time
+     */
+    protected boolean harvestDatabaseVql(final String aSchema) {
+        String query = "DESC VQL DATABASE \"" + aSchema + "\"";
+        if (doDebug && debugWriter != null) {
+            debugWriter.println("harvestDatabaseVql:\tsql statement=" + query);
+            debugWriter.flush();
+        }
+
+        long started = System.nanoTime();
+        final DatabaseVql vql = new DatabaseVql(aSchema);
+        databaseVql = null;
+        VqlSplitter splitter = new VqlSplitter(new VqlSplitter.Handler() {
+            // CONNECT DATABASE - the database the statements are for
+            private String database = aSchema;
+
+            @Override
+            public void statement(String statement) {
+                Matcher matcher = VQL_CREATE_ELEMENT.matcher(statement);
+                if (matcher.find()) {
+                    // datasources are from pass 1, the wrapper is parsed if a base
+                    // table uses it (extractWrapper) - as CREATE WRAPPER
+                    if (database.equals(aSchema) && !matcher.group(1).equalsIgnoreCase("DATASOURCE")) {
+                        vql.wrappers.put(unquoteVqlName(matcher.group(3)), normaliseVqlCreate(statement));
+                    }
+                    return;
+                }
+                if (!database.equals(aSchema)) {
+                    return;
+                }
+                matcher = VQL_CREATE_VIEW.matcher(statement);
+                if (matcher.find()) {
+                    String name = unquoteVqlName(matcher.group(2));
+                    if (!matcher.group(1).equalsIgnoreCase("TABLE")) {
+                        vql.views.put(name, normaliseVqlCreate(statement) + "\n");
+                        return;
+                    }
+                    // base tables are not needed (the wrapper is used) - only the
+                    // wrapper of a searchmethod
+                    Matcher wrapper = VQL_SEARCHMETHOD_WRAPPER.matcher(statement);
+                    if (wrapper.find()) {
+                        vql.tableWrappers.put(name, unquoteVqlName(wrapper.group(1)));
+                    }
+                    return;
+                }
+                matcher = VQL_TABLE_WRAPPER.matcher(statement);
+                if (matcher.find()) {
+                    vql.tableWrappers.put(unquoteVqlName(matcher.group(1)), unquoteVqlName(matcher.group(2)));
+                    return;
+                }
+                matcher = VQL_CONNECT.matcher(statement);
+                if (matcher.find()) {
+                    database = unquoteVqlName(matcher.group(1));
+                }
+            }
+        });
+
+        Statement stVql = null;
+        try {
+            stVql = createStatement(connection);
+            ResultSet rs = executeQuery(CALL_DESC_VQL_DATABASE, aSchema, stVql, query);
+            while (rs.next()) {
+                Reader result = rs.getCharacterStream("result");
+                splitter.split(result != null ? result : new StringReader(""));
+            }
+            splitter.finish();
+        } catch (SQLException e) {
+            log.warn("\tvql.bulk: " + query + " failed - using desc vql for each object: " + e.getMessage());
+            return false;
+        } catch (IOException e) {
+            log.error("vql.bulk: error reading the result of " + query + " " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        } finally {
+            closeQuietly(stVql);
+        }
+        metrics.recordObject(aSchema, ScanMetrics.OBJ_DESC_VQL, started, splitter.getStatementCount());
+
+        databaseVql = vql;
+        log.info("\t\tvql.bulk: statements=" + splitter.getStatementCount() + " wrappers=" + vql.wrappers.size()
+                + " views=" + vql.views.size() + " " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)
+                + "ms");
+        return true;
+    }
+
     /**
      * find all table objects
      *
@@ -450,6 +894,7 @@ public class DenodoScanner extends GenericScanner {
             debugWriter.println("entering getTables(" + catalogName + ", " + schemaName + ")");
             debugWriter.flush();
         }
+        ResultSet rsTables = null;
         try {
             // error: might be related to dendo express - after 1000 tables using get_views
             // - rsTables.next() hangs - needs testing (Revert back to jdbc getTables)
@@ -466,7 +911,9 @@ public class DenodoScanner extends GenericScanner {
 
             // ResultSet rsTables = dbMetaData.getTables(schemaName, null, null, new
             // String[] { "TABLE" });
-            ResultSet rsTables = dbMetaData.getTables(schemaName, null, view_query_filter, new String[] { "TABLE" });
+            long started = startCall();
+            rsTables = cursor(ScanMetrics.GET_TABLES, schemaName, started,
+                    dbMetaData.getTables(schemaName, null, view_query_filter, new String[] { "TABLE" }));
             // ResultSet rsTables = tabMetadata.executeQuery();
 
             int tableCount = 0;
@@ -488,7 +935,7 @@ public class DenodoScanner extends GenericScanner {
                     // included = false;
                     // System.out.println("object is not included in the scan, filtering out... " +
                     // qualified_name_lc);
-                    System.out.print(".");
+                    log.debug("\t\tnot included: " + qualified_name_lc);
                     // log it??
                     filteredOutWriter.writeNext(new String[] { schemaName + "." + tableName, "not included" });
                     objects_not_included++;
@@ -498,7 +945,7 @@ public class DenodoScanner extends GenericScanner {
                 // check if the object should be excluded (supercedes any include filter)
                 boolean excluded = this.isa_regexes_match(exclude_regex, qualified_name_lc);
                 if (excluded) {
-                    System.out.println("\t\t\texcluding object from scan " + qualified_name_lc);
+                    log.debug("\t\t\texcluding object from scan " + qualified_name_lc);
                     filteredOutWriter.writeNext(new String[] { schemaName + "." + tableName, "excluded" });
                     this.objects_excluded.add(qualified_name_lc);
                     this.objects_excluded_count++;
@@ -507,7 +954,7 @@ public class DenodoScanner extends GenericScanner {
 
                 // obsolete now - remove? - replaced by include/exclude filters
                 if (epSkipViews.contains(schemaName.toLowerCase() + "." + tableName.toLowerCase())) {
-                    System.out.println("\t\textract table structure skipped for: " + schemaName + "." + tableName);
+                    log.debug("\t\textract table structure skipped for: " + schemaName + "." + tableName);
                     objects_skipped.add(schemaName + "." + tableName);
                     if (doDebug && debugWriter != null) {
                         debugWriter.println("\textract table structure skipped for: " + schemaName + "." + tableName);
@@ -518,6 +965,7 @@ public class DenodoScanner extends GenericScanner {
 
                 tableCount++;
 
+                long tableStarted = System.nanoTime();
                 try {
                     // note: folder does not come back from jdbc getMetadata (refactor?)
                     String folder = "";
@@ -547,11 +995,13 @@ public class DenodoScanner extends GenericScanner {
                     }
 
                     // System.out.println("found one...");
-                    System.out.print("\t\t" + schemaName // + " schema="
-                    // + rsTables.getString("TABLE_SCHEM")
-                            + "." + tableName
-                            // + " comments=" + rsTables.getClob("REMARKS")
-                            + " wrapperType=" + wrapperType);
+                    if (log.isDebugEnabled()) {
+                        log.debug("\t\t" + schemaName // + " schema="
+                        // + rsTables.getString("TABLE_SCHEM")
+                                + "." + tableName
+                                // + " comments=" + rsTables.getClob("REMARKS")
+                                + " wrapperType=" + wrapperType);
+                    }
                     if (doDebug && debugWriter != null) {
                         debugWriter.println("getTables\t" + " catalog=" + schemaName + " schema=" + schemaName
                                 + " tablename=" + tableName
@@ -566,6 +1016,7 @@ public class DenodoScanner extends GenericScanner {
 
                     // System.out.println(rsTables.getMetaData().getColumnTypeName(5));
                     this.createTableWithSQL(catalogName, schemaName, tableName, comment, wrapperSQL, folder);
+                    metrics.recordObject(objectName(schemaName, tableName), ScanMetrics.OBJ_TABLE, tableStarted, 1);
                     // this.createTable(catalogName, schemaName, tableName, comment);
 
                     // System.out.println("calling get columns.." + tableCount);
@@ -573,16 +1024,19 @@ public class DenodoScanner extends GenericScanner {
                     // System.out.println("called get columns.." + tableCount + " hasnext:" +
                     // rsTables.isLast());
                 } catch (Exception ex) {
-                    System.out.println("Error processing table: " + tableName + " from " + schemaName
+                    log.error("Error processing table: " + tableName + " from " + schemaName
                             + " metadata and lineage will be missing.\n" + ex.getMessage() + "\n");
                     ex.printStackTrace();
                 }
             }
-            System.out.println("\tTables extracted: " + tableCount);
+            log.info("\tTables extracted: " + tableCount);
             // System.out.println(this.tableWrapperTypes);
 
         } catch (SQLException e) {
-            e.printStackTrace();
+            callFailed();
+            taskFailed("tables for database: " + schemaName, e);
+        } finally {
+            closeQuietly(rsTables);
         }
 
         if (doDebug && debugWriter != null) {
@@ -610,9 +1064,11 @@ public class DenodoScanner extends GenericScanner {
             debugWriter.flush();
         }
 
+        Statement viewExpressions = null;
         try {
-            Statement viewExpressions = connection.createStatement();
-            ResultSet viewExprRs = viewExpressions.executeQuery(selectSt);
+            viewExpressions = createStatement(connection);
+            ResultSet viewExprRs = executeQuery(CALL_EXPRESSIONS, objectName(schemaName, tableName), viewExpressions,
+                    selectSt);
             while (viewExprRs.next()) {
                 // System.out.println("expresison field !!!!!!!!!!!");
                 String colName = viewExprRs.getString("column_name");
@@ -625,8 +1081,10 @@ public class DenodoScanner extends GenericScanner {
         } catch (SQLException e) {
             e.printStackTrace();
         } catch (Exception ex) {
-            System.out.println("un-known exception caught" + ex.getMessage());
+            log.error("un-known exception caught" + ex.getMessage());
             ex.printStackTrace();
+        } finally {
+            closeQuietly(viewExpressions);
         }
 
         if (doDebug && debugWriter != null) {
@@ -635,6 +1093,88 @@ public class DenodoScanner extends GenericScanner {
         }
     }
 
+    /**
+     * lineage.bulk - call COLUMN_DEPENDENCIES once for all views in a database
+     * (instead of once per view for the expressions & again for the column
+     * lineage). the expressions are stored & the rows are spooled to a file, the
+     * column lineage is extracted from the file after all objects are known.
+     *
+     * the rows for a view are expected to be together - a view with rows in more
+     * than 1 place is extracted with it's own call (splitDependencyViews)
+     *
+     * @return true if the rows were spooled, false if the call failed (or returned
+     *         nothing) - the per view calls are used
+     */
+    protected boolean spoolColumnDependencies(String schemaName) {
+        String query = "select input_view_name, column_name, view_name, private_view, view_database_name, "
+                + "dependency_database_name, dependency_name, dependency_column_name, dependency_type, expression "
+                + "from COLUMN_DEPENDENCIES (?, ?, ?) where depth=1";
+        if (doDebug && debugWriter != null) {
+            debugWriter.println("spoolColumnDependencies\tpreparedStatement=" + query);
+            debugWriter.flush();
+        }
+
+        File spool = new File(customMetadataFolder, "column_dependencies_" + schemaName + ".tmp");
+        long started = System.nanoTime();
+        int recCount = 0;
+        Set<String> viewsSpooled = new HashSet<String>();
+        String lastView = null;
+        boolean spooled = false;
+        PreparedStatement deps = null;
+        CSVWriter spoolWriter = null;
+        try {
+            spoolWriter = new CSVWriter(new BufferedWriter(new FileWriter(spool)));
+            deps = prepareStatement(connection, query);
+            deps.setString(1, schemaName);
+            deps.setString(2, null);
+            deps.setString(3, null);
+            ResultSet rsDeps = executeQuery(CALL_COLUMN_DEPENDENCIES, schemaName, deps);
+            while (rsDeps.next()) {
+                recCount++;
+                String inViewName = rsDeps.getString("input_view_name");
+                String colName = rsDeps.getString("column_name");
+                String expr = rsDeps.getString("expression");
+                if (!inViewName.equals(lastView)) {
+                    if (!viewsSpooled.add(inViewName)) {
+                        splitDependencyViews.add(schemaName + "." + inViewName);
+                    }
+                    lastView = inViewName;
+                }
+
+                // same as storeTableColExpressions
+                if (expr != null && !skip_expr_collection) {
+                    expressionsFound++;
+                    columnExpressions.put(schemaName + "/" + inViewName + "/" + colName, expr);
+                }
+
+                // null values are written without quotes (read back as null)
+                spoolWriter.writeNext(new String[] { inViewName, colName, rsDeps.getString("view_name"),
+                        rsDeps.getString("private_view"), rsDeps.getString("view_database_name"),
+                        rsDeps.getString("dependency_database_name"), rsDeps.getString("dependency_name"),
+                        rsDeps.getString("dependency_column_name"), rsDeps.getString("dependency_type"), expr });
+            }
+            spooled = recCount > 0;
+        } catch (SQLException e) {
+            log.warn("\tlineage.bulk: COLUMN_DEPENDENCIES failed for database " + schemaName
+                    + " - using 1 call per view: " + e.getMessage());
+        } catch (IOException e) {
+            log.error("error writing column dependencies spool: " + spool + " " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            closeQuietly(deps, spoolWriter);
+        }
+        metrics.recordObject(schemaName, ScanMetrics.OBJ_COLUMN_LINEAGE, started, recCount);
+
+        if (spooled) {
+            dependencySpools.put(schemaName, spool);
+            log.info("\tlineage.bulk: column dependencies spooled for " + viewsSpooled.size() + " views rows="
+                    + recCount + " " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) + "ms");
+        } else {
+            spool.delete();
+        }
+        return spooled;
+    }
+
     /**
      * get view information
      */
@@ -644,13 +1184,17 @@ public class DenodoScanner extends GenericScanner {
             debugWriter.flush();
         }
 
+        // lineage.bulk - the expressions for all views are stored by this call
+        boolean spooled = bulkColumnDependencies && spoolColumnDependencies(schemaName);
+
+        PreparedStatement viewMetadata = null;
         try {
             // ResultSet rsViews = dbMetaData.getTables(schemaName, null, null, new String[]
             // { "VIEW" });
-            PreparedStatement viewMetadata = null;
             String viewQuery = "SELECT database_name, name, type, user_creator, last_user_modifier, create_date, last_modification_date, description, view_type, folder "
-                    + "FROM GET_VIEWS() " + "WHERE input_database_name = ? and view_type>0 and input_name = ?";
-            viewMetadata = connection.prepareStatement(viewQuery);
+                    + "FROM GET_VIEWS() " + "WHERE input_database_name = ? and view_type>0 and input_name = ? "
+                    + "ORDER BY name";
+            viewMetadata = prepareStatement(connection, viewQuery);
             viewMetadata.setString(1, schemaName);
             viewMetadata.setString(2, view_query_filter);
             if (doDebug && debugWriter != null) {
@@ -658,7 +1202,7 @@ public class DenodoScanner extends GenericScanner {
                 debugWriter.flush();
             }
 
-            ResultSet rsViews = viewMetadata.executeQuery();
+            ResultSet rsViews = executeQuery(CALL_GET_VIEWS, schemaName, viewMetadata);
 
             // instead of calling standard jdbc - use this
             // SELECT * FROM GET_VIEWS() WHERE input_database_name = '<catalogName>'
@@ -688,7 +1232,7 @@ public class DenodoScanner extends GenericScanner {
                     // System.out.println("object is not included in the scan, filtering out... " +
                     // qualified_name_lc);
                     filteredOutWriter.writeNext(new String[] { schemaName + "." + viewName, "not included" });
-                    System.out.print(".");
+                    log.debug("\t\tnot included: " + qualified_name_lc);
                     objects_not_included++;
                     continue;
                 }
@@ -696,7 +1240,7 @@ public class DenodoScanner extends GenericScanner {
                 // check if the object should be excluded (supercedes any include filter)
                 boolean excluded = this.isa_regexes_match(exclude_regex, qualified_name_lc);
                 if (excluded) {
-                    System.out.println("\t\t\texcluding object from scan " + qualified_name_lc);
+                    log.debug("\t\t\texcluding object from scan " + qualified_name_lc);
                     filteredOutWriter.writeNext(new String[] { schemaName + "." + viewName, "excluded" });
                     this.objects_excluded.add(qualified_name_lc);
                     this.objects_excluded_count++;
@@ -704,7 +1248,7 @@ public class DenodoScanner extends GenericScanner {
                 }
 
                 if (epSkipViews.contains(schemaName.toLowerCase() + "." + viewName.toLowerCase())) {
-                    System.out.println("\t\textract view structure skipped for: " + schemaName + "." + viewName);
+                    log.debug("\t\textract view structure skipped for: " + schemaName + "." + viewName);
                     objects_skipped.add(schemaName + "." + viewName);
                     if (doDebug && debugWriter != null) {
                         debugWriter.println("\textract view structure skipped for: " + schemaName + "." + viewName);
@@ -726,10 +1270,12 @@ public class DenodoScanner extends GenericScanner {
                 datasetsScanned.add(schemaName + "/" + viewName);
 
                 // System.out.println("found one...");
-                System.out.print("\t\t" + rsViews.getString("database_name") + "." + viewName + " TABLE_TYPE="
-                        + rsViews.getString("view_type")
-                // + " comments=" + rsViews.getString("description")
-                );
+                if (log.isDebugEnabled()) {
+                    log.debug("\t\t" + rsViews.getString("database_name") + "." + viewName + " TABLE_TYPE="
+                            + rsViews.getString("view_type")
+                    // + " comments=" + rsViews.getString("description")
+                    );
+                }
                 // System.out.println(rsTables.getMetaData().getColumnTypeName(5));
                 if (doDebug && debugWriter != null) {
                     debugWriter.println("getViews\t" + " catalog=" + rsViews.getString("database_name") + " viewname="
@@ -743,66 +1289,84 @@ public class DenodoScanner extends GenericScanner {
                 // PreparedStatement wrapperStmnt = null;
                 // String wrapperQuery = "DESC VQL WRAPPER JDBC ";
                 String viewSqlStmnt = "";
-                try {
-                    Statement stViewSql = connection.createStatement();
-                    ResultSet rs = stViewSql.executeQuery(viewSQL);
-                    while (rs.next()) {
-                        // System.out.println("\t\twrapper.....");
-                        // System.out.println("view sql^^^^=" + viewSQL);
-                        viewSqlStmnt = rs.getString("result");
-
-                        // @ todo - extract only the view definition - denodo also incudea all dependent
-                        // objects
-                        // System.out.println("viewSQL=\n" + result);
-
-                        // @todo @important - get the wrapper typoe (DF JDBC WF ...
-
-                        String createStr = "CREATE " + viewTypeName + " " + viewName;
-                        // @todo - rewrite to use regex - looking for surrounding quotes or not
-                        if (!viewName.toLowerCase().equals(viewName) | viewName.contains(".") | viewName.contains("$")
-                                | viewName.contains("/") | viewName.contains("-") | viewName.contains("+")) {
-                            // there are mixed case characters - surround with "
-                            createStr = "CREATE " + viewTypeName + " \"" + viewName + "\"";
-                        }
-                        int dsStart = viewSqlStmnt.indexOf(createStr);
-                        // System.out.println("start pos=" + dsStart + " total length=" +
-                        // viewSqlStmnt.length());
-                        if (dsStart > -1) {
-                            // int dsEnd = viewSqlStmnt.indexOf(");\n", dsStart);
-                            int dsEnd = viewSqlStmnt.indexOf(";\n", dsStart);
-                            // System.out.println("start end=" + dsEnd + " total length=" +
+                Statement stViewSql = null;
+                long descStarted = System.nanoTime();
+                int descRows = 0;
+                // vql.bulk - the statement from DESC VQL DATABASE
+                DatabaseVql vql = databaseVql;
+                String bulkViewSql = vql != null && vql.database.equals(schemaName) ? vql.views.remove(viewName)
+                        : null;
+                if (bulkViewSql != null) {
+                    viewSqlStmnt = bulkViewSql;
+                } else {
+                    try {
+                        stViewSql = createStatement(connection);
+                        ResultSet rs = executeQuery(CALL_DESC_VQL_VIEW, objectName(schemaName, viewName), stViewSql,
+                                viewSQL);
+                        while (rs.next()) {
+                            descRows++;
+                            // System.out.println("\t\twrapper.....");
+                            // System.out.println("view sql^^^^=" + viewSQL);
+                            viewSqlStmnt = rs.getString("result");
+
+                            // @ todo - extract only the view definition - denodo also incudea all dependent
+                            // objects
+                            // System.out.println("viewSQL=\n" + result);
+
+                            // @todo @important - get the wrapper typoe (DF JDBC WF ...
+
+                            String createStr = "CREATE " + viewTypeName + " " + viewName;
+                            // @todo - rewrite to use regex - looking for surrounding quotes or not
+                            if (!viewName.toLowerCase().equals(viewName) | viewName.contains(".")
+                                    | viewName.contains("$") | viewName.contains("/") | viewName.contains("-")
+                                    | viewName.contains("+")) {
+                                // there are mixed case characters - surround with "
+                                createStr = "CREATE " + viewTypeName + " \"" + viewName + "\"";
+                            }
+                            int dsStart = viewSqlStmnt.indexOf(createStr);
+                            // System.out.println("start pos=" + dsStart + " total length=" +
                             // viewSqlStmnt.length());
-                            // viewSqlStmnt = "";
-                            try {
-                                viewSqlStmnt = viewSqlStmnt.substring(dsStart, dsEnd + 3);
-                            } catch (Exception ex) {
+                            if (dsStart > -1) {
+                                // int dsEnd = viewSqlStmnt.indexOf(");\n", dsStart);
+                                int dsEnd = viewSqlStmnt.indexOf(";\n", dsStart);
+                                // System.out.println("start end=" + dsEnd + " total length=" +
+                                // viewSqlStmnt.length());
+                                // viewSqlStmnt = "";
+                                try {
+                                    viewSqlStmnt = viewSqlStmnt.substring(dsStart, dsEnd + 3);
+                                } catch (Exception ex) {
 
+                                }
+                                // System.out.println(viewSqlStmnt);
+                            } else {
+                                // store the whole string
+                                log.warn("\n\n\n\nERROR: can't find start of " + viewTypeName + " " + createStr
+                                        + "\n\n\n\n\n\n");
                             }
-                            // System.out.println(viewSqlStmnt);
-                        } else {
-                            // store the whole string
-                            System.out.println("\n\n\n\nERROR: can't find start of " + viewTypeName + " " + createStr
-                                    + "\n\n\n\n\n\n");
+                            /// int dsEnd = result.indexOf("\n", dsStart);
+                            // System.out.println("start end=" + dsEnd + " total length=" +
+                            // result.length());
+                            /// if (dsStart>0 && dsEnd < result.length()) {
+                            /// connectionName = result.substring(dsStart+15, dsEnd);
+                            /// }
+                        }
+                    } catch (SQLException e) {
+                        descVQLErrors++;
+                        log.warn("getViews: error executing query: " + viewSQL + "\n\t" + e.getMessage());
+                        if (doDebug && debugWriter != null) {
+                            debugWriter.println(
+                                    "getViews: error executing query: " + viewSQL + "\n\t" + e.getMessage());
+                            debugWriter.println("getViews - Exception");
+                            e.printStackTrace(debugWriter);
+                            debugWriter.flush();
                         }
-                        /// int dsEnd = result.indexOf("\n", dsStart);
-                        // System.out.println("start end=" + dsEnd + " total length=" +
-                        // result.length());
-                        /// if (dsStart>0 && dsEnd < result.length()) {
-                        /// connectionName = result.substring(dsStart+15, dsEnd);
-                        /// }
-                    }
-                } catch (SQLException e) {
-                    descVQLErrors++;
-                    System.out.println("getViews: error executing query: " + viewSQL + "\n\t" + e.getMessage());
-                    if (doDebug && debugWriter != null) {
-                        debugWriter.println("getViews: error executing query: " + viewSQL + "\n\t" + e.getMessage());
-                        debugWriter.println("getViews - Exception");
-                        e.printStackTrace(debugWriter);
-                        debugWriter.flush();
-                    }
 
-                    // e.printStackTrace();
+                        // e.printStackTrace();
+                    } finally {
+                        closeQuietly(stViewSql);
+                    }
                 }
+                metrics.recordObject(objectName(schemaName, viewName), ScanMetrics.OBJ_DESC_VQL, descStarted, descRows);
 
                 // viewSqlStmnt = ""; // delete for validation testing
                 this.createView(catalogName, schemaName, viewName, rsViews.getString("description"), viewSqlStmnt,
@@ -811,31 +1375,32 @@ public class DenodoScanner extends GenericScanner {
                 // for denodo - we want to document the expression formula for any calculated
                 // fields
                 // so for this table - we will store in memory -
-                if (!skip_expr_collection) {
+                if (!skip_expr_collection && !spooled) {
                     storeTableColExpressions(schemaName, viewName);
                 }
 
                 getColumnsForTable(catalogName, schemaName, viewName, true);
             }
-            System.out.println("\tViews extracted: " + viewCount);
+            log.info("\tViews extracted: " + viewCount);
 
             // collect for later 0 tge
 
         } catch (SQLException e) {
-            e.printStackTrace();
+            taskFailed("views for database: " + schemaName, e);
             if (doDebug && debugWriter != null) {
                 debugWriter.println("getViews - Exception");
                 e.printStackTrace(debugWriter);
                 debugWriter.flush();
             }
         } catch (Exception ex) {
-            System.out.println("un-known exception caught" + ex.getMessage());
-            ex.printStackTrace();
+            taskFailed("views for database: " + schemaName, ex);
             if (doDebug && debugWriter != null) {
                 debugWriter.println("getViews - Exception");
                 ex.printStackTrace(debugWriter);
                 debugWriter.flush();
             }
+        } finally {
+            closeQuietly(viewMetadata);
         }
         if (doDebug && debugWriter != null) {
             debugWriter.println("exiting getViews(" + catalogName + ", " + schemaName + ")");
@@ -859,8 +1424,12 @@ public class DenodoScanner extends GenericScanner {
                     + ", " + isView + ")");
             debugWriter.flush();
         }
+        long started = System.nanoTime();
         int colCount = 0;
         int exprCount = 0;
+        // bulk.columns - from the database cursor (null - not found in order, query)
+        List<String[]> columns = takeSchemaColumns(tableName);
+        PreparedStatement viewColumns = null;
         try {
             // Note: alternate select * from get_view_columns ('policy_asset',
             // 'policy_asset'); - where order will be correct (derive pos)
@@ -869,24 +1438,33 @@ public class DenodoScanner extends GenericScanner {
             // so we need to use CATALOG_VDP_METADATA_VIEWS()
             // ResultSet columns = dbMetaData.getColumns(schemaName, null, tableName, null);
 
-            PreparedStatement viewColumns = null;
-            String viewColumnQRY = "SELECT * FROM CATALOG_VDP_METADATA_VIEWS() "
-                    + "WHERE input_database_name = ? AND input_view_name  = ?";
-            viewColumns = connection.prepareStatement(viewColumnQRY);
-            viewColumns.setString(1, schemaName);
-            viewColumns.setString(2, tableName);
-            // System.out.println("executing query" + viewColumnQRY + " passing:" +
-            // schemaName + " and " + tableName);
-            ResultSet rsViewColumns = viewColumns.executeQuery();
+            if (columns == null) {
+                String viewColumnQRY = "SELECT column_name, column_type_name, column_type_precision, "
+                        + "column_description FROM CATALOG_VDP_METADATA_VIEWS() "
+                        + "WHERE input_database_name = ? AND input_view_name  = ?";
+                viewColumns = prepareStatement(connection, viewColumnQRY);
+                viewColumns.setString(1, schemaName);
+                viewColumns.setString(2, tableName);
+                // System.out.println("executing query" + viewColumnQRY + " passing:" +
+                // schemaName + " and " + tableName);
+                ResultSet rsViewColumns = executeQuery(CALL_VIEW_COLUMNS, objectName(schemaName, tableName),
+                        viewColumns);
+                columns = new ArrayList<String[]>();
+                while (rsViewColumns.next()) {
+                    columns.add(new String[] { rsViewColumns.getString("column_name"),
+                            rsViewColumns.getString("column_type_name"),
+                            rsViewColumns.getString("column_type_precision"),
+                            rsViewColumns.getString("column_description") });
+                }
+            }
             int aColCount = 0;
-            while (rsViewColumns.next()) {
+            for (String[] column : columns) {
                 aColCount++;
-                String columnName = rsViewColumns.getString("column_name");
-                String typeName = rsViewColumns.getString("column_type_name");
-                String columnsize = rsViewColumns.getString("column_type_precision"); // precision matches jdbc lenght -
-                                                                                      // not length
+                String columnName = column[0];
+                String typeName = column[1];
+                String columnsize = column[2]; // precision matches jdbc lenght - not length
                 String pos = Integer.toString(aColCount);
-                String comments = rsViewColumns.getString("column_description");
+                String comments = column[3];
                 aColCount = aColCount + 0;
                 // System.out.println("column found...")
                 // }
@@ -946,17 +1524,19 @@ public class DenodoScanner extends GenericScanner {
 
             } // end for each column
         } catch (Exception ex) {
-            System.out.println("ERROR: extracting column metadata...");
-            ex.printStackTrace();
+            taskFailed("columns for: " + objectName(schemaName, tableName), ex);
             if (doDebug && debugWriter != null) {
                 debugWriter.println("getColumnsForTable - Exception");
                 ex.printStackTrace(debugWriter);
                 debugWriter.flush();
             }
+        } finally {
+            closeQuietly(viewColumns);
         }
-        System.out.println(" columns: " + colCount + " expressions:" + exprCount);
+        log.debug("\t\t\tcolumns: " + colCount + " expressions:" + exprCount);
+        metrics.recordObject(objectName(schemaName, tableName), ScanMetrics.OBJ_COLUMNS, started, colCount);
         if (colCount == 0) {
-            System.out.println("why 0 cols??");
+            log.warn("\t\tno columns found for: " + schemaName + "." + tableName);
         }
 
         if (doDebug && debugWriter != null) {
@@ -967,6 +1547,130 @@ public class DenodoScanner extends GenericScanner {
 
     }
 
+    /**
+     * bulk.columns - the columns of all tables & views in a database, ordered by
+     * name. the rows are streamed - each table/view takes its columns (in the order
+     * returned - the column position) as it is extracted, so only the columns of 1
+     * table/view are held. the tables & views must be requested in name order -
+     * rows of tables/views not requested (filtered, or the other pass) are skipped
+     */
+    protected static class ColumnStream {
+        private final PreparedStatement statement;
+        private final ResultSet rs;
+        // the next row (read ahead) - null at the end
+        private String nextView = null;
+        private String[] nextColumn = null;
+        private int columns = 0;
+        private int views = 0;
+        private int notFound = 0;
+
+        protected ColumnStream(PreparedStatement statement, ResultSet rs) throws SQLException {
+            this.statement = statement;
+            this.rs = rs;
+            advance();
+        }
+
+        private void advance() throws SQLException {
+            if (rs.next()) {
+                columns++;
+                nextView = rs.getString("view_name");
+                nextColumn = new String[] { rs.getString("column_name"), rs.getString("column_type_name"),
+                        rs.getString("column_type_precision"), rs.getString("column_description") };
+            } else {
+                nextView = null;
+                nextColumn = null;
+            }
+        }
+
+        /**
+         * @param viewName the table/view (after the last one requested)
+         * @return the columns (name, type, precision, description), or null if the
+         *         table/view is not next in the stream
+         */
+        protected List<String[]> take(String viewName) throws SQLException {
+            while (nextView != null && nextView.compareTo(viewName) < 0) {
+                advance();
+            }
+            if (nextView == null || !nextView.equals(viewName)) {
+                notFound++;
+                return null;
+            }
+            List<String[]> viewColumns = new ArrayList<String[]>();
+            while (nextView != null && nextView.equals(viewName)) {
+                viewColumns.add(nextColumn);
+                advance();
+            }
+            views++;
+            return viewColumns;
+        }
+
+        protected void close() {
+            closeQuietly(rs, statement);
+        }
+    }
+
+    /**
+     * bulk.columns - open the cursor for the columns of all tables & views in a
+     * database (instead of 1 call per table/view)
+     *
+     * @return the columns, or null if the call failed - the per table/view calls
+     *         are used
+     */
+    protected ColumnStream getColumnsForSchema(String schemaName) {
+        String query = "SELECT view_name, column_name, column_type_name, column_type_precision, column_description "
+                + "FROM CATALOG_VDP_METADATA_VIEWS() WHERE input_database_name = ? ORDER BY view_name";
+        if (doDebug && debugWriter != null) {
+            debugWriter.println("getColumnsForSchema\tprepared sql statement=" + query);
+            debugWriter.flush();
+        }
+
+        PreparedStatement columnsStmnt = null;
+        try {
+            columnsStmnt = prepareStatement(connection, query);
+            columnsStmnt.setString(1, schemaName);
+            return new ColumnStream(columnsStmnt, executeQuery(CALL_DATABASE_COLUMNS, schemaName, columnsStmnt));
+        } catch (SQLException e) {
+            log.warn("\tbulk.columns: CATALOG_VDP_METADATA_VIEWS failed for database " + schemaName
+                    + " - using 1 call per table/view: " + e.getMessage());
+            closeQuietly(columnsStmnt);
+            return null;
+        }
+    }
+
+    /**
+     * bulk.columns - the columns of a table/view from the database cursor
+     *
+     * @return the columns, or null if not found (or the cursor failed) - 1 call is
+     *         used for the table/view
+     */
+    protected List<String[]> takeSchemaColumns(String viewName) {
+        if (schemaColumns == null) {
+            return null;
+        }
+        try {
+            return schemaColumns.take(viewName);
+        } catch (SQLException e) {
+            log.warn("\tbulk.columns: error reading CATALOG_VDP_METADATA_VIEWS - using 1 call per table/view: "
+                    + e.getMessage());
+            closeSchemaColumns();
+            return null;
+        }
+    }
+
+    /**
+     * bulk.columns - close the cursor for the database (the rest is not read)
+     */
+    protected void closeSchemaColumns() {
+        ColumnStream stream = schemaColumns;
+        if (stream == null) {
+            return;
+        }
+        schemaColumns = null;
+        stream.close();
+        log.info("\tbulk.columns: " + stream.columns + " columns read for " + stream.views + " tables/views"
+                + (stream.notFound > 0 ? ", " + stream.notFound + " not found (1 call each)" : ""));
+    }
+
     protected Map<String, String> privateDepsMap = new HashMap<String, String>();
 
     /**
@@ -1002,16 +1706,21 @@ public class DenodoScanner extends GenericScanner {
 
         // System.out.println("structs scanned..." + datasetsScanned.size());
         // System.out.println(datasetsScanned);
-        Map<String, List<String>> vcache = new HashMap<String, List<String>>();
+        // private views > the views they depend on
+        LineageGraph vgraph = new LineageGraph();
+        // links for the view - written together when the view is finished
+        List<String[]> links = new ArrayList<String[]>();
 
-        // int recCount=0;
+        long started = System.nanoTime();
+        int recCount = 0;
+        PreparedStatement deps = null;
         try {
-            PreparedStatement deps = connection.prepareStatement(query);
+            deps = prepareStatement(currentConnection(), query);
             deps.setString(1, dbName);
             deps.setString(2, viewName);
-            ResultSet rsDeps = deps.executeQuery();
+            ResultSet rsDeps = executeQuery(CALL_VIEW_DEPENDENCIES, objectName(dbName, viewName), deps);
             while (rsDeps.next()) {
-                // recCount++;
+                recCount++;
                 // boolean isDebug=false;
                 // String inViewName = rsDeps.getString("input_view_name");
                 String viewDB = rsDeps.getString("view_database_name");
@@ -1027,25 +1736,12 @@ public class DenodoScanner extends GenericScanner {
 
                 // System.out.println("record: " + recCount);
 
-                // cache processing....
+                // graph processing....
                 if (privateView.equals("true")) {
-                    // cache the vale for lookup when non private views are processed
-                    List<String> cachedVals;
-                    if (vcache.containsKey(cachKey)) {
-                        cachedVals = vcache.get(cachKey);
-                    } else {
-                        // new key
-                        cachedVals = new ArrayList<String>();
-                        vcache.put(cachKey, cachedVals);
-                    }
-
-                    // add the val
-                    if (!cachedVals.contains(cacheVal)) {
-                        // System.out.println("adding val to key=" + cachKey + " val=" + cacheVal);
-                        cachedVals.add(cacheVal);
-                    }
+                    // store the dependency for lookup when non private views are processed
+                    vgraph.addEdge(cachKey, cacheVal);
 
-                    // no need to process further (we stored the value in the cache
+                    // no need to process further (we stored the value in the graph
                     continue;
                 }
 
@@ -1053,11 +1749,10 @@ public class DenodoScanner extends GenericScanner {
                     List<String> objectstoLink = new ArrayList<String>();
                     // System.out.println("lookup...." + recCount + " " + cachKey + " val=" +
                     // cacheVal);
-                    if (vcache.containsKey(cacheVal)) {
+                    if (vgraph.hasEdges(cacheVal)) {
                         // winner
                         // System.out.println("\tlookup: " + cacheVal);
-                        // System.out.println("\t\tret: " + vcache.get(cacheVal));
-                        objectstoLink = getColumnsFromCache(vcache, fromDB + "//" + fromTab, new ArrayList<String>());
+                        objectstoLink = vgraph.resolve(cacheVal);
                         // System.out.println("\t\tresult?: " + objectstoLink.size() + " " +
                         // objectstoLink);
 
@@ -1083,30 +1778,28 @@ public class DenodoScanner extends GenericScanner {
                                 // System.out.println("\t\t\t OK - direct link found...." + objKey);
                                 String lefttabId = databaseName + "/" + leftDB + "/" + leftVW;
                                 String righttabId = databaseName + "/" + dbName + "/" + viewName;
-                                linksWriter.writeNext(new String[] { "core.DataSetDataFlow", lefttabId, righttabId });
+                                links.add(new String[] { "core.DataSetDataFlow", lefttabId, righttabId });
                                 // if (isDebug) {
                                 // System.out.println("\t\t\twriting table refactored level lineage: " +
                                 // lefttabId + " ==>> " + righttabId);
                                 // System.out.println("$$$");
                                 // }
-                                totalTableLineage++;
+                                totalTableLineage.increment();
 
                                 String schemaSchemaKey = databaseName + "/" + leftDB + ":" + databaseName + "/"
                                         + dbName;
                                 String leftSchema = databaseName + "/" + leftDB;
                                 String rightSchema = databaseName + "/" + dbName;
-                                if (!schemaSchemaLinks.contains(schemaSchemaKey) && !leftSchema.equals(rightSchema)) {
-                                    schemaSchemaLinks.add(schemaSchemaKey);
-                                    linksWriter.writeNext(new String[] { "core.DataSourceDataFlow",
+                                if (!leftSchema.equals(rightSchema) && schemaSchemaLinks.add(schemaSchemaKey)) {
+                                    links.add(new String[] { "core.DataSourceDataFlow",
                                             databaseName + "/" + leftDB, databaseName + "/" + dbName });
                                     // System.out.println("schema link ++++ " + schemaSchemaKey);
                                 }
                             } else {
-                                System.out.println("\t\textractViewLevelLineageRefactored lookup not found: " + objKey);
+                                log.debug("\t\textractViewLevelLineageRefactored lookup not found: " + objKey);
                                 // this could happen when a table/view that is used by this view was filtered
                                 // out...
-                                missingObjectCount++;
-                                missingObjectWriter.writeNext(new String[] { objKey });
+                                writeMissingObject(objKey);
                                 // log it???
                             }
                         }
@@ -1116,7 +1809,7 @@ public class DenodoScanner extends GenericScanner {
 
             }
         } catch (SQLException e) {
-            System.out.println("sql Exception: " + e.getMessage());
+            log.error("sql Exception: " + e.getMessage());
             e.printStackTrace();
             if (doDebug && debugWriter != null) {
                 debugWriter.println("extractViewLevelLineage - Exception");
@@ -1124,14 +1817,19 @@ public class DenodoScanner extends GenericScanner {
                 debugWriter.flush();
             }
         } catch (Exception ex) {
-            System.out.println("unknown exception found " + ex.getMessage());
+            log.error("unknown exception found " + ex.getMessage());
             ex.printStackTrace();
             if (doDebug && debugWriter != null) {
                 debugWriter.println("extractViewLevelLineage - Exception");
                 ex.printStackTrace(debugWriter);
                 debugWriter.flush();
             }
+        } finally {
+            closeQuietly(deps);
         }
+        writeLinks(links);
+        lineageCycles.add(vgraph.getCycleCount());
+        metrics.recordObject(objectName(dbName, viewName), ScanMetrics.OBJ_VIEW_LINEAGE, started, recCount);
 
         if (doDebug && debugWriter != null) {
             debugWriter.println("exiting extractViewLevelLineage(" + dbName + ", " + viewName + ")");
@@ -1142,45 +1840,341 @@ public class DenodoScanner extends GenericScanner {
 
     }
 
-    static int ldepth = 0;
+    /**
+     * view & column level lineage for 1 view (skipped if in ep.skipobjects)
+     *
+     * @param schema the database the view belongs to
+     * @param view   the view name
+     */
+    protected void extractViewLineage(String schema, String view) {
+        if (epSkipViews.contains(schema.toLowerCase() + "." + view.toLowerCase())) {
+            log.debug("\t\textract view|column lineage skipped for: " + schema + "." + view);
+            if (doDebug && debugWriter != null) {
+                debugWriter.println("\textract view|column lineage skipped for: \" + schema + \".\" + view");
+                debugWriter.flush();
+            }
+
+        } else {
+            long start = System.currentTimeMillis();
+            // call the view level lineage extraction
+            this.extractViewLevelLineageRefactored(schema, view);
+
+            // lineage.bulk - the column lineage is extracted from the spool
+            if (!dependencySpools.containsKey(schema) || splitDependencyViews.contains(schema + "." + view)) {
+                this.extractViewColumnLevelLineageRefactored(schema, view);
+            }
+
+            long end1 = System.currentTimeMillis();
+            long totalMillis = end1 - start;
+            log.debug("\t\tview=" + view + " time: " + totalMillis + "ms");
+        }
+        progress.done();
+    }
+
+    /**
+     * extract the view lineage using a pool of worker threads (parallel.workers),
+     * each with it's own connection. links are written per view (writeLinks), so
+     * the links for a view are together in the file - the order of the views is
+     * not fixed. falls back to serial extraction if no pool connections can be
+     * opened
+     */
+    protected void extractLineageInParallel() {
+        getWorkerPool();
+        if (workerPool.size() == 0) {
+            log.info("\tno pooled connections available - extracting lineage serially");
+            closeWorkerPool();
+            for (String schema : viewDbNameMap.keySet()) {
+                for (String view : viewDbNameMap.get(schema)) {
+                    extractViewLineage(schema, view);
+                }
+            }
+            return;
+        }
+
+        log.info("\textracting lineage using " + workerPool.size() + " workers");
+        ExecutorService executor = Executors.newFixedThreadPool(workerPool.size());
+        List<Future<?>> results = new ArrayList<Future<?>>();
+        List<String> resultViews = new ArrayList<String>();
+        for (final String schema : viewDbNameMap.keySet()) {
+            log.info("\tschema=" + schema);
+            for (final String view : viewDbNameMap.get(schema)) {
+                resultViews.add(schema + "." + view);
+                results.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            runWithPooledConnection(new Runnable() {
+                                @Override
+                                public void run() {
+                                    extractViewLineage(schema, view);
+                                }
+                            });
+                        } catch (RuntimeException e) {
+                            // the view is not done - but still counted for the progress
+                            progress.done();
+                            throw e;
+                        }
+                    }
+                }));
+            }
+        }
+        executor.shutdown();
+
+        try {
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    results.get(i).get();
+                } catch (ExecutionException e) {
+                    taskFailed("lineage for view: " + resultViews.get(i), e.getCause());
+                } catch (InterruptedException e) {
+                    log.error("interrupted waiting for lineage extraction");
+                    Thread.currentThread().interrupt();
+                    executor.shutdownNow();
+                    return;
+                }
+            }
+        } finally {
+            closeWorkerPool();
+        }
+    }
 
     /**
-     * helper function to lookup cached values from column depencendies
+     * lineage.bulk - extract the column lineage from the spooled
+     * COLUMN_DEPENDENCIES rows (1 file per database). the rows are read in the
+     * order they were returned, a view is finished when the next view starts. the
+     * spool files are removed unless debug=true
      *
-     * @param theCache        - catche to lookup the value(s)
-     * @param theKey          - key to find all matching actual values (not internal
-     *                        columns)
-     * @param theListToReturn - the list to return (this is recursive - first call
-     *                        will be an empty list)
-     * @return
+     * a view with no rows in the spool is extracted with it's own call (which
+     * warns if there is still no column lineage)
      */
-    protected List<String> getColumnsFromCache(Map<String, List<String>> theCache, String theKey,
-            ArrayList<String> theListToReturn) {
-        ldepth++;
-
-        // System.out.println("getColumnsFromCache key=" + theKey + " key found=" +
-        // theCache.containsKey(theKey) + " depth=" + ldepth);
-
-        if (theCache.containsKey(theKey)) {
-            List<String> tmpList = theCache.get(theKey);
-            for (String tmpString : tmpList) {
-                // recursive call to getcolumnsFromCache
-                if (theCache.containsKey(tmpString)) {
-                    // System.out.println("testing: " + tmpString);
-                    getColumnsFromCache(theCache, tmpString, theListToReturn);
-                } else {
-                    theListToReturn.add(tmpString);
+    protected void extractColumnLineageFromSpools() {
+        for (String schema : dependencySpools.keySet()) {
+            File spool = dependencySpools.get(schema);
+            Set<String> views = new HashSet<String>();
+            if (viewDbNameMap.containsKey(schema)) {
+                views.addAll(viewDbNameMap.get(schema));
+            }
+            log.info("\tcolumn lineage from spool: " + schema + " views=" + views.size());
+
+            Set<String> viewsInSpool = new HashSet<String>();
+            CSVReader reader = null;
+            try {
+                reader = new CSVReaderBuilder(new BufferedReader(new FileReader(spool)))
+                        .withFieldAsNull(CSVReaderNullFieldIndicator.EMPTY_SEPARATORS).build();
+                ColumnLineageBuilder lineage = null;
+                String[] row;
+                while ((row = reader.readNext()) != null) {
+                    String view = row[0];
+                    viewsInSpool.add(view);
+                    if (lineage != null && !lineage.viewName.equals(view)) {
+                        lineage.finish();
+                        lineage = null;
+                    }
+                    if (lineage == null) {
+                        // only views that were extracted (& not skipped or split)
+                        if (!views.contains(view) || splitDependencyViews.contains(schema + "." + view)
+                                || epSkipViews.contains(schema.toLowerCase() + "." + view.toLowerCase())) {
+                            continue;
+                        }
+                        lineage = new ColumnLineageBuilder(schema, view);
+                    }
+                    lineage.add(row[1], row[2], row[3], row[4], row[5], row[6], row[7], row[8], row[9]);
+                }
+                if (lineage != null) {
+                    lineage.finish();
                 }
+            } catch (IOException | CsvValidationException e) {
+                log.error("error reading column dependencies spool: " + spool + " - column lineage is incomplete");
+                e.printStackTrace();
+            } finally {
+                closeQuietly(reader);
             }
+            if (!doDebug) {
+                spool.delete();
+            }
+
+            for (String view : views) {
+                if (!viewsInSpool.contains(view) && !splitDependencyViews.contains(schema + "." + view)
+                        && !epSkipViews.contains(schema.toLowerCase() + "." + view.toLowerCase())) {
+                    log.debug("\t\tno rows in spool for view: " + schema + "." + view + " - using a per view call");
+                    extractViewColumnLevelLineageRefactored(schema, view);
+                }
+            }
+        }
+    }
+
+    /**
+     * write an object that is referenced by lineage, but was not extracted
+     * (missing_objects.txt)
+     */
+    protected synchronized void writeMissingObject(String objKey) {
+        missingObjectCount.increment();
+        missingObjectWriter.writeNext(new String[] { objKey });
+    }
+
+    /**
+     * column lineage for 1 view - built from the COLUMN_DEPENDENCIES rows for the
+     * view (depth=1), in the order returned by denodo. private view columns are
+     * added to a LineageGraph & resolved to the actual columns they reference
+     * (memoized for all columns of the view). used for the per view call &
+     * for the lineage.bulk spool
+     */
+    protected class ColumnLineageBuilder {
+        protected final String dbName;
+        protected final String viewName;
+        protected final long started = System.nanoTime();
+        protected int recCount = 0;
+
+        // nodupes (per view)
+        protected final Set<String> colUniqeLineage = new HashSet<String>();
+        // links for the view - written together when the view is finished
+        protected final List<String[]> links = new ArrayList<String[]>();
+        // private view columns > the columns they depend on
+        protected final LineageGraph graph = new LineageGraph();
+
+        protected ColumnLineageBuilder(String dbName, String viewName) {
+            this.dbName = dbName;
+            this.viewName = viewName;
         }
 
-        // System.out.println("\t\treturning after " + iterations + " " + ldepth + "
-        // cachedList=" + theListToReturn + " theKey=" + theKey);
-        ldepth--;
-        return theListToReturn;
+        /**
+         * process 1 COLUMN_DEPENDENCIES row
+         */
+        protected void add(String toColName, String returnedviewName, String privateView, String viewDB,
+                String fromDB, String fromTab, String fromCol, String depType, String expr) {
+            recCount++;
+            String sourceDB = "";
+            String sourceVw = "";
+            String sourceCl = "";
+
+            // System.out.println("row: " + recCount);
+            String cachKey = viewDB + "//" + returnedviewName + "//" + toColName;
+            String cacheVal = fromDB + "//" + fromTab + "//" + fromCol;
+
+            // graph processing....
+            if (privateView.equals("true")) {
+                if (fromCol != null) {
+                    graph.addEdge(cachKey, cacheVal);
+                }
+
+                // no need to process further (we stored the value in the graph
+                return;
+
+            }
+
+            // special case
+            // see if the stored settings should be reset (when a new datasource is
+            // referenced)
+            if (fromCol == null && !depType.equals("Predefined Storedprocedure")) {
+                // System.out.println("!! Predefined Storedprocedure !!" + fromTab + " row="
+                // +recCount);
+                return;
+            }
+
+            // System.out.println("test " + (! dbName.equals(viewDB)) + " && " + (!
+            // returnedviewName.equals(viewName)) );
+            if (!dbName.equals(viewDB) | !returnedviewName.equals(viewName)) {
+                // skip writing
+                // System.out.println("row=" + recCount + " db/tab not match - skipping" );
+                return;
+                // } else {
+                // // database and record matches - do we reset???
+            }
+            // now we must have an actual view and not a procedure reference to link
+
+            // if it is a preDefined Stored procedure - need to create some new objects
+            if (depType.equals("Predefined Storedprocedure")) {
+                log.debug("\t\t\tprocedure object reference found (should be created/linked): "
+                        + " admin//" + fromTab + "//" + fromCol + " expression=" + expr);
+                // also change the db to admin in cacheval
+            }
+
+            //
+            // System.out.println("ready to write links for " + cachKey + " val=" +
+            // cacheVal);
+            // System.out.println(">>>>>\n\tCache lookup for : " + fromDB + "//" + fromTab +
+            // "//" + fromCol);
+            List<String> theColsToLink = new ArrayList<String>();
+            if (!fromTab.startsWith("_")) {
+                // forget the graph
+                // System.out.println("\t\t\tforget the graph - it is direct...");
+                theColsToLink.add(fromDB + "//" + fromTab + "//" + fromCol);
+            } else {
+                theColsToLink = graph.resolve(fromDB + "//" + fromTab + "//" + fromCol);
+            }
+            // System.out.println("\t" + theColsToLink);
+            // System.out.println("<<<<\n");
+
+            // System.out.println("ready to write links for " + cachKey + " theCols=" +
+            // theColsToLink);
+
+            for (String refdCol : theColsToLink) {
+                String[] values = refdCol.split("//");
+                if (values.length == 3) {
+                    sourceDB = values[0];
+                    sourceVw = values[1];
+                    sourceCl = values[2];
+
+                    String tgtKey = dbName + "/" + returnedviewName + "/" + toColName;
+                    String srcKey = sourceDB + "/" + sourceVw + "/" + sourceCl;
+                    // System.out.println("\twrite it" + toColName + " " + sourceDB + "/" + sourceVw
+                    // + "/" + sourceCl);
+                    // System.out.println("\twrite it" + srcKey + " -> " + tgtKey);
+                    if (elementsScanned.contains(srcKey) && elementsScanned.contains(tgtKey)) {
+                        // System.out.println("\t\t\tok - direct link found...." + objKey);
+                        String leftId = databaseName + "/" + srcKey;
+                        String rightId = databaseName + "/" + tgtKey;
+                        if (!colUniqeLineage.contains(leftId + ":" + rightId)) {
+                            links.add(new String[] { "core.DirectionalDataFlow", leftId, rightId });
+                            // System.out.println("\t\t\t\twriting column level lineage: " + leftId + " ==>>
+                            // " + rightId);
+                            colUniqeLineage.add(leftId + ":" + rightId);
+                            totalColumnLineage.increment();
+                        } else {
+                            // System.out.println("\t\tdup: " + leftId+":"+rightId);
+                        }
+                    } else {
+                        if (sourceCl != null && sourceCl.contains(",")) {
+                            expressionsProcessed.increment();
+                            // System.out.println("expr field...");
+                            if (datasetsScanned.contains(sourceDB + "/" + sourceVw)) {
+                                // System.out.println("split them here");
+                                String[] exprParts = sourceCl.split(",");
+
+                                // @todo refactor here - too much copy/paste of code
+                                for (String exprPart : exprParts) {
+                                    expressionLinks.increment();
+                                    // System.out.println("\t\t\tlinking ...." + exprPart);
+                                    String leftId = databaseName + "/" + sourceDB + "/" + sourceVw + "/" + exprPart;
+                                    String rightId = databaseName + "/" + tgtKey;
+                                    links.add(new String[] { "core.DirectionalDataFlow", leftId, rightId });
+                                    // System.out.println("\t\t\t\twriting column level lineage from expr: " +
+                                    // leftId + " ==>>> " + rightId);
+                                    totalColumnLineage.increment();
+                                }
+
+                            }
+                            // end - is an expression reference
+                        }
+
+                    }
+                }
+            }
+            // end of new re-factoring
+
+        }
 
+        /**
+         * write the links for the view & record the metrics
+         */
+        protected void finish() {
+            writeLinks(links);
+            lineageCycles.add(graph.getCycleCount());
+            metrics.recordObject(objectName(dbName, viewName), ScanMetrics.OBJ_COLUMN_LINEAGE, started, recCount);
+        }
     }
 
+
     /**
      * extract view column level lineage - internal to denodo, for a view (not
      * column by column which is very slow on larger implementations) similar to
@@ -1205,197 +2199,21 @@ public class DenodoScanner extends GenericScanner {
             debugWriter.flush();
         }
 
-        // nodupes
-        Set<String> colUniqeLineage = new HashSet<String>();
-
-        // System.out.println("elements scanned..." + elementsScanned.size());
-        // System.out.println(elementsScanned);
-        String sourceDB = "";
-        String sourceVw = "";
-        String sourceCl = "";
-
-        // List<String> processedCols = new ArrayList<String>();
-        Map<String, List<String>> cache = new HashMap<String, List<String>>();
-
-        String lastCachedActualColumn = "";
-        boolean lastLinkedActual = false;
-
-        int recCount = 0;
+        ColumnLineageBuilder lineage = new ColumnLineageBuilder(dbName, viewName);
+        PreparedStatement deps = null;
         try {
-            PreparedStatement deps = connection.prepareStatement(query);
+            deps = prepareStatement(currentConnection(), query);
             deps.setString(1, dbName);
             deps.setString(2, viewName);
             deps.setString(3, null);
-            ResultSet rsDeps = deps.executeQuery();
+            ResultSet rsDeps = executeQuery(CALL_COLUMN_DEPENDENCIES, objectName(dbName, viewName), deps);
             while (rsDeps.next()) {
-                recCount++;
-                // if (viewName.equals("etq_capa_CAPATiming") && recCount>=656) {
-
                 // String inViewName = rsDeps.getString("input_view_name");
-                String toColName = rsDeps.getString("column_name");
-                String returnedviewName = rsDeps.getString("view_name");
-                String privateView = rsDeps.getString("private_view");
-                String viewDB = rsDeps.getString("view_database_name");
-                String fromDB = rsDeps.getString("dependency_database_name");
-                String fromTab = rsDeps.getString("dependency_name");
-                String fromCol = rsDeps.getString("dependency_column_name");
-                String depType = rsDeps.getString("dependency_type");
-                // String viewType = rsDeps.getString("view_type");
-                String expr = rsDeps.getString("expression");
-
-                // System.out.println("row: " + recCount);
-                String cachKey = viewDB + "//" + returnedviewName + "//" + toColName;
-                String cacheVal = fromDB + "//" + fromTab + "//" + fromCol;
-
-                if (lastLinkedActual == true) {
-                    // see
-                    // System.out.println("checking for actual = " + lastCachedActualColumn + " = "
-                    // + cachKey);
-                    if (lastCachedActualColumn.contentEquals(cachKey)) {
-                        // same
-                        // System.out.println("same continue...");
-                    } else {
-                        // reset cache??
-                        // System.out.println("different - un-cache");
-                        cache.clear();
-                        lastLinkedActual = false;
-
-                    }
-                }
-
-                // cache processing....
-                if (privateView.equals("true")) {
-                    if (fromCol != null) {
-                        List<String> cachedVals;
-                        if (cache.containsKey(cachKey)) {
-                            cachedVals = cache.get(cachKey);
-                        } else {
-                            // new key
-                            // System.out.println("adding key=" + cachKey);
-                            cachedVals = new ArrayList<String>();
-                            cache.put(cachKey, cachedVals);
-                        }
-
-                        // add the val
-                        if (!cachedVals.contains(cacheVal)) {
-                            // System.out.println("adding val to key=" + cachKey + " val=" + cacheVal);
-                            cachedVals.add(cacheVal);
-                        }
-
-                    }
-
-                    // no need to process further (we stored the value in the cache
-                    continue;
-
-                }
-
-                // special case
-                // see if the stored settings should be reset (when a new datasource is
-                // referenced)
-                if (fromCol == null && !depType.equals("Predefined Storedprocedure")) {
-                    // System.out.println("!! Predefined Storedprocedure !!" + fromTab + " row="
-                    // +recCount);
-                    continue;
-                }
-
-                // System.out.println("test " + (! dbName.equals(viewDB)) + " && " + (!
-                // returnedviewName.equals(viewName)) );
-                if (!dbName.equals(viewDB) | !returnedviewName.equals(viewName)) {
-                    // skip writing
-                    // System.out.println("row=" + recCount + " db/tab not match - skipping" );
-                    continue;
-                    // } else {
-                    // // database and record matches - do we reset???
-                }
-                // now we must have an actual view and not a procedure reference to link
-
-                // if it is a preDefined Stored procedure - need to create some new objects
-                if (depType.equals("Predefined Storedprocedure")) {
-                    System.out.println("\t\t\tprocedure object reference found (should be created/linked): "
-                            + " admin//" + fromTab + "//" + fromCol + " expression=" + expr);
-                    // also change the db to admin in cacheval
-                }
-
-                // viewDB + "//" + returnedviewName
-                // if (lastCachedActualColumn)
-                lastLinkedActual = true;
-                lastCachedActualColumn = cachKey;
-
-                //
-                // System.out.println("ready to write links for " + cachKey + " val=" +
-                // cacheVal);
-                // System.out.println(">>>>>\n\tCache lookup for : " + fromDB + "//" + fromTab +
-                // "//" + fromCol);
-                List<String> theColsToLink = new ArrayList<String>();
-                if (!fromTab.startsWith("_")) {
-                    // forget the cache
-                    // System.out.println("\t\t\tforget the cache - it is direct...");
-                    theColsToLink.add(fromDB + "//" + fromTab + "//" + fromCol);
-                } else {
-                    theColsToLink = getColumnsFromCache(cache, fromDB + "//" + fromTab + "//" + fromCol,
-                            new ArrayList<String>());
-                }
-                // System.out.println("\t" + theColsToLink);
-                // System.out.println("<<<<\n");
-
-                // System.out.println("ready to write links for " + cachKey + " theCols=" +
-                // theColsToLink);
-
-                for (String refdCol : theColsToLink) {
-                    String[] values = refdCol.split("//");
-                    if (values.length == 3) {
-                        sourceDB = values[0];
-                        sourceVw = values[1];
-                        sourceCl = values[2];
-
-                        String tgtKey = dbName + "/" + returnedviewName + "/" + toColName;
-                        String srcKey = sourceDB + "/" + sourceVw + "/" + sourceCl;
-                        // System.out.println("\twrite it" + toColName + " " + sourceDB + "/" + sourceVw
-                        // + "/" + sourceCl);
-                        // System.out.println("\twrite it" + srcKey + " -> " + tgtKey);
-                        if (elementsScanned.contains(srcKey) && elementsScanned.contains(tgtKey)) {
-                            // System.out.println("\t\t\tok - direct link found...." + objKey);
-                            String leftId = databaseName + "/" + srcKey;
-                            String rightId = databaseName + "/" + tgtKey;
-                            if (!colUniqeLineage.contains(leftId + ":" + rightId)) {
-                                linksWriter.writeNext(new String[] { "core.DirectionalDataFlow", leftId, rightId });
-                                // System.out.println("\t\t\t\twriting column level lineage: " + leftId + " ==>>
-                                // " + rightId);
-                                colUniqeLineage.add(leftId + ":" + rightId);
-                                totalColumnLineage++;
-                            } else {
-                                // System.out.println("\t\tdup: " + leftId+":"+rightId);
-                            }
-                        } else {
-                            if (sourceCl != null && sourceCl.contains(",")) {
-                                expressionsProcessed++;
-                                // System.out.println("expr field...");
-                                if (datasetsScanned.contains(sourceDB + "/" + sourceVw)) {
-                                    // System.out.println("split them here");
-                                    String[] exprParts = sourceCl.split(",");
-
-                                    // @todo refactor here - too much copy/paste of code
-                                    for (String exprPart : exprParts) {
-                                        expressionLinks++;
-                                        // System.out.println("\t\t\tlinking ...." + exprPart);
-                                        String leftId = databaseName + "/" + sourceDB + "/" + sourceVw + "/" + exprPart;
-                                        String rightId = databaseName + "/" + tgtKey;
-                                        linksWriter.writeNext(
-                                                new String[] { "core.DirectionalDataFlow", leftId, rightId });
-                                        // System.out.println("\t\t\t\twriting column level lineage from expr: " +
-                                        // leftId + " ==>>> " + rightId);
-                                        totalColumnLineage++;
-                                    }
-
-                                }
-                                // end - is an expression reference
-                            }
-
-                        }
-                    }
-                }
-                // end of new re-factoring
-
+                lineage.add(rsDeps.getString("column_name"), rsDeps.getString("view_name"),
+                        rsDeps.getString("private_view"), rsDeps.getString("view_database_name"),
+                        rsDeps.getString("dependency_database_name"), rsDeps.getString("dependency_name"),
+                        rsDeps.getString("dependency_column_name"), rsDeps.getString("dependency_type"),
+                        rsDeps.getString("expression"));
             } // next record from db
 
         } catch (SQLException e) {
@@ -1406,17 +2224,19 @@ public class DenodoScanner extends GenericScanner {
                 debugWriter.flush();
             }
         } catch (Exception ex) {
-            System.out.println("unknown exception found " + ex.getMessage());
+            log.error("unknown exception found " + ex.getMessage());
             ex.printStackTrace();
             if (doDebug && debugWriter != null) {
                 debugWriter.println("extractViewColumnLevelLineage - Exception");
                 ex.printStackTrace(debugWriter);
                 debugWriter.flush();
             }
+        } finally {
+            closeQuietly(deps);
         }
-
-        if (recCount == 0) {
-            System.out.println("\t\t\tERROR: 0 column lineage records returned from for: " + dbName + "." + viewName
+        lineage.finish();
+        if (lineage.recCount == 0) {
+            log.warn("\t\t\tERROR: 0 column lineage records returned from for: " + dbName + "." + viewName
                     + " query=" + query);
         }
 
@@ -1426,6 +2246,39 @@ public class DenodoScanner extends GenericScanner {
         }
     }
 
+    /**
+     * the wrapper/datasource caches & tablesWithSQL are static - so only 1 denodo
+     * scan can run at a time in a jvm (batch scans)
+     */
+    @Override
+    public boolean supportsConcurrentScans() {
+        return false;
+    }
+
+    /**
+     * metrics report - adds the denodo lineage counts
+     */
+    @Override
+    protected void setMetricsCounters() {
+        super.setMetricsCounters();
+        metrics.setCounter("expressionsFound", expressionsFound);
+        metrics.setCounter("expressionLinks", expressionLinks.sum());
+        metrics.setCounter("viewLineage", totalTableLineage.sum());
+        metrics.setCounter("columnLineage", totalColumnLineage.sum());
+        metrics.setCounter("lineageCycles", lineageCycles.sum());
+        metrics.setCounter("descVqlErrors", descVQLErrors);
+        metrics.setCounter("missingObjects", missingObjectCount.sum());
+    }
+
+    /**
+     * progress message - adds the lineage counts (extraProcessing)
+     */
+    @Override
+    protected String getProgressSummary() {
+        return super.getProgressSummary() + " lineage: viewlevel=" + totalTableLineage.sum() + " columnLevel="
+                + totalColumnLineage.sum();
+    }
+
     /**
      * extra processing can call some dbms specific functions e.g. internal linage
      * for denodo external lineage (back to s3 files) for athena
@@ -1443,50 +2296,35 @@ public class DenodoScanner extends GenericScanner {
             debugWriter.flush();
 
         }
-        System.out.println("");
-        System.out.println("Denodo specific processing - extracting view lineage...");
+        log.info("");
+        log.info("Denodo specific processing - extracting view lineage...");
 
         // hack - reset tablewrappertypes - simulate objects that return null for lookup
         // (permission related in denodo)
         // tableWrapperTypes.clear();
         // tableWrappers.clear();
 
-        try {
-            // for each schema - then view...
-            for (String schema : viewDbNameMap.keySet()) {
-                System.out.println("\tschema=" + schema);
-                // long schStart = System.currentTimeMillis();
-
-                for (String view : viewDbNameMap.get(schema)) {
-                    // int numCols = 0;
-                    // long vstart = System.currentTimeMillis();
-
-                    System.out.print("\t\tview=" + view);
-                    if (epSkipViews.contains(schema.toLowerCase() + "." + view.toLowerCase())) {
-                        System.out.println("extract view|column lineage skipped for: " + schema + "." + view);
-                        if (doDebug && debugWriter != null) {
-                            debugWriter
-                                    .println("\textract view|column lineage skipped for: \" + schema + \".\" + view");
-                            debugWriter.flush();
-                        }
-
-                    } else {
-                        long start = System.currentTimeMillis();
-                        // call the view level lineage extraction
-                        this.extractViewLevelLineageRefactored(schema, view);
-
-                        this.extractViewColumnLevelLineageRefactored(schema, view);
-
-                        long end1 = System.currentTimeMillis();
-                        long totalMillis = end1 - start;
-                        System.out.println("\t time: " + totalMillis + "ms");
-                    }
-
-                } // each view
+        int lineageViews = 0;
+        for (List<String> views : viewDbNameMap.values()) {
+            lineageViews += views.size();
+        }
+        progress.startStage("lineage", lineageViews);
 
+        try {
+            if (parallelWorkers > 1 && lineageViews > 1) {
+                extractLineageInParallel();
+            } else {
+                // for each schema - then view...
+                for (String schema : viewDbNameMap.keySet()) {
+                    log.info("\tschema=" + schema);
+                    for (String view : viewDbNameMap.get(schema)) {
+                        extractViewLineage(schema, view);
+                    } // each view
+                }
             }
+            extractColumnLineageFromSpools();
         } catch (Exception ex) {
-            System.out.println("exception raised in first part of extra processing - " + ex.getMessage());
+            log.error("exception raised in first part of extra processing - " + ex.getMessage());
             ex.printStackTrace();
             if (doDebug && debugWriter != null) {
                 ex.printStackTrace(debugWriter);
@@ -1510,13 +2348,13 @@ public class DenodoScanner extends GenericScanner {
             int allCustLineageCount = 0;
 
             // List<String> tableLevelExternalLinks = new ArrayList<String>();
-            System.out.println("extracting custom lineage...");
+            log.info("extracting custom lineage...");
             for (String schema : tableDbNameMap.keySet()) {
                 // System.out.println("\tschema=" + schema);
                 for (String table : tableDbNameMap.get(schema)) {
                     // System.out.println("\t\ttable=" + table);
                     if (epSkipViews.contains(schema.toLowerCase() + "." + table.toLowerCase())) {
-                        System.out.println("extract view|column custom lineage skipped for: " + schema + "." + table);
+                        log.debug("\t\textract view|column custom lineage skipped for: " + schema + "." + table);
                         if (doDebug && debugWriter != null) {
                             debugWriter.println(
                                     "\textract view|column custom lineage skipped for: " + schema + "." + table);
@@ -1531,7 +2369,6 @@ public class DenodoScanner extends GenericScanner {
                         // catch this and move on - it will mean there is no lineage generated until we
                         // get privileges or denodo let us know another way
                         String wrapperType = this.tableWrapperTypes.get(schema + "." + table);
-                        System.out.print("\t" + schema + "." + table + "  wrapperType=" + wrapperType);
 
                         Map<String, List<String>> tableMap = colDbNameMap.get(schema);
                         // DataSource theDS = tableDataSources.get(schema + "." + table);
@@ -1543,7 +2380,8 @@ public class DenodoScanner extends GenericScanner {
                                     tableMap.get(table), exportCustLineageInScanner);
                             allCustLineageCount += custLineageCount;
                         }
-                        System.out.println(" " + custLineageCount + " lineage links exported");
+                        log.debug("\t" + schema + "." + table + "  wrapperType=" + wrapperType + " " + custLineageCount
+                                + " lineage links exported");
                     }
 
                     // System.out.println("total custom lineage links created: " +
@@ -1551,17 +2389,17 @@ public class DenodoScanner extends GenericScanner {
 
                 } // each table
             } // each schema
-            System.out.println("total custom lineage links created: " + allCustLineageCount);
+            log.info("total custom lineage links created: " + allCustLineageCount);
 
             long end1 = System.currentTimeMillis();
             long totalMillis = end1 - start;
             String timeTaken = String.format("%d min, %d sec", TimeUnit.MILLISECONDS.toMinutes(totalMillis),
                     TimeUnit.MILLISECONDS.toSeconds(totalMillis)
                             - TimeUnit.MINUTES.toSeconds(TimeUnit.MILLISECONDS.toMinutes(totalMillis)));
-            System.out.println("extraProcessing part 2 (custom lineage) time: " + timeTaken + " " + totalMillis + "ms");
+            log.info("extraProcessing part 2 (custom lineage) time: " + timeTaken + " " + totalMillis + "ms");
 
         } catch (Exception ex) {
-            System.out.println("exception found in extraProcessing" + ex.getMessage());
+            log.error("exception found in extraProcessing" + ex.getMessage());
             ex.printStackTrace();
             if (doDebug && debugWriter != null) {
                 ex.printStackTrace(debugWriter);
@@ -1597,9 +2435,10 @@ public class DenodoScanner extends GenericScanner {
         // PreparedStatement wrapperStmnt = null;
         // String wrapperQuery = "DESC VQL WRAPPER JDBC ";
 
+        Statement st = null;
         try {
-            Statement st = connection.createStatement();
-            ResultSet rs = st.executeQuery(query);
+            st = createStatement(connection);
+            ResultSet rs = executeQuery(CALL_DESC_VQL_WRAPPER, objectName(database, wrapper), st, query);
             while (rs.next()) {
                 // System.out.println("\t\twrapper.....");
                 String result = rs.getString("result");
@@ -1618,8 +2457,7 @@ public class DenodoScanner extends GenericScanner {
             }
         } catch (SQLException e) {
             descVQLErrors++;
-            System.out
-                    .println("getConnectionNameFromWrapper: error executing query: " + query + "\n\t" + e.getMessage());
+            log.warn("getConnectionNameFromWrapper: error executing query: " + query + "\n\t" + e.getMessage());
             // e.printStackTrace();
             if (doDebug && debugWriter != null) {
                 debugWriter.println(
@@ -1630,7 +2468,7 @@ public class DenodoScanner extends GenericScanner {
             }
 
         } catch (Exception ex) {
-            System.out.println("un-known exception caught" + ex.getMessage());
+            log.error("un-known exception caught" + ex.getMessage());
             ex.printStackTrace();
             if (doDebug && debugWriter != null) {
                 debugWriter.println("getConnectionNameFromWrapper - Exception");
@@ -1638,6 +2476,8 @@ public class DenodoScanner extends GenericScanner {
                 debugWriter.flush();
             }
 
+        } finally {
+            closeQuietly(st);
         }
         if (doDebug && debugWriter != null) {
             debugWriter.println("exiting getConnectionNameFromWrapper(" + database + "," + wrapper + ")");
@@ -1656,6 +2496,15 @@ public class DenodoScanner extends GenericScanner {
      * @return
      */
     protected Wrapper extractWrapper(String catalog, String table) {
+        // vql.bulk - the wrapper is from DESC VQL DATABASE
+        DatabaseVql vql = databaseVql;
+        if (vql != null && vql.database.equals(catalog) && vql.getTableWrapper(table) != null) {
+            Wrapper bulkWrapper = vql.getTableWrapper(table);
+            tableWrapperTypes.put(catalog + "." + table, bulkWrapper.getType());
+            tableWrappers.put(catalog + "." + table, bulkWrapper);
+            return bulkWrapper;
+        }
+
         // get the view sql
         String wrapperType = "";
         Wrapper theWrapper = null;
@@ -1670,9 +2519,10 @@ public class DenodoScanner extends GenericScanner {
         // PreparedStatement wrapperStmnt = null;
         // String wrapperQuery = "DESC VQL WRAPPER JDBC ";
         String viewSqlStmnt = "";
+        Statement stViewSql = null;
         try {
-            Statement stViewSql = connection.createStatement();
-            ResultSet rs = stViewSql.executeQuery(viewSQL);
+            stViewSql = createStatement(connection);
+            ResultSet rs = executeQuery(CALL_DESC_VQL_WRAPPER, objectName(catalog, table), stViewSql, viewSQL);
             while (rs.next()) {
                 // System.out.println("\t\twrapper.....");
                 // System.out.println("view sql^^^^=" + viewSQL);
@@ -1696,7 +2546,7 @@ public class DenodoScanner extends GenericScanner {
 
             }
         } catch (SQLException e) {
-            System.out.println("ERROR: extractWrapper - exception found when extracting wrapper for table: " + catalog
+            log.error("ERROR: extractWrapper - exception found when extracting wrapper for table: " + catalog
                     + "." + table + " " + e.getMessage());
             if (doDebug && debugWriter != null) {
                 debugWriter.println("extractWrapper: error executing query: " + viewSQL + "\n\t" + e.getMessage());
@@ -1706,6 +2556,8 @@ public class DenodoScanner extends GenericScanner {
             }
 
             // e.printStackTrace();
+        } finally {
+            closeQuietly(stViewSql);
         }
         if (doDebug && debugWriter != null) {
             debugWriter.println("exiting extract wrapper");
@@ -1717,80 +2569,71 @@ public class DenodoScanner extends GenericScanner {
     protected boolean initFiles() {
         // don't call super.initfiles() - we have more headers for tables for denodo
         boolean initialized = true;
-        System.out.println("Step 3: initializing files in: " + customMetadataFolder);
+        // static - may have entries from a previous scan (scanner service)
+        tablesWithSQL.clear();
+        log.info("Step 3: initializing files in: " + customMetadataFolder);
 
         try {
-            // check that the folder exists - if not, create it
-            File directory = new File(String.valueOf(customMetadataFolder));
-            if (!directory.exists()) {
-                System.out.println("\tfolder: " + customMetadataFolder + " does not exist, creating it");
-                directory.mkdir();
-            }
+            // creates the folder if it does not exist
+            output = newScannerOutput();
+            openCheckpoint();
             // otherObjWriter = new CSVWriter(new FileWriter(otherObjectCsvName), ',',
             // CSVWriter.NO_QUOTE_CHARACTER);
-            otherObjWriter = new CSVWriter(
-                    new BufferedWriter(new FileWriter(customMetadataFolder + "/" + CATALOG_SCHEMA_FILENAME)));
-            tableWriter = new CSVWriter(
-                    new BufferedWriter(new FileWriter(customMetadataFolder + "/" + TABLEVIEWS_FILENAME)));
-            viewWriter = new CSVWriter(new BufferedWriter(new FileWriter(customMetadataFolder + "/" + VIEWS_FILENAME)));
-            this.columnWriter = new CSVWriter(
-                    new BufferedWriter(new FileWriter(customMetadataFolder + "/" + COLUMN_FILENAME)));
-            this.viewColumnWriter = new CSVWriter(
-                    new BufferedWriter(new FileWriter(customMetadataFolder + "/" + VCOLUMN_FILENAME)));
-            this.linksWriter = new CSVWriter(
-                    new BufferedWriter(new FileWriter(customMetadataFolder + "/" + LINKS_FILENAME)));
-
-            this.filteredOutWriter = new CSVWriter(
-                    new BufferedWriter(new FileWriter(customMetadataFolder + "/" + "excluded_objects.csv")));
-            missingObjectWriter = new CSVWriter(
-                    new BufferedWriter(new FileWriter(customMetadataFolder + "/" + "missing_objects.txt")));
-
-            otherObjWriter.writeNext(new String[] { "class", "identity", "core.name",
-                    "com.infa.ldm.relational.StoreType", "com.infa.ldm.relational.SystemType" });
-            tableWriter.writeNext(new String[] { "class", "identity", "core.name", "core.description",
-                    "com.infa.ldm.relational.ViewStatement", "com.infa.ldm.relational.Location" });
-            viewWriter.writeNext(new String[] { "class", "identity", "core.name", "core.description",
-                    "com.infa.ldm.relational.ViewStatement", "com.infa.ldm.relational.Location" });
-            columnWriter.writeNext(new String[] { "class", "identity", "core.name", "com.infa.ldm.relational.Datatype",
-                    "com.infa.ldm.relational.DatatypeLength", "com.infa.ldm.relational.Position", "core.dataSetUuid",
-                    "core.description" });
-            viewColumnWriter
-                    .writeNext(new String[] { "class", "identity", "core.name", "com.infa.ldm.relational.Datatype",
+            // headers are not written again when resuming from a checkpoint
+            otherObjWriter = output.openCsvWriter(CATALOG_SCHEMA_FILENAME, true, new String[] { "class", "identity",
+                    "core.name", "com.infa.ldm.relational.StoreType", "com.infa.ldm.relational.SystemType" });
+            tableWriter = output.openCsvWriter(TABLEVIEWS_FILENAME, true, new String[] { "class", "identity",
+                    "core.name", "core.description", "com.infa.ldm.relational.ViewStatement",
+                    "com.infa.ldm.relational.Location" });
+            viewWriter = output.openCsvWriter(VIEWS_FILENAME, true, new String[] { "class", "identity", "core.name",
+                    "core.description", "com.infa.ldm.relational.ViewStatement", "com.infa.ldm.relational.Location" });
+            this.columnWriter = output.openCsvWriter(COLUMN_FILENAME, true,
+                    new String[] { "class", "identity", "core.name", "com.infa.ldm.relational.Datatype",
+                            "com.infa.ldm.relational.DatatypeLength", "com.infa.ldm.relational.Position",
+                            "core.dataSetUuid", "core.description" });
+            this.viewColumnWriter = output.openCsvWriter(VCOLUMN_FILENAME, true,
+                    new String[] { "class", "identity", "core.name", "com.infa.ldm.relational.Datatype",
                             "com.infa.ldm.relational.DatatypeLength", "com.infa.ldm.relational.Position",
                             "core.dataSetUuid", "com.infa.ldm.relational.ViewStatement", "core.description" });
+            this.linksWriter = output.openCsvWriter(LINKS_FILENAME, true,
+                    new String[] { "association", "fromObjectIdentity", "toObjectIdentity" });
 
-            linksWriter.writeNext(new String[] { "association", "fromObjectIdentity", "toObjectIdentity" });
-            filteredOutWriter.writeNext(new String[] { "object", "filter type" });
+            // not part of the zip file
+            this.filteredOutWriter = output.openCsvWriter("excluded_objects.csv", false,
+                    new String[] { "object", "filter type" });
+            missingObjectWriter = output.openCsvWriter("missing_objects.txt", false);
 
             String outFolder = customMetadataFolder + "_lineage";
             String lineageFileName = outFolder + "/" + "denodo_lineage.csv";
             if (exportCustLineageInScanner) {
                 lineageFileName = customMetadataFolder + "/" + "lineage.csv";
             }
-            System.out.println("Step 3.1: initializing denodo specific files: " + lineageFileName);
-            directory = new File(String.valueOf(outFolder));
+            log.info("Step 3.1: initializing denodo specific files: " + lineageFileName);
+            File directory = new File(String.valueOf(outFolder));
             if (!directory.exists()) {
-                System.out.println("\tfolder: " + outFolder + " does not exist, creating it");
+                log.info("\tfolder: " + outFolder + " does not exist, creating it");
                 directory.mkdir();
             }
             // otherObjWriter = new CSVWriter(new FileWriter(otherObjectCsvName), ',',
             // CSVWriter.NO_QUOTE_CHARACTER);
-            custLineageWriter = new CSVWriter(new FileWriter(lineageFileName));
             if (exportCustLineageInScanner) {
-                custLineageWriter.writeNext(new String[] { "Association", "From Connection", "To Connection",
-                        "From Object", "To Object", "com.infa.ldm.etl.ETLContext" });
+                // lineage.csv is packaged in the scanner zip file
+                custLineageWriter = output.openCsvWriter("lineage.csv", true, new String[] { "Association",
+                        "From Connection", "To Connection", "From Object", "To Object", "com.infa.ldm.etl.ETLContext" });
             } else {
+                custLineageWriter = output.newCsvWriter(output.bufferedWriter(new FileOutputStream(lineageFileName)),
+                        lineageFileName);
                 custLineageWriter.writeNext(
                         new String[] { "Association", "From Connection", "To Connection", "From Object", "To Object" });
             }
 
-            System.out.println("\tDenodo Scanner Files initialized");
+            log.info("\tDenodo Scanner Files initialized");
 
             if (doDebug) {
                 debugWriter = new PrintWriter("denodoScanner_debug.txt");
             }
 
-            System.out.println("\tFiles initialized");
+            log.info("\tFiles initialized");
 
         } catch (IOException e1) {
             initialized = false;
@@ -1807,7 +2650,7 @@ public class DenodoScanner extends GenericScanner {
      * @return
      */
     protected boolean closeFiles() {
-        System.out.println("closing denodo specific files");
+        log.info("closing denodo specific files");
 
         try {
             custLineageWriter.close();
@@ -1819,38 +2662,38 @@ public class DenodoScanner extends GenericScanner {
             e.printStackTrace();
             return false;
         } catch (Exception ex) {
-            System.out.println("un-known exception caught" + ex.getMessage());
+            log.error("un-known exception caught" + ex.getMessage());
             ex.printStackTrace();
         }
 
-        System.out.println("expressions found/links created: " + expressionsFound + "/" + expressionLinks);
-        System.out.println(
-                "lineage links written:  viewlevel=" + totalTableLineage + " columnLevel=" + totalColumnLineage);
-        System.out.println("tables with sql statements:" + tablesWithSQL.size());
+        log.info("expressions found/links created: " + expressionsFound + "/" + expressionLinks.sum());
+        log.info("lineage links written:  viewlevel=" + totalTableLineage.sum() + " columnLevel="
+                + totalColumnLineage.sum());
+        log.info("tables with sql statements:" + tablesWithSQL.size());
         if (tablesWithSQL.size() > 0) {
-            System.out.println(tablesWithSQL);
-        }
-        System.out.println("schema to schema links: " + schemaSchemaLinks.size());
-        System.out.println(schemaSchemaLinks);
-        System.out.println("desc vql errors: " + descVQLErrors);
-        System.out.println("skipped objects: " + objects_skipped.size());
-        System.out.println("\t" + objects_skipped);
-        System.out.println("excluded obj count: " + objects_excluded_count + " see " + customMetadataFolder
+            log.info("\t" + tablesWithSQL);
+        }
+        log.info("schema to schema links: " + schemaSchemaLinks.size());
+        log.info("\t" + schemaSchemaLinks);
+        log.info("desc vql errors: " + descVQLErrors);
+        log.info("skipped objects: " + objects_skipped.size());
+        log.info("\t" + objects_skipped);
+        log.info("excluded obj count: " + objects_excluded_count + " see " + customMetadataFolder
                 + "/excluded_objects.txt");
         // System.out.println("excluded objects: " + objects_excluded);
-        System.out.println("not included obj count: " + objects_not_included);
-        System.out.println("missing object count: " + missingObjectCount + " see " + customMetadataFolder
+        log.info("not included obj count: " + objects_not_included);
+        log.info("missing object count: " + missingObjectCount.sum() + " see " + customMetadataFolder
                 + "/missing_objects.txt");
-        System.out.println("SAP Hana _SYS_BIC substitutions: " + Wrapper.schema_subst.size());
+        log.info("SAP Hana _SYS_BIC substitutions: " + Wrapper.schema_subst.size());
         if (Wrapper.schema_subst.size() > 0) {
             for (HashMap.Entry<String, String> entry : Wrapper.schema_subst.entrySet()) {
-                System.out.println("\t\t" + entry.getKey() + " > " + entry.getValue());
+                log.info("\t\t" + entry.getKey() + " > " + entry.getValue());
             }
         }
 
         // we can';t call the superclass to close files - since it also zips
         // super.closeFiles();
-        System.out.println("closing output files");
+        log.info("closing output files");
 
         try {
             otherObjWriter.close();
@@ -1867,58 +2710,9 @@ public class DenodoScanner extends GenericScanner {
         }
 
         /**
-         * zip the files
+         * zip the files (lineage.csv is included if exportCustLineageInScanner)
          */
-        // List<String> srcFiles = Arrays.asList(
-        // customMetadataFolder + "/" + CATALOG_SCHEMA_FILENAME,
-        // customMetadataFolder + "/" + TABLEVIEWS_FILENAME,
-        // customMetadataFolder + "/" + VIEWS_FILENAME,
-        // customMetadataFolder + "/" + VCOLUMN_FILENAME,
-        // customMetadataFolder + "/" + COLUMN_FILENAME,
-        // customMetadataFolder + "/" + LINKS_FILENAME
-        // );
-
-        List<String> srcFiles = new ArrayList<String>();
-        srcFiles.add(customMetadataFolder + "/" + CATALOG_SCHEMA_FILENAME);
-        srcFiles.add(customMetadataFolder + "/" + TABLEVIEWS_FILENAME);
-        srcFiles.add(customMetadataFolder + "/" + VIEWS_FILENAME);
-        srcFiles.add(customMetadataFolder + "/" + VCOLUMN_FILENAME);
-        srcFiles.add(customMetadataFolder + "/" + COLUMN_FILENAME);
-        srcFiles.add(customMetadataFolder + "/" + LINKS_FILENAME);
-
-        if (this.exportCustLineageInScanner) {
-            srcFiles.add(customMetadataFolder + "/" + "lineage.csv");
-        }
-
-        try {
-            System.out.println(
-                    "creating zip file: " + customMetadataFolder + '/' + this.getClass().getSimpleName() + ".zip");
-            FileOutputStream fos = new FileOutputStream(
-                    customMetadataFolder + '/' + this.getClass().getSimpleName() + ".zip");
-            ZipOutputStream zipOut = new ZipOutputStream(fos);
-            for (String srcFile : srcFiles) {
-                File fileToZip = new File(srcFile);
-                FileInputStream fis;
-                fis = new FileInputStream(fileToZip);
-                ZipEntry zipEntry = new ZipEntry(fileToZip.getName());
-                zipOut.putNextEntry(zipEntry);
-
-                byte[] bytes = new byte[1024];
-                int length;
-                while ((length = fis.read(bytes)) >= 0) {
-                    zipOut.write(bytes, 0, length);
-                }
-                fis.close();
-            }
-            zipOut.close();
-            fos.close();
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-
-        return true;
+        return output.close();
 
     }
 
@@ -1947,7 +2741,7 @@ public class DenodoScanner extends GenericScanner {
             e.printStackTrace();
             return false;
         } catch (Exception ex) {
-            System.out.println("un-known exception caught" + ex.getMessage());
+            log.error("un-known exception caught" + ex.getMessage());
             ex.printStackTrace();
         }
 
@@ -1982,7 +2776,8 @@ public class DenodoScanner extends GenericScanner {
 
         try {
             this.tableWriter.writeNext(new String[] { TAB_TYPE, tabId, table, desc, sql, location });
-            tabCount++;
+            tabCount.increment();
+            progress.done();
             this.linksWriter.writeNext(new String[] { "com.infa.ldm.relational.SchemaTable", schId, tabId });
         } catch (Exception ex) {
             ex.printStackTrace();
@@ -2012,7 +2807,7 @@ public class DenodoScanner extends GenericScanner {
         Console c = System.console();
         String response;
         if (c == null) { // IN ECLIPSE IDE (prompt for password using swing ui
-            System.out.println("no console found... using JOptionPane");
+            log.info("no console found... using JOptionPane");
             // final JPasswordField pf = new JPasswordField();
             final JPasswordField pf = new JPasswordField();
             String message = "Enter string to encrypt:";
@@ -2022,8 +2817,8 @@ public class DenodoScanner extends GenericScanner {
         } else { // Outside Eclipse IDE (e.g. windows/linux console)
             response = new String(c.readPassword("Enter string to encrypt: "));
         }
-        System.out.println("length of value entered=" + response.length());
-        System.out.println("encryted text=" + EncryptionUtil.encryptString(response));
+        log.info("length of value entered=" + response.length());
+        log.info("encryted text=" + EncryptionUtil.encryptString(response));
     }
 
 }
@@ -0,0 +1,272 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.denodo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.infa.edc.scanner.jdbc.ScanLogger;
+
+/**
+ * dependency graph for the private (internal) views of a denodo view - used to
+ * resolve a reference to a private view (or private view column) to the actual
+ * views/columns it is derived from.
+ *
+ * nodes are the names ("db//view" or "db//view//column") stored as int ids,
+ * an edge is from a private node to a node it depends on. resolve() returns the
+ * nodes without dependencies that are reachable (the actual views/columns).
+ *
+ * the result for each node is memoized - a resolved node maps straight to the
+ * actual nodes (the private chain is only walked once). adding an edge only
+ * invalidates the results of the nodes that can reach it (found with the
+ * reverse edges). nodes in a cycle reach the same actual nodes - the strongly
+ * connected components (tarjan) are resolved once, with 1 result shared by all
+ * the nodes of the component. the edges that close a cycle are counted (see
+ * getCycleCount)
+ */
+public class LineageGraph {
+    private static final ScanLogger log = ScanLogger.getLogger(LineageGraph.class);
+    private static final int[] NONE = new int[0];
+
+    private final Map<String, Integer> ids = new HashMap<String, Integer>();
+    private final List<String> names = new ArrayList<String>();
+    // edges[id] - the nodes id depends on (the first edgeCounts[id] are used)
+    private int[][] edges = new int[16][];
+    private int[] edgeCounts = new int[16];
+    // reverseEdges[id] - the nodes that depend on id (the first reverseCounts[id])
+    private int[][] reverseEdges = new int[16][];
+    private int[] reverseCounts = new int[16];
+    // from id << 32 | to id - no duplicate edges
+    private final Set<Long> edgeSet = new HashSet<Long>();
+
+    // resolved nodes for each id (null - not resolved)
+    private int[][] memo = new int[16][];
+    // the edges that closed a cycle (from id << 32 | to id)
+    private final Set<Long> cycleEdges = new HashSet<Long>();
+
+    // tarjan state while resolving - the dfs index & lowest index reachable (only
+    // valid for the nodes on the stack)
+    private int[] dfsIndex = new int[16];
+    private int[] lowLink = new int[16];
+    private int[] stack = new int[16];
+    private int stackSize = 0;
+    private final BitSet onStack = new BitSet();
+    private int nextIndex = 0;
+
+    /**
+     * @return the id for a node name (added if new)
+     */
+    protected int getId(String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            names.add(name);
+            ids.put(name, id);
+            if (id == edgeCounts.length) {
+                int size = id * 2;
+                edges = Arrays.copyOf(edges, size);
+                edgeCounts = Arrays.copyOf(edgeCounts, size);
+                reverseEdges = Arrays.copyOf(reverseEdges, size);
+                reverseCounts = Arrays.copyOf(reverseCounts, size);
+                memo = Arrays.copyOf(memo, size);
+                dfsIndex = Arrays.copyOf(dfsIndex, size);
+                lowLink = Arrays.copyOf(lowLink, size);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * add a dependency - from (a private view/column) is derived from to
+     */
+    public void addEdge(String from, String to) {
+        int fromId = getId(from);
+        int toId = getId(to);
+        if (!edgeSet.add(((long) fromId << 32) | toId)) {
+            return;
+        }
+        edges[fromId] = append(edges[fromId], edgeCounts[fromId]++, toId);
+        reverseEdges[toId] = append(reverseEdges[toId], reverseCounts[toId]++, fromId);
+        invalidate(fromId);
+    }
+
+    private static int[] append(int[] ids, int count, int id) {
+        if (ids == null) {
+            ids = new int[4];
+        } else if (count == ids.length) {
+            ids = Arrays.copyOf(ids, count * 2);
+        }
+        ids[count] = id;
+        return ids;
+    }
+
+    /**
+     * forget the results of a node & every node that can reach it (the only
+     * results that can change when the node gets a new edge)
+     */
+    private void invalidate(int id) {
+        BitSet seen = new BitSet();
+        int[] stack = new int[16];
+        int size = 0;
+        stack[size++] = id;
+        seen.set(id);
+        while (size > 0) {
+            int node = stack[--size];
+            memo[node] = null;
+            for (int i = 0; i < reverseCounts[node]; i++) {
+                int source = reverseEdges[node][i];
+                if (!seen.get(source)) {
+                    seen.set(source);
+                    if (size == stack.length) {
+                        stack = Arrays.copyOf(stack, size * 2);
+                    }
+                    stack[size++] = source;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if the node has dependencies (is a private view/column)
+     */
+    public boolean hasEdges(String name) {
+        Integer id = ids.get(name);
+        return id != null && edgeCounts[id] > 0;
+    }
+
+    /**
+     * @return the nodes without dependencies that the node is derived from (in the
+     *         order the edges were added, no duplicates) - empty if the node has
+     *         no dependencies
+     */
+    public List<String> resolve(String name) {
+        List<String> resolved = new ArrayList<String>();
+        Integer id = ids.get(name);
+        if (id == null || edgeCounts[id] == 0) {
+            return resolved;
+        }
+        if (memo[id] == null) {
+            nextIndex = 0;
+            connect(id);
+        }
+        for (int resolvedId : memo[id]) {
+            resolved.add(names.get(resolvedId));
+        }
+        return resolved;
+    }
+
+    /**
+     * tarjan - visit a node not yet resolved. when the node is the root of a
+     * component (nothing on the stack above it reaches lower), the component is
+     * popped & resolved (the components it depends on are already resolved)
+     */
+    private void connect(int id) {
+        dfsIndex[id] = nextIndex;
+        lowLink[id] = nextIndex;
+        nextIndex++;
+        push(id);
+        for (int i = 0; i < edgeCounts[id]; i++) {
+            int target = edges[id][i];
+            if (edgeCounts[target] == 0 || memo[target] != null) {
+                // an actual node, or a component already resolved
+                continue;
+            }
+            if (onStack.get(target)) {
+                // closes a cycle
+                if (cycleEdges.add(((long) id << 32) | target)) {
+                    log.debug("\t\t\tlineage cycle found: " + names.get(id) + " -> " + names.get(target));
+                }
+                lowLink[id] = Math.min(lowLink[id], dfsIndex[target]);
+            } else {
+                connect(target);
+                lowLink[id] = Math.min(lowLink[id], lowLink[target]);
+            }
+        }
+        if (lowLink[id] != dfsIndex[id]) {
+            return;
+        }
+        // the component - id & the nodes above it on the stack (in the order visited)
+        int first = stackSize - 1;
+        while (stack[first] != id) {
+            first--;
+        }
+        int[] members = Arrays.copyOfRange(stack, first, stackSize);
+        stackSize = first;
+        for (int member : members) {
+            onStack.clear(member);
+        }
+        int[] resolved = resolveComponent(members);
+        for (int member : members) {
+            memo[member] = resolved;
+        }
+    }
+
+    private void push(int id) {
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+        }
+        stack[stackSize++] = id;
+        onStack.set(id);
+    }
+
+    /**
+     * @param members the nodes of a component (the nodes they depend on outside
+     *                the component are resolved)
+     * @return the actual nodes - in edge order, no duplicates
+     */
+    private int[] resolveComponent(int[] members) {
+        BitSet component = new BitSet();
+        for (int member : members) {
+            component.set(member);
+        }
+        int[] resolved = NONE;
+        int count = 0;
+        BitSet added = new BitSet();
+        for (int member : members) {
+            for (int i = 0; i < edgeCounts[member]; i++) {
+                int target = edges[member][i];
+                int[] targetResolved;
+                if (edgeCounts[target] == 0) {
+                    targetResolved = new int[] { target };
+                } else if (component.get(target)) {
+                    continue;
+                } else {
+                    targetResolved = memo[target];
+                }
+                for (int resolvedId : targetResolved) {
+                    if (!added.get(resolvedId)) {
+                        added.set(resolvedId);
+                        if (count == resolved.length) {
+                            resolved = Arrays.copyOf(resolved, Math.max(4, count * 2));
+                        }
+                        resolved[count++] = resolvedId;
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(resolved, count);
+    }
+
+    /**
+     * @return the number of nodes
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * @return the number of edges found that close a cycle (a cycle is only found
+     *         when its nodes are resolved)
+     */
+    public int getCycleCount() {
+        return cycleEdges.size();
+    }
+
+}
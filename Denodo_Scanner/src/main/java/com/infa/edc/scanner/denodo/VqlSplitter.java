@@ -0,0 +1,134 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.denodo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.regex.Pattern;
+
+/**
+ * splits a stream of vql (e.g. the result of DESC VQL DATABASE) into
+ * statements. the vql is read a line at a time & only the current statement is
+ * held in memory - each statement is passed to the handler when it ends.
+ *
+ * a statement ends with a line ending with ; (outside of a quoted string or
+ * identifier). comment lines (#) between statements are skipped.
+ *
+ * if a quote was not closed (e.g. a string ending with \) & the line ending
+ * with ; is followed by a line starting a new statement (CREATE, ALTER ...) the
+ * statement is ended there - so 1 bad quote does not swallow the rest of the
+ * database
+ */
+public class VqlSplitter {
+    protected static final Pattern STATEMENT_START = Pattern
+            .compile("^(CREATE|ALTER|CONNECT|DROP|CHOWN|GRANT)\\s.*|^#.*", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * receives each statement (trimmed, ending with ;)
+     */
+    public interface Handler {
+        void statement(String vql);
+    }
+
+    private final Handler handler;
+    private final StringBuilder statement = new StringBuilder();
+    // inside a '...' string or a "..." identifier
+    private boolean inString = false;
+    private boolean inIdentifier = false;
+    // the last line ended with ; but a quote is still open
+    private boolean suspectEnd = false;
+    private int statements = 0;
+
+    public VqlSplitter(Handler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * read & split the vql - can be called more than once (e.g. for each row of a
+     * result), a statement can continue in the next call. call finish() after the
+     * last call
+     *
+     * @param vql the vql to split
+     * @throws IOException
+     */
+    public void split(Reader vql) throws IOException {
+        BufferedReader reader = new BufferedReader(vql);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            addLine(line);
+        }
+    }
+
+    /**
+     * pass the last statement (if not ended with ;) to the handler
+     */
+    public void finish() {
+        endStatement();
+    }
+
+    /**
+     * @return the number of statements passed to the handler
+     */
+    public int getStatementCount() {
+        return statements;
+    }
+
+    private void addLine(String line) {
+        if (suspectEnd) {
+            suspectEnd = false;
+            if (STATEMENT_START.matcher(line).matches()) {
+                // the quote was not closed - the statement ended on the last line
+                endStatement();
+            }
+        }
+        if (statement.length() == 0 && (line.trim().length() == 0 || line.startsWith("#"))) {
+            // blank or comment line between statements
+            return;
+        }
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    // escaped character
+                    i++;
+                } else if (c == '\'') {
+                    // '' is an escaped quote - the string closes & opens again
+                    inString = false;
+                }
+            } else if (inIdentifier) {
+                if (c == '"') {
+                    inIdentifier = false;
+                }
+            } else if (c == '\'') {
+                inString = true;
+            } else if (c == '"') {
+                inIdentifier = true;
+            }
+        }
+        statement.append(line).append('\n');
+
+        if (line.trim().endsWith(";")) {
+            if (inString || inIdentifier) {
+                suspectEnd = true;
+            } else {
+                endStatement();
+            }
+        }
+    }
+
+    private void endStatement() {
+        String vql = statement.toString().trim();
+        statement.setLength(0);
+        inString = false;
+        inIdentifier = false;
+        suspectEnd = false;
+        if (vql.length() > 0) {
+            statements++;
+            handler.statement(vql);
+        }
+    }
+
+}
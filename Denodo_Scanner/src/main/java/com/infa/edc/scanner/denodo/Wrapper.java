@@ -10,6 +10,8 @@ import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.infa.edc.scanner.jdbc.ScanEvents;
+import com.infa.edc.scanner.jdbc.ScanLogger;
 import com.opencsv.CSVWriter;
 
 /**
@@ -23,6 +25,7 @@ import com.opencsv.CSVWriter;
  *
  */
 public class Wrapper {
+    private static final ScanLogger log = ScanLogger.getLogger(Wrapper.class);
     private String type;
     private String name;
     private String folder;
@@ -30,6 +33,8 @@ public class Wrapper {
     private String relation;
     private String catalog;
     private String dataSource;
+    // database.datasource - for the cache check
+    private String dataSourceKey;
     private DataSource dataSourceObj;
     private String sqlSentance;
     private String vql;
@@ -60,7 +65,11 @@ public class Wrapper {
         // wr.dataSourceObj = ds;
         // System.out.println("raw wrapper=" + wr);
 
+        ScanEvents.Parse event = ScanEvents.parse("wrapper", wrapperVQL);
         wr = wr.parse(wrapperVQL, inDatabase);
+        if (event != null) {
+            event.finish(inDatabase + "." + wr.getName());
+        }
         // System.out.println("cooked wr=" + wr);
 
         return wr;
@@ -97,11 +106,19 @@ public class Wrapper {
     static Wrapper getWrapper(String key) {
         Wrapper theWrapper = cache.get(key);
         if (theWrapper == null) {
-            System.out.println("\t\tERROR: wrapper is null " + key);
+            log.warn("\t\tERROR: wrapper is null " + key);
         }
         return theWrapper;
     }
 
+    /**
+     * @return true if the datasource used by the wrapper is the one in the
+     *         datasource cache (a changed datasource is created again)
+     */
+    private boolean isDataSourceCurrent() {
+        return dataSourceKey == null || DataSource.getDataSource(dataSourceKey) == dataSourceObj;
+    }
+
     private Wrapper parse(String wrapperVQL, String inDatabase) {
         // if the object already exits
         // get the datasource type
@@ -119,12 +136,18 @@ public class Wrapper {
                 if (regexMatcher.find() && regexMatcher.groupCount() == 2) {
                     this.type = regexMatcher.group(1);
                     this.name = regexMatcher.group(2);
-                    if (cache.containsKey(inDatabase + "." + this.name)) {
-                        System.out.println("cached entry for wrapper: " + inDatabase + "." + this.name);
-                        return cache.get(inDatabase + "." + this.name);
+                    // the cache is only used if the vql & the datasource are the same (scanner
+                    // service - the wrapper or its datasource may have changed since the last scan)
+                    Wrapper cached = cache.get(inDatabase + "." + this.name);
+                    if (cached != null && wrapperVQL.equals(cached.vql) && cached.isDataSourceCurrent()) {
+                        log.debug("cached entry for wrapper: " + inDatabase + "." + this.name);
+                        return cached;
+                    } else if (cached != null) {
+                        log.debug("wrapper or datasource changed since it was cached: " + inDatabase + "."
+                                + this.name);
                     }
                 } else {
-                    System.out.println("Error:  unable to extract connection name from: " + aLine
+                    log.warn("Error:  unable to extract connection name from: " + aLine
                             + " groupcount != 2, using regex=" + dsPattern);
                 }
 
@@ -142,10 +165,11 @@ public class Wrapper {
                 if (!this.dataSource.contains(".")) {
                     dsKey = inDatabase + "." + this.dataSource;
                 }
+                this.dataSourceKey = dsKey;
 
                 this.dataSourceObj = DataSource.getDataSource(dsKey);
                 if (this.dataSourceObj == null) {
-                    System.out.println("ERROR:  cant lookup datasource for wrapper: " + dsKey);
+                    log.warn("ERROR:  cant lookup datasource for wrapper: " + dsKey);
                 }
                 // System.out.println("wrapper - ds name=" + theWrapper.getDataSource() + "
                 // actual source=" + actualDS);
@@ -212,7 +236,7 @@ public class Wrapper {
         // if there is no schema name found - use catalog name (mysql will not have a
         // schema)
         if (this.schema == null && (this.type.equals("JDBC") | this.type.equals("ODBC"))) {
-            System.out.println("\t\tno schema found for wrapper " + this.name + " using catalog=" + this.catalog);
+            log.debug("\t\tno schema found for wrapper " + this.name + " using catalog=" + this.catalog);
             this.schema = this.catalog;
         }
 
@@ -231,15 +255,15 @@ public class Wrapper {
         if (dataSourceObj != null) {
             connectionName = toSch + "." + dataSourceObj.getName() + ":" + dataSourceObj.getType();
         } else {
-            System.out.println("dataSourceObj is null");
+            log.debug("dataSourceObj is null");
         }
 
         if (this.type.equals("JDBC") | this.type.equals("ODBC")) {
 
             if (this.sqlSentance != null) {
                 // skip??
-                System.out.print(" WARNING: sqlsentance found... no custom lineage created. "
-                        + this.sqlSentance.length() + " characters ");
+                log.debug("\t" + toSch + "." + toTab + " WARNING: sqlsentance found... no custom lineage created. "
+                        + this.sqlSentance.length() + " characters");
                 return custLineageCount;
             }
             custLineageCount++;
@@ -272,8 +296,8 @@ public class Wrapper {
             for (String tgtCol : columns) {
                 String fromCol = this.outputSchema.get(tgtCol);
                 if (fromCol == null || fromCol.isEmpty()) {
-                    System.out.println("\tERROR: no from col mapped???? to=" + toSch + "." + toTab + "." + tgtCol);
-                    System.out.println(this.outputSchema.keySet());
+                    log.warn("\tERROR: no from col mapped???? to=" + toSch + "." + toTab + "." + tgtCol + " "
+                            + this.outputSchema.keySet());
                 } else {
                     custLineageCount++;
                     if (exportCustLineageInScanner) {
@@ -292,10 +316,10 @@ public class Wrapper {
 
         } else if (this.type.equals("DF")) {
             if (this.dataSourceObj == null) {
-                System.out.println("ERROR: null datasource???");
+                log.warn("ERROR: null datasource???");
             } else {
                 if (this.dataSourceObj.getRoute() == null) {
-                    System.out.println("ERROR: null route in datasource???");
+                    log.warn("ERROR: null route in datasource???");
 
                 }
             }
@@ -317,7 +341,7 @@ public class Wrapper {
                 for (String tgtCol : columns) {
                     String fromCol = this.outputSchema.get(tgtCol);
                     if (fromCol == null || fromCol.isEmpty()) {
-                        System.out.println("ERROR: no from col mapped???? to=" + toSch + "." + toTab + "." + tgtCol);
+                        log.warn("ERROR: no from col mapped???? to=" + toSch + "." + toTab + "." + tgtCol);
                     } else {
                         custLineageCount++;
                         lineageWriter.writeNext(new String[] { "core.DirectionalDataFlow", connectionName, "", // to
@@ -329,14 +353,15 @@ public class Wrapper {
 
             } else {
                 // non local - e.g. HTTP - not sure what to do with this? create a file????
-                System.out.print("\t\tnon local df route " + dataSourceObj.getRoute() + " - no linage (yet)");
-                System.out.print("\n\t\tmay need to create a file object?? " + dataSourceObj.getRoute() + " url="
+                log.debug("\t\t" + toSch + "." + toTab + " non local df route " + dataSourceObj.getRoute()
+                        + " - no linage (yet)");
+                log.debug("\t\tmay need to create a file object?? " + dataSourceObj.getRoute() + " url="
                         + dataSourceObj.getUrl() + " fileNamePattern=" + dataSourceObj.getFileNamePattern());
             }
 
         } else {
-            System.out.print(
-                    "\twrapper type:" + this.type + " not yet supported - or proxy object(s) need to be created. ");
+            log.debug("\t" + toSch + "." + toTab + " wrapper type:" + this.type
+                    + " not yet supported - or proxy object(s) need to be created.");
         }
 
         return custLineageCount;
@@ -0,0 +1,78 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.denodo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * bulk.columns - the columns of a database (ordered by view name) taken by each
+ * table/view as it is extracted
+ */
+public class ColumnStreamTest {
+
+    /**
+     * a result set with the rows view_name, column_name (the type, precision &
+     * description are the column name)
+     */
+    private static ResultSet rows(final String... rows) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+                new InvocationHandler() {
+                    private int row = -1;
+
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("next")) {
+                            return ++row < rows.length;
+                        } else if (method.getName().equals("getString")) {
+                            String[] values = rows[row].split("\\.");
+                            return args[0].equals("view_name") ? values[0] : values[1];
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    private static List<String> names(List<String[]> columns) {
+        List<String> names = new ArrayList<String>();
+        for (String[] column : columns) {
+            names.add(column[0]);
+        }
+        return names;
+    }
+
+    @Test
+    public void takeInOrder() throws SQLException {
+        DenodoScanner.ColumnStream stream = new DenodoScanner.ColumnStream(null,
+                rows("a.c2", "a.c1", "b.x", "c.c1", "d.y", "e.z", "e.c3"));
+        // column order is kept, b is skipped (not requested)
+        assertEquals("[c2, c1]", names(stream.take("a")).toString());
+        assertEquals("[c1]", names(stream.take("c")).toString());
+        // not in the stream - d is kept for the next table/view
+        assertNull(stream.take("cc"));
+        assertEquals("[y]", names(stream.take("d")).toString());
+        assertEquals("[z, c3]", names(stream.take("e")).toString());
+        assertNull(stream.take("f"));
+    }
+
+    @Test
+    public void outOfOrder() throws SQLException {
+        DenodoScanner.ColumnStream stream = new DenodoScanner.ColumnStream(null, rows("a.c1", "b.c1", "c.c1"));
+        assertEquals("[c1]", names(stream.take("b")).toString());
+        // a was skipped - not found (1 call is used)
+        assertNull(stream.take("a"));
+        assertEquals("[c1]", names(stream.take("c")).toString());
+    }
+
+}
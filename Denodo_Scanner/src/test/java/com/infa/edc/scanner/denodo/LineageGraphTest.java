@@ -0,0 +1,117 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.denodo;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * resolving private views/columns to the actual nodes they are derived from
+ */
+public class LineageGraphTest {
+
+    @Test
+    public void chain() {
+        LineageGraph graph = new LineageGraph();
+        graph.addEdge("db//p1", "db//p2");
+        graph.addEdge("db//p2", "db//v1");
+        assertEquals(Arrays.asList("db//v1"), graph.resolve("db//p1"));
+        assertEquals(Collections.emptyList(), graph.resolve("db//v1"));
+        assertEquals(Collections.emptyList(), graph.resolve("db//unknown"));
+    }
+
+    @Test
+    public void diamond() {
+        // p1 -> p2 -> v1, p1 -> p3 -> v1 & v2 - v1 only once, in edge order
+        LineageGraph graph = new LineageGraph();
+        graph.addEdge("p1", "p2");
+        graph.addEdge("p1", "p3");
+        graph.addEdge("p2", "v1");
+        graph.addEdge("p3", "v1");
+        graph.addEdge("p3", "v2");
+        assertEquals(Arrays.asList("v1", "v2"), graph.resolve("p1"));
+        assertEquals(Arrays.asList("v1"), graph.resolve("p2"));
+        assertEquals(Arrays.asList("v1", "v2"), graph.resolve("p3"));
+        assertEquals(0, graph.getCycleCount());
+    }
+
+    @Test
+    public void cycle() {
+        // p1 -> p2 -> p3 -> p1, each with an actual view
+        LineageGraph graph = new LineageGraph();
+        graph.addEdge("p1", "p2");
+        graph.addEdge("p2", "p3");
+        graph.addEdge("p3", "p1");
+        graph.addEdge("p1", "v1");
+        graph.addEdge("p2", "v2");
+        graph.addEdge("p3", "v3");
+        graph.addEdge("p0", "p1");
+        assertEquals(Arrays.asList("v1", "v2", "v3"), graph.resolve("p0"));
+        // the same nodes from anywhere in the cycle
+        assertEquals(Arrays.asList("v1", "v2", "v3"), graph.resolve("p2"));
+        assertEquals(Arrays.asList("v1", "v2", "v3"), graph.resolve("p3"));
+        assertEquals(1, graph.getCycleCount());
+    }
+
+    @Test
+    public void selfReference() {
+        LineageGraph graph = new LineageGraph();
+        graph.addEdge("p1", "p1");
+        graph.addEdge("p1", "v1");
+        assertEquals(Arrays.asList("v1"), graph.resolve("p1"));
+        assertEquals(1, graph.getCycleCount());
+    }
+
+    @Test
+    public void invalidateAfterAddEdge() {
+        LineageGraph graph = new LineageGraph();
+        graph.addEdge("p1", "p2");
+        graph.addEdge("p2", "v1");
+        graph.addEdge("p3", "v3");
+        assertEquals(Arrays.asList("v1"), graph.resolve("p1"));
+        assertEquals(Arrays.asList("v3"), graph.resolve("p3"));
+
+        // p2 changes - p1 (which reaches p2) must see it, p3 is not affected
+        graph.addEdge("p2", "v2");
+        assertEquals(Arrays.asList("v1", "v2"), graph.resolve("p1"));
+        assertEquals(Arrays.asList("v3"), graph.resolve("p3"));
+
+        // v1 becomes a private view
+        graph.addEdge("v1", "v4");
+        assertEquals(Arrays.asList("v4", "v2"), graph.resolve("p1"));
+
+        // a new edge that closes a cycle through resolved nodes
+        graph.addEdge("v4", "p1");
+        assertEquals(Arrays.asList("v2"), graph.resolve("p1"));
+        assertEquals(Arrays.asList("v2"), graph.resolve("v4"));
+    }
+
+    /**
+     * 2^40 paths through 40 cycles - each cycle (component) is resolved once
+     */
+    @Test(timeout = 5000)
+    public void layeredCycles() {
+        LineageGraph graph = new LineageGraph();
+        int layers = 40;
+        for (int i = 0; i < layers; i++) {
+            // a & b of a layer depend on each other & on both nodes of the next
+            graph.addEdge("a" + i, "b" + i);
+            graph.addEdge("b" + i, "a" + i);
+            graph.addEdge("a" + i, "a" + (i + 1));
+            graph.addEdge("a" + i, "b" + (i + 1));
+            graph.addEdge("b" + i, "a" + (i + 1));
+            graph.addEdge("b" + i, "b" + (i + 1));
+        }
+        graph.addEdge("a" + layers, "v");
+        graph.addEdge("b" + layers, "v");
+        assertEquals(Arrays.asList("v"), graph.resolve("b0"));
+        assertEquals(Arrays.asList("v"), graph.resolve("a0"));
+        assertEquals(layers, graph.getCycleCount());
+    }
+
+}
@@ -0,0 +1,88 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.denodo;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * splitting the result of DESC VQL DATABASE into statements
+ */
+public class VqlSplitterTest {
+
+    private static List<String> split(String... vql) throws IOException {
+        final List<String> statements = new ArrayList<String>();
+        VqlSplitter splitter = new VqlSplitter(new VqlSplitter.Handler() {
+            @Override
+            public void statement(String statement) {
+                statements.add(statement);
+            }
+        });
+        for (String part : vql) {
+            splitter.split(new StringReader(part));
+        }
+        splitter.finish();
+        assertEquals(statements.size(), splitter.getStatementCount());
+        return statements;
+    }
+
+    @Test
+    public void statements() throws IOException {
+        assertEquals(Arrays.asList("CONNECT DATABASE db;", "CREATE VIEW v1 AS SELECT a\nFROM t1;"),
+                split("CONNECT DATABASE db;\n\nCREATE VIEW v1 AS SELECT a\nFROM t1;\n"));
+    }
+
+    @Test
+    public void quotedSemicolon() throws IOException {
+        // ; at the end of a line inside a string or identifier does not end the
+        // statement
+        assertEquals(Arrays.asList("CREATE VIEW v1 AS SELECT 'a;\nb;' AS \"c;\nd\" FROM t1;", "DROP VIEW v2;"),
+                split("CREATE VIEW v1 AS SELECT 'a;\nb;' AS \"c;\nd\" FROM t1;\nDROP VIEW v2;\n"));
+    }
+
+    @Test
+    public void escapedQuotes() throws IOException {
+        // '' & \' do not close the string
+        assertEquals(
+                Arrays.asList("CREATE VIEW v1 AS SELECT 'it''s;\n' FROM t1;",
+                        "CREATE VIEW v2 AS SELECT 'it\\'s;\n' FROM t1;"),
+                split("CREATE VIEW v1 AS SELECT 'it''s;\n' FROM t1;\nCREATE VIEW v2 AS SELECT 'it\\'s;\n' FROM t1;\n"));
+    }
+
+    @Test
+    public void comments() throws IOException {
+        // comment & blank lines between statements are skipped, a # line inside a
+        // statement is kept
+        assertEquals(Arrays.asList("CREATE VIEW v1 AS\n# not a comment\nSELECT a FROM t1;", "DROP VIEW v2;"),
+                split("# ====\n# views\n\nCREATE VIEW v1 AS\n# not a comment\nSELECT a FROM t1;\n# ====\n\nDROP VIEW v2;"));
+    }
+
+    @Test
+    public void unclosedQuote() throws IOException {
+        // 'C:\' - the quote is escaped, the string is not closed. the statement
+        // ends at ; when the next line starts a statement (or is a comment)
+        assertEquals(
+                Arrays.asList("CREATE DATASOURCE DF ds1 ROUTE LOCAL 'C:\\';", "CREATE VIEW v1 AS SELECT a FROM t1;"),
+                split("CREATE DATASOURCE DF ds1 ROUTE LOCAL 'C:\\';\n# comment\nCREATE VIEW v1 AS SELECT a FROM t1;\n"));
+        // not a statement start - the statement continues to the quote
+        assertEquals(Arrays.asList("CREATE VIEW v1 AS SELECT 'x\\';\nSELECT';", "DROP VIEW v2;"),
+                split("CREATE VIEW v1 AS SELECT 'x\\';\nSELECT';\nDROP VIEW v2;\n"));
+    }
+
+    @Test
+    public void acrossReads() throws IOException {
+        // a statement continues in the next row of the result, the last statement
+        // is passed by finish() without ;
+        assertEquals(Arrays.asList("CREATE VIEW v1 AS\nSELECT a FROM t1;", "DROP VIEW v2"),
+                split("CREATE VIEW v1 AS\n", "SELECT a FROM t1;\nDROP VIEW v2"));
+    }
+
+}
@@ -0,0 +1,351 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * limits the metadata calls sent to the source database - the number of calls
+ * in flight (adaptive) & the calls per second (fixed ceiling)
+ *
+ * throttle=true - AIMD (additive increase, multiplicative decrease) on the
+ * number of calls in flight, starting at 1:-
+ * <ul>
+ * <li>after each window of calls (1 window = the current limit, at least
+ * WINDOW_MIN calls) the limit is raised by 1 - if the limit was used & the
+ * source is healthy</li>
+ * <li>the limit is halved if more than throttle.maxErrorRate of the calls in
+ * the window failed</li>
+ * <li>the limit is reduced by 1/4 if a call type is slower than
+ * throttle.latencyFactor x its baseline (the lowest average latency seen for
+ * the call type)</li>
+ * </ul>
+ * throttle.maxQps - calls are spaced so there are no more than maxQps calls
+ * started per second (with or without throttle=true)
+ *
+ * acquire() before the call. a call that returns a result set hands its permit
+ * to the result set (handOff) - the permit is released when the result set is
+ * read to the end or closed, so a call counts as in flight while its rows are
+ * being fetched. a call without a result set is ended by release().
+ *
+ * each thread uses at most 1 slot - a call made while the thread is reading the
+ * result of another call (e.g. getColumns for each row of getTables) shares the
+ * slot (waiting for another slot could deadlock). a permit not released or
+ * handed off (the call failed before release was called) is counted as an error
+ * by the next acquire() on the same thread
+ */
+public class AdaptiveLimiter {
+    private static final ScanLogger log = ScanLogger.getLogger(AdaptiveLimiter.class);
+    public static final int WINDOW_MIN = 5;
+    private static final double EWMA_WEIGHT = 0.2;
+    // the baseline follows a sustained change slowly (e.g. bigger schemas)
+    private static final double BASELINE_DRIFT = 0.01;
+
+    private final boolean adaptive;
+    private final int maxLimit;
+    private final double latencyFactor;
+    private final double maxErrorRate;
+    private final long qpsIntervalNanos;
+
+    private double limit;
+    private int inFlight = 0;
+    private int windowPeak = 0;
+    private int windowCalls = 0;
+    private int windowErrors = 0;
+    private boolean windowSlow = false;
+    private long nextCallNanos = 0;
+
+    // average & baseline latency (nanos) per call type
+    private final Map<String, double[]> latency = new HashMap<String, double[]>();
+    private final ThreadLocal<Slot> slots = new ThreadLocal<Slot>() {
+        @Override
+        protected Slot initialValue() {
+            return new Slot();
+        }
+    };
+
+    // totals for the progress message & metrics report
+    private long calls = 0;
+    private long errors = 0;
+    private long increases = 0;
+    private long decreases = 0;
+    private long waitNanos = 0;
+    private int lowestLimit;
+
+    /**
+     * @param adaptive      true = AIMD on the calls in flight, false = maxLimit is
+     *                      used (only the qps ceiling applies)
+     * @param maxLimit      maximum calls in flight
+     * @param maxQps        maximum calls started per second (0 = no ceiling)
+     * @param latencyFactor a call type is slow if its average latency is more than
+     *                      this x the baseline
+     * @param maxErrorRate  failed calls per window (0-1) before the limit is halved
+     */
+    public AdaptiveLimiter(boolean adaptive, int maxLimit, double maxQps, double latencyFactor,
+            double maxErrorRate) {
+        this.adaptive = adaptive;
+        this.maxLimit = Math.max(maxLimit, 1);
+        this.latencyFactor = Math.max(latencyFactor, 1.1);
+        this.maxErrorRate = maxErrorRate;
+        this.qpsIntervalNanos = maxQps > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / maxQps) : 0;
+        this.limit = adaptive ? 1 : this.maxLimit;
+        this.lowestLimit = (int) limit;
+    }
+
+    /**
+     * the slot used by 1 thread - held while any of its permits are open
+     */
+    private static class Slot {
+        // permits acquired & not released (the call & result sets being read)
+        private final List<Permit> open = new ArrayList<Permit>();
+        // the call started by acquire() - not yet released or handed off
+        private Permit pending = null;
+    }
+
+    /**
+     * the permit for 1 call - released by the result set of the call (see
+     * handOff)
+     */
+    public final class Permit {
+        private final Slot slot;
+        private final long startedNanos;
+        private String call = null;
+        private long latencyNanos = 0;
+        private boolean failed = false;
+        private boolean released = false;
+
+        private Permit(Slot slot, long startedNanos) {
+            this.slot = slot;
+            this.startedNanos = startedNanos;
+        }
+
+        /**
+         * release the permit (nothing is done if already released)
+         *
+         * @param failed true if reading the result failed
+         */
+        public void release(boolean failed) {
+            synchronized (AdaptiveLimiter.this) {
+                if (!released) {
+                    this.failed |= failed;
+                    releaseLocked(this);
+                }
+            }
+        }
+    }
+
+    /**
+     * wait for a permit (a free slot & the qps ceiling)
+     *
+     * @return System.nanoTime() when the call can start
+     */
+    public long acquire() {
+        long waitStart = System.nanoTime();
+        long sleepNanos = 0;
+        Slot threadSlot = slots.get();
+        synchronized (this) {
+            if (threadSlot.pending != null) {
+                // the last call on this thread failed before release()
+                threadSlot.pending.failed = true;
+                releaseLocked(threadSlot.pending);
+            }
+            if (threadSlot.open.isEmpty()) {
+                try {
+                    while (inFlight >= (int) limit) {
+                        wait();
+                    }
+                } catch (InterruptedException e) {
+                    // stop waiting - the call is made without a free slot
+                    Thread.currentThread().interrupt();
+                }
+                inFlight++;
+                windowPeak = Math.max(windowPeak, inFlight);
+            }
+            if (qpsIntervalNanos > 0) {
+                long now = System.nanoTime();
+                long slot = Math.max(now, nextCallNanos);
+                nextCallNanos = slot + qpsIntervalNanos;
+                sleepNanos = slot - now;
+            }
+        }
+        if (sleepNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        long started = System.nanoTime();
+        synchronized (this) {
+            waitNanos += started - waitStart;
+            threadSlot.pending = new Permit(threadSlot, started);
+            threadSlot.open.add(threadSlot.pending);
+        }
+        return started;
+    }
+
+    /**
+     * the call started by this thread returned a result set - the permit is
+     * released by the result set (when read to the end or closed)
+     *
+     * @param call the call type (for the latency baseline)
+     * @return the permit - or null if the thread has no call in progress
+     */
+    public Permit handOff(String call) {
+        Slot slot = slots.get();
+        synchronized (this) {
+            Permit permit = slot.pending;
+            if (permit != null) {
+                slot.pending = null;
+                permit.call = call;
+                permit.latencyNanos = System.nanoTime() - permit.startedNanos;
+            }
+            return permit;
+        }
+    }
+
+    /**
+     * release the call started by this thread (nothing is done if the thread has
+     * no call in progress - e.g. it was handed off)
+     *
+     * @param call         the call type (for the latency baseline - or null)
+     * @param failed       true if the call failed
+     * @param startedNanos the value returned by acquire()
+     */
+    public void release(String call, boolean failed, long startedNanos) {
+        Slot slot = slots.get();
+        synchronized (this) {
+            Permit permit = slot.pending;
+            if (permit == null) {
+                return;
+            }
+            permit.call = call;
+            permit.latencyNanos = System.nanoTime() - startedNanos;
+            permit.failed = failed;
+            releaseLocked(permit);
+        }
+    }
+
+    /**
+     * a call made by this thread failed (exception) - the call in progress is
+     * released as failed. a result set still being read is not changed (an error
+     * from next() is counted by the result set, an error reading 1 value is not a
+     * failed call)
+     */
+    public void failed() {
+        Slot slot = slots.get();
+        synchronized (this) {
+            if (slot.pending != null) {
+                slot.pending.failed = true;
+                releaseLocked(slot.pending);
+            }
+        }
+    }
+
+    private void releaseLocked(Permit permit) {
+        Slot slot = permit.slot;
+        permit.released = true;
+        slot.open.remove(permit);
+        if (slot.pending == permit) {
+            slot.pending = null;
+        }
+        if (slot.open.isEmpty()) {
+            inFlight--;
+        }
+        calls++;
+        windowCalls++;
+        if (permit.failed) {
+            errors++;
+            windowErrors++;
+        } else if (permit.call != null) {
+            recordLatency(permit.call, permit.latencyNanos);
+        }
+        if (adaptive && windowCalls >= Math.max((int) limit, WINDOW_MIN)) {
+            adjustLimit();
+        }
+        notifyAll();
+    }
+
+    private void recordLatency(String call, long latencyNanos) {
+        double[] stats = latency.get(call);
+        if (stats == null) {
+            // average, baseline
+            latency.put(call, new double[] { latencyNanos, latencyNanos });
+            return;
+        }
+        stats[0] += (latencyNanos - stats[0]) * EWMA_WEIGHT;
+        if (stats[0] < stats[1]) {
+            stats[1] = stats[0];
+        } else {
+            stats[1] += (stats[0] - stats[1]) * BASELINE_DRIFT;
+        }
+        if (stats[0] > stats[1] * latencyFactor) {
+            windowSlow = true;
+        }
+    }
+
+    /**
+     * end of a window - AIMD
+     */
+    private void adjustLimit() {
+        double before = limit;
+        if (windowErrors > windowCalls * maxErrorRate) {
+            limit = Math.max(limit / 2, 1);
+            decreases++;
+            log.warn("throttle: " + windowErrors + " of " + windowCalls + " calls failed - concurrency limit "
+                    + (int) before + " -> " + (int) limit);
+        } else if (windowSlow) {
+            limit = Math.max(limit * 0.75, 1);
+            decreases++;
+            if ((int) before != (int) limit) {
+                log.info("throttle: source is slowing down - concurrency limit " + (int) before + " -> "
+                        + (int) limit);
+            }
+        } else if (windowPeak >= (int) limit && limit < maxLimit) {
+            limit = Math.min(limit + 1, maxLimit);
+            increases++;
+            log.debug("throttle: concurrency limit " + (int) before + " -> " + (int) limit);
+        }
+        lowestLimit = Math.min(lowestLimit, (int) limit);
+        windowCalls = 0;
+        windowErrors = 0;
+        windowSlow = false;
+        windowPeak = inFlight;
+    }
+
+    /**
+     * @return the current limit for calls in flight
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return e.g. throttle: limit=3 of 8, in flight=2, errors=0, decreases=1,
+     *         waiting=12 sec
+     */
+    public synchronized String getSummary() {
+        return "throttle: limit=" + (int) limit + " of " + maxLimit + ", in flight=" + inFlight + ", errors="
+                + errors + ", decreases=" + decreases + ", waiting=" + TimeUnit.NANOSECONDS.toSeconds(waitNanos)
+                + " sec";
+    }
+
+    /**
+     * add the limiter counts to the metrics report
+     */
+    public synchronized void setMetricsCounters(ScanMetrics metrics) {
+        metrics.setCounter("throttleCalls", calls);
+        metrics.setCounter("throttleErrors", errors);
+        metrics.setCounter("throttleLimit", (long) limit);
+        metrics.setCounter("throttleLowestLimit", lowestLimit);
+        metrics.setCounter("throttleIncreases", increases);
+        metrics.setCounter("throttleDecreases", decreases);
+        metrics.setCounter("throttleWaitMillis", TimeUnit.NANOSECONDS.toMillis(waitNanos));
+    }
+
+}
@@ -0,0 +1,433 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.opencsv.CSVWriter;
+
+/**
+ * run the scans for many resources (property files) in 1 jvm - the jvm
+ * startup & jdbc driver loading is only paid once
+ *
+ * usage: BatchScanner [-parallel n] [-perHost n] [-out folder] &lt;property
+ * file|folder&gt;... [agreeToDisclaimer]
+ * <ul>
+ * <li>-parallel - maximum number of scans running at the same time (default
+ * 4)</li>
+ * <li>-perHost - maximum number of scans for the same database host (from the
+ * jdbc URL) at the same time (default 1)</li>
+ * <li>-out - each resource is written to &lt;folder&gt;/&lt;resource&gt; (the
+ * property file name). without -out, customMetadata.folder is used - each
+ * resource must have a different folder</li>
+ * </ul>
+ * folders are scanned for *.properties files. each property file can set
+ * scanner.class (default com.infa.edc.scanner.jdbc.GenericScanner) - the
+ * scanner jar must be on the classpath. scanners with static state (e.g.
+ * DenodoScanner) only run 1 at a time
+ *
+ * each resource has it's own metrics (&lt;folder&gt;/&lt;scanner&gt;.metrics.json
+ * & jmx name=&lt;resource&gt;), log messages are prefixed with the resource
+ * name. a summary (status, time & object counts per resource) is written at the
+ * end & to batch_summary.csv
+ */
+public class BatchScanner {
+    private static final ScanLogger log = ScanLogger.getLogger(BatchScanner.class);
+    public static final String DEFAULT_SCANNER = GenericScanner.class.getName();
+    public static final String SUMMARY_FILENAME = "batch_summary.csv";
+
+    private static final Pattern HOST_PATTERN = Pattern.compile("//(?:[^@/]*@)?([^:/;?]+)");
+
+    protected int parallel = 4;
+    protected int perHost = 1;
+    protected String outFolder = null;
+
+    // resources waiting to start, scans running per host & per scanner class
+    protected final LinkedList<Resource> pending = new LinkedList<Resource>();
+    protected final List<Resource> resources = new ArrayList<Resource>();
+    protected final Map<String, Integer> runningPerHost = new HashMap<String, Integer>();
+    protected final Set<String> runningExclusive = new HashSet<String>();
+    protected int running = 0;
+
+    /**
+     * a property file to scan & the result of the scan
+     */
+    protected static class Resource {
+        final String name;
+        final String propertyFile;
+        String scannerClass = DEFAULT_SCANNER;
+        String host = "";
+        boolean exclusive = false;
+        GenericScanner scanner = null;
+        String status = "pending";
+        long millis = 0;
+
+        Resource(String name, String propertyFile) {
+            this.name = name;
+            this.propertyFile = propertyFile;
+        }
+    }
+
+    /**
+     * @param file a property file, or a folder with *.properties files
+     */
+    public void addResource(String file) {
+        File path = new File(file);
+        if (path.isDirectory()) {
+            for (File propertyFile : findPropertyFiles(path)) {
+                addResource(propertyFile.getPath());
+            }
+            return;
+        }
+
+        String name = getResourceName(path);
+        // the resource name is also the output folder name - must be unique
+        String uniqueName = name;
+        int suffix = 1;
+        while (findResource(uniqueName) != null) {
+            uniqueName = name + "_" + (++suffix);
+        }
+        Resource resource = new Resource(uniqueName, path.getPath());
+        try {
+            Properties prop = new Properties();
+            FileInputStream in = new FileInputStream(path);
+            try {
+                prop.load(in);
+            } finally {
+                in.close();
+            }
+            resource.scannerClass = prop.getProperty("scanner.class", DEFAULT_SCANNER).trim();
+            resource.host = getHost(prop.getProperty("URL", ""));
+        } catch (IOException e) {
+            log.error("unable to read property file: " + path + " " + e.getMessage());
+            resource.status = "failed: " + e.getMessage();
+        }
+        resources.add(resource);
+    }
+
+    /**
+     * @param folder the folder to read
+     * @return the *.properties files in the folder (sorted by name)
+     */
+    protected static List<File> findPropertyFiles(File folder) {
+        List<File> propertyFiles = new ArrayList<File>();
+        File[] files = folder.listFiles();
+        if (files == null) {
+            return propertyFiles;
+        }
+        Arrays.sort(files);
+        for (File propertyFile : files) {
+            if (propertyFile.isFile() && propertyFile.getName().endsWith(".properties")) {
+                propertyFiles.add(propertyFile);
+            }
+        }
+        return propertyFiles;
+    }
+
+    /**
+     * @param propertyFile the property file for a resource
+     * @return the resource name - the file name without .properties
+     */
+    protected static String getResourceName(File propertyFile) {
+        String name = propertyFile.getName();
+        if (name.endsWith(".properties")) {
+            name = name.substring(0, name.length() - ".properties".length());
+        }
+        return name;
+    }
+
+    private Resource findResource(String name) {
+        for (Resource resource : resources) {
+            if (resource.name.equals(name)) {
+                return resource;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param url jdbc url
+     * @return the host name from the url (or the whole url if there is no host)
+     */
+    protected static String getHost(String url) {
+        Matcher matcher = HOST_PATTERN.matcher(url);
+        if (matcher.find()) {
+            return matcher.group(1).toLowerCase();
+        }
+        return url;
+    }
+
+    /**
+     * create the scanners (reads each property file) - resources that fail or
+     * share an output folder are not scanned
+     */
+    protected void createScanners() {
+        Map<String, String> folders = new HashMap<String, String>();
+        for (Resource resource : resources) {
+            if (!resource.status.equals("pending")) {
+                continue;
+            }
+            ScanLogger.setContext(resource.name);
+            try {
+                resource.scanner = (GenericScanner) Class.forName(resource.scannerClass).getConstructor(String.class)
+                        .newInstance(resource.propertyFile);
+            } catch (Exception e) {
+                log.error("unable to create scanner: " + resource.scannerClass + " " + e);
+                resource.status = "failed: scanner " + resource.scannerClass;
+                continue;
+            } finally {
+                ScanLogger.setContext(null);
+            }
+            resource.scanner.setScanName(resource.name);
+            resource.exclusive = !resource.scanner.supportsConcurrentScans();
+            if (outFolder != null) {
+                resource.scanner.setOutputFolder(outFolder + "/" + resource.name);
+            }
+
+            String folder = new File(resource.scanner.getOutputFolder()).getAbsolutePath();
+            String usedBy = folders.get(folder);
+            if (usedBy != null) {
+                log.error("resource " + resource.name + " uses the same output folder as " + usedBy + ": " + folder
+                        + " - not scanned (use -out)");
+                resource.status = "failed: output folder used by " + usedBy;
+                resource.scanner = null;
+                continue;
+            }
+            folders.put(folder, resource.name);
+            pending.add(resource);
+        }
+    }
+
+    /**
+     * run all scans - a scan starts when there is a free slot (parallel), the host
+     * has less than perHost scans running & no other scan of an exclusive scanner
+     * class is running
+     */
+    public void run() {
+        createScanners();
+        log.info("batch: " + pending.size() + " resources to scan, parallel=" + parallel + " perHost=" + perHost
+                + (outFolder == null ? "" : " out=" + outFolder));
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(parallel, 1));
+        synchronized (this) {
+            while (!pending.isEmpty() || running > 0) {
+                Resource next = nextResource();
+                if (next == null) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                    continue;
+                }
+                start(next);
+                final Resource resource = next;
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        scan(resource);
+                    }
+                });
+            }
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        writeSummary();
+    }
+
+    /**
+     * @return the first pending resource that can start now (or null)
+     */
+    private Resource nextResource() {
+        if (running >= parallel) {
+            return null;
+        }
+        Iterator<Resource> it = pending.iterator();
+        while (it.hasNext()) {
+            Resource resource = it.next();
+            Integer hostScans = runningPerHost.get(resource.host);
+            if (hostScans != null && hostScans >= perHost) {
+                continue;
+            }
+            if (resource.exclusive && runningExclusive.contains(resource.scannerClass)) {
+                continue;
+            }
+            it.remove();
+            return resource;
+        }
+        return null;
+    }
+
+    private void start(Resource resource) {
+        running++;
+        Integer hostScans = runningPerHost.get(resource.host);
+        runningPerHost.put(resource.host, hostScans == null ? 1 : hostScans + 1);
+        if (resource.exclusive) {
+            runningExclusive.add(resource.scannerClass);
+        }
+        resource.status = "running";
+        log.info("batch: starting " + resource.name + " host=" + resource.host + " (" + running + " running, "
+                + pending.size() + " waiting)");
+    }
+
+    private synchronized void finish(Resource resource) {
+        running--;
+        runningPerHost.put(resource.host, runningPerHost.get(resource.host) - 1);
+        if (resource.exclusive) {
+            runningExclusive.remove(resource.scannerClass);
+        }
+        log.info("batch: finished " + resource.name + " status=" + resource.status + " time="
+                + resource.millis / 1000 + "s");
+        notifyAll();
+    }
+
+    /**
+     * run 1 scan (worker thread)
+     */
+    protected void scan(Resource resource) {
+        long start = System.currentTimeMillis();
+        ScanLogger.setContext(resource.name);
+        try {
+            resource.scanner.run();
+            resource.status = resource.scanner.isScanCompleted() ? "ok" : "failed";
+        } catch (Throwable t) {
+            log.error("scan failed: " + t);
+            t.printStackTrace();
+            resource.status = "failed: " + t.getMessage();
+        } finally {
+            ScanLogger.setContext(null);
+            resource.millis = System.currentTimeMillis() - start;
+            finish(resource);
+        }
+    }
+
+    /**
+     * log the summary & write it to batch_summary.csv (in the -out folder, or the
+     * current folder)
+     */
+    protected void writeSummary() {
+        String[] header = new String[] { "resource", "scanner", "host", "status", "seconds", "schemas", "tables",
+                "views", "columns", "view columns", "folder" };
+        List<String[]> rows = new ArrayList<String[]>();
+        int failed = 0;
+        log.info("batch summary:");
+        for (Resource resource : resources) {
+            GenericScanner scanner = resource.scanner;
+            if (!resource.status.equals("ok")) {
+                failed++;
+            }
+            String[] row = new String[] { resource.name, resource.scannerClass, resource.host, resource.status,
+                    Long.toString(resource.millis / 1000), count(scanner == null ? null : scanner.schCount),
+                    count(scanner == null ? null : scanner.tabCount), count(scanner == null ? null : scanner.vwCount),
+                    count(scanner == null ? null : scanner.colCount),
+                    count(scanner == null ? null : scanner.vwColCount),
+                    scanner == null ? "" : scanner.getOutputFolder() };
+            rows.add(row);
+            log.info("\t" + resource.name + " status=" + resource.status + " time=" + row[4] + "s schemas=" + row[5]
+                    + " tables=" + row[6] + " views=" + row[7] + " columns=" + row[8] + " view cols=" + row[9]);
+        }
+        log.info("batch: " + resources.size() + " resources, " + (resources.size() - failed) + " ok, " + failed
+                + " failed");
+
+        String summaryFile = (outFolder == null ? "." : outFolder) + "/" + SUMMARY_FILENAME;
+        try {
+            new File(summaryFile).getAbsoluteFile().getParentFile().mkdirs();
+            CSVWriter writer = new CSVWriter(new FileWriter(summaryFile));
+            try {
+                writer.writeNext(header);
+                writer.writeAll(rows);
+            } finally {
+                writer.close();
+            }
+            log.info("batch summary written: " + summaryFile);
+        } catch (IOException e) {
+            log.error("error writing batch summary: " + summaryFile + " " + e.getMessage());
+        }
+    }
+
+    private static String count(LongAdder counter) {
+        return counter == null ? "" : Long.toString(counter.sum());
+    }
+
+    /**
+     * @return the number of resources that did not complete
+     */
+    public int getFailedCount() {
+        int failed = 0;
+        for (Resource resource : resources) {
+            if (!resource.status.equals("ok")) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    public static void main(String[] args) {
+        BatchScanner batch = new BatchScanner();
+        boolean agreed = false;
+        String logLevel = "INFO";
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equalsIgnoreCase("-parallel") && i + 1 < args.length) {
+                batch.parallel = Math.max(Integer.parseInt(args[++i]), 1);
+            } else if (arg.equalsIgnoreCase("-perHost") && i + 1 < args.length) {
+                batch.perHost = Math.max(Integer.parseInt(args[++i]), 1);
+            } else if (arg.equalsIgnoreCase("-out") && i + 1 < args.length) {
+                batch.outFolder = args[++i];
+            } else if (arg.equalsIgnoreCase("-logLevel") && i + 1 < args.length) {
+                logLevel = args[++i];
+            } else if (arg.equalsIgnoreCase("agreeToDisclaimer")) {
+                agreed = true;
+            } else {
+                batch.addResource(arg);
+            }
+        }
+        // logging is configured once for all scans (the log.* properties of each scan
+        // are ignored)
+        ScanLogger.configure(logLevel, true, ScanLogger.DEFAULT_BUFFER_SIZE);
+        if (batch.resources.isEmpty()) {
+            log.info("Batch scanner for EDC: no property files: usage:  BatchScanner [-parallel n] [-perHost n] "
+                    + "[-out folder] [-logLevel level] <property file|folder>... [agreeToDisclaimer]");
+            System.exit(0);
+        }
+
+        if (agreed) {
+            log.info("the following disclaimer was agreed to by passing 'agreeToDisclaimer'");
+            log.info(GenericScanner.DISCLAIMER);
+        }
+        if (agreed || GenericScanner.showDisclaimer()) {
+            batch.run();
+        } else {
+            log.info("Disclaimer was declined - exiting");
+        }
+        ScanLogger.shutdown();
+        System.exit(batch.getFailedCount() == 0 ? 0 : 1);
+    }
+
+}
@@ -0,0 +1,97 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * small, fixed size pool of jdbc connections - used when metadata is extracted
+ * by more than 1 worker thread (each worker borrows its own connection)
+ *
+ * connections are created using IJdbcScanner.getConnection() - so any dbms
+ * specific connection logic in a sub-class is also used for the pool
+ *
+ * usage: borrow() a connection, then release() it when finished, close() the
+ * pool when all workers are done
+ */
+public class ConnectionPool {
+    private static final ScanLogger log = ScanLogger.getLogger(ConnectionPool.class);
+    private final List<Connection> allConnections = new ArrayList<Connection>();
+    private final BlockingQueue<Connection> idleConnections;
+
+    /**
+     * open up to poolSize connections - if a connection fails, the pool will be
+     * smaller (check size() after creating the pool)
+     *
+     * @param scanner  the scanner used to open each connection
+     * @param driver   jdbc driver class
+     * @param url      jdbc url
+     * @param user     user id
+     * @param pwd      password
+     * @param poolSize the maximum number of connections to open
+     */
+    public ConnectionPool(IJdbcScanner scanner, String driver, String url, String user, String pwd, int poolSize) {
+        idleConnections = new ArrayBlockingQueue<Connection>(Math.max(poolSize, 1));
+        log.info("\topening connection pool with " + poolSize + " connections");
+        for (int i = 0; i < poolSize; i++) {
+            Connection con = scanner.getConnection(driver, url, user, pwd);
+            if (con == null) {
+                log.warn("\tunable to open connection " + (i + 1) + " for the pool - using "
+                        + allConnections.size() + " connections");
+                break;
+            }
+            allConnections.add(con);
+            idleConnections.add(con);
+        }
+    }
+
+    /**
+     * @return the number of connections in the pool
+     */
+    public int size() {
+        return allConnections.size();
+    }
+
+    /**
+     * get a connection from the pool - waits until one is available
+     *
+     * @return an idle connection
+     * @throws InterruptedException
+     */
+    public Connection borrow() throws InterruptedException {
+        return idleConnections.take();
+    }
+
+    /**
+     * return a connection to the pool
+     *
+     * @param con the connection that was borrowed
+     */
+    public void release(Connection con) {
+        if (con != null) {
+            idleConnections.offer(con);
+        }
+    }
+
+    /**
+     * close all connections in the pool
+     */
+    public void close() {
+        for (Connection con : allConnections) {
+            try {
+                con.close();
+            } catch (SQLException e) {
+                log.warn("error closing pooled connection: " + e.getMessage());
+            }
+        }
+        allConnections.clear();
+        idleConnections.clear();
+    }
+
+}
@@ -0,0 +1,144 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import java.util.BitSet;
+import java.util.Calendar;
+
+/**
+ * a cron style schedule for the scanner service - 5 fields: minute hour
+ * day-of-month month day-of-week
+ *
+ * each field can be * (any), a number, a range (1-5), a list (0,15,30,45) or a
+ * step (*&#47;15 or 8-18/2). day-of-week is 0-7 (0 & 7 are sunday). names (mon,
+ * jan) and the special strings (@daily) are not supported
+ *
+ * as in cron, if day-of-month & day-of-week are both restricted (not starting
+ * with *) either can match, otherwise both must match
+ *
+ * e.g. "*&#47;30 * * * *" every 30 minutes, "0 6 * * 1-5" 6am monday to friday
+ */
+public class CronSchedule {
+    private final String expression;
+    private final BitSet minutes;
+    private final BitSet hours;
+    private final BitSet daysOfMonth;
+    private final BitSet months;
+    private final BitSet daysOfWeek;
+    // cron rule - if both day fields are restricted, either can match (a field
+    // starting with * e.g. *&#47;2 is not restricted)
+    private final boolean anyDayOfMonth;
+    private final boolean anyDayOfWeek;
+
+    /**
+     * @param expression the schedule (5 fields)
+     * @throws IllegalArgumentException if the expression is not valid
+     */
+    public CronSchedule(String expression) {
+        this.expression = expression.trim();
+        String[] fields = this.expression.split("\\s+");
+        if (fields.length != 5) {
+            throw new IllegalArgumentException(
+                    "schedule must have 5 fields (minute hour day month weekday): " + expression);
+        }
+        minutes = parseField(fields[0], 0, 59);
+        hours = parseField(fields[1], 0, 23);
+        daysOfMonth = parseField(fields[2], 1, 31);
+        months = parseField(fields[3], 1, 12);
+        daysOfWeek = parseField(fields[4], 0, 7);
+        // 7 is also sunday
+        if (daysOfWeek.get(7)) {
+            daysOfWeek.set(0);
+        }
+        anyDayOfMonth = fields[2].startsWith("*");
+        anyDayOfWeek = fields[4].startsWith("*");
+    }
+
+    private static BitSet parseField(String field, int min, int max) {
+        BitSet values = new BitSet(max + 1);
+        for (String part : field.split(",")) {
+            int step = 1;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = parseNumber(part.substring(slash + 1), 1, max, field);
+                part = part.substring(0, slash);
+            }
+            int from;
+            int to;
+            if (part.equals("*")) {
+                from = min;
+                to = max;
+            } else if (part.indexOf('-') > 0) {
+                from = parseNumber(part.substring(0, part.indexOf('-')), min, max, field);
+                to = parseNumber(part.substring(part.indexOf('-') + 1), min, max, field);
+            } else {
+                from = parseNumber(part, min, max, field);
+                // n/step is from n to the end
+                to = slash >= 0 ? max : from;
+            }
+            if (from > to) {
+                throw new IllegalArgumentException("invalid range in schedule: " + field);
+            }
+            for (int value = from; value <= to; value += step) {
+                values.set(value);
+            }
+        }
+        return values;
+    }
+
+    private static int parseNumber(String value, int min, int max, String field) {
+        try {
+            int number = Integer.parseInt(value.trim());
+            if (number >= min && number <= max) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // not a number - reported below
+        }
+        throw new IllegalArgumentException(
+                "invalid value in schedule: " + field + " (" + value + " - must be " + min + "-" + max + ")");
+    }
+
+    /**
+     * @param time the time to check (seconds are ignored)
+     * @return true if the schedule matches the minute
+     */
+    public boolean matches(Calendar time) {
+        if (!minutes.get(time.get(Calendar.MINUTE)) || !hours.get(time.get(Calendar.HOUR_OF_DAY))
+                || !months.get(time.get(Calendar.MONTH) + 1)) {
+            return false;
+        }
+        boolean dayOfMonth = daysOfMonth.get(time.get(Calendar.DAY_OF_MONTH));
+        boolean dayOfWeek = daysOfWeek.get(time.get(Calendar.DAY_OF_WEEK) - 1);
+        if (anyDayOfMonth || anyDayOfWeek) {
+            return dayOfMonth && dayOfWeek;
+        }
+        return dayOfMonth || dayOfWeek;
+    }
+
+    /**
+     * @param after the time to start from
+     * @return the next time (minute) the schedule matches after the time given, or
+     *         null if there is none in the next year
+     */
+    public Calendar next(Calendar after) {
+        Calendar time = (Calendar) after.clone();
+        time.set(Calendar.SECOND, 0);
+        time.set(Calendar.MILLISECOND, 0);
+        // at most 1 year of minutes
+        for (int i = 0; i < 366 * 24 * 60; i++) {
+            time.add(Calendar.MINUTE, 1);
+            if (matches(time)) {
+                return time;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+}
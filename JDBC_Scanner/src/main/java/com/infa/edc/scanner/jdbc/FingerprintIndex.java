@@ -0,0 +1,296 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.opencsv.CSVReader;
+import com.opencsv.CSVWriter;
+import com.opencsv.exceptions.CsvValidationException;
+
+/**
+ * fingerprints of the tables & views extracted by the previous run - used for
+ * incremental scans (incremental=true)
+ *
+ * each table/view has a 64 bit hash of its columns (name, type, length,
+ * position & description - independent of the order the columns are read) and
+ * the last altered timestamp (if the dialect has one). the index is a small csv
+ * file (identity, type, last altered, fingerprint) - written after a successful
+ * run
+ *
+ * a table is unchanged (the columns are not read again) if the last altered
+ * timestamp is the same as the previous run. the columns for unchanged tables
+ * are copied from the previous zip file (see GenericScanner.mergePreviousSnapshot)
+ * - without a timestamp all columns are read, the fingerprints are used to
+ * report what changed
+ */
+public class FingerprintIndex {
+    private static final ScanLogger log = ScanLogger.getLogger(FingerprintIndex.class);
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * fingerprint & last altered timestamp for a table/view
+     */
+    protected static class Entry {
+        boolean isView;
+        String lastAltered = "";
+        long fingerprint = 0;
+        int columns = 0;
+
+        Entry(boolean isView) {
+            this.isView = isView;
+        }
+    }
+
+    private final String fileName;
+    private final Map<String, Entry> previous = new HashMap<String, Entry>();
+    private final Map<String, Entry> current = new HashMap<String, Entry>();
+    // tables where the previous columns are re-used
+    private final Set<String> carried = new HashSet<String>();
+    private boolean carryAllowed = false;
+    // last modified time of the index file written by save() (service mode)
+    private long savedModified = 0;
+
+    /**
+     * @param fileName the index file (read by load(), written by save())
+     */
+    public FingerprintIndex(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * read the index written by the previous run (if it exists)
+     *
+     * @return number of tables/views in the index
+     */
+    public synchronized int load() {
+        previous.clear();
+        File file = new File(fileName);
+        if (!file.exists()) {
+            log.info("\tfingerprint index: " + fileName + " not found - all tables will be extracted");
+            return 0;
+        }
+        CSVReader reader = null;
+        try {
+            reader = new CSVReader(new FileReader(file));
+            String[] row;
+            while ((row = reader.readNext()) != null) {
+                if (row.length < 4 || row[0].startsWith("#")) {
+                    continue;
+                }
+                Entry entry = new Entry("V".equals(row[1]));
+                entry.lastAltered = row[2];
+                try {
+                    entry.fingerprint = Long.parseUnsignedLong(row[3], 16);
+                } catch (NumberFormatException e) {
+                    // no fingerprint - the table will show as changed
+                }
+                previous.put(row[0], entry);
+            }
+        } catch (IOException | CsvValidationException e) {
+            log.warn("\terror reading fingerprint index: " + fileName + " - all tables will be extracted");
+            e.printStackTrace();
+            previous.clear();
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+        log.info("\tfingerprint index: " + fileName + " tables/views=" + previous.size());
+        return previous.size();
+    }
+
+    /**
+     * re-use the index in memory for the next run (service mode) - the
+     * fingerprints of the last run become the previous fingerprints, so the index
+     * file does not need to be read again
+     *
+     * @return false if the index was not saved by the last run, or the file was
+     *         changed/removed since (load() must be used)
+     */
+    public synchronized boolean reuse() {
+        File file = new File(fileName);
+        if (savedModified == 0 || !file.exists() || file.lastModified() != savedModified) {
+            return false;
+        }
+        previous.clear();
+        previous.putAll(current);
+        current.clear();
+        carried.clear();
+        carryAllowed = false;
+        log.info("\tfingerprint index: re-used from the last run tables/views=" + previous.size());
+        return true;
+    }
+
+    /**
+     * @return the index file name
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * @param carryAllowed true if the previous snapshot (zip file) is available -
+     *                     so the columns of unchanged tables can be copied
+     */
+    public synchronized void setCarryAllowed(boolean carryAllowed) {
+        this.carryAllowed = carryAllowed;
+    }
+
+    /**
+     * check if a table/view has changed since the previous run
+     *
+     * @param tabId       table identity (catalog/schema/table)
+     * @param isView
+     * @param lastAltered last altered timestamp (null or empty if unknown)
+     * @return true if the columns do not need to be read (they are copied from the
+     *         previous snapshot)
+     */
+    public synchronized boolean isUnchanged(String tabId, boolean isView, String lastAltered) {
+        Entry last = previous.get(tabId);
+        if (carryAllowed && last != null && last.isView == isView && lastAltered != null
+                && !lastAltered.equals("") && lastAltered.equals(last.lastAltered)) {
+            current.put(tabId, last);
+            carried.add(tabId);
+            return true;
+        }
+        getEntry(tabId, isView).lastAltered = lastAltered == null ? "" : lastAltered;
+        return false;
+    }
+
+    /**
+     * register a table/view (so tables without columns are in the index)
+     */
+    public synchronized void addTable(String tabId, boolean isView) {
+        getEntry(tabId, isView);
+    }
+
+    /**
+     * add a column to the fingerprint of its table/view
+     */
+    public synchronized void addColumn(String tabId, boolean isView, String column, String type, String length,
+            String pos, String desc) {
+        if (carried.contains(tabId)) {
+            return;
+        }
+        Entry entry = getEntry(tabId, isView);
+        // sum of the column hashes - the same for any column order
+        entry.fingerprint += hash(column, type, length, pos, desc);
+        entry.columns++;
+    }
+
+    private Entry getEntry(String tabId, boolean isView) {
+        Entry entry = current.get(tabId);
+        if (entry == null) {
+            entry = new Entry(isView);
+            current.put(tabId, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * 64 bit FNV-1a hash of the column values
+     */
+    protected static long hash(String... values) {
+        long hash = FNV_OFFSET;
+        for (String value : values) {
+            String text = value == null ? "" : value;
+            for (int i = 0; i < text.length(); i++) {
+                hash ^= text.charAt(i);
+                hash *= FNV_PRIME;
+            }
+            // seperator - so "ab","c" is not the same as "a","bc"
+            hash ^= 0x1f;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * @return the tables/views where the columns are copied from the previous
+     *         snapshot
+     */
+    public synchronized Set<String> getCarriedTables() {
+        return new HashSet<String>(carried);
+    }
+
+    /**
+     * print the number of new, changed, unchanged & dropped tables/views
+     */
+    public synchronized void printSummary() {
+        int added = 0;
+        int changed = 0;
+        int unchanged = 0;
+        for (Map.Entry<String, Entry> table : current.entrySet()) {
+            Entry last = previous.get(table.getKey());
+            if (last == null) {
+                added++;
+            } else if (last.fingerprint != table.getValue().fingerprint) {
+                changed++;
+            } else {
+                unchanged++;
+            }
+        }
+        int dropped = 0;
+        for (String tabId : previous.keySet()) {
+            if (!current.containsKey(tabId)) {
+                dropped++;
+            }
+        }
+        log.info("incremental scan: tables/views new=" + added + " changed=" + changed + " unchanged="
+                + unchanged + " (not re-read=" + carried.size() + ") dropped=" + dropped);
+    }
+
+    /**
+     * write the fingerprints of this run - to a temp file, then renamed (so a
+     * failed write keeps the previous index)
+     *
+     * @return true if written
+     */
+    public synchronized boolean save() {
+        File file = new File(fileName);
+        File tempFile = new File(fileName + ".tmp");
+        try {
+            CSVWriter writer = new CSVWriter(new FileWriter(tempFile));
+            try {
+                writer.writeNext(new String[] { "# identity", "type", "lastAltered", "fingerprint" }, false);
+                for (Map.Entry<String, Entry> table : current.entrySet()) {
+                    Entry entry = table.getValue();
+                    writer.writeNext(new String[] { table.getKey(), entry.isView ? "V" : "T", entry.lastAltered,
+                            Long.toHexString(entry.fingerprint) });
+                }
+            } finally {
+                writer.close();
+            }
+            if (file.exists() && !file.delete()) {
+                log.error("\tunable to replace fingerprint index: " + fileName);
+                return false;
+            }
+            if (!tempFile.renameTo(file)) {
+                log.error("\tunable to rename " + tempFile + " to " + fileName);
+                return false;
+            }
+            savedModified = file.lastModified();
+        } catch (IOException e) {
+            log.error("\terror writing fingerprint index: " + fileName);
+            e.printStackTrace();
+            return false;
+        }
+        log.info("\tfingerprint index written: " + fileName + " tables/views=" + current.size());
+        return true;
+    }
+
+}
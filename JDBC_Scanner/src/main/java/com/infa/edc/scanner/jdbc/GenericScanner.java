@@ -6,32 +6,50 @@ package com.infa.edc.scanner.jdbc;
 import java.io.Console;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.zip.ZipFile;
 
 import javax.swing.JOptionPane;
 import javax.swing.JPasswordField;
 
+import com.opencsv.CSVReader;
 import com.opencsv.CSVWriter;
+import com.opencsv.exceptions.CsvValidationException;
 
 /**
  * @author Administrator
  *
  */
 public class GenericScanner implements IJdbcScanner {
+    private static final ScanLogger log = ScanLogger.getLogger(GenericScanner.class);
     public static final String version = "0.9.2";
     public String propertyFileName;
     public String driverClass;
@@ -40,13 +58,81 @@ public class GenericScanner implements IJdbcScanner {
     public String pwd;
     public String catalogFilter;
     public String excludedSchemas = "";
+    // schema & table filters (schema=, excluded.schemas=, tables=, excluded.tables=)
+    protected ObjectFilter schemaFilter = new ObjectFilter("", "");
+    protected ObjectFilter tableFilter = new ObjectFilter("", "");
+    // filter.pushdown=true - pass the include filters to the database as LIKE
+    // patterns (set in run(), after connecting)
+    protected boolean filterPushdown = true;
+    protected List<String> schemaSearchPatterns = ObjectFilter.ALL;
+    protected List<String> tableSearchPatterns = ObjectFilter.ALL;
+    // table types to extract (tableTypes= property) - types with VIEW in the name are views
+    public String[] tableTypes = new String[] { "TABLE", "VIEW" };
 
     public Connection connection;
     public DatabaseMetaData dbMetaData;
 
+    // parallel extraction - number of schemas extracted at the same time
+    // each worker uses its own connection from the pool (default 1 = serial)
+    protected int parallelWorkers = 1;
+    protected ConnectionPool workerPool = null;
+    private final ThreadLocal<Connection> workerConnection = new ThreadLocal<Connection>();
+    private final ThreadLocal<DatabaseMetaData> workerMetaData = new ThreadLocal<DatabaseMetaData>();
+
+    // throttle=true - adaptive limit for the metadata calls in flight,
+    // throttle.maxQps - calls per second ceiling (see AdaptiveLimiter)
+    protected AdaptiveLimiter limiter = null;
+
+    // bulk column mode - 1 getColumns call per schema (instead of 1 per table)
+    // tables/views are registered while they are extracted, keyed by catalog/schema
+    protected boolean bulkColumns = false;
+    // fetchSize= rows fetched per round trip for metadata result sets (0 = driver default)
+    protected int fetchSize = 1000;
+    protected Map<String, Map<String, Boolean>> deferredColumnTables = new ConcurrentHashMap<String, Map<String, Boolean>>();
+
     protected String customMetadataFolder;
+    // output.mode=files|zip - zip: write the csv files straight into the zip file
+    protected String outputMode = ScannerOutput.MODE_FILES;
+    protected ScannerOutput output = null;
+    // output.bufferSize - bytes buffered per output file, output.quoteAll=false -
+    // only quote csv values that need it
+    protected int outputBufferSize = ScannerOutput.DEFAULT_BUFFER_SIZE;
+    protected boolean outputQuoteAll = true;
+
+    // incremental=true - only read the columns of new/changed tables (see
+    // FingerprintIndex)
+    protected boolean incremental = false;
+    protected String incrementalIndexFile;
+    protected FingerprintIndex fingerprints = null;
+    protected String previousZipFile = null;
+
+    // checkpoint=true - resume an interrupted scan (see ScanCheckpoint)
+    protected boolean useCheckpoint = false;
+    protected String checkpointFile;
+    protected ScanCheckpoint checkpoint = null;
+
+    // log.level=ERROR|WARN|INFO|DEBUG (see ScanLogger), log.summary.interval -
+    // seconds between progress messages while extracting (0 = none)
+    protected String logLevel = "INFO";
+    protected int logSummaryInterval = 30;
+    // progress.estimate=true - count the tables/views before they are extracted,
+    // so the progress message has % complete & eta
+    protected boolean progressEstimate = true;
+    private ScheduledExecutorService progressTimer = null;
+    private long progressStart = 0;
+
+    // scan metrics - metrics.report=true writes <folder>/<scanner>.metrics.json,
+    // metrics.jmx=true registers the ScanMetricsMBean while the scan runs
+    protected final ScanMetrics metrics = new ScanMetrics();
+    protected boolean metricsReport = true;
+    protected boolean metricsJmx = true;
+    // metrics.slowest - number of objects in <folder>/<scanner>.slowest.csv (0 = none)
+    protected int metricsSlowest = ScanMetrics.DEFAULT_SLOWEST_SIZE;
 
     protected String dbProductName;
+    // metadata.dialect=auto|generic|<name> - bulk catalog extraction (see JdbcDialects)
+    protected String dialectName = JdbcDialects.AUTO;
+    protected IJdbcDialect dialect = null;
 
     protected static String DISCLAIMER = "\n************************************ Disclaimer *************************************\n"
             + "By using this custom scanner, you are agreeing to the following:-\n"
@@ -81,21 +167,32 @@ public class GenericScanner implements IJdbcScanner {
     protected CSVWriter viewColumnWriter = null;
     protected CSVWriter linksWriter = null;
 
-    // object counters
-    protected int dbCount = 0;
-    protected int schCount = 0;
-    protected int tabCount = 0;
-    protected int colCount = 0;
-    protected int vwCount = 0;
-    protected int vwColCount = 0;
+    // object counters - lock-free, objects can be created by parallel workers
+    protected final LongAdder dbCount = new LongAdder();
+    protected final LongAdder schCount = new LongAdder();
+    protected final LongAdder tabCount = new LongAdder();
+    protected final LongAdder colCount = new LongAdder();
+    protected final LongAdder vwCount = new LongAdder();
+    protected final LongAdder vwColCount = new LongAdder();
+    // tasks that failed part way (a schema/table metadata call, a parallel
+    // schema/view, a dialect extraction) - the scan is not completed & nothing
+    // is checkpointed after it (so a resumed scan extracts it again)
+    protected final LongAdder failedTasks = new LongAdder();
+    // % complete & eta for the progress message
+    protected final ScanProgress progress = new ScanProgress();
+
+    // name of the scan (jmx) - the resource name for batch scans
+    protected String scanName = this.getClass().getSimpleName();
+    // true when run() extracted everything & closed the output files
+    protected boolean scanCompleted = false;
 
     public static boolean showDisclaimer() {
-        System.out.println(DISCLAIMER);
+        log.info(DISCLAIMER);
         Console c = System.console();
         String response;
         boolean hasAgreed = false;
         if (c == null) { // IN ECLIPSE IDE (prompt for password using swing ui
-            System.out.println("no console found...");
+            log.info("no console found...");
             final JPasswordField pf = new JPasswordField();
             String message = "Do you agree to this disclaimer? Y or N ";
             response = JOptionPane.showConfirmDialog(null, pf, message, JOptionPane.OK_CANCEL_OPTION,
@@ -104,7 +201,7 @@ public class GenericScanner implements IJdbcScanner {
         } else { // Outside Eclipse IDE (e.g. windows/linux console)
             response = new String(c.readLine("agree (Y|N)? "));
         }
-        System.out.println("user entered:" + response);
+        log.info("user entered:" + response);
         if (response != null && response.equalsIgnoreCase("Y")) {
             hasAgreed = true;
         }
@@ -116,7 +213,7 @@ public class GenericScanner implements IJdbcScanner {
      * read the property file to get db connection settings
      */
     public GenericScanner(String propertyFile) {
-        System.out.println("GenericScanner" + " " + version + " initializing properties from: " + propertyFile);
+        log.info("GenericScanner" + " " + version + " initializing properties from: " + propertyFile);
 
         // store the property file
         propertyFileName = propertyFile;
@@ -129,23 +226,50 @@ public class GenericScanner implements IJdbcScanner {
             prop.load(fileInput);
             fileInput.close();
 
+            // logging is configured first - so the settings below use the level
+            logLevel = prop.getProperty("log.level", "INFO").trim();
+            ScanLogger.configure(logLevel, Boolean.parseBoolean(prop.getProperty("log.async", "true")),
+                    getIntProperty(prop, "log.bufferSize", ScanLogger.DEFAULT_BUFFER_SIZE));
+            logSummaryInterval = getIntProperty(prop, "log.summary.interval", 30);
+            progressEstimate = Boolean.parseBoolean(prop.getProperty("progress.estimate", "true"));
+            metricsReport = Boolean.parseBoolean(prop.getProperty("metrics.report", "true"));
+            metricsJmx = Boolean.parseBoolean(prop.getProperty("metrics.jmx", "true"));
+            metricsSlowest = getIntProperty(prop, "metrics.slowest", ScanMetrics.DEFAULT_SLOWEST_SIZE);
+            metrics.setSlowestSize(metricsSlowest);
+
             driverClass = prop.getProperty("driverClass");
             dbURL = prop.getProperty("URL");
 
             userName = prop.getProperty("user");
             pwd = prop.getProperty("pwd");
             if (pwd.equals("<prompt>")) {
-                System.out.println("password set to <prompt> for user " + userName + " - waiting for user input...");
+                log.info("password set to <prompt> for user " + userName + " - waiting for user input...");
                 pwd = getPassword();
                 // System.out.println("pwd chars entered (debug): " + pwd.length());
             }
 
             customMetadataFolder = prop.getProperty("customMetadata.folder", "custom_metadata_out");
             if (customMetadataFolder == null || customMetadataFolder.equals("")) {
-                System.out.println("empty value set for custom metadata output folder: using 'custom_metadata_out'");
+                log.info("empty value set for custom metadata output folder: using 'custom_metadata_out'");
                 customMetadataFolder = "custom_metadata_out";
             }
 
+            outputMode = prop.getProperty("output.mode", ScannerOutput.MODE_FILES).trim();
+            outputBufferSize = getIntProperty(prop, "output.bufferSize", ScannerOutput.DEFAULT_BUFFER_SIZE);
+            outputQuoteAll = Boolean.parseBoolean(prop.getProperty("output.quoteAll", "true"));
+
+            incremental = Boolean.parseBoolean(prop.getProperty("incremental", "false"));
+            incrementalIndexFile = prop.getProperty("incremental.index", "").trim();
+            if (incrementalIndexFile.equals("")) {
+                incrementalIndexFile = customMetadataFolder + "/" + this.getClass().getSimpleName() + ".index";
+            }
+
+            useCheckpoint = Boolean.parseBoolean(prop.getProperty("checkpoint", "false"));
+            checkpointFile = prop.getProperty("checkpoint.file", "").trim();
+            if (checkpointFile.equals("")) {
+                checkpointFile = customMetadataFolder + "/" + this.getClass().getSimpleName() + ".checkpoint";
+            }
+
             excludedSchemas = prop.getProperty("excluded.schemas", "");
             if (excludedSchemas == null) {
                 excludedSchemas = "";
@@ -153,17 +277,68 @@ public class GenericScanner implements IJdbcScanner {
 
             catalogFilter = prop.getProperty("catalog", "");
 
-            System.out.println("scanner settings from:" + propertyFile);
-            System.out.println("\tdriver=" + driverClass);
-            System.out.println("\turl=" + dbURL);
-            System.out.println("\tuser=" + userName);
-            System.out.println("\tpwd=" + pwd.replaceAll(".", "*"));
-            System.out.println("\tout folder=" + customMetadataFolder);
-            System.out.println("\tcatalog filter=" + catalogFilter);
-            System.out.println("\tschemas to exclude=" + excludedSchemas);
+            schemaFilter = new ObjectFilter(prop.getProperty("schema", ""), excludedSchemas);
+            tableFilter = new ObjectFilter(prop.getProperty("tables", ""), prop.getProperty("excluded.tables", ""));
+            filterPushdown = Boolean.parseBoolean(prop.getProperty("filter.pushdown", "true"));
+
+            parallelWorkers = getIntProperty(prop, "parallel.workers", 1);
+            if (parallelWorkers < 1) {
+                parallelWorkers = 1;
+            }
+
+            boolean throttle = Boolean.parseBoolean(prop.getProperty("throttle", "false"));
+            double throttleMaxQps = getDoubleProperty(prop, "throttle.maxQps", 0);
+            if (throttle || throttleMaxQps > 0) {
+                limiter = new AdaptiveLimiter(throttle,
+                        getIntProperty(prop, "throttle.maxConcurrency", Math.max(parallelWorkers, 1)),
+                        throttleMaxQps, getDoubleProperty(prop, "throttle.latencyFactor", 2.0),
+                        getDoubleProperty(prop, "throttle.maxErrorRate", 0.1));
+            }
+
+            bulkColumns = Boolean.parseBoolean(prop.getProperty("bulk.columns", "false"));
+            fetchSize = getIntProperty(prop, "fetchSize", 1000);
+            dialectName = prop.getProperty("metadata.dialect", JdbcDialects.AUTO).trim();
+
+            String types = prop.getProperty("tableTypes", "").trim();
+            if (!types.equals("")) {
+                List<String> typeList = new ArrayList<String>();
+                for (String type : types.split(",")) {
+                    if (!type.trim().equals("")) {
+                        typeList.add(type.trim());
+                    }
+                }
+                tableTypes = typeList.toArray(new String[0]);
+            }
+
+            log.info("scanner settings from:" + propertyFile);
+            log.info("\tdriver=" + driverClass);
+            log.info("\turl=" + dbURL);
+            log.info("\tuser=" + userName);
+            log.info("\tpwd=" + pwd.replaceAll(".", "*"));
+            log.info("\tout folder=" + customMetadataFolder);
+            log.info("\toutput mode=" + outputMode);
+            log.info("\toutput buffer size=" + outputBufferSize + " quote all=" + outputQuoteAll);
+            log.info("\tincremental=" + incremental + " index=" + incrementalIndexFile);
+            log.info("\tcheckpoint=" + useCheckpoint + " file=" + checkpointFile);
+            log.info("\tcatalog filter=" + catalogFilter);
+            log.info("\tschemas to exclude=" + excludedSchemas);
+            log.info("\tschema filter=" + schemaFilter);
+            log.info("\ttable filter=" + tableFilter);
+            log.info("\tfilter pushdown=" + filterPushdown);
+            log.info("\tparallel workers=" + parallelWorkers);
+            log.info("\tthrottle=" + prop.getProperty("throttle", "false") + " max concurrency="
+                    + prop.getProperty("throttle.maxConcurrency", Integer.toString(parallelWorkers)) + " max qps="
+                    + prop.getProperty("throttle.maxQps", "0"));
+            log.info("\tbulk columns=" + bulkColumns);
+            log.info("\tfetch size=" + fetchSize);
+            log.info("\tmetadata dialect=" + dialectName);
+            log.info("\ttable types=" + Arrays.toString(tableTypes));
+            log.info("\tlog level=" + ScanLogger.getLevel() + " summary interval=" + logSummaryInterval
+                    + "s progress estimate=" + progressEstimate);
+            log.info("\tmetrics report=" + metricsReport + " jmx=" + metricsJmx + " slowest=" + metricsSlowest);
 
         } catch (Exception e) {
-            System.out.println("error reading properties file: " + propertyFile);
+            log.error("error reading properties file: " + propertyFile);
             e.printStackTrace();
         }
 
@@ -177,26 +352,25 @@ public class GenericScanner implements IJdbcScanner {
      */
     @Override
     public Connection getConnection(String classType, String url, String user, String pwd) {
-        System.out
-                .println("Step 1: validating jdbc driver class: " + classType + " using:" + this.getClass().getName());
+        log.info("Step 1: validating jdbc driver class: " + classType + " using:" + this.getClass().getName());
         try {
             Class.forName(classType);
         } catch (ClassNotFoundException e) {
-            System.out.println("\tunable to find class: " + classType + " " + e.getClass().getName() + " exiting...");
+            log.error("\tunable to find class: " + classType + " " + e.getClass().getName() + " exiting...");
             return null;
         }
-        System.out.println("\tjdbc driver class validated successfully!");
+        log.info("\tjdbc driver class validated successfully!");
 
         // valid driver class - now try the actual connection
-        System.out.println(
+        log.info(
                 "Step 2: Attempting to connect to database using url=" + url + " using: " + this.getClass().getName());
         try {
             Connection con = DriverManager.getConnection(url, user, pwd);
             // connection successful - return the connection object
-            System.out.println("\tconnection successful!");
+            log.info("\tconnection successful!");
             return con;
         } catch (SQLException e) {
-            System.out.println("connection failed for url=" + url + " " + e.getClass().getName() + "");
+            log.error("connection failed for url=" + url + " " + e.getClass().getName() + "");
             e.printStackTrace();
         }
 
@@ -208,77 +382,314 @@ public class GenericScanner implements IJdbcScanner {
      * start the scan process
      */
     public void run() {
-        System.out.println(this.getClass().getName() + ".run() starting");
+        log.info(this.getClass().getName() + ".run() starting");
+        if (metricsJmx) {
+            metrics.registerMBean(scanName);
+        }
+        metrics.startPhase("connect");
         connection = getConnection(driverClass, dbURL, userName, pwd);
         if (connection == null) {
-            System.out.println("\t" + this.getClass().getName() + " - no connection - exiting...");
+            log.error("\t" + this.getClass().getName() + " - no connection - exiting...");
+            metrics.unregisterMBean();
             return;
         } else {
             // we have a connection - continue...
             long start = System.currentTimeMillis();
+            metrics.startPhase("initFiles");
             initFiles();
+            startProgressSummary();
 
-            System.out.println("\t" + this.getClass().getName() + " ready to start extracting databse metadata!");
+            log.info("\t" + this.getClass().getName() + " ready to start extracting databse metadata!");
 
-            System.out.println("Step 4: getting databaseMetadata object from connection");
+            log.info("Step 4: getting databaseMetadata object from connection");
             try {
                 dbMetaData = connection.getMetaData();
                 String allV = dbMetaData.getDatabaseProductVersion();
                 dbProductName = dbMetaData.getDatabaseProductName();
 
-                System.out.println("\tgetDatabaseProductVersion=" + allV);
-                System.out.println("\tgetDatabaseProductName=" + dbProductName);
-                System.out.println("\tcatalog term=" + dbMetaData.getCatalogTerm());
-                System.out.println("\tschema term=" + dbMetaData.getSchemaTerm());
-                System.out.println("\tDatabaseMajorVersion=" + dbMetaData.getDatabaseMajorVersion());
-                System.out.println("\tDatabaseMinorVersion=" + dbMetaData.getDatabaseMinorVersion());
-                System.out.println("\tDriverMajorVersion=" + dbMetaData.getDriverMajorVersion());
-                System.out.println("\tDriverMinorVersion=" + dbMetaData.getDriverMinorVersion());
-                System.out.println("\tDriverName=" + dbMetaData.getDriverName());
-                System.out.println("\tJDBCMajorVersion=" + dbMetaData.getJDBCMajorVersion());
-                System.out.println("\tDriverVersion=" + dbMetaData.getDriverVersion());
-                System.out.println("\tCatalogSeparator=" + dbMetaData.getCatalogSeparator());
+                log.info("\tgetDatabaseProductVersion=" + allV);
+                log.info("\tgetDatabaseProductName=" + dbProductName);
+                log.info("\tcatalog term=" + dbMetaData.getCatalogTerm());
+                log.info("\tschema term=" + dbMetaData.getSchemaTerm());
+                log.info("\tDatabaseMajorVersion=" + dbMetaData.getDatabaseMajorVersion());
+                log.info("\tDatabaseMinorVersion=" + dbMetaData.getDatabaseMinorVersion());
+                log.info("\tDriverMajorVersion=" + dbMetaData.getDriverMajorVersion());
+                log.info("\tDriverMinorVersion=" + dbMetaData.getDriverMinorVersion());
+                log.info("\tDriverName=" + dbMetaData.getDriverName());
+                log.info("\tJDBCMajorVersion=" + dbMetaData.getJDBCMajorVersion());
+                log.info("\tDriverVersion=" + dbMetaData.getDriverVersion());
+                log.info("\tCatalogSeparator=" + dbMetaData.getCatalogSeparator());
+
+                dialect = JdbcDialects.find(dialectName, dbProductName);
+                log.info("\tdialect used=" + (dialect == null ? JdbcDialects.GENERIC : dialect.getName()));
+
+                if (filterPushdown) {
+                    schemaSearchPatterns = schemaFilter.getSearchPatterns(dbMetaData);
+                    tableSearchPatterns = tableFilter.getSearchPatterns(dbMetaData);
+                    log.info("\tschema search patterns=" + schemaSearchPatterns);
+                    log.info("\ttable search patterns=" + tableSearchPatterns);
+                }
 
             } catch (SQLException e) {
-                System.out.println("\terror getting DatabaseMetaData object from connection - exiting");
+                log.error("\terror getting DatabaseMetaData object from connection - exiting");
                 e.printStackTrace();
+                stopProgressSummary();
+                metrics.unregisterMBean();
+                closeConnection();
                 return;
             }
 
-            getCatalogs();
+            try {
+                metrics.startPhase("extract");
+                getCatalogs();
+            } catch (IllegalStateException e) {
+                stopProgressSummary();
+                if (checkpoint == null) {
+                    throw e;
+                }
+                // the output files are left as-is, the next run resumes from the checkpoint
+                log.warn("scan stopped: " + e.getMessage() + " - run the scanner again to resume from: "
+                        + checkpointFile);
+                closeWorkerPool();
+                finishMetrics();
+                closeConnection();
+                return;
+            }
+            closeWorkerPool();
             long end1 = System.currentTimeMillis();
             long totalMillis = end1 - start;
             String timeTaken = String.format("%d min, %d sec", TimeUnit.MILLISECONDS.toMinutes(totalMillis),
                     TimeUnit.MILLISECONDS.toSeconds(totalMillis)
                             - TimeUnit.MINUTES.toSeconds(TimeUnit.MILLISECONDS.toMinutes(totalMillis)));
-            System.out.println("getCatalogs() time: " + timeTaken);
+            log.info("getCatalogs() time: " + timeTaken);
 
+            metrics.startPhase("extraProcessing");
             extraProcessing();
             long end2 = System.currentTimeMillis();
             totalMillis = end2 - end1;
             timeTaken = String.format("%d min, %d sec", TimeUnit.MILLISECONDS.toMinutes(totalMillis),
                     TimeUnit.MILLISECONDS.toSeconds(totalMillis)
                             - TimeUnit.MINUTES.toSeconds(TimeUnit.MILLISECONDS.toMinutes(totalMillis)));
-            System.out.println("extraProcessing() time: " + timeTaken);
+            log.info("extraProcessing() time: " + timeTaken);
+
+            if (fingerprints != null) {
+                metrics.startPhase("mergePrevious");
+                mergePreviousSnapshot();
+            }
+            stopProgressSummary();
 
             // object counts
-            System.out.println("object counts: ");
-            System.out.println("\tdatabases=" + dbCount);
-            System.out.println("\t  schemas=" + schCount);
-            System.out.println("\t   tables=" + tabCount);
-            System.out.println("\t  columns=" + colCount);
-            System.out.println("\t    views=" + vwCount);
-            System.out.println("\tview cols=" + vwColCount);
+            log.info("object counts: ");
+            log.info("\tdatabases=" + dbCount.sum());
+            log.info("\t  schemas=" + schCount.sum());
+            log.info("\t   tables=" + tabCount.sum());
+            log.info("\t  columns=" + colCount.sum());
+            log.info("\t    views=" + vwCount.sum());
+            log.info("\tview cols=" + vwColCount.sum());
 
             // after all processes are finished- close the csv files
+            metrics.startPhase("closeFiles");
             closeFiles();
+            finishMetrics();
             totalMillis = end2 - start;
             timeTaken = String.format("%d min, %d sec", TimeUnit.MILLISECONDS.toMinutes(totalMillis),
                     TimeUnit.MILLISECONDS.toSeconds(totalMillis)
                             - TimeUnit.MINUTES.toSeconds(TimeUnit.MILLISECONDS.toMinutes(totalMillis)));
-            System.out.println("scanner time: " + timeTaken);
+            log.info("scanner time: " + timeTaken);
+            if (failedTasks.sum() > 0) {
+                log.error("scan not completed - " + failedTasks.sum()
+                        + " extraction task(s) failed (see errors above)");
+            } else {
+                scanCompleted = true;
+            }
+            closeConnection();
+        }
+
+    }
+
+    /**
+     * close the connection used by run() - so a scanner service does not keep a
+     * connection open between scans
+     */
+    protected void closeConnection() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.warn("\terror closing connection: " + e.getMessage());
+        }
+        connection = null;
+    }
+
+    /**
+     * @return true if the last run() extracted everything & closed the output
+     *         files
+     */
+    public boolean isScanCompleted() {
+        return scanCompleted;
+    }
+
+    /**
+     * @param name name of the scan - used for the jmx metrics (default is the
+     *             class name)
+     */
+    public void setScanName(String name) {
+        this.scanName = name;
+    }
+
+    /**
+     * change the output folder (e.g. batch scans) - the incremental index &
+     * checkpoint files move with it, unless they were set in the properties
+     *
+     * @param folder the new output folder
+     */
+    public void setOutputFolder(String folder) {
+        String defaultPrefix = customMetadataFolder + "/" + this.getClass().getSimpleName();
+        String newPrefix = folder + "/" + this.getClass().getSimpleName();
+        if (incrementalIndexFile.equals(defaultPrefix + ".index")) {
+            incrementalIndexFile = newPrefix + ".index";
+        }
+        if (checkpointFile.equals(defaultPrefix + ".checkpoint")) {
+            checkpointFile = newPrefix + ".checkpoint";
+        }
+        customMetadataFolder = folder;
+    }
+
+    /**
+     * @return the output folder
+     */
+    public String getOutputFolder() {
+        return customMetadataFolder;
+    }
+
+    /**
+     * @return true if more than 1 scan of this type can run in the same jvm at the
+     *         same time (batch scans) - false if the scanner has static state
+     */
+    public boolean supportsConcurrentScans() {
+        return true;
+    }
+
+    /**
+     * @return the fingerprint index used by the last run (incremental=true), or
+     *         null
+     */
+    public FingerprintIndex getFingerprintIndex() {
+        return fingerprints;
+    }
+
+    /**
+     * use the fingerprint index of a previous run in the same jvm (scanner
+     * service) - instead of reading the index file again. ignored if
+     * incremental=false, the index is for a different file or the file changed
+     * since it was written
+     *
+     * @param index the index from the previous run
+     */
+    public void setFingerprintIndex(FingerprintIndex index) {
+        if (incremental) {
+            this.fingerprints = index;
+        }
+    }
+
+    /**
+     * end the metrics - write the report (metrics.report=true) & remove the jmx
+     * mbean
+     */
+    protected void finishMetrics() {
+        metrics.endPhase();
+        setMetricsCounters();
+        if (metricsReport) {
+            metrics.writeReport(customMetadataFolder + "/" + this.getClass().getSimpleName() + ".metrics.json");
+            metrics.writeSlowest(customMetadataFolder + "/" + this.getClass().getSimpleName() + ".slowest.csv");
         }
+        metrics.unregisterMBean();
+    }
 
+    /**
+     * object counts for the metrics report - sub-classes can add their own
+     */
+    protected void setMetricsCounters() {
+        metrics.setCounter("databases", dbCount.sum());
+        metrics.setCounter("schemas", schCount.sum());
+        metrics.setCounter("tables", tabCount.sum());
+        metrics.setCounter("columns", colCount.sum());
+        metrics.setCounter("views", vwCount.sum());
+        metrics.setCounter("viewColumns", vwColCount.sum());
+        if (limiter != null) {
+            limiter.setMetricsCounters(metrics);
+        }
+    }
+
+    /**
+     * name used for an object in the slowest objects report - empty parts (e.g.
+     * no catalog) are left out
+     */
+    protected static String objectName(String... parts) {
+        StringBuilder name = new StringBuilder();
+        for (String part : parts) {
+            if (part == null || part.isEmpty()) {
+                continue;
+            }
+            if (name.length() > 0) {
+                name.append('.');
+            }
+            name.append(part);
+        }
+        return name.toString();
+    }
+
+    /**
+     * @return the metrics for this scan (call counts/latency, bytes written)
+     */
+    public ScanMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * write a progress message (INFO) every log.summary.interval seconds - replaces
+     * the message per table/view (now DEBUG)
+     */
+    protected void startProgressSummary() {
+        progressStart = System.currentTimeMillis();
+        progress.startStage("extract", -1);
+        if (logSummaryInterval <= 0 || progressTimer != null) {
+            return;
+        }
+        progressTimer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "scan-progress");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        progressTimer.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                log.info(getProgressSummary());
+            }
+        }, logSummaryInterval, logSummaryInterval, TimeUnit.SECONDS);
+    }
+
+    protected void stopProgressSummary() {
+        if (progressTimer != null) {
+            progressTimer.shutdownNow();
+            progressTimer = null;
+        }
+    }
+
+    /**
+     * @return the progress message - sub-classes can add their own counts
+     */
+    protected String getProgressSummary() {
+        long seconds = Math.max((System.currentTimeMillis() - progressStart) / 1000, 1);
+        return "progress: " + TimeUnit.SECONDS.toMinutes(seconds) + " min, " + (seconds % 60) + " sec - schemas="
+                + schCount.sum() + " tables=" + tabCount.sum() + " views=" + vwCount.sum() + " columns="
+                + colCount.sum() + " view cols=" + vwColCount.sum() + " - " + progress.getSummary()
+                + (limiter == null ? "" : " - " + limiter.getSummary());
     }
 
     /**
@@ -286,28 +697,31 @@ public class GenericScanner implements IJdbcScanner {
      * whether to default to extracting all, or only a subset
      */
     public void getCatalogs() {
-        System.out.println("Step 5: getting catalogs:  DatabaseMetaData.getCatalogs()");
+        log.info("Step 5: getting catalogs:  DatabaseMetaData.getCatalogs()");
 
-        ResultSet catalogs;
+        ResultSet catalogs = null;
         try {
-            catalogs = dbMetaData.getCatalogs();
-            String catalogName;
+            // read the catalog names first - so the cursor is not open while each
+            // catalog is extracted
+            List<String> catalogNames = new ArrayList<String>();
+            long started = startCall();
+            catalogs = cursor(ScanMetrics.GET_CATALOGS, null, started, dbMetaData.getCatalogs());
+            while (catalogs.next()) {
+                catalogNames.add(catalogs.getString(1)); // "TABLE_CATALOG"
+            }
+            closeQuietly(catalogs);
 
             int catCount = 0;
-            while (catalogs.next()) {
+            for (String catalogName : catalogNames) {
                 catCount++;
-                catalogName = catalogs.getString(1); // "TABLE_CATALOG"
-                System.out.println("\tcatalog: " + catalogName);
+                log.info("\tcatalog: " + catalogName);
 
                 // create the catalog object
                 if (isCatalogScanned(catalogName)) {
-                    this.createDatabase(catalogName);
-
-                    // get schemas
-                    getSchemas(catalogName);
+                    extractCatalog(catalogName);
                 } else {
                     // message for catalog is not exported...
-                    System.out.println(
+                    log.info(
                             "\tcatalog=" + catalogName + " skipped - not included in catalog filter: " + catalogFilter);
                 }
             }
@@ -319,17 +733,46 @@ public class GenericScanner implements IJdbcScanner {
 
             if (catCount == 0) {
                 String[] catalogFilterParts = catalogFilter.split(",");
-                System.out.println(
+                log.info(
                         "no catalogs found using dbMetaData.getCatalogs(); - forcing catalog=" + catalogFilterParts);
                 // System.out.println("filter conditions for catalog " + catalogs);
                 for (String catFilter : catalogFilterParts) {
-                    this.createDatabase(catFilter.trim());
-                    getSchemas(catFilter.trim());
+                    extractCatalog(catFilter.trim());
                 }
             }
         } catch (SQLException e) {
+            callFailed();
             e.printStackTrace();
+        } finally {
+            closeQuietly(catalogs);
+        }
+    }
+
+    /**
+     * create the database object & extract the schemas for a catalog - skipping
+     * anything already extracted by an interrupted scan (checkpoint=true)
+     *
+     * @param catalogName
+     */
+    protected void extractCatalog(String catalogName) {
+        if (!isCheckpointed("db/" + catalogName)) {
+            this.createDatabase(catalogName);
+            checkpoint("db/" + catalogName);
+        }
+
+        if (isCheckpointed("catalog/" + catalogName)) {
+            log.info("\tcatalog: " + catalogName + " already extracted (checkpoint) - skipped");
+            return;
         }
+        // get schemas
+        long failedBefore = failedTasks.sum();
+        getSchemas(catalogName);
+        if (failedTasks.sum() > failedBefore) {
+            log.error("\tcatalog: " + catalogName + " not checkpointed - " + (failedTasks.sum() - failedBefore)
+                    + " task(s) failed");
+            return;
+        }
+        checkpoint("catalog/" + catalogName);
     }
 
     /**
@@ -372,18 +815,18 @@ public class GenericScanner implements IJdbcScanner {
      * @return true|false
      */
     protected boolean isSchemaScanned(String schemaName) {
-        // @TODO: refactor - allow for a list of schemas to scan too
-        // System.out.println("should schema be scanned: " + schemaName + "
-        // excludeList=" + excludedSchemas);
-        if (this.excludedSchemas.equals("")) {
-            return true;
-        }
+        return schemaFilter.isIncluded(schemaName);
+    }
 
-        if (excludedSchemas.contains(schemaName)) {
-            return false;
-        } else {
-            return true;
-        }
+    /**
+     * return true if the table/view should be scanned - using the tables= and
+     * excluded.tables= properties
+     *
+     * @param tableName
+     * @return true|false
+     */
+    protected boolean isTableScanned(String tableName) {
+        return tableFilter.isIncluded(tableName);
     }
 
     /**
@@ -392,108 +835,503 @@ public class GenericScanner implements IJdbcScanner {
      * @param catalogName
      */
     public void getSchemas(String catalogName) {
+        Set<String> schemasToScan = new LinkedHashSet<String>();
+        ResultSet schemas = null;
         try {
-            System.out.println("Step 6: extracting schemas for catalog: " + catalogName);
-            ResultSet schemas = dbMetaData.getSchemas(catalogName, null);
+            log.info("Step 6: extracting schemas for catalog: " + catalogName);
             int schemaCount = 0;
-            while (schemas.next()) {
-                schemaCount++;
-                String schemaName = schemas.getString("TABLE_SCHEM");
-                System.out.println("\tschema is: " + schemaName);
-                if (!isSchemaScanned(schemaName)) {
-                    System.out.println("\tschema filtered out - not processed: " + schemaName);
-                    // go ahead
-                } else {
-                    createSchema(catalogName, schemaName);
+            // 1 call per include pattern (or 1 call for all schemas)
+            for (String schemaPattern : schemaSearchPatterns) {
+                long started = startCall();
+                schemas = cursor(ScanMetrics.GET_SCHEMAS, catalogName, started,
+                        dbMetaData.getSchemas(catalogName, schemaPattern));
+                while (schemas.next()) {
+                    schemaCount++;
+                    String schemaName = schemas.getString("TABLE_SCHEM");
+                    log.debug("\tschema is: " + schemaName);
+                    if (!isSchemaScanned(schemaName)) {
+                        log.debug("\tschema filtered out - not processed: " + schemaName);
+                        // go ahead
+                    } else {
+                        schemasToScan.add(schemaName);
+                    }
+                }
+                closeQuietly(schemas);
+            }
+            log.info("\tSchemas found: " + schemaCount);
 
-                    // process tables
-                    getTables(catalogName, schemaName);
+        } catch (Exception ex) {
+            callFailed();
+            taskFailed("schemas for catalog: " + catalogName, ex);
+        } finally {
+            closeQuietly(schemas);
+        }
 
-                    // process views
-                    getViews(catalogName, schemaName);
-                }
+        estimateObjects(catalogName, schemasToScan);
 
+        // bulk extraction for the whole catalog - if there is a dialect for the db
+        if (dialect != null && schemasToScan.size() > 0) {
+            log.info("\textracting catalog: " + catalogName + " using dialect: " + dialect.getName());
+            if (dialect.extractCatalog(this, currentConnection(), catalogName, schemasToScan)) {
+                log.info("\tSchemas extracted: " + schemasToScan.size());
+                return;
             }
-            System.out.println("\tSchemas extracted: " + schemaCount);
+            log.warn("\tdialect extraction failed - using DatabaseMetaData for catalog: " + catalogName);
+        }
 
-        } catch (Exception ex) {
-            System.out.println("Error getting list of databases using: getSchemas. " + ex.getMessage());
+        if (parallelWorkers > 1 && schemasToScan.size() > 1) {
+            extractSchemasInParallel(catalogName, new ArrayList<String>(schemasToScan));
+        } else {
+            for (String schemaName : schemasToScan) {
+                String step = "schema/" + catalogName + "/" + schemaName;
+                if (isCheckpointed(step)) {
+                    log.info("\tschema: " + schemaName + " already extracted (checkpoint) - skipped");
+                    continue;
+                }
+                long failedBefore = failedTasks.sum();
+                extractSchema(catalogName, schemaName);
+                if (failedTasks.sum() > failedBefore) {
+                    log.error("\tschema: " + schemaName + " not checkpointed - "
+                            + (failedTasks.sum() - failedBefore) + " task(s) failed");
+                    continue;
+                }
+                checkpoint(step);
+            }
         }
+        log.info("\tSchemas extracted: " + schemasToScan.size());
     }
 
     /**
-     * find all table objects
+     * add the number of tables/views in the schemas to the progress estimate - a
+     * count query via the dialect (no estimate for DatabaseMetaData extraction,
+     * since getTables is the extraction itself)
+     *
+     * @param catalogName
+     * @param schemaNames the (already filtered) schemas to extract
+     */
+    protected void estimateObjects(String catalogName, Collection<String> schemaNames) {
+        if (!progressEstimate || dialect == null || schemaNames.isEmpty()) {
+            return;
+        }
+        long count = dialect.countObjects(this, currentConnection(), catalogName, schemaNames);
+        if (count >= 0) {
+            log.info("	estimated tables/views in catalog " + catalogName + ": " + count);
+            progress.addExpected(count);
+        }
+    }
+
+    /**
+     * extract a single schema - the schema object, tables & views
      *
      * @param catalogName
      * @param schemaName
      */
-    protected void getTables(String catalogName, String schemaName) {
+    protected void extractSchema(String catalogName, String schemaName) {
+        createSchema(catalogName, schemaName);
+
+        // process tables & views (single pass)
+        getTablesAndViews(catalogName, schemaName);
+
+        // bulk mode - the columns for all tables & views in the schema
+        if (bulkColumns) {
+            getColumnsForSchema(catalogName, schemaName);
+        }
+    }
+
+    /**
+     * extract the schemas using a pool of worker threads, each with it's own
+     * connection. falls back to serial extraction if no pool connections can be
+     * opened
+     *
+     * @param catalogName
+     * @param schemaNames the (already filtered) schemas to extract
+     */
+    protected void extractSchemasInParallel(final String catalogName, List<String> schemaNames) {
+        ConnectionPool pool = getWorkerPool();
+        if (pool.size() == 0) {
+            log.info("\tno pooled connections available - extracting schemas serially");
+            for (String schemaName : schemaNames) {
+                extractSchema(catalogName, schemaName);
+            }
+            return;
+        }
+
+        log.info("\textracting " + schemaNames.size() + " schemas using " + pool.size() + " workers");
+        ExecutorService executor = Executors.newFixedThreadPool(pool.size());
+        List<Future<?>> results = new ArrayList<Future<?>>();
+        for (final String schemaName : schemaNames) {
+            results.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    runWithPooledConnection(new Runnable() {
+                        @Override
+                        public void run() {
+                            extractSchema(catalogName, schemaName);
+                        }
+                    });
+                }
+            }));
+        }
+        executor.shutdown();
+
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                results.get(i).get();
+            } catch (ExecutionException e) {
+                taskFailed("schema: " + catalogName + "/" + schemaNames.get(i), e.getCause());
+            } catch (InterruptedException e) {
+                log.error("interrupted waiting for schema extraction: " + catalogName);
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+                return;
+            }
+        }
+    }
+
+    /**
+     * a task failed part way (e.g. reported by Future.get(), or a metadata call for
+     * a schema/table) - the schema & catalog are not checkpointed (nor anything
+     * after them) & the scan will not be completed
+     *
+     * @param task  what the task was extracting (e.g. schema: catalog/schema)
+     * @param cause the exception thrown by the task
+     */
+    protected void taskFailed(String task, Throwable cause) {
+        failedTasks.increment();
+        log.error("error extracting " + task + " " + cause);
+        cause.printStackTrace();
+    }
+
+    /**
+     * borrow a connection from the worker pool, bind it to the current thread (see
+     * currentConnection()) for the duration of the task & then return it
+     *
+     * @param task the work to execute
+     * @throws IllegalStateException if no connection could be borrowed (the task
+     *                               is not run)
+     */
+    protected void runWithPooledConnection(Runnable task) {
+        Connection con = null;
         try {
-            ResultSet rsTables = dbMetaData.getTables(catalogName, schemaName, null, new String[] { "TABLE" });
-            int tableCount = 0;
-            while (rsTables.next()) {
-                // Print
-                tableCount++;
+            con = workerPool.borrow();
+            workerConnection.set(con);
+            workerMetaData.set(con.getMetaData());
+            task.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted waiting for a pooled connection", e);
+        } catch (SQLException e) {
+            throw new IllegalStateException("error getting DatabaseMetaData for pooled connection: " + e.getMessage(),
+                    e);
+        } finally {
+            workerConnection.remove();
+            workerMetaData.remove();
+            workerPool.release(con);
+        }
+    }
+
+    /**
+     * get (or create) the pool of worker connections - sized by parallel.workers
+     *
+     * @return the connection pool
+     */
+    protected synchronized ConnectionPool getWorkerPool() {
+        if (workerPool == null) {
+            workerPool = new ConnectionPool(this, driverClass, dbURL, userName, pwd, parallelWorkers);
+        }
+        return workerPool;
+    }
+
+    /**
+     * close the worker connections (if any were opened)
+     */
+    protected synchronized void closeWorkerPool() {
+        if (workerPool != null) {
+            workerPool.close();
+            workerPool = null;
+        }
+    }
 
-                // System.out.println("found one...");
-                System.out.println("\t" + " catalog=" + rsTables.getString("TABLE_CAT") + " schema="
-                        + rsTables.getString("TABLE_SCHEM") + " tablename=" + rsTables.getString("TABLE_NAME")
-                        + " TABLE_TYPE=" + rsTables.getString("TABLE_TYPE")
-                // + " comments=" + rsTables.getClob("REMARKS")
-                );
-                // System.out.println(rsTables.getMetaData().getColumnTypeName(5));
-                this.createTable(catalogName, schemaName, rsTables.getString("TABLE_NAME"),
-                        rsTables.getString("REMARKS"));
+    /**
+     * the connection for the current thread - a pooled connection when called from
+     * a worker, otherwise the main connection
+     */
+    protected Connection currentConnection() {
+        Connection con = workerConnection.get();
+        return con != null ? con : connection;
+    }
 
-                getColumnsForTable(catalogName, schemaName, rsTables.getString("TABLE_NAME"), false);
+    /**
+     * the DatabaseMetaData object for the current thread - see currentConnection()
+     */
+    protected DatabaseMetaData currentMetaData() {
+        DatabaseMetaData md = workerMetaData.get();
+        return md != null ? md : dbMetaData;
+    }
+
+    /**
+     * apply the fetchSize setting to a result set (e.g. from a DatabaseMetaData
+     * call) - a hint only, some drivers ignore it
+     *
+     * @param rs the result set
+     * @return the same result set
+     */
+    protected ResultSet cursor(ResultSet rs) {
+        if (rs != null && fetchSize > 0) {
+            try {
+                rs.setFetchSize(fetchSize);
+            } catch (SQLException e) {
+                // not supported by the driver - use the default
             }
+        }
+        return rs;
+    }
+
+    /**
+     * apply the fetchSize setting & record the call in the scan metrics (and jfr)
+     *
+     * @param call    the call type (e.g. ScanMetrics.GET_TABLES)
+     * @param object  the object the call is for (e.g. catalog.schema) or null
+     * @param started System.nanoTime() before the call
+     * @param rs      the result set returned by the call
+     * @return the result set (counting the rows read)
+     */
+    protected ResultSet cursor(String call, String object, long started, ResultSet rs) {
+        return track(call, object, started, cursor(rs));
+    }
 
-            System.out.println("\tTables extracted: " + tableCount);
+    /**
+     * record the call in the scan metrics (and jfr) - the throttle permit is held
+     * until the result set is read to the end or closed (an exception reading it
+     * counts as a failed call)
+     *
+     * @param call    the call type
+     * @param object  the object the call is for (or null)
+     * @param started the value returned by startCall()
+     * @param rs      the result set returned by the call
+     * @return the result set (counting the rows read)
+     */
+    protected ResultSet track(String call, String object, long started, ResultSet rs) {
+        return metrics.track(call, object, started, rs, limiter == null ? null : limiter.handOff(call));
+    }
+
+    /**
+     * start a metadata call - waits for the throttle (if used)
+     *
+     * @return System.nanoTime() when the call can start
+     */
+    protected long startCall() {
+        return limiter == null ? System.nanoTime() : limiter.acquire();
+    }
+
+    /**
+     * end a metadata call started with startCall() - nothing is done if the call
+     * was already ended or returned a result set (see track())
+     *
+     * @param call    the call type (or null)
+     * @param started the value returned by startCall()
+     * @param failed  true if the call failed
+     */
+    protected void endCall(String call, long started, boolean failed) {
+        if (limiter != null) {
+            limiter.release(call, failed, started);
+        }
+    }
 
+    /**
+     * a metadata call failed (exception) - the call in progress is counted as
+     * failed by the throttle (a result set counts it's own failures - see
+     * CountingResultSet)
+     */
+    protected void callFailed() {
+        if (limiter != null) {
+            limiter.failed();
+        }
+    }
+
+    /**
+     * execute a query & record it in the scan metrics (and jfr)
+     *
+     * @param call   the call type (e.g. desc vql)
+     * @param object the object the query is for (or null)
+     * @param stmt   the prepared statement
+     * @return the result set (counting the rows read)
+     * @throws SQLException
+     */
+    protected ResultSet executeQuery(String call, String object, PreparedStatement stmt) throws SQLException {
+        long started = startCall();
+        ResultSet rs;
+        try {
+            rs = stmt.executeQuery();
         } catch (SQLException e) {
-            e.printStackTrace();
+            callFailed();
+            throw e;
         }
+        rs = track(call, object, started, rs);
+        TrackedStatement.register(stmt, rs);
+        return rs;
+    }
 
+    /**
+     * execute a query & record it in the scan metrics (and jfr)
+     *
+     * @param call   the call type (e.g. desc vql)
+     * @param object the object the query is for (or null)
+     * @param stmt   the statement
+     * @param sql    the query
+     * @return the result set (counting the rows read)
+     * @throws SQLException
+     */
+    protected ResultSet executeQuery(String call, String object, Statement stmt, String sql) throws SQLException {
+        long started = startCall();
+        ResultSet rs;
+        try {
+            rs = stmt.executeQuery(sql);
+        } catch (SQLException e) {
+            callFailed();
+            throw e;
+        }
+        rs = track(call, object, started, rs);
+        TrackedStatement.register(stmt, rs);
+        return rs;
+    }
+
+    /**
+     * create a forward only, read only statement - using the fetchSize setting
+     *
+     * @param con the connection
+     * @return the statement - close it when finished (or use closeQuietly) -
+     *         closing it also closes the result sets from executeQuery
+     * @throws SQLException
+     */
+    protected Statement createStatement(Connection con) throws SQLException {
+        Statement stmt;
+        try {
+            stmt = con.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        } catch (SQLFeatureNotSupportedException e) {
+            stmt = con.createStatement();
+        }
+        if (fetchSize > 0) {
+            stmt.setFetchSize(fetchSize);
+        }
+        return TrackedStatement.wrap(stmt);
+    }
+
+    /**
+     * prepare a forward only, read only statement - using the fetchSize setting
+     *
+     * @param con the connection
+     * @param sql the sql statement
+     * @return the statement - close it when finished (or use closeQuietly) -
+     *         closing it also closes the result sets from executeQuery
+     * @throws SQLException
+     */
+    protected PreparedStatement prepareStatement(Connection con, String sql) throws SQLException {
+        PreparedStatement stmt;
+        try {
+            stmt = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        } catch (SQLFeatureNotSupportedException e) {
+            stmt = con.prepareStatement(sql);
+        }
+        if (fetchSize > 0) {
+            stmt.setFetchSize(fetchSize);
+        }
+        return TrackedStatement.wrap(stmt);
+    }
+
+    /**
+     * close result sets/statements - ignoring nulls & errors
+     *
+     * @param resources
+     */
+    protected static void closeQuietly(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                // already closed, or the connection is gone
+            }
+        }
     }
 
     /**
-     * find all table objects
+     * find all tables & views in a single DatabaseMetaData.getTables call (for the
+     * types in tableTypes) - each object is created as a table or view depending
+     * on the TABLE_TYPE returned
      *
      * @param catalogName
      * @param schemaName
      */
-    protected void getViews(String catalogName, String schemaName) {
+    protected void getTablesAndViews(String catalogName, String schemaName) {
+        int tableCount = 0;
+        int viewCount = 0;
+        // with more than 1 include pattern - the same table could be returned 2x
+        Set<String> tablesFound = new HashSet<String>();
+        ResultSet rsTables = null;
         try {
-            ResultSet rsViews = dbMetaData.getTables(catalogName, schemaName, null, new String[] { "VIEW" });
-            int viewCount = 0;
-            while (rsViews.next()) {
-                // Print
-                viewCount++;
-
-                // System.out.println("found one...");
-                System.out.println("\t" + " catalog=" + rsViews.getString("TABLE_CAT") + " schema="
-                        + rsViews.getString("TABLE_SCHEM") + " tablename=" + rsViews.getString("TABLE_NAME")
-                        + " TABLE_TYPE=" + rsViews.getString("TABLE_TYPE")
-                // + " comments=" + rsViews.getClob("REMARKS")
-                );
-                // System.out.println(rsTables.getMetaData().getColumnTypeName(5));
-                this.createView(catalogName, schemaName, rsViews.getString("TABLE_NAME"), rsViews.getString("REMARKS"),
-                        "", "");
-
-                getColumnsForTable(catalogName, schemaName, rsViews.getString("TABLE_NAME"), true);
-            }
-            System.out.println("\tViews extracted: " + viewCount);
+            for (String tablePattern : tableSearchPatterns) {
+                long started = startCall();
+                rsTables = cursor(ScanMetrics.GET_TABLES, objectName(catalogName, schemaName), started,
+                        currentMetaData().getTables(catalogName, schemaName, tablePattern, tableTypes));
+                while (rsTables.next()) {
+                    String tableName = rsTables.getString("TABLE_NAME");
+                    String tableType = rsTables.getString("TABLE_TYPE");
+                    if (!isTableScanned(tableName) || !tablesFound.add(tableName)) {
+                        continue;
+                    }
+                    if (log.isDebugEnabled()) {
+                        log.debug("\t" + " catalog=" + rsTables.getString("TABLE_CAT") + " schema="
+                                + rsTables.getString("TABLE_SCHEM") + " tablename=" + tableName + " TABLE_TYPE="
+                                + tableType);
+                    }
+
+                    if (isViewType(tableType)) {
+                        viewCount++;
+                        this.createView(catalogName, schemaName, tableName, rsTables.getString("REMARKS"), "", "");
+                        getColumnsForTable(catalogName, schemaName, tableName, true);
+                    } else {
+                        tableCount++;
+                        this.createTable(catalogName, schemaName, tableName, rsTables.getString("REMARKS"));
+                        getColumnsForTable(catalogName, schemaName, tableName, false);
+                    }
+                }
+                closeQuietly(rsTables);
+            }
+
+            log.info("\tTables extracted: " + tableCount + " Views extracted: " + viewCount);
 
         } catch (SQLException e) {
-            e.printStackTrace();
+            callFailed();
+            taskFailed("tables for schema: " + objectName(catalogName, schemaName), e);
+        } finally {
+            closeQuietly(rsTables);
         }
+    }
 
+    /**
+     * @param tableType TABLE_TYPE returned by DatabaseMetaData.getTables
+     * @return true if the type should be extracted as a view (e.g. VIEW,
+     *         MATERIALIZED VIEW)
+     */
+    protected boolean isViewType(String tableType) {
+        return tableType != null && tableType.toUpperCase().contains("VIEW");
     }
 
     protected void getColumnsForTable(String catalogName, String schemaName, String tableName, boolean isView) {
+        if (bulkColumns) {
+            // columns will be extracted for the whole schema - see getColumnsForSchema
+            deferColumns(catalogName, schemaName, tableName, isView);
+            return;
+        }
         int colCount = 0;
+        ResultSet columns = null;
+        long started = startCall();
         try {
-            ResultSet columns = dbMetaData.getColumns(catalogName, schemaName, tableName, null);
+            columns = cursor(ScanMetrics.GET_COLUMNS, objectName(catalogName, schemaName, tableName), started,
+                    currentMetaData().getColumns(catalogName, schemaName, tableName, null));
             while (columns.next()) {
                 colCount++;
                 String columnName = columns.getString("COLUMN_NAME");
@@ -518,11 +1356,106 @@ public class GenericScanner implements IJdbcScanner {
 
             } // end for each column
         } catch (Exception ex) {
-            System.out.println("error extracting column metadata...");
-            ex.printStackTrace();
+            callFailed();
+            taskFailed("columns for table: " + objectName(catalogName, schemaName, tableName), ex);
+        } finally {
+            closeQuietly(columns);
         }
-        System.out.println("\t\t\tcolumns extracted: " + colCount);
+        metrics.recordObject(objectName(catalogName, schemaName, tableName), ScanMetrics.OBJ_COLUMNS, started,
+                colCount);
+        log.debug("\t\t\tcolumns extracted: " + colCount);
+
+    }
 
+    /**
+     * register a table/view for bulk column extraction (getColumnsForSchema)
+     *
+     * @param catalogName
+     * @param schemaName
+     * @param tableName
+     * @param isView
+     */
+    protected void deferColumns(String catalogName, String schemaName, String tableName, boolean isView) {
+        String schemaKey = catalogName + "/" + schemaName;
+        Map<String, Boolean> tables = deferredColumnTables.get(schemaKey);
+        if (tables == null) {
+            tables = new ConcurrentHashMap<String, Boolean>();
+            deferredColumnTables.put(schemaKey, tables);
+        }
+        tables.put(tableName, isView);
+    }
+
+    /**
+     * bulk column extraction - 1 DatabaseMetaData.getColumns call for all tables
+     * in the schema. rows are processed as they are read (jdbc returns them
+     * ordered by table name & position), only the names of the tables/views
+     * registered via deferColumns are kept in memory
+     *
+     * @param catalogName
+     * @param schemaName
+     */
+    protected void getColumnsForSchema(String catalogName, String schemaName) {
+        Map<String, Boolean> tables = deferredColumnTables.remove(catalogName + "/" + schemaName);
+        if (tables == null || tables.isEmpty()) {
+            return;
+        }
+
+        int colCount = 0;
+        int skipped = 0;
+        String lastTable = null;
+        long tableStarted = System.nanoTime();
+        int tableColumns = 0;
+        // tables already processed (when more than 1 table pattern is used)
+        Set<String> tablesDone = new HashSet<String>();
+        ResultSet columns = null;
+        try {
+            for (String tablePattern : tableSearchPatterns) {
+                long started = startCall();
+                columns = cursor(ScanMetrics.GET_COLUMNS, objectName(catalogName, schemaName), started,
+                        currentMetaData().getColumns(catalogName, schemaName, tablePattern, null));
+                Set<String> tablesInPattern = new HashSet<String>();
+                while (columns.next()) {
+                    String tableName = columns.getString("TABLE_NAME");
+                    Boolean isView = tables.get(tableName);
+                    // the schema is passed as a pattern - so check it is really the same schema
+                    if (isView == null || tablesDone.contains(tableName)
+                            || !schemaName.equals(columns.getString("TABLE_SCHEM"))) {
+                        // not a table/view that was extracted (other types, or filtered out)
+                        skipped++;
+                        continue;
+                    }
+                    if (!tableName.equals(lastTable)) {
+                        if (tableColumns > 0) {
+                            metrics.recordObject(objectName(catalogName, schemaName, lastTable),
+                                    ScanMetrics.OBJ_COLUMNS, tableStarted, tableColumns);
+                        }
+                        tablesInPattern.add(tableName);
+                        lastTable = tableName;
+                        tableStarted = System.nanoTime();
+                        tableColumns = 0;
+                    }
+                    tableColumns++;
+                    colCount++;
+                    this.createColumn(catalogName, schemaName, tableName, columns.getString("COLUMN_NAME"),
+                            columns.getString("TYPE_NAME"), columns.getString("COLUMN_SIZE"),
+                            columns.getString("ORDINAL_POSITION"), columns.getString("REMARKS"), isView);
+                }
+                closeQuietly(columns);
+                if (tableColumns > 0) {
+                    metrics.recordObject(objectName(catalogName, schemaName, lastTable), ScanMetrics.OBJ_COLUMNS,
+                            tableStarted, tableColumns);
+                    tableColumns = 0;
+                }
+                tablesDone.addAll(tablesInPattern);
+            }
+        } catch (Exception ex) {
+            callFailed();
+            taskFailed("columns for schema: " + objectName(catalogName, schemaName), ex);
+        } finally {
+            closeQuietly(columns);
+        }
+        log.info("\t\tcolumns extracted: " + colCount + " for " + tablesDone.size() + " of " + tables.size()
+                + " tables/views in " + schemaName + " (rows skipped: " + skipped + ")");
     }
 
     /**
@@ -530,12 +1463,12 @@ public class GenericScanner implements IJdbcScanner {
      */
     public static void main(String[] args) {
         if (args.length == 0) {
-            System.out.println(
+            log.info(
                     "JDBC Custom scanner for EDC: missing configuration properties file: usage:  genericScanner <folder>/<config file>.properties");
             System.exit(0);
         }
 
-        System.out.println("JDBC Custom scanner: " + args[0] + " currentTimeMillis=" + System.currentTimeMillis());
+        log.info("JDBC Custom scanner: " + args[0] + " currentTimeMillis=" + System.currentTimeMillis());
 
         // check to see if a disclaimer override parameter was passed
         String disclaimerParm = "";
@@ -544,9 +1477,9 @@ public class GenericScanner implements IJdbcScanner {
             disclaimerParm = args[1];
             // System.out.println("disclaimer parameter passed: " + disclaimerParm);
             if ("agreeToDisclaimer".equalsIgnoreCase(disclaimerParm)) {
-                System.out.println(
+                log.info(
                         "the following disclaimer was agreed to by passing 'agreeToDisclaimer' as 2nd parameter");
-                System.out.println(DISCLAIMER);
+                log.info(DISCLAIMER);
             }
         }
 
@@ -558,48 +1491,45 @@ public class GenericScanner implements IJdbcScanner {
             GenericScanner scanner = new GenericScanner(args[0]);
             scanner.run();
         } else {
-            System.out.println("Disclaimer was declined - exiting");
+            log.info("Disclaimer was declined - exiting");
         }
+        ScanLogger.shutdown();
 
     }
 
     protected boolean initFiles() {
         // assume working, until it is not
         boolean initialized = true;
-        System.out.println("Step 3: initializing files in: " + customMetadataFolder);
+        log.info("Step 3: initializing files in: " + customMetadataFolder);
 
         try {
-            // check that the folder exists - if not, create it
-            File directory = new File(String.valueOf(customMetadataFolder));
-            if (!directory.exists()) {
-                System.out.println("\tfolder: " + customMetadataFolder + " does not exist, creating it");
-                directory.mkdir();
+            // creates the folder if it does not exist
+            output = newScannerOutput();
+            if (incremental) {
+                prepareIncremental();
             }
+            openCheckpoint();
             // otherObjWriter = new CSVWriter(new FileWriter(otherObjectCsvName), ',',
             // CSVWriter.NO_QUOTE_CHARACTER);
-            otherObjWriter = new CSVWriter(new FileWriter(customMetadataFolder + "/" + CATALOG_SCHEMA_FILENAME));
-            tableWriter = new CSVWriter(new FileWriter(customMetadataFolder + "/" + TABLEVIEWS_FILENAME));
-            viewWriter = new CSVWriter(new FileWriter(customMetadataFolder + "/" + VIEWS_FILENAME));
-            this.columnWriter = new CSVWriter(new FileWriter(customMetadataFolder + "/" + COLUMN_FILENAME));
-            this.viewColumnWriter = new CSVWriter(new FileWriter(customMetadataFolder + "/" + VCOLUMN_FILENAME));
-            this.linksWriter = new CSVWriter(new FileWriter(customMetadataFolder + "/" + LINKS_FILENAME));
-
-            otherObjWriter.writeNext(new String[] { "class", "identity", "core.name",
-                    "com.infa.ldm.relational.StoreType", "com.infa.ldm.relational.SystemType" });
-            tableWriter.writeNext(new String[] { "class", "identity", "core.name", "core.description" });
-            viewWriter.writeNext(new String[] { "class", "identity", "core.name", "core.description",
-                    "com.infa.ldm.relational.ViewStatement", "com.infa.ldm.relational.Location" });
-            columnWriter.writeNext(new String[] { "class", "identity", "core.name", "com.infa.ldm.relational.Datatype",
-                    "com.infa.ldm.relational.DatatypeLength", "com.infa.ldm.relational.Position", "core.dataSetUuid",
-                    "core.description" });
-            viewColumnWriter
-                    .writeNext(new String[] { "class", "identity", "core.name", "com.infa.ldm.relational.Datatype",
+            // headers are not written again when resuming from a checkpoint
+            otherObjWriter = output.openCsvWriter(CATALOG_SCHEMA_FILENAME, true, new String[] { "class", "identity",
+                    "core.name", "com.infa.ldm.relational.StoreType", "com.infa.ldm.relational.SystemType" });
+            tableWriter = output.openCsvWriter(TABLEVIEWS_FILENAME, true,
+                    new String[] { "class", "identity", "core.name", "core.description" });
+            viewWriter = output.openCsvWriter(VIEWS_FILENAME, true, new String[] { "class", "identity", "core.name",
+                    "core.description", "com.infa.ldm.relational.ViewStatement", "com.infa.ldm.relational.Location" });
+            this.columnWriter = output.openCsvWriter(COLUMN_FILENAME, true,
+                    new String[] { "class", "identity", "core.name", "com.infa.ldm.relational.Datatype",
+                            "com.infa.ldm.relational.DatatypeLength", "com.infa.ldm.relational.Position",
+                            "core.dataSetUuid", "core.description" });
+            this.viewColumnWriter = output.openCsvWriter(VCOLUMN_FILENAME, true,
+                    new String[] { "class", "identity", "core.name", "com.infa.ldm.relational.Datatype",
                             "com.infa.ldm.relational.DatatypeLength", "com.infa.ldm.relational.Position",
                             "core.dataSetUuid", "com.infa.ldm.relational.ViewStatement", "core.description" });
+            this.linksWriter = output.openCsvWriter(LINKS_FILENAME, true,
+                    new String[] { "association", "fromObjectIdentity", "toObjectIdentity" });
 
-            linksWriter.writeNext(new String[] { "association", "fromObjectIdentity", "toObjectIdentity" });
-
-            System.out.println("\tFiles initialized");
+            log.info("\tFiles initialized");
 
         } catch (IOException e1) {
             initialized = false;
@@ -609,13 +1539,243 @@ public class GenericScanner implements IJdbcScanner {
         return initialized;
     }
 
+    /**
+     * checkpoint=true - open the checkpoint journal, resuming the output files of
+     * an interrupted scan. must be called before any output file is opened.
+     * checkpoints are not used with parallel.workers (schemas finish in any order),
+     * output.mode=zip (zip entries can't be appended to) or incremental=true (the
+     * columns of unchanged tables are copied from the previous run's zip, which a
+     * resumed scan would no longer have)
+     */
+    protected void openCheckpoint() {
+        if (!useCheckpoint) {
+            return;
+        }
+        if (parallelWorkers > 1 || output.isStreamToZip() || incremental) {
+            log.warn("\tcheckpoint=true is not supported with parallel.workers > 1, output.mode=zip"
+                    + " or incremental=true - scan will not be resumable");
+            return;
+        }
+        checkpoint = new ScanCheckpoint(checkpointFile, this.getClass().getName(), propertyFileName);
+        if (checkpoint.open() && !output.resumeFrom(checkpoint.getFileSizes())) {
+            // a file is missing or was cut short - the steps done can't be skipped
+            checkpoint.restart();
+        }
+    }
+
+    /**
+     * @param step e.g. schema/<catalog>/<schema>
+     * @return true if the step was completed by an interrupted scan (so it should
+     *         be skipped)
+     */
+    protected boolean isCheckpointed(String step) {
+        return checkpoint != null && checkpoint.isDone(step);
+    }
+
+    /**
+     * a step is complete - sync the output files & record the step (with the file
+     * sizes) in the checkpoint journal
+     *
+     * @param step e.g. schema/<catalog>/<schema>
+     */
+    protected void checkpoint(String step) {
+        if (checkpoint == null) {
+            return;
+        }
+        if (failedTasks.sum() > 0) {
+            // the files now have the partial output of a failed step - recording
+            // their sizes would skip it (or duplicate it) on resume
+            log.warn("\tnot checkpointed: " + step + " - " + failedTasks.sum()
+                    + " task(s) failed, a resumed scan starts from the last checkpoint");
+            return;
+        }
+        if (!isConnectionValid()) {
+            // errors are printed & the scan continues - so a lost connection would
+            // be recorded as a completed (but empty) step
+            throw new IllegalStateException("connection lost before checkpoint: " + step);
+        }
+        try {
+            flushFiles();
+            // the file data must be on disk before the journal line that records it
+            output.sync();
+            checkpoint.record(step, output.getFileSizes());
+        } catch (IOException e) {
+            log.error("error flushing files for checkpoint: " + step + " " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return false if the connection is closed or does not respond
+     */
+    protected boolean isConnectionValid() {
+        try {
+            return !connection.isClosed() && connection.isValid(30);
+        } catch (SQLException e) {
+            return false;
+        } catch (AbstractMethodError e) {
+            // pre jdbc 4 driver - assume the connection is ok
+            return true;
+        }
+    }
+
+    /**
+     * flush all output files - for longer running processes
+     *
+     * @return true if successful
+     */
+    protected boolean flushFiles() {
+        try {
+            otherObjWriter.flush();
+            tableWriter.flush();
+            viewWriter.flush();
+            columnWriter.flush();
+            viewColumnWriter.flush();
+            linksWriter.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * incremental scan - read the fingerprint index & keep the zip file of the
+     * previous run (renamed to <scanner>.previous.zip), so the columns of
+     * unchanged tables can be copied from it. must be called before any output
+     * file is opened
+     */
+    protected void prepareIncremental() {
+        if (fingerprints == null || !fingerprints.getFileName().equals(incrementalIndexFile)
+                || !fingerprints.reuse()) {
+            fingerprints = new FingerprintIndex(incrementalIndexFile);
+            fingerprints.load();
+        }
+
+        File zipFile = new File(output.getZipFilePath());
+        File previousZip = new File(customMetadataFolder + "/" + this.getClass().getSimpleName() + ".previous.zip");
+        if (zipFile.exists()) {
+            // the zip of the last successful run - replaces an older copy
+            if (previousZip.exists()) {
+                previousZip.delete();
+            }
+            if (!zipFile.renameTo(previousZip)) {
+                log.warn("\tunable to rename " + zipFile + " to " + previousZip);
+            }
+        }
+        if (previousZip.exists()) {
+            previousZipFile = previousZip.getPath();
+            fingerprints.setCarryAllowed(true);
+            log.info("\tprevious snapshot: " + previousZipFile);
+        } else {
+            log.info("\tno previous snapshot - all tables will be extracted");
+        }
+    }
+
+    /**
+     * incremental scan - check if a table/view changed since the previous run.
+     * called by dialects that have a last altered timestamp (before createTable or
+     * createView). if unchanged, the columns should not be extracted - they are
+     * copied from the previous snapshot when the files are closed
+     *
+     * @param dbName
+     * @param schema
+     * @param table
+     * @param isView
+     * @param lastAltered last altered timestamp for the table (null if unknown)
+     * @return true if the table/view is unchanged
+     */
+    public boolean isTableUnchanged(String dbName, String schema, String table, boolean isView,
+            String lastAltered) {
+        if (fingerprints == null) {
+            return false;
+        }
+        return fingerprints.isUnchanged(dbName + "/" + schema + "/" + table, isView, lastAltered);
+    }
+
+    /**
+     * incremental scan - copy the columns (& column links) of the unchanged
+     * tables/views from the previous zip file
+     */
+    protected void mergePreviousSnapshot() {
+        Set<String> carried = fingerprints.getCarriedTables();
+        if (carried.isEmpty() || previousZipFile == null) {
+            return;
+        }
+        log.info("merging columns for " + carried.size() + " unchanged tables/views from: "
+                + previousZipFile);
+        try {
+            ZipFile zip = new ZipFile(previousZipFile);
+            try {
+                colCount.add(copyRows(zip, COLUMN_FILENAME, columnWriter, 6, carried, null));
+                vwColCount.add(copyRows(zip, VCOLUMN_FILENAME, viewColumnWriter, 6, carried, null));
+                copyRows(zip, LINKS_FILENAME, linksWriter, 1, carried, new String[] {
+                        "com.infa.ldm.relational.TableColumn", "com.infa.ldm.relational.ViewViewColumn" });
+            } finally {
+                zip.close();
+            }
+        } catch (IOException | CsvValidationException e) {
+            log.error("error merging the previous snapshot: " + previousZipFile);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * copy the rows of a csv file in a zip, where a column contains a carried
+     * table identity
+     *
+     * @param tableIdColumn column with the table identity
+     * @param associations  only copy rows where the 1st value is one of these
+     *                      (null = all)
+     * @return rows copied
+     */
+    private int copyRows(ZipFile zip, String fileName, CSVWriter writer, int tableIdColumn, Set<String> carried,
+            String[] associations) throws IOException, CsvValidationException {
+        ZipEntry entry = zip.getEntry(fileName);
+        if (entry == null) {
+            return 0;
+        }
+        List<String> associationList = associations == null ? null : Arrays.asList(associations);
+        int rows = 0;
+        CSVReader reader = new CSVReader(new InputStreamReader(zip.getInputStream(entry)));
+        try {
+            // skip the header
+            String[] row = reader.readNext();
+            while ((row = reader.readNext()) != null) {
+                if (row.length <= tableIdColumn || !carried.contains(row[tableIdColumn])
+                        || (associationList != null && !associationList.contains(row[0]))) {
+                    continue;
+                }
+                writer.writeNext(row);
+                rows++;
+            }
+        } finally {
+            reader.close();
+        }
+        log.info("\t" + fileName + ": " + rows + " rows copied");
+        return rows;
+    }
+
+    /**
+     * create the output (folder & zip file) using the output.* settings
+     *
+     * @return output for the csv files
+     */
+    protected ScannerOutput newScannerOutput() {
+        ScannerOutput scannerOutput = new ScannerOutput(customMetadataFolder,
+                this.getClass().getSimpleName() + ".zip", outputMode);
+        scannerOutput.setBufferSize(outputBufferSize);
+        scannerOutput.setQuoteAll(outputQuoteAll);
+        scannerOutput.setMetrics(metrics);
+        return scannerOutput;
+    }
+
     /**
      * close the files that were opened - ensures that any buffers are cleared
      *
      * @return
      */
     protected boolean closeFiles() {
-        System.out.println("closing output files");
+        log.info("closing output files");
 
         try {
             otherObjWriter.close();
@@ -630,51 +1790,29 @@ public class GenericScanner implements IJdbcScanner {
         }
 
         /**
-         * zip the files
+         * zip the files (or finish the zip file - for output.mode=zip)
          */
-        List<String> srcFiles = Arrays.asList(customMetadataFolder + "/" + CATALOG_SCHEMA_FILENAME,
-                customMetadataFolder + "/" + TABLEVIEWS_FILENAME, customMetadataFolder + "/" + VIEWS_FILENAME,
-                customMetadataFolder + "/" + VCOLUMN_FILENAME, customMetadataFolder + "/" + COLUMN_FILENAME,
-                customMetadataFolder + "/" + LINKS_FILENAME);
-
-        try {
-            System.out.println(
-                    "creating zip file: " + customMetadataFolder + '/' + this.getClass().getSimpleName() + ".zip");
-            FileOutputStream fos = new FileOutputStream(
-                    customMetadataFolder + '/' + this.getClass().getSimpleName() + ".zip");
-            ZipOutputStream zipOut = new ZipOutputStream(fos);
-            for (String srcFile : srcFiles) {
-                File fileToZip = new File(srcFile);
-                FileInputStream fis;
-                fis = new FileInputStream(fileToZip);
-                ZipEntry zipEntry = new ZipEntry(fileToZip.getName());
-                zipOut.putNextEntry(zipEntry);
-
-                byte[] bytes = new byte[1024];
-                int length;
-                while ((length = fis.read(bytes)) >= 0) {
-                    zipOut.write(bytes, 0, length);
-                }
-                fis.close();
-            }
-            zipOut.close();
-            fos.close();
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
+        boolean closed = output.close();
+        if (closed && fingerprints != null) {
+            // the new zip is complete - the index is for the new zip
+            fingerprints.printSummary();
+            fingerprints.save();
         }
-
-        return true;
+        if (closed && checkpoint != null && failedTasks.sum() == 0) {
+            // nothing to resume - with failed tasks, the next run resumes from the
+            // last checkpoint & extracts the failed schema again
+            checkpoint.delete();
+        }
+        return closed;
 
     }
 
-    protected void createDatabase(String dbName) {
-        System.out.println("\tcreating database: " + dbName);
+    protected synchronized void createDatabase(String dbName) {
+        log.info("\tcreating database: " + dbName);
 
         try {
             this.otherObjWriter.writeNext(new String[] { DB_TYPE, dbName, dbName, "Relational", dbProductName });
-            dbCount++;
+            dbCount.increment();
             this.linksWriter.writeNext(new String[] { "core.ResourceParentChild", "", dbName });
         } catch (Exception ex) {
             ex.printStackTrace();
@@ -683,14 +1821,14 @@ public class GenericScanner implements IJdbcScanner {
         return;
     }
 
-    protected void createSchema(String dbName, String schema) {
+    protected synchronized void createSchema(String dbName, String schema) {
         // System.out.println("\tcreating database: " + dbName);
 
         String schId = dbName + "/" + schema;
 
         try {
             this.otherObjWriter.writeNext(new String[] { SCH_TYPE, schId, schema, "", "" });
-            schCount++;
+            schCount.increment();
             this.linksWriter.writeNext(new String[] { "com.infa.ldm.relational.DatabaseSchema", dbName, schId });
         } catch (Exception ex) {
             ex.printStackTrace();
@@ -699,14 +1837,18 @@ public class GenericScanner implements IJdbcScanner {
         return;
     }
 
-    public void createTable(String dbName, String schema, String table, String desc) {
+    public synchronized void createTable(String dbName, String schema, String table, String desc) {
 
         String schId = dbName + "/" + schema;
         String tabId = schId + "/" + table;
 
         try {
             this.tableWriter.writeNext(new String[] { TAB_TYPE, tabId, table, desc });
-            tabCount++;
+            tabCount.increment();
+            progress.done();
+            if (fingerprints != null) {
+                fingerprints.addTable(tabId, false);
+            }
             this.linksWriter.writeNext(new String[] { "com.infa.ldm.relational.SchemaTable", schId, tabId });
         } catch (Exception ex) {
             ex.printStackTrace();
@@ -715,14 +1857,19 @@ public class GenericScanner implements IJdbcScanner {
         return;
     }
 
-    public void createView(String dbName, String schema, String table, String desc, String ddl, String location) {
+    public synchronized void createView(String dbName, String schema, String table, String desc, String ddl,
+            String location) {
 
         String schId = dbName + "/" + schema;
         String tabId = schId + "/" + table;
 
         try {
             this.viewWriter.writeNext(new String[] { VIEW_TYPE, tabId, table, desc, ddl, location });
-            vwCount++;
+            vwCount.increment();
+            progress.done();
+            if (fingerprints != null) {
+                fingerprints.addTable(tabId, true);
+            }
             this.linksWriter.writeNext(new String[] { "com.infa.ldm.relational.SchemaView", schId, tabId });
         } catch (Exception ex) {
             ex.printStackTrace();
@@ -731,22 +1878,25 @@ public class GenericScanner implements IJdbcScanner {
         return;
     }
 
-    protected void createColumn(String dbName, String schema, String table, String column, String type, String length,
-            String pos, String desc, boolean isView) {
+    protected synchronized void createColumn(String dbName, String schema, String table, String column, String type,
+            String length, String pos, String desc, boolean isView) {
 
         String schId = dbName + "/" + schema;
         String tabId = schId + "/" + table;
         String colId = tabId + "/" + column;
 
         try {
+            if (fingerprints != null) {
+                fingerprints.addColumn(tabId, isView, column, type, length, pos, desc);
+            }
             if (!isView) {
                 this.columnWriter.writeNext(new String[] { COL_TYPE, colId, column, type, length, pos, tabId, desc });
-                colCount++;
+                colCount.increment();
                 this.linksWriter.writeNext(new String[] { "com.infa.ldm.relational.TableColumn", tabId, colId });
             } else {
                 this.viewColumnWriter
                         .writeNext(new String[] { VIEWCOL_TYPE, colId, column, type, length, pos, tabId, desc });
-                vwColCount++;
+                vwColCount.increment();
                 this.linksWriter.writeNext(new String[] { "com.infa.ldm.relational.ViewViewColumn", tabId, colId });
             }
 
@@ -757,8 +1907,20 @@ public class GenericScanner implements IJdbcScanner {
         return;
     }
 
-    protected void createViewColumn(String dbName, String schema, String table, String column, String type,
-            String length, String pos, String expression, String desc) {
+    /**
+     * write links (e.g. lineage) - all links for an object are written together
+     * (lineage can be extracted by parallel workers)
+     *
+     * @param links rows for the links file (association, from, to)
+     */
+    protected synchronized void writeLinks(List<String[]> links) {
+        for (String[] link : links) {
+            this.linksWriter.writeNext(link);
+        }
+    }
+
+    protected synchronized void createViewColumn(String dbName, String schema, String table, String column,
+            String type, String length, String pos, String expression, String desc) {
 
         String schId = dbName + "/" + schema;
         String tabId = schId + "/" + table;
@@ -767,7 +1929,7 @@ public class GenericScanner implements IJdbcScanner {
         try {
             this.viewColumnWriter.writeNext(
                     new String[] { VIEWCOL_TYPE, colId, column, type, length, pos, tabId, expression, desc });
-            vwColCount++;
+            vwColCount.increment();
             this.linksWriter.writeNext(new String[] { "com.infa.ldm.relational.ViewViewColumn", tabId, colId });
         } catch (Exception ex) {
             ex.printStackTrace();
@@ -785,6 +1947,44 @@ public class GenericScanner implements IJdbcScanner {
         return;
     }
 
+    /**
+     * read an integer property - returning the default value if not set or not a
+     * valid number
+     *
+     * @param prop         the properties read from the property file
+     * @param name         property name
+     * @param defaultValue value to use if not set
+     * @return the property value
+     */
+    protected static int getIntProperty(Properties prop, String name, int defaultValue) {
+        String value = prop.getProperty(name, "").trim();
+        if (value.equals("")) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            log.warn("invalid number for property " + name + "=" + value + " using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * read a decimal property - the default is used if not set or not a number
+     */
+    protected static double getDoubleProperty(Properties prop, String name, double defaultValue) {
+        String value = prop.getProperty(name, "").trim();
+        if (value.equals("")) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            log.warn("invalid number for property " + name + "=" + value + " using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
     /**
      * prompt the user for a password, using the console (default) for development
      * environments like eclipse, their is no standard console. so in that case we
@@ -803,7 +2003,7 @@ public class GenericScanner implements IJdbcScanner {
             password = JOptionPane.showConfirmDialog(null, pf, message, JOptionPane.OK_CANCEL_OPTION,
                     JOptionPane.QUESTION_MESSAGE) == JOptionPane.OK_OPTION ? new String(pf.getPassword())
                             : "enter your pwd here....";
-            System.out.println("pwd=" + password);
+            log.info("pwd=" + password);
         } else { // Outside Eclipse IDE (e.g. windows/linux console)
             password = new String(c.readPassword("User password: "));
         }
@@ -0,0 +1,72 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * H2 (embedded) database - INFORMATION_SCHEMA with REMARKS columns. used to
+ * test/benchmark the bulk extraction locally
+ *
+ * H2 1.4 has the type name in TYPE_NAME (DATA_TYPE is the jdbc type number),
+ * H2 2.x has the type name in DATA_TYPE. for 2.x the type name & size are the
+ * same as DatabaseMetaData.getColumns (DECIMAL, datetime display sizes, lob
+ * sizes limited to Integer.MAX_VALUE) - except for ARRAY, ENUM, INTERVAL, ROW &
+ * GEOMETRY columns
+ */
+public class H2Dialect extends InformationSchemaDialect {
+
+    @Override
+    public String getName() {
+        return "h2";
+    }
+
+    @Override
+    public boolean supports(String dbProductName) {
+        return "H2".equalsIgnoreCase(dbProductName);
+    }
+
+    @Override
+    protected String getRemarksColumn() {
+        return "REMARKS";
+    }
+
+    /**
+     * @return false for H2 1.4
+     */
+    protected boolean isVersion2(Connection connection) {
+        try {
+            return connection.getMetaData().getDatabaseMajorVersion() >= 2;
+        } catch (SQLException e) {
+            // assume the current version
+            return true;
+        }
+    }
+
+    @Override
+    protected String getTypeColumn(Connection connection) {
+        if (!isVersion2(connection)) {
+            return "TYPE_NAME";
+        }
+        // DECIMAL is stored as NUMERIC
+        return "CASE WHEN DECLARED_DATA_TYPE = 'DECIMAL' THEN DECLARED_DATA_TYPE ELSE DATA_TYPE END";
+    }
+
+    /**
+     * datetime types - the display size (e.g. 26 for TIMESTAMP(6))
+     */
+    @Override
+    protected String getSizeColumn(Connection connection) {
+        if (!isVersion2(connection)) {
+            return super.getSizeColumn(connection);
+        }
+        String fraction = " + CASE WHEN DATETIME_PRECISION > 0 THEN DATETIME_PRECISION + 1 ELSE 0 END";
+        return "COALESCE(LEAST(CHARACTER_MAXIMUM_LENGTH, 2147483647), NUMERIC_PRECISION, CASE DATA_TYPE"
+                + " WHEN 'DATE' THEN 10 WHEN 'TIME' THEN 8" + fraction + " WHEN 'TIME WITH TIME ZONE' THEN 14"
+                + fraction + " WHEN 'TIMESTAMP' THEN 19" + fraction + " WHEN 'TIMESTAMP WITH TIME ZONE' THEN 25"
+                + fraction + " WHEN 'BOOLEAN' THEN 1 WHEN 'UUID' THEN 16 END)";
+    }
+
+}
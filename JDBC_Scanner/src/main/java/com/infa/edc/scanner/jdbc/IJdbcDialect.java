@@ -0,0 +1,61 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import java.sql.Connection;
+import java.util.Collection;
+
+/**
+ * dbms specific metadata extraction - replaces the per table/view
+ * DatabaseMetaData calls (getTables/getViews/getColumnsForTable) with a few set
+ * based catalog queries per catalog (database)
+ *
+ * dialects are found using the database product name (see JdbcDialects). the
+ * generic DatabaseMetaData extraction is used if there is no dialect, or if the
+ * dialect cannot extract the catalog
+ */
+public interface IJdbcDialect {
+
+    /**
+     * @return name of the dialect - used for the metadata.dialect property
+     */
+    public String getName();
+
+    /**
+     * @param dbProductName from DatabaseMetaData.getDatabaseProductName()
+     * @return true if this dialect should be used for the database (when
+     *         metadata.dialect=auto)
+     */
+    public boolean supports(String dbProductName);
+
+    /**
+     * extract the schemas, tables, views & columns for a catalog - using
+     * scanner.createSchema/createTable/createView/createColumn
+     *
+     * @param scanner     the scanner (writes the objects & has the table filters)
+     * @param connection  the connection to use
+     * @param catalogName the catalog to extract
+     * @param schemaNames the (already filtered) schemas to extract
+     * @return false if nothing was extracted (the scanner will use the generic
+     *         extraction), true if the catalog was extracted. if the extraction
+     *         failed part way, the failure is reported using scanner.taskFailed()
+     *         (the catalog is not checkpointed & the scan is not completed)
+     */
+    public boolean extractCatalog(GenericScanner scanner, Connection connection, String catalogName,
+            Collection<String> schemaNames);
+
+    /**
+     * cheap estimate of the number of tables & views in the schemas - for the
+     * progress message (% complete & eta)
+     *
+     * @param scanner     the scanner (for the scan metrics)
+     * @param connection  the connection to use
+     * @param catalogName the catalog
+     * @param schemaNames the (already filtered) schemas
+     * @return the number of tables & views, or -1 if not known
+     */
+    public long countObjects(GenericScanner scanner, Connection connection, String catalogName,
+            Collection<String> schemaNames);
+
+}
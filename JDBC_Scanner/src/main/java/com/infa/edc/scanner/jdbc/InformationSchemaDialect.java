@@ -0,0 +1,572 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * bulk extraction using the (ansi standard) INFORMATION_SCHEMA views - 3
+ * queries per catalog (TABLES, VIEWS & COLUMNS), instead of a DatabaseMetaData
+ * call per schema/table
+ *
+ * not selected automatically (metadata.dialect=information_schema) - sub-classes
+ * adjust the queries for specific databases (e.g. the remarks/comment column)
+ */
+public class InformationSchemaDialect implements IJdbcDialect {
+    private static final ScanLogger log = ScanLogger.getLogger(InformationSchemaDialect.class);
+    // more schemas than this are filtered after the query (not with IN (...))
+    protected static final int MAX_SCHEMA_PARAMETERS = 100;
+
+    /**
+     * the conditions (& parameters) of a catalog query - the catalog & the
+     * schema/table filters
+     */
+    protected static class QueryFilter {
+        private final List<String> conditions = new ArrayList<String>();
+        private final List<String> parameters = new ArrayList<String>();
+
+        /**
+         * @param condition sql condition - with a ? for each value
+         * @param values    parameter values
+         */
+        public void add(String condition, Collection<String> values) {
+            conditions.add(condition);
+            parameters.addAll(values);
+        }
+
+        /**
+         * @return " WHERE a AND b" - or empty if there are no conditions
+         */
+        public String where() {
+            return conditions.isEmpty() ? "" : " WHERE " + and(conditions);
+        }
+
+        /**
+         * @return " AND a AND b" - for a query with a WHERE clause (or empty)
+         */
+        public String and() {
+            return conditions.isEmpty() ? "" : " AND " + and(conditions);
+        }
+
+        private static String and(List<String> conditions) {
+            StringBuilder sql = new StringBuilder();
+            for (String condition : conditions) {
+                sql.append(sql.length() == 0 ? "" : " AND ").append(condition);
+            }
+            return sql.toString();
+        }
+
+        public void setParameters(PreparedStatement stmt) throws SQLException {
+            for (int i = 0; i < parameters.size(); i++) {
+                stmt.setString(i + 1, parameters.get(i));
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "information_schema";
+    }
+
+    @Override
+    public boolean supports(String dbProductName) {
+        return false;
+    }
+
+    /**
+     * @param catalogName
+     * @return prefix for the information_schema views (e.g. db.INFORMATION_SCHEMA.)
+     */
+    protected String getInformationSchema(String catalogName) {
+        return "INFORMATION_SCHEMA.";
+    }
+
+    /**
+     * @return the column (or expression) with the description of a table/column
+     */
+    protected String getRemarksColumn() {
+        return "''";
+    }
+
+    /**
+     * @return the column (or expression) with the last altered (ddl) timestamp of
+     *         a table - NULL if not known (incremental scans will read all
+     *         columns)
+     */
+    protected String getLastAlteredColumn() {
+        return "NULL";
+    }
+
+    /**
+     * @param connection
+     * @return the column (or expression) with the datatype name of a column
+     */
+    protected String getTypeColumn(Connection connection) {
+        return "DATA_TYPE";
+    }
+
+    /**
+     * @param connection
+     * @return the column (or expression) with the size of a column (length or
+     *         precision)
+     */
+    protected String getSizeColumn(Connection connection) {
+        return "COALESCE(CHARACTER_MAXIMUM_LENGTH, NUMERIC_PRECISION)";
+    }
+
+    /**
+     * @return condition for the catalog (with a ? parameter) - or empty if the
+     *         catalog is not used
+     */
+    protected String getCatalogCondition(String catalogName) {
+        if (catalogName == null || catalogName.equals("")) {
+            return "";
+        }
+        return "TABLE_CATALOG = ?";
+    }
+
+    /**
+     * @return the column with the schema name (in the catalog queries)
+     */
+    protected String getSchemaColumn() {
+        return "TABLE_SCHEMA";
+    }
+
+    /**
+     * @return the column with the table/view name (in the catalog queries)
+     */
+    protected String getTableColumn() {
+        return "TABLE_NAME";
+    }
+
+    /**
+     * @param pattern upper case LIKE pattern (from ObjectFilter.getLikePatterns)
+     * @return the pattern - with any characters the database treats as wildcards
+     *         (other than % and _) escaped
+     */
+    protected String escapeLikePattern(String pattern) {
+        return pattern;
+    }
+
+    /**
+     * @return the catalog condition only
+     */
+    protected QueryFilter getCatalogFilter(String catalogName) {
+        QueryFilter filter = new QueryFilter();
+        String condition = getCatalogCondition(catalogName);
+        if (!condition.equals("")) {
+            filter.add(condition, Collections.singletonList(catalogName));
+        }
+        return filter;
+    }
+
+    /**
+     * the catalog condition & the schema/table filters - so the database only
+     * returns the objects for the schemas being scanned (the tables setting is
+     * pushed down as UPPER(name) LIKE patterns). rows returned are still checked
+     * by the scanner filters
+     *
+     * @param schemaNames the schemas being scanned
+     */
+    protected QueryFilter getFilter(GenericScanner scanner, String catalogName, Collection<String> schemaNames) {
+        QueryFilter filter = getCatalogFilter(catalogName);
+        if (!schemaNames.isEmpty() && schemaNames.size() <= MAX_SCHEMA_PARAMETERS) {
+            filter.add(getSchemaColumn() + " IN (" + placeholders(schemaNames.size()) + ")", schemaNames);
+        }
+        List<String> patterns = new ArrayList<String>();
+        for (String pattern : scanner.tableFilter.getLikePatterns()) {
+            patterns.add(escapeLikePattern(pattern));
+        }
+        if (!patterns.isEmpty()) {
+            StringBuilder condition = new StringBuilder();
+            for (int i = 0; i < patterns.size(); i++) {
+                condition.append(i == 0 ? "(" : " OR ").append("UPPER(").append(getTableColumn()).append(") LIKE ?");
+            }
+            filter.add(condition.append(")").toString(), patterns);
+        }
+        return filter;
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder sql = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.toString();
+    }
+
+    protected String getTablesQuery(Connection connection, String catalogName, QueryFilter filter) {
+        return "SELECT TABLE_SCHEMA, TABLE_NAME, TABLE_TYPE, " + getRemarksColumn() + " AS REMARKS, "
+                + getLastAlteredColumn() + " AS LAST_ALTERED FROM " + getInformationSchema(catalogName) + "TABLES"
+                + filter.where() + " ORDER BY TABLE_SCHEMA, TABLE_NAME";
+    }
+
+    protected String getViewsQuery(Connection connection, String catalogName, QueryFilter filter) {
+        return "SELECT TABLE_SCHEMA, TABLE_NAME, VIEW_DEFINITION FROM " + getInformationSchema(catalogName)
+                + "VIEWS" + filter.where();
+    }
+
+    protected String getColumnsQuery(Connection connection, String catalogName, QueryFilter filter) {
+        return "SELECT TABLE_SCHEMA, TABLE_NAME, COLUMN_NAME, " + getTypeColumn(connection)
+                + " AS TYPE_NAME, " + getSizeColumn(connection) + " AS COLUMN_SIZE, "
+                + "ORDINAL_POSITION, " + getRemarksColumn() + " AS REMARKS FROM " + getInformationSchema(catalogName)
+                + "COLUMNS" + filter.where() + " ORDER BY TABLE_SCHEMA, TABLE_NAME, ORDINAL_POSITION";
+    }
+
+    /**
+     * @return the tables/views to count (TABLE_SCHEMA, TABLE_NAME, TABLE_TYPE) -
+     *         the rows are checked like the tables query (type & exclude filters)
+     */
+    protected String getCountQuery(Connection connection, String catalogName, QueryFilter filter) {
+        return "SELECT TABLE_SCHEMA, TABLE_NAME, TABLE_TYPE FROM " + getInformationSchema(catalogName) + "TABLES"
+                + filter.where();
+    }
+
+    /**
+     * prepare a catalog query - using the scanner prepareStatement (forward only,
+     * so the rows are streamed) & getFetchSize()
+     */
+    protected PreparedStatement prepareStatement(GenericScanner scanner, Connection connection, String sql)
+            throws SQLException {
+        PreparedStatement stmt = scanner.prepareStatement(connection, sql);
+        int fetchSize = getFetchSize(scanner);
+        if (fetchSize > 0 && fetchSize != scanner.fetchSize) {
+            stmt.setFetchSize(fetchSize);
+        }
+        return stmt;
+    }
+
+    /**
+     * run a catalog query (using the scanner throttle) & record it in the scan
+     * metrics (call type = &lt;dialect&gt;.&lt;query&gt;)
+     *
+     * @param filter the query parameters
+     * @param object the catalog/schema read (for the metrics)
+     */
+    protected ResultSet executeQuery(GenericScanner scanner, String query, Connection connection, String sql,
+            QueryFilter filter, String object) throws SQLException {
+        PreparedStatement stmt = prepareStatement(scanner, connection, sql);
+        try {
+            filter.setParameters(stmt);
+            return scanner.executeQuery(getName() + "." + query, object, stmt);
+        } catch (SQLException e) {
+            // the statement is only closed by close(rs) - there is no result set
+            GenericScanner.closeQuietly(stmt);
+            throw e;
+        }
+    }
+
+    /**
+     * @return fetch size for the catalog queries - the scanner fetchSize setting
+     *         (0 = driver default)
+     */
+    protected int getFetchSize(GenericScanner scanner) {
+        return scanner.fetchSize;
+    }
+
+    /**
+     * @return the largest fetch size - if more than getFetchSize(), the fetch size
+     *         is doubled each time a full fetch of rows has been read
+     */
+    protected int getMaxFetchSize(GenericScanner scanner) {
+        return getFetchSize(scanner);
+    }
+
+    /**
+     * move to the next row - growing the fetch size while rows keep coming (the
+     * first rows are returned quickly, large results use fewer round trips)
+     *
+     * @param scanner  the scanner (fetchSize setting)
+     * @param rs       the result set
+     * @param rowsRead rows already read from the result set
+     */
+    protected boolean next(GenericScanner scanner, ResultSet rs, int rowsRead) throws SQLException {
+        int maxFetchSize = getMaxFetchSize(scanner);
+        if (rowsRead > 0 && maxFetchSize > getFetchSize(scanner)) {
+            int fetchSize = rs.getFetchSize();
+            if (fetchSize > 0 && fetchSize < maxFetchSize && rowsRead % fetchSize == 0) {
+                rs.setFetchSize(Math.min(fetchSize * 2, maxFetchSize));
+            }
+        }
+        return rs.next();
+    }
+
+    protected void close(ResultSet rs) {
+        if (rs == null) {
+            return;
+        }
+        try {
+            // close the result set first - it holds the throttle permit
+            Statement stmt = rs.getStatement();
+            rs.close();
+            stmt.close();
+        } catch (SQLException e) {
+            // ignore
+        }
+    }
+
+    /**
+     * information_schema uses "BASE TABLE" - DatabaseMetaData (& tableTypes=) uses
+     * "TABLE"
+     */
+    protected String normalizeTableType(String tableType) {
+        if (tableType == null) {
+            return "";
+        }
+        if (tableType.equalsIgnoreCase("BASE TABLE")) {
+            return "TABLE";
+        }
+        return tableType.toUpperCase();
+    }
+
+    /**
+     * @return true if the table type is in the scanner tableTypes setting
+     */
+    protected boolean isTypeExtracted(GenericScanner scanner, String tableType) {
+        for (String type : scanner.tableTypes) {
+            if (type.equalsIgnoreCase(tableType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if a row of the tables (or count) query is extracted - the
+     *         schema is scanned, the table is not filtered & the type is extracted
+     */
+    protected boolean isExtracted(GenericScanner scanner, Set<String> schemas, String schemaName,
+            String tableName, String tableType) {
+        return schemas.contains(schemaName) && scanner.isTableScanned(tableName)
+                && isTypeExtracted(scanner, tableType);
+    }
+
+    @Override
+    public long countObjects(GenericScanner scanner, Connection connection, String catalogName,
+            Collection<String> schemaNames) {
+        Set<String> schemas = new HashSet<String>(schemaNames);
+        long count = 0;
+        ResultSet rs = null;
+        int rows = 0;
+        try {
+            QueryFilter filter = getFilter(scanner, catalogName, schemaNames);
+            rs = executeQuery(scanner, "count", connection, getCountQuery(connection, catalogName, filter), filter,
+                    catalogName);
+            while (next(scanner, rs, rows++)) {
+                if (isExtracted(scanner, schemas, rs.getString("TABLE_SCHEMA"), rs.getString("TABLE_NAME"),
+                        normalizeTableType(rs.getString("TABLE_TYPE")))) {
+                    count++;
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("\t" + getName() + ": unable to count the objects in catalog " + catalogName + " "
+                    + e.getMessage());
+            return -1;
+        } finally {
+            close(rs);
+        }
+        return count;
+    }
+
+    @Override
+    public boolean extractCatalog(GenericScanner scanner, Connection connection, String catalogName,
+            Collection<String> schemaNames) {
+        Set<String> schemas = new HashSet<String>(schemaNames);
+        QueryFilter filter = getFilter(scanner, catalogName, schemaNames);
+
+        // view definitions (schema > view > ddl) - read first, so the ddl can be
+        // written with the view
+        Map<String, Map<String, String>> viewDefinitions = new HashMap<String, Map<String, String>>();
+        ResultSet rs = null;
+        int rows = 0;
+        try {
+            rs = executeQuery(scanner, "views", connection, getViewsQuery(connection, catalogName, filter), filter,
+                    catalogName);
+            while (next(scanner, rs, rows++)) {
+                String schemaName = rs.getString("TABLE_SCHEMA");
+                if (!schemas.contains(schemaName)) {
+                    continue;
+                }
+                Map<String, String> views = viewDefinitions.get(schemaName);
+                if (views == null) {
+                    views = new HashMap<String, String>();
+                    viewDefinitions.put(schemaName, views);
+                }
+                views.put(rs.getString("TABLE_NAME"), rs.getString("VIEW_DEFINITION"));
+            }
+        } catch (SQLException e) {
+            log.warn("\t" + getName() + ": error reading views for catalog " + catalogName + " "
+                    + e.getMessage());
+            return false;
+        } finally {
+            close(rs);
+        }
+
+        // tables & views - schema > table > isView
+        Map<String, Map<String, Boolean>> extracted = new HashMap<String, Map<String, Boolean>>();
+        int tableCount = 0;
+        int viewCount = 0;
+        int unchangedCount = 0;
+        rs = null;
+        try {
+            rs = executeQuery(scanner, "tables", connection, getTablesQuery(connection, catalogName, filter), filter,
+                    catalogName);
+
+            // the query worked - so the schemas can be created
+            for (String schemaName : schemaNames) {
+                scanner.createSchema(catalogName, schemaName);
+                extracted.put(schemaName, new HashMap<String, Boolean>());
+            }
+
+            rows = 0;
+            while (next(scanner, rs, rows++)) {
+                String schemaName = rs.getString("TABLE_SCHEMA");
+                String tableName = rs.getString("TABLE_NAME");
+                String tableType = normalizeTableType(rs.getString("TABLE_TYPE"));
+                if (!isExtracted(scanner, schemas, schemaName, tableName, tableType)) {
+                    continue;
+                }
+
+                boolean isView = scanner.isViewType(tableType);
+                // incremental scan - the columns of unchanged tables are not read
+                boolean unchanged = scanner.isTableUnchanged(catalogName, schemaName, tableName, isView,
+                        rs.getString("LAST_ALTERED"));
+                if (unchanged) {
+                    unchangedCount++;
+                }
+                if (isView) {
+                    viewCount++;
+                    Map<String, String> views = viewDefinitions.get(schemaName);
+                    String ddl = views == null ? null : views.get(tableName);
+                    scanner.createView(catalogName, schemaName, tableName, rs.getString("REMARKS"),
+                            ddl == null ? "" : ddl, "");
+                } else {
+                    tableCount++;
+                    scanner.createTable(catalogName, schemaName, tableName, rs.getString("REMARKS"));
+                }
+                if (!unchanged) {
+                    extracted.get(schemaName).put(tableName, isView);
+                }
+            }
+        } catch (SQLException e) {
+            if (extracted.isEmpty()) {
+                // nothing was written - the generic extraction is used
+                log.warn("\t" + getName() + ": error reading tables for catalog " + catalogName + " "
+                        + e.getMessage());
+                return false;
+            }
+            // the schemas (& some tables) were written - the catalog is incomplete
+            scanner.taskFailed("tables for catalog: " + catalogName + " (dialect " + getName() + ")", e);
+        } finally {
+            close(rs);
+        }
+        viewDefinitions.clear();
+        log.info("\tTables extracted: " + tableCount + " Views extracted: " + viewCount
+                + (unchangedCount > 0 ? " (unchanged: " + unchangedCount + ")" : ""));
+
+        // columns for all (new/changed) tables & views in the catalog
+        int colCount = 0;
+        try {
+            if (tableCount + viewCount > unchangedCount) {
+                colCount = extractColumns(scanner, connection, catalogName, extracted);
+            }
+        } catch (SQLException e) {
+            scanner.taskFailed("columns for catalog: " + catalogName + " (dialect " + getName() + ")", e);
+        }
+        log.info("\tColumns extracted: " + colCount);
+
+        return true;
+    }
+
+    /**
+     * extract the columns for the tables & views that were extracted
+     *
+     * @param extracted schema > table > isView
+     * @return number of columns
+     * @throws SQLException
+     */
+    protected int extractColumns(GenericScanner scanner, Connection connection, String catalogName,
+            Map<String, Map<String, Boolean>> extracted) throws SQLException {
+        QueryFilter filter = getFilter(scanner, catalogName, extracted.keySet());
+        ResultSet rs = null;
+        try {
+            rs = executeQuery(scanner, "columns", connection, getColumnsQuery(connection, catalogName, filter), filter,
+                    catalogName);
+            return writeColumns(scanner, rs, catalogName, extracted);
+        } finally {
+            close(rs);
+        }
+    }
+
+    /**
+     * @param rs columns query result
+     * @return the datatype name of the current column
+     */
+    protected String getTypeName(ResultSet rs) throws SQLException {
+        return rs.getString("TYPE_NAME");
+    }
+
+    /**
+     * @param rs columns query result
+     * @return the size (length or precision) of the current column
+     */
+    protected String getColumnSize(ResultSet rs) throws SQLException {
+        return rs.getString("COLUMN_SIZE");
+    }
+
+    /**
+     * write the columns from a columns query result (skipping columns for tables
+     * that were not extracted). rows are ordered by table, so the time between the
+     * first & last column of a table is recorded for the slowest objects report
+     */
+    protected int writeColumns(GenericScanner scanner, ResultSet rs, String catalogName,
+            Map<String, Map<String, Boolean>> extracted) throws SQLException {
+        int colCount = 0;
+        int rows = 0;
+        String lastTable = null;
+        long tableStarted = System.nanoTime();
+        int tableColumns = 0;
+        while (next(scanner, rs, rows++)) {
+            String schemaName = rs.getString("TABLE_SCHEMA");
+            String tableName = rs.getString("TABLE_NAME");
+            Map<String, Boolean> tables = extracted.get(schemaName);
+            Boolean isView = tables == null ? null : tables.get(tableName);
+            if (isView == null) {
+                // filtered out (or another table type)
+                continue;
+            }
+            String table = GenericScanner.objectName(catalogName, schemaName, tableName);
+            if (!table.equals(lastTable)) {
+                if (lastTable != null) {
+                    scanner.getMetrics().recordObject(lastTable, ScanMetrics.OBJ_COLUMNS, tableStarted, tableColumns);
+                }
+                lastTable = table;
+                tableStarted = System.nanoTime();
+                tableColumns = 0;
+            }
+            tableColumns++;
+            colCount++;
+            scanner.createColumn(catalogName, schemaName, tableName, rs.getString("COLUMN_NAME"),
+                    getTypeName(rs), getColumnSize(rs), rs.getString("ORDINAL_POSITION"), rs.getString("REMARKS"),
+                    isView);
+        }
+        if (lastTable != null) {
+            scanner.getMetrics().recordObject(lastTable, ScanMetrics.OBJ_COLUMNS, tableStarted, tableColumns);
+        }
+        return colCount;
+    }
+
+}
@@ -0,0 +1,80 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * registry of the known dialects - the metadata.dialect property selects the
+ * dialect to use:-
+ * <ul>
+ * <li>auto - (default) the first dialect that supports the database product
+ * name</li>
+ * <li>generic - no dialect, DatabaseMetaData calls only</li>
+ * <li>name of a dialect - e.g. information_schema</li>
+ * <li>full class name of a dialect (implementing IJdbcDialect) - loaded from
+ * the classpath</li>
+ * </ul>
+ */
+public class JdbcDialects {
+    private static final ScanLogger log = ScanLogger.getLogger(JdbcDialects.class);
+    public static final String AUTO = "auto";
+    public static final String GENERIC = "generic";
+
+    private static final List<IJdbcDialect> dialects = new ArrayList<IJdbcDialect>();
+
+    static {
+        register(new H2Dialect());
+        register(new SnowflakeDialect());
+        register(new SqlServerDialect());
+        register(new InformationSchemaDialect());
+    }
+
+    /**
+     * add a dialect - dialects registered later take precedence (for auto)
+     *
+     * @param dialect
+     */
+    public static synchronized void register(IJdbcDialect dialect) {
+        dialects.add(0, dialect);
+    }
+
+    /**
+     * find the dialect to use
+     *
+     * @param setting       value of the metadata.dialect property
+     * @param dbProductName from DatabaseMetaData.getDatabaseProductName()
+     * @return the dialect, or null to use the generic extraction
+     */
+    public static synchronized IJdbcDialect find(String setting, String dbProductName) {
+        if (setting == null || setting.equals("") || setting.equalsIgnoreCase(AUTO)) {
+            for (IJdbcDialect dialect : dialects) {
+                if (dialect.supports(dbProductName)) {
+                    return dialect;
+                }
+            }
+            return null;
+        }
+        if (setting.equalsIgnoreCase(GENERIC)) {
+            return null;
+        }
+
+        for (IJdbcDialect dialect : dialects) {
+            if (dialect.getName().equalsIgnoreCase(setting)) {
+                return dialect;
+            }
+        }
+
+        // not a known name - try a class name
+        try {
+            return (IJdbcDialect) Class.forName(setting).getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            log.warn("\tunknown metadata.dialect: " + setting + " (" + e.getMessage()
+                    + ") - using generic extraction");
+        }
+        return null;
+    }
+
+}
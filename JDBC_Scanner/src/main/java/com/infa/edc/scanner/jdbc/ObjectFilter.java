@@ -0,0 +1,212 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * include/exclude filter for schema or table names - compiled once when the
+ * property file is read
+ *
+ * filters are comma seperated lists of names, with wildcards:-
+ * <ul>
+ * <li>* or % - any number of characters</li>
+ * <li>? - a single character</li>
+ * </ul>
+ * names are compared case-insensitive. exclude takes precedence over include,
+ * an empty include list includes everything
+ *
+ * include entries can also be converted to jdbc LIKE patterns - so the
+ * database can filter the objects (DatabaseMetaData.getSchemas/getTables).
+ * since _ is a LIKE wildcard, the database may return more than was asked for -
+ * so isIncluded() should still be called for each object returned. an entry is
+ * only pushed down if the database can't return less than isIncluded() accepts
+ * (see getSearchPatterns) - so the objects scanned are the same with or without
+ * filter.pushdown
+ */
+public class ObjectFilter {
+    /**
+     * search pattern list used when there is nothing to push down (null pattern =
+     * all objects)
+     */
+    public static final List<String> ALL = Collections.singletonList(null);
+
+    private final List<String> includes = new ArrayList<String>();
+    private final List<String> excludes = new ArrayList<String>();
+    private final List<Pattern> includeRegex = new ArrayList<Pattern>();
+    private final List<Pattern> excludeRegex = new ArrayList<Pattern>();
+
+    /**
+     * @param includeList comma seperated list of names to include (empty or null =
+     *                    all)
+     * @param excludeList comma seperated list of names to exclude (empty or null =
+     *                    none)
+     */
+    public ObjectFilter(String includeList, String excludeList) {
+        parse(includeList, includes, includeRegex);
+        parse(excludeList, excludes, excludeRegex);
+    }
+
+    private static void parse(String filterList, List<String> entries, List<Pattern> regexes) {
+        if (filterList == null) {
+            return;
+        }
+        for (String entry : filterList.split(",")) {
+            entry = entry.trim();
+            if (entry.equals("")) {
+                continue;
+            }
+            entries.add(entry);
+            regexes.add(Pattern.compile(toRegex(entry), Pattern.CASE_INSENSITIVE));
+        }
+    }
+
+    /**
+     * convert a filter entry to a regular expression (everything except wildcards
+     * is quoted)
+     */
+    private static String toRegex(String entry) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : entry.toCharArray()) {
+            if (c == '*' || c == '%' || c == '?') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '?' ? "." : ".*");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return regex.toString();
+    }
+
+    /**
+     * @return true if there are any include entries
+     */
+    public boolean hasIncludes() {
+        return !includes.isEmpty();
+    }
+
+    /**
+     * @param name schema or table name
+     * @return true if the name is not excluded and is included (or there is no
+     *         include filter)
+     */
+    public boolean isIncluded(String name) {
+        if (name == null) {
+            return true;
+        }
+        for (Pattern regex : excludeRegex) {
+            if (regex.matcher(name).matches()) {
+                return false;
+            }
+        }
+        if (includeRegex.isEmpty()) {
+            return true;
+        }
+        for (Pattern regex : includeRegex) {
+            if (regex.matcher(name).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * jdbc LIKE patterns for the include entries - 1 metadata call is needed per
+     * pattern. the database compares the pattern case-sensitive, but isIncluded()
+     * does not - so an entry with letters is only pushed down if the database
+     * ignores the case, or stores all identifiers (quoted or not) in the same case
+     * as the entry. e.g. SALES* on a database that stores quoted mixed case
+     * identifiers would not return "Sales_2020" - ALL is returned & only
+     * isIncluded() is used
+     *
+     * @param dbMetaData used to find how identifiers are stored (upper/lower case)
+     * @return list of patterns, or ALL if there are no includes (or an entry can't
+     *         be pushed down)
+     */
+    public List<String> getSearchPatterns(DatabaseMetaData dbMetaData) {
+        if (includes.isEmpty()) {
+            return ALL;
+        }
+        boolean upper = false;
+        boolean lower = false;
+        boolean ignoreCase = false;
+        try {
+            // quoted identifiers are stored in the same case as un-quoted ones
+            upper = dbMetaData.storesUpperCaseIdentifiers() && dbMetaData.storesUpperCaseQuotedIdentifiers();
+            lower = dbMetaData.storesLowerCaseIdentifiers() && dbMetaData.storesLowerCaseQuotedIdentifiers();
+            ignoreCase = !dbMetaData.supportsMixedCaseIdentifiers()
+                    && !dbMetaData.supportsMixedCaseQuotedIdentifiers();
+        } catch (SQLException e) {
+            // unknown - only entries without letters are pushed down
+        }
+
+        List<String> patterns = new ArrayList<String>();
+        for (String entry : includes) {
+            String pattern = entry.replace('*', '%').replace('?', '_');
+            boolean storedCase;
+            if (ignoreCase) {
+                storedCase = true;
+            } else if (upper) {
+                storedCase = pattern.equals(pattern.toUpperCase());
+            } else if (lower) {
+                storedCase = pattern.equals(pattern.toLowerCase());
+            } else {
+                // a quoted identifier can be in any case - only entries without letters
+                storedCase = pattern.equals(pattern.toUpperCase()) && pattern.equals(pattern.toLowerCase());
+            }
+            if (!storedCase) {
+                // e.g. SALES* - could also match a quoted "Sales_2020"
+                return ALL;
+            }
+            if (!patterns.contains(pattern)) {
+                patterns.add(pattern);
+            }
+        }
+        return patterns;
+    }
+
+    /**
+     * include entries as LIKE patterns for the upper case name (e.g.
+     * UPPER(TABLE_NAME) LIKE ?) - used by the dialects to filter the catalog
+     * queries. the database may return more than was asked for (_ is a wildcard),
+     * so isIncluded() should still be called for each name
+     *
+     * @return upper case patterns - empty if there are no includes (or an entry has
+     *         letters the database may upper case differently)
+     */
+    public List<String> getLikePatterns() {
+        List<String> patterns = new ArrayList<String>();
+        for (String entry : includes) {
+            for (char c : entry.toCharArray()) {
+                if (c > 127) {
+                    return Collections.emptyList();
+                }
+            }
+            String pattern = entry.replace('*', '%').replace('?', '_').toUpperCase(Locale.ROOT);
+            if (!patterns.contains(pattern)) {
+                patterns.add(pattern);
+            }
+        }
+        return patterns;
+    }
+
+    @Override
+    public String toString() {
+        return "include=" + includes + " exclude=" + excludes;
+    }
+
+}
@@ -0,0 +1,253 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * checkpoint journal for long running scans (checkpoint=true)
+ *
+ * each time a step is finished (database created, schema or catalog
+ * extracted), the output files are synced & a line is appended to the journal
+ * with the step & the size of each output file. if the scan fails, the next run
+ * with the same property file resumes:- finished steps are skipped & each output
+ * file is truncated to the size recorded at the last checkpoint (so rows written
+ * by an incomplete schema are removed)
+ *
+ * the journal is deleted when the scan completes. it is ignored (& the scan
+ * starts over) if the property file was changed, or an output file is missing
+ * or shorter than its recorded size
+ *
+ * journal format (tab seperated):-
+ *
+ * <pre>
+ * signature &lt;scanner class&gt; &lt;crc of property file&gt;
+ * done &lt;step&gt; &lt;file&gt;=&lt;size&gt;|&lt;file&gt;=&lt;size&gt;...
+ * </pre>
+ */
+public class ScanCheckpoint {
+    private static final ScanLogger log = ScanLogger.getLogger(ScanCheckpoint.class);
+    private final String fileName;
+    private final String signature;
+    private final Set<String> completed = new HashSet<String>();
+    private Map<String, Long> fileSizes = new LinkedHashMap<String, Long>();
+    private boolean resumed = false;
+
+    /**
+     * @param fileName     the journal file
+     * @param scannerClass scanner class name
+     * @param propertyFile the property file used for the scan
+     */
+    public ScanCheckpoint(String fileName, String scannerClass, String propertyFile) {
+        this.fileName = fileName;
+        this.signature = scannerClass + "\t" + checksum(propertyFile);
+    }
+
+    /**
+     * crc32 of a file (hex) - empty if it can't be read
+     */
+    protected static String checksum(String file) {
+        CRC32 crc = new CRC32();
+        byte[] bytes = new byte[8192];
+        try {
+            InputStream in = new FileInputStream(file);
+            try {
+                int length;
+                while ((length = in.read(bytes)) >= 0) {
+                    crc.update(bytes, 0, length);
+                }
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return "";
+        }
+        return Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * read the journal of an interrupted scan (if there is one), otherwise start a
+     * new journal
+     *
+     * @return true if the scan is resumed
+     */
+    public synchronized boolean open() {
+        completed.clear();
+        fileSizes.clear();
+        resumed = false;
+        File file = new File(fileName);
+        if (file.exists()) {
+            try {
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+                try {
+                    String line = reader.readLine();
+                    if (line != null && line.equals("signature\t" + signature)) {
+                        while ((line = reader.readLine()) != null) {
+                            String[] parts = line.split("\t", -1);
+                            if (parts.length < 3 || !parts[0].equals("done")) {
+                                // incomplete line (failed while writing) - ignored
+                                continue;
+                            }
+                            Map<String, Long> sizes = parseSizes(parts[2]);
+                            if (sizes != null) {
+                                completed.add(parts[1]);
+                                fileSizes = sizes;
+                            }
+                        }
+                        resumed = !completed.isEmpty();
+                    } else {
+                        log.info("\tcheckpoint: " + fileName
+                                + " is for a different scanner or property file - starting a new scan");
+                    }
+                } finally {
+                    reader.close();
+                }
+            } catch (IOException e) {
+                log.warn("\terror reading checkpoint: " + fileName + " - starting a new scan");
+                e.printStackTrace();
+                completed.clear();
+                fileSizes.clear();
+                resumed = false;
+            }
+        }
+
+        if (resumed) {
+            log.info("\tresuming scan from checkpoint: " + fileName + " steps completed=" + completed.size());
+            return true;
+        }
+
+        // new scan - new journal
+        try {
+            write("signature\t" + signature, false);
+        } catch (IOException e) {
+            log.error("\terror creating checkpoint: " + fileName + " " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * the output files of the interrupted scan can't be resumed - forget the
+     * steps done & start a new journal
+     */
+    public synchronized void restart() {
+        completed.clear();
+        fileSizes.clear();
+        resumed = false;
+        log.warn("\tcheckpoint: " + fileName + " discarded - starting a new scan");
+        try {
+            write("signature\t" + signature, false);
+        } catch (IOException e) {
+            log.error("\terror creating checkpoint: " + fileName + " " + e.getMessage());
+        }
+    }
+
+    private static Map<String, Long> parseSizes(String text) {
+        Map<String, Long> sizes = new LinkedHashMap<String, Long>();
+        if (text.equals("")) {
+            return sizes;
+        }
+        for (String entry : text.split("\\|")) {
+            int pos = entry.lastIndexOf('=');
+            if (pos < 1) {
+                return null;
+            }
+            try {
+                sizes.put(entry.substring(0, pos), Long.parseLong(entry.substring(pos + 1)));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * @return true if the scan was resumed from a checkpoint
+     */
+    public synchronized boolean isResumed() {
+        return resumed;
+    }
+
+    /**
+     * @return output file sizes at the last checkpoint (empty for a new scan)
+     */
+    public synchronized Map<String, Long> getFileSizes() {
+        return new LinkedHashMap<String, Long>(fileSizes);
+    }
+
+    /**
+     * @param step e.g. schema/<catalog>/<schema>
+     * @return true if the step was completed by the interrupted scan
+     */
+    public synchronized boolean isDone(String step) {
+        return completed.contains(step);
+    }
+
+    /**
+     * @return the steps completed by the interrupted scan
+     */
+    public synchronized Set<String> getCompleted() {
+        return new HashSet<String>(completed);
+    }
+
+    /**
+     * record a completed step - the output files must be synced to disk first
+     *
+     * @param step      e.g. schema/<catalog>/<schema>
+     * @param fileSizes size of each output file
+     */
+    public synchronized void record(String step, Map<String, Long> fileSizes) {
+        StringBuilder sizes = new StringBuilder();
+        for (Map.Entry<String, Long> size : fileSizes.entrySet()) {
+            if (sizes.length() > 0) {
+                sizes.append('|');
+            }
+            sizes.append(size.getKey()).append('=').append(size.getValue());
+        }
+        try {
+            write("done\t" + step + "\t" + sizes, true);
+            completed.add(step);
+            this.fileSizes = new LinkedHashMap<String, Long>(fileSizes);
+        } catch (IOException e) {
+            log.error("\terror writing checkpoint: " + fileName + " " + e.getMessage());
+        }
+    }
+
+    /**
+     * write a line to the journal - synced to disk, so the line is there if the
+     * process is killed
+     */
+    private void write(String line, boolean append) throws IOException {
+        FileOutputStream out = new FileOutputStream(fileName, append);
+        try {
+            out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * the scan completed - remove the journal
+     */
+    public synchronized void delete() {
+        File file = new File(fileName);
+        if (file.exists() && !file.delete()) {
+            log.warn("\tunable to delete checkpoint: " + fileName);
+        }
+    }
+
+}
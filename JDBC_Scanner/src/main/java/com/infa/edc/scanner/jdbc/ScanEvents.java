@@ -0,0 +1,196 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JDK Flight Recorder (jfr) events for the scanner - start the scanner with
+ * -XX:StartFlightRecording=filename=scan.jfr and open the recording in jdk
+ * mission control (event browser - EDC Scanner)
+ * <ul>
+ * <li>ScanMetadataCall - 1 per metadata call/query: call type, object, rows,
+ * time waiting for the query to execute. the event lasts until the result set
+ * is read</li>
+ * <li>ScanOutputBatch - 1 per OUTPUT_BATCH_ROWS rows written to a csv file</li>
+ * <li>ScanParse - parsing vql (wrappers, datasources)</li>
+ * </ul>
+ * events are only created when a recording is running (jdk 8u262+ or 11+) -
+ * when jfr is not available or not recording, the factory methods return null
+ * (nothing else is done). the event classes are only loaded when jfr is
+ * available
+ */
+public final class ScanEvents {
+    public static final int OUTPUT_BATCH_ROWS = 1000;
+
+    private static final boolean AVAILABLE = isAvailable();
+
+    private ScanEvents() {
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+
+    @Name("com.infa.edc.scanner.ScanMetadataCall")
+    @Label("Scan Metadata Call")
+    @Description("metadata call or query - lasts until the result set is read")
+    @Category("EDC Scanner")
+    @StackTrace(false)
+    public static class MetadataCall extends Event {
+        @Label("Call")
+        String call;
+
+        @Label("Object")
+        String object;
+
+        @Label("Rows")
+        long rows;
+
+        @Label("Execute Time")
+        @Description("time waiting for the call/query to return (before any rows are read)")
+        @Timespan(Timespan.NANOSECONDS)
+        long executeTime;
+
+        /**
+         * count a row read from the result set
+         */
+        public void row() {
+            rows++;
+        }
+
+        /**
+         * end & commit the event (the result set was read or closed)
+         */
+        public void finish() {
+            commit();
+        }
+    }
+
+    @Name("com.infa.edc.scanner.ScanOutputBatch")
+    @Label("Scan Output Batch")
+    @Description("rows written to a csv file")
+    @Category("EDC Scanner")
+    @StackTrace(false)
+    public static class OutputBatch extends Event {
+        @Label("File")
+        String file;
+
+        @Label("Rows")
+        long rows;
+
+        /**
+         * end & commit the event
+         *
+         * @param rowCount rows written in the batch
+         */
+        public void finish(long rowCount) {
+            rows = rowCount;
+            commit();
+        }
+    }
+
+    @Name("com.infa.edc.scanner.ScanParse")
+    @Label("Scan Parse")
+    @Description("parsing vql (wrapper, datasource)")
+    @Category("EDC Scanner")
+    @StackTrace(false)
+    public static class Parse extends Event {
+        @Label("Type")
+        String type;
+
+        @Label("Object")
+        String object;
+
+        @Label("Length")
+        @Description("characters parsed")
+        long length;
+
+        /**
+         * end & commit the event
+         *
+         * @param objectName the object that was parsed (known after parsing)
+         */
+        public void finish(String objectName) {
+            object = objectName;
+            commit();
+        }
+    }
+
+    /**
+     * start a metadata call event - after the call returned. the time waiting for
+     * the call is stored in executeTime
+     *
+     * @param call         the call type (e.g. getTables)
+     * @param object       the object the call is for (or null)
+     * @param startedNanos System.nanoTime() before the call
+     * @return the event - or null if not recording
+     */
+    public static MetadataCall metadataCall(String call, String object, long startedNanos) {
+        if (!AVAILABLE) {
+            return null;
+        }
+        MetadataCall event = new MetadataCall();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        event.call = call;
+        event.object = object;
+        event.executeTime = System.nanoTime() - startedNanos;
+        return event;
+    }
+
+    /**
+     * start an output batch event
+     *
+     * @param file the csv file name
+     * @return the event - or null if not recording
+     */
+    public static OutputBatch outputBatch(String file) {
+        if (!AVAILABLE) {
+            return null;
+        }
+        OutputBatch event = new OutputBatch();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        event.file = file;
+        return event;
+    }
+
+    /**
+     * start a parse event
+     *
+     * @param type what is being parsed (e.g. wrapper)
+     * @param text the text to parse
+     * @return the event - or null if not recording
+     */
+    public static Parse parse(String type, String text) {
+        if (!AVAILABLE) {
+            return null;
+        }
+        Parse event = new Parse();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        event.type = type;
+        event.length = text == null ? 0 : text.length();
+        return event;
+    }
+
+}
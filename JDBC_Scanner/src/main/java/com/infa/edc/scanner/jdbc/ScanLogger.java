@@ -0,0 +1,275 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+
+/**
+ * logging for the scanners - messages are written to the console (stdout) if
+ * the level is enabled (log.level property):-
+ * <ul>
+ * <li>ERROR/WARN - problems</li>
+ * <li>INFO - (default) settings, steps, counts per schema & a periodic progress
+ * summary</li>
+ * <li>DEBUG - a message for each table, view & column count (the volume of the
+ * older versions)</li>
+ * </ul>
+ *
+ * log.async=true (default) - messages are added to a ring buffer
+ * (log.bufferSize messages) & written by a background thread in blocks, so the
+ * scan does not wait for the console. if the buffer is full, the caller waits
+ * (messages are never dropped). shutdown() writes any messages still in the
+ * buffer
+ *
+ * setContext() adds a prefix to the messages of a thread (& threads it starts)
+ * - e.g. the resource name when more than 1 scan runs in the same jvm
+ *
+ * the settings are for the jvm - only the first configure() is used. the batch
+ * scanner & scanner service configure logging before the scans start (-logLevel),
+ * so a scan does not change the logging of the other scans
+ */
+public class ScanLogger {
+    public enum Level {
+        ERROR, WARN, INFO, DEBUG
+    }
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static volatile Level level = Level.INFO;
+    private static volatile AsyncWriter asyncWriter = null;
+    private static boolean hookAdded = false;
+    private static boolean configured = false;
+    private static final InheritableThreadLocal<String> context = new InheritableThreadLocal<String>();
+
+    private final String name;
+
+    private ScanLogger(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @param type the class that is logging
+     * @return a logger (all loggers share the level & async settings)
+     */
+    public static ScanLogger getLogger(Class<?> type) {
+        return new ScanLogger(type.getSimpleName());
+    }
+
+    /**
+     * set the level & start the async writer - called when the properties are
+     * read. only the first call is used (later calls are ignored)
+     *
+     * @param levelName  ERROR|WARN|INFO|DEBUG (invalid names use INFO)
+     * @param async      true: use a background thread to write messages
+     * @param bufferSize number of messages buffered (async only)
+     */
+    public static synchronized void configure(String levelName, boolean async, int bufferSize) {
+        if (configured) {
+            if (!levelName.trim().equalsIgnoreCase(level.name())) {
+                write("log.level=" + levelName + " ignored - logging is configured once per jvm (log.level="
+                        + level + ")");
+            }
+            return;
+        }
+        configured = true;
+        Level newLevel = Level.INFO;
+        try {
+            newLevel = Level.valueOf(levelName.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.out.println("invalid log.level=" + levelName + " using INFO");
+        }
+        level = newLevel;
+
+        if (async && asyncWriter == null) {
+            asyncWriter = new AsyncWriter(Math.max(bufferSize, 64));
+            asyncWriter.start();
+            if (!hookAdded) {
+                // buffered messages are written if the scanner exits early
+                Runtime.getRuntime().addShutdownHook(new Thread("scan-logger-shutdown") {
+                    @Override
+                    public void run() {
+                        shutdown();
+                    }
+                });
+                hookAdded = true;
+            }
+        } else if (!async) {
+            shutdown();
+        }
+    }
+
+    /**
+     * write all buffered messages & stop the async writer (further messages are
+     * written directly)
+     */
+    public static synchronized void shutdown() {
+        AsyncWriter writer = asyncWriter;
+        if (writer != null) {
+            asyncWriter = null;
+            writer.close();
+        }
+    }
+
+    /**
+     * @param name prefix for messages written by the current thread & threads it
+     *             starts (null = no prefix)
+     */
+    public static void setContext(String name) {
+        if (name == null) {
+            context.remove();
+        } else {
+            context.set("[" + name + "] ");
+        }
+    }
+
+    /**
+     * @return true if configure() was called
+     */
+    public static synchronized boolean isConfigured() {
+        return configured;
+    }
+
+    /**
+     * @return the current level
+     */
+    public static Level getLevel() {
+        return level;
+    }
+
+    public boolean isDebugEnabled() {
+        return level.compareTo(Level.DEBUG) >= 0;
+    }
+
+    public void error(String message) {
+        log(Level.ERROR, message);
+    }
+
+    public void warn(String message) {
+        log(Level.WARN, message);
+    }
+
+    public void info(String message) {
+        log(Level.INFO, message);
+    }
+
+    /**
+     * debug messages are prefixed with the class name
+     */
+    public void debug(String message) {
+        if (isDebugEnabled()) {
+            write("[" + name + "] " + message);
+        }
+    }
+
+    private void log(Level messageLevel, String message) {
+        if (level.compareTo(messageLevel) >= 0) {
+            write(message);
+        }
+    }
+
+    private static void write(String message) {
+        String prefix = context.get();
+        if (prefix != null) {
+            message = prefix + message;
+        }
+        AsyncWriter writer = asyncWriter;
+        if (writer == null || !writer.append(message)) {
+            System.out.println(message);
+        }
+    }
+
+    /**
+     * background thread - writes the messages in the ring buffer to stdout in
+     * blocks (1 flush per block, not per message)
+     */
+    private static class AsyncWriter extends Thread {
+        private final String[] ring;
+        private int head = 0;
+        private int count = 0;
+        private boolean running = true;
+        private final PrintStream out;
+
+        AsyncWriter(int bufferSize) {
+            super("scan-logger");
+            setDaemon(true);
+            ring = new String[bufferSize];
+            out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 64 * 1024),
+                    false);
+        }
+
+        /**
+         * @return false if the writer is stopped (the caller writes the message)
+         */
+        synchronized boolean append(String message) {
+            while (running && count == ring.length) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            if (!running) {
+                return false;
+            }
+            ring[(head + count) % ring.length] = message;
+            count++;
+            notifyAll();
+            return true;
+        }
+
+        @Override
+        public void run() {
+            String[] block = new String[ring.length];
+            while (true) {
+                int size;
+                synchronized (this) {
+                    while (running && count == 0) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            running = false;
+                        }
+                    }
+                    if (count == 0) {
+                        break;
+                    }
+                    size = count;
+                    for (int i = 0; i < size; i++) {
+                        block[i] = ring[(head + i) % ring.length];
+                        ring[(head + i) % ring.length] = null;
+                    }
+                    head = (head + size) % ring.length;
+                    count = 0;
+                    notifyAll();
+                }
+                for (int i = 0; i < size; i++) {
+                    out.println(block[i]);
+                    block[i] = null;
+                }
+                out.flush();
+            }
+            out.flush();
+        }
+
+        /**
+         * stop after the buffered messages are written
+         */
+        void close() {
+            synchronized (this) {
+                running = false;
+                notifyAll();
+            }
+            try {
+                join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+}
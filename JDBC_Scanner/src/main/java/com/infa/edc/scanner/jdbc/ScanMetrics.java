@@ -0,0 +1,554 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.opencsv.CSVWriter;
+
+/**
+ * metrics for a scan - collected while the scan runs, visible using jmx
+ * (ScanMetricsMBean) & written as a json report when the scan finishes
+ * (metrics.report property)
+ * <ul>
+ * <li>phases - elapsed time for each step (connect, extract,
+ * extraProcessing...)</li>
+ * <li>calls - for each metadata call/query type (getSchemas, getTables,
+ * getColumns, desc vql...): count, rows returned, total/max latency & a
+ * latency histogram</li>
+ * <li>output - bytes written for each output file</li>
+ * <li>counters - object counts (tables, views, columns...)</li>
+ * <li>slowest objects - the top n (metrics.slowest) object/operation timings
+ * e.g. the column lineage for 1 view, written as a csv sorted by time</li>
+ * </ul>
+ * latency is the time to execute the call (until the result set is returned),
+ * rows are counted as the result set is read
+ */
+public class ScanMetrics implements ScanMetricsMBean {
+    private static final ScanLogger log = ScanLogger.getLogger(ScanMetrics.class);
+
+    // call types used by GenericScanner (sub-classes & dialects add their own)
+    public static final String GET_CATALOGS = "getCatalogs";
+    public static final String GET_SCHEMAS = "getSchemas";
+    public static final String GET_TABLES = "getTables";
+    public static final String GET_COLUMNS = "getColumns";
+
+    // operations timed per object (slowest objects report)
+    public static final String OBJ_TABLE = "table structure";
+    public static final String OBJ_COLUMNS = "columns";
+    public static final String OBJ_DESC_VQL = "desc vql";
+    public static final String OBJ_VIEW_LINEAGE = "view lineage";
+    public static final String OBJ_COLUMN_LINEAGE = "column lineage";
+
+    public static final int DEFAULT_SLOWEST_SIZE = 100;
+
+    // histogram bucket upper bounds (ms) - the last bucket is everything slower
+    private static final long[] BUCKET_LIMITS = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000,
+            30000, 60000 };
+
+    private final long started = System.currentTimeMillis();
+    private final ConcurrentMap<String, CallStats> calls = new ConcurrentHashMap<String, CallStats>();
+    private final ConcurrentMap<String, AtomicLong> outputBytes = new ConcurrentHashMap<String, AtomicLong>();
+    private final Map<String, Long> phases = new ConcurrentHashMap<String, Long>();
+    private final List<String> phaseOrder = new ArrayList<String>();
+    private final Map<String, Long> counters = new LinkedHashMap<String, Long>();
+    private volatile String currentPhase = "";
+    private volatile long phaseStarted = 0;
+    private ObjectName objectName = null;
+
+    // slowest objects - min heap, the fastest of the top n is removed first
+    private int slowestSize = DEFAULT_SLOWEST_SIZE;
+    private final PriorityQueue<ObjectTiming> slowest = new PriorityQueue<ObjectTiming>();
+    private volatile long slowestMinNanos = 0;
+
+    /**
+     * time taken for 1 operation on 1 object
+     */
+    protected static class ObjectTiming implements Comparable<ObjectTiming> {
+        final String object;
+        final String operation;
+        final long nanos;
+        final long rows;
+
+        ObjectTiming(String object, String operation, long nanos, long rows) {
+            this.object = object;
+            this.operation = operation;
+            this.nanos = nanos;
+            this.rows = rows;
+        }
+
+        @Override
+        public int compareTo(ObjectTiming other) {
+            return Long.compare(nanos, other.nanos);
+        }
+    }
+
+    /**
+     * stats for 1 call type
+     */
+    protected static class CallStats {
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong rows = new AtomicLong();
+        final AtomicLong totalNanos = new AtomicLong();
+        final AtomicLong maxNanos = new AtomicLong();
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKET_LIMITS.length + 1);
+
+        void record(long nanos) {
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+            long millis = nanos / 1000000;
+            int bucket = 0;
+            while (bucket < BUCKET_LIMITS.length && millis >= BUCKET_LIMITS[bucket]) {
+                bucket++;
+            }
+            buckets.incrementAndGet(bucket);
+        }
+    }
+
+    private CallStats getStats(String call) {
+        CallStats stats = calls.get(call);
+        if (stats == null) {
+            calls.putIfAbsent(call, new CallStats());
+            stats = calls.get(call);
+        }
+        return stats;
+    }
+
+    /**
+     * record a call that returned a result set - the rows are counted as the
+     * result set is read. when a flight recording is running, a ScanMetadataCall
+     * event is started (committed when the result set is read or closed)
+     *
+     * @param call         the call type (e.g. getTables)
+     * @param object       the object the call is for (e.g. catalog.schema) or null
+     * @param startedNanos System.nanoTime() before the call
+     * @param rs           result set returned by the call
+     * @return a result set that counts the rows read (or null if rs is null)
+     */
+    public ResultSet track(String call, String object, long startedNanos, ResultSet rs) {
+        return track(call, object, startedNanos, rs, null);
+    }
+
+    /**
+     * record a call that returned a result set - the throttle permit (if any) is
+     * released when the result set is read to the end, closed or fails
+     *
+     * @param permit the permit for the call (or null)
+     * @see #track(String, String, long, ResultSet)
+     */
+    public ResultSet track(String call, String object, long startedNanos, ResultSet rs,
+            AdaptiveLimiter.Permit permit) {
+        CallStats stats = getStats(call);
+        stats.record(System.nanoTime() - startedNanos);
+        if (rs == null) {
+            if (permit != null) {
+                permit.release(false);
+            }
+            return null;
+        }
+        return new CountingResultSet(rs, stats.rows, ScanEvents.metadataCall(call, object, startedNanos), permit);
+    }
+
+    /**
+     * record a call with no result set
+     *
+     * @param call         the call type
+     * @param startedNanos System.nanoTime() before the call
+     * @param rows         rows returned/processed
+     */
+    public void record(String call, long startedNanos, long rows) {
+        CallStats stats = getStats(call);
+        stats.record(System.nanoTime() - startedNanos);
+        stats.rows.addAndGet(rows);
+    }
+
+    /**
+     * @param size number of objects kept for the slowest objects report (0 = none)
+     */
+    public synchronized void setSlowestSize(int size) {
+        this.slowestSize = Math.max(size, 0);
+    }
+
+    /**
+     * record the time taken for an operation on an object - only the slowest
+     * (metrics.slowest) are kept
+     *
+     * @param object       the object name (e.g. schema.view)
+     * @param operation    what was done (e.g. OBJ_COLUMN_LINEAGE)
+     * @param startedNanos System.nanoTime() before the operation
+     * @param rows         rows read/written for the object
+     */
+    public void recordObject(String object, String operation, long startedNanos, long rows) {
+        long nanos = System.nanoTime() - startedNanos;
+        if (slowestSize == 0 || nanos <= slowestMinNanos) {
+            // faster than everything kept so far
+            return;
+        }
+        synchronized (slowest) {
+            slowest.add(new ObjectTiming(object, operation, nanos, rows));
+            if (slowest.size() > slowestSize) {
+                slowest.poll();
+            }
+            if (slowest.size() == slowestSize) {
+                slowestMinNanos = slowest.peek().nanos;
+            }
+        }
+    }
+
+    /**
+     * @return the slowest objects - slowest first
+     */
+    protected List<ObjectTiming> getSlowest() {
+        List<ObjectTiming> sorted;
+        synchronized (slowest) {
+            sorted = new ArrayList<ObjectTiming>(slowest);
+        }
+        Collections.sort(sorted, Collections.reverseOrder());
+        return sorted;
+    }
+
+    /**
+     * write the slowest objects as csv - slowest first
+     *
+     * @param fileName the csv file (replaced)
+     */
+    public void writeSlowest(String fileName) {
+        if (slowestSize == 0) {
+            return;
+        }
+        try {
+            CSVWriter writer = new CSVWriter(new FileWriter(fileName));
+            try {
+                writer.writeNext(new String[] { "rank", "object", "operation", "millis", "rows" });
+                int rank = 0;
+                for (ObjectTiming timing : getSlowest()) {
+                    rank++;
+                    writer.writeNext(new String[] { Integer.toString(rank), timing.object, timing.operation,
+                            Long.toString(timing.nanos / 1000000), Long.toString(timing.rows) });
+                }
+            } finally {
+                writer.close();
+            }
+            log.info("slowest objects written: " + fileName);
+        } catch (IOException e) {
+            log.error("error writing slowest objects: " + fileName + " " + e.getMessage());
+        }
+    }
+
+    /**
+     * count the bytes written to an output file
+     *
+     * @param entity the output file name
+     * @param out    the stream to count
+     * @return the counting stream
+     */
+    public OutputStream countBytes(String entity, OutputStream out) {
+        AtomicLong bytes = outputBytes.get(entity);
+        if (bytes == null) {
+            outputBytes.putIfAbsent(entity, new AtomicLong());
+            bytes = outputBytes.get(entity);
+        }
+        return new CountingOutputStream(out, bytes);
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private final AtomicLong bytes;
+
+        CountingOutputStream(OutputStream out, AtomicLong bytes) {
+            super(out);
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            bytes.incrementAndGet();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            // FilterOutputStream would write 1 byte at a time
+            out.write(b, off, len);
+            bytes.addAndGet(len);
+        }
+    }
+
+    /**
+     * start a phase - the current phase (if any) ends
+     *
+     * @param phase name of the phase
+     */
+    public synchronized void startPhase(String phase) {
+        endPhase();
+        currentPhase = phase;
+        phaseStarted = System.currentTimeMillis();
+    }
+
+    /**
+     * end the current phase - the elapsed time is added to the phase total
+     */
+    public synchronized void endPhase() {
+        if (currentPhase.equals("")) {
+            return;
+        }
+        Long total = phases.get(currentPhase);
+        if (total == null) {
+            phaseOrder.add(currentPhase);
+            total = 0L;
+        }
+        phases.put(currentPhase, total + System.currentTimeMillis() - phaseStarted);
+        currentPhase = "";
+    }
+
+    /**
+     * @param name  counter name (e.g. tables)
+     * @param value the count
+     */
+    public synchronized void setCounter(String name, long value) {
+        counters.put(name, value);
+    }
+
+    /**
+     * register the jmx mbean - com.infa.edc.scanner:type=ScanMetrics,name=<name>
+     *
+     * @param name the scanner name
+     */
+    public void registerMBean(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName beanName = new ObjectName("com.infa.edc.scanner:type=ScanMetrics,name=" + name);
+            if (server.isRegistered(beanName)) {
+                server.unregisterMBean(beanName);
+            }
+            server.registerMBean(this, beanName);
+            objectName = beanName;
+            log.info("\tscan metrics jmx mbean: " + beanName);
+        } catch (Exception e) {
+            log.warn("\tunable to register scan metrics mbean: " + e.getMessage());
+        }
+    }
+
+    public void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (Exception e) {
+            // already removed
+        }
+        objectName = null;
+    }
+
+    /**
+     * write the json report (the file is replaced)
+     *
+     * @param fileName the report file
+     */
+    public void writeReport(String fileName) {
+        File tempFile = new File(fileName + ".tmp");
+        try {
+            Writer writer = new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8);
+            try {
+                writer.write(getReport());
+            } finally {
+                writer.close();
+            }
+            File reportFile = new File(fileName);
+            if (reportFile.exists() && !reportFile.delete()) {
+                log.warn("\tunable to replace metrics report: " + fileName);
+            }
+            if (!tempFile.renameTo(reportFile)) {
+                log.warn("\tunable to rename " + tempFile + " to " + fileName);
+            }
+            log.info("scan metrics written: " + fileName);
+        } catch (IOException e) {
+            log.error("error writing scan metrics: " + fileName + " " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String getCurrentPhase() {
+        return currentPhase;
+    }
+
+    @Override
+    public long getElapsedMillis() {
+        return System.currentTimeMillis() - started;
+    }
+
+    @Override
+    public long getTotalCalls() {
+        long total = 0;
+        for (CallStats stats : calls.values()) {
+            total += stats.count.get();
+        }
+        return total;
+    }
+
+    @Override
+    public long getTotalRows() {
+        long total = 0;
+        for (CallStats stats : calls.values()) {
+            total += stats.rows.get();
+        }
+        return total;
+    }
+
+    @Override
+    public long getBytesWritten() {
+        long total = 0;
+        for (AtomicLong bytes : outputBytes.values()) {
+            total += bytes.get();
+        }
+        return total;
+    }
+
+    @Override
+    public String[] getCalls() {
+        List<String> lines = new ArrayList<String>();
+        for (Map.Entry<String, CallStats> entry : new TreeMap<String, CallStats>(calls).entrySet()) {
+            CallStats stats = entry.getValue();
+            long count = stats.count.get();
+            lines.add(entry.getKey() + " count=" + count + " rows=" + stats.rows.get() + " mean="
+                    + (count == 0 ? 0 : stats.totalNanos.get() / count / 1000000) + "ms max="
+                    + stats.maxNanos.get() / 1000000 + "ms");
+        }
+        return lines.toArray(new String[0]);
+    }
+
+    @Override
+    public synchronized String[] getPhases() {
+        List<String> lines = new ArrayList<String>();
+        for (String phase : phaseOrder) {
+            lines.add(phase + "=" + phases.get(phase) + "ms");
+        }
+        if (!currentPhase.equals("")) {
+            lines.add(currentPhase + "=" + (System.currentTimeMillis() - phaseStarted) + "ms (running)");
+        }
+        return lines.toArray(new String[0]);
+    }
+
+    @Override
+    public String[] getOutputFiles() {
+        List<String> lines = new ArrayList<String>();
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<String, AtomicLong>(outputBytes).entrySet()) {
+            lines.add(entry.getKey() + "=" + entry.getValue().get());
+        }
+        return lines.toArray(new String[0]);
+    }
+
+    @Override
+    public String[] getSlowestObjects() {
+        List<String> lines = new ArrayList<String>();
+        for (ObjectTiming timing : getSlowest()) {
+            lines.add(timing.object + " " + timing.operation + "=" + timing.nanos / 1000000 + "ms rows=" + timing.rows);
+        }
+        return lines.toArray(new String[0]);
+    }
+
+    @Override
+    public synchronized String getReport() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"started\": ").append(started).append(",\n");
+        json.append("  \"elapsedMillis\": ").append(getElapsedMillis()).append(",\n");
+        json.append("  \"currentPhase\": ").append(quote(currentPhase)).append(",\n");
+
+        json.append("  \"phases\": {");
+        String sep = "\n";
+        for (String phase : phaseOrder) {
+            json.append(sep).append("    ").append(quote(phase)).append(": ").append(phases.get(phase));
+            sep = ",\n";
+        }
+        json.append("\n  },\n");
+
+        json.append("  \"counters\": {");
+        sep = "\n";
+        for (Map.Entry<String, Long> entry : counters.entrySet()) {
+            json.append(sep).append("    ").append(quote(entry.getKey())).append(": ").append(entry.getValue());
+            sep = ",\n";
+        }
+        json.append("\n  },\n");
+
+        json.append("  \"calls\": {");
+        sep = "\n";
+        for (Map.Entry<String, CallStats> entry : new TreeMap<String, CallStats>(calls).entrySet()) {
+            CallStats stats = entry.getValue();
+            json.append(sep).append("    ").append(quote(entry.getKey())).append(": {");
+            json.append("\"count\": ").append(stats.count.get());
+            json.append(", \"rows\": ").append(stats.rows.get());
+            json.append(", \"totalMicros\": ").append(stats.totalNanos.get() / 1000);
+            json.append(", \"maxMicros\": ").append(stats.maxNanos.get() / 1000);
+            json.append(", \"histogramMillis\": {");
+            String bucketSep = "";
+            for (int i = 0; i <= BUCKET_LIMITS.length; i++) {
+                long count = stats.buckets.get(i);
+                if (count == 0) {
+                    continue;
+                }
+                String label = i < BUCKET_LIMITS.length ? "<" + BUCKET_LIMITS[i]
+                        : ">=" + BUCKET_LIMITS[BUCKET_LIMITS.length - 1];
+                json.append(bucketSep).append(quote(label)).append(": ").append(count);
+                bucketSep = ", ";
+            }
+            json.append("}}");
+            sep = ",\n";
+        }
+        json.append("\n  },\n");
+
+        json.append("  \"outputBytes\": {");
+        sep = "\n";
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<String, AtomicLong>(outputBytes).entrySet()) {
+            json.append(sep).append("    ").append(quote(entry.getKey())).append(": ").append(entry.getValue().get());
+            sep = ",\n";
+        }
+        json.append("\n  }\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+}
@@ -0,0 +1,59 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+/**
+ * jmx view of the scan metrics (registered while the scan runs) - see
+ * ScanMetrics
+ */
+public interface ScanMetricsMBean {
+
+    /**
+     * @return the phase that is running (connect, extract, extraProcessing...)
+     */
+    public String getCurrentPhase();
+
+    public long getElapsedMillis();
+
+    /**
+     * @return number of metadata calls/queries executed (all types)
+     */
+    public long getTotalCalls();
+
+    /**
+     * @return rows read from all metadata calls/queries
+     */
+    public long getTotalRows();
+
+    /**
+     * @return bytes written to all output files
+     */
+    public long getBytesWritten();
+
+    /**
+     * @return 1 line per call type - count, rows, mean & max latency
+     */
+    public String[] getCalls();
+
+    /**
+     * @return 1 line per phase - elapsed time
+     */
+    public String[] getPhases();
+
+    /**
+     * @return 1 line per output file - bytes written
+     */
+    public String[] getOutputFiles();
+
+    /**
+     * @return the slowest object operations (so far) - slowest first
+     */
+    public String[] getSlowestObjects();
+
+    /**
+     * @return the full report (json)
+     */
+    public String getReport();
+
+}
@@ -0,0 +1,103 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * progress for the current stage of a scan (e.g. extracting tables/views,
+ * denodo lineage) - % complete, objects/sec & estimated time remaining
+ *
+ * the number of objects expected is an estimate (e.g. a count query per
+ * schema), added before the objects are extracted. if there is no estimate,
+ * only the objects done & objects/sec are reported
+ *
+ * counters are lock-free (LongAdder) - objects can be counted by more than 1
+ * worker thread, the summary is read by the progress timer thread
+ */
+public class ScanProgress {
+    private final LongAdder expected = new LongAdder();
+    private final LongAdder done = new LongAdder();
+    private volatile String stage = "extract";
+    private volatile long stageStart = System.currentTimeMillis();
+    private volatile boolean estimated = false;
+
+    /**
+     * start a new stage - the counts are reset
+     *
+     * @param stageName       the name used in the progress message
+     * @param expectedObjects objects expected for the stage (or -1 if unknown)
+     */
+    public void startStage(String stageName, long expectedObjects) {
+        stage = stageName;
+        stageStart = System.currentTimeMillis();
+        done.reset();
+        expected.reset();
+        estimated = false;
+        addExpected(expectedObjects);
+    }
+
+    /**
+     * add to the number of objects expected (e.g. the count for 1 schema)
+     *
+     * @param objects number of objects, negative values (unknown) are ignored
+     */
+    public void addExpected(long objects) {
+        if (objects >= 0) {
+            expected.add(objects);
+            estimated = true;
+        }
+    }
+
+    /**
+     * count 1 object as done
+     */
+    public void done() {
+        done.increment();
+    }
+
+    /**
+     * @return objects done in the current stage
+     */
+    public long getDone() {
+        return done.sum();
+    }
+
+    /**
+     * @return objects expected in the current stage (-1 if there is no estimate)
+     */
+    public long getExpected() {
+        return estimated ? expected.sum() : -1;
+    }
+
+    /**
+     * @return progress message e.g. extract: 1200 of ~5000 objects (24%), 40.0
+     *         objects/sec, eta 1 min, 35 sec
+     */
+    public String getSummary() {
+        long objectsDone = done.sum();
+        long objectsExpected = getExpected();
+        double seconds = Math.max(System.currentTimeMillis() - stageStart, 1) / 1000.0;
+        double rate = objectsDone / seconds;
+
+        StringBuilder summary = new StringBuilder(stage).append(": ").append(objectsDone);
+        if (objectsExpected > 0) {
+            summary.append(" of ~").append(objectsExpected).append(" objects (")
+                    .append(Math.min(objectsDone * 100 / objectsExpected, 99)).append("%)");
+        } else {
+            summary.append(" objects");
+        }
+        summary.append(", ").append(String.format("%.1f", rate)).append(" objects/sec");
+        if (objectsExpected > objectsDone && rate > 0) {
+            long remaining = (long) ((objectsExpected - objectsDone) / rate);
+            summary.append(", eta ").append(TimeUnit.SECONDS.toMinutes(remaining)).append(" min, ")
+                    .append(remaining % 60).append(" sec");
+        } else if (objectsExpected >= 0) {
+            summary.append(", eta unknown");
+        }
+        return summary.toString();
+    }
+
+}
@@ -0,0 +1,461 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import com.opencsv.CSVWriter;
+
+/**
+ * output files for a scanner - the csv files that are packaged in the scanner
+ * zip file, and any other (log/report) files written to the same folder
+ *
+ * 2 modes are supported (output.mode property):-
+ * <ul>
+ * <li>files - (default) each csv file is written to the output folder, the zip
+ * file is created when the files are closed (the csv files are kept)</li>
+ * <li>zip - each csv file is written straight to its entry in the zip file. the
+ * entries are compressed as they are written (spooled to a temp file per entry
+ * so they can all be open at the same time), then copied into the zip when it
+ * is closed - the data is only written & compressed once</li>
+ * </ul>
+ *
+ * writers are buffered with output.bufferSize (default 1MB) - so each csv row
+ * does not result in a write to the os. output.quoteAll=false will only quote
+ * csv values that need it (containing , " or line breaks)
+ *
+ * files mode can resume the files of an interrupted scan (see ScanCheckpoint) -
+ * each file is truncated to the size recorded at the last checkpoint & new rows
+ * are appended (the header is not written again). the resume is refused if a
+ * file is missing or shorter than its checkpoint size
+ */
+public class ScannerOutput {
+    private static final ScanLogger log = ScanLogger.getLogger(ScannerOutput.class);
+    public static final String MODE_FILES = "files";
+    public static final String MODE_ZIP = "zip";
+
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+    protected static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final String folder;
+    private final String zipFileName;
+    private final boolean streamToZip;
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private boolean quoteAll = true;
+
+    private FileSystem zipFileSystem = null;
+    private final List<String> zipEntries = new ArrayList<String>();
+    private final List<Writer> openWriters = new ArrayList<Writer>();
+    // files written to the output folder (not streamed to the zip) - name > file
+    private final Map<String, File> folderFiles = new LinkedHashMap<String, File>();
+    // the streams of the folder files - synced to disk for a checkpoint
+    private final Map<String, FileOutputStream> folderStreams = new HashMap<String, FileOutputStream>();
+    private Map<String, Long> resumeSizes = null;
+    private final Set<String> resumedFiles = new HashSet<String>();
+    private ScanMetrics metrics = null;
+
+    /**
+     * @param folder      output folder (created if it does not exist)
+     * @param zipFileName name of the zip file (in the output folder)
+     * @param mode        files|zip
+     */
+    public ScannerOutput(String folder, String zipFileName, String mode) {
+        this.folder = folder;
+        this.zipFileName = zipFileName;
+        this.streamToZip = MODE_ZIP.equalsIgnoreCase(mode);
+
+        File directory = new File(folder);
+        if (!directory.exists()) {
+            log.info("\tfolder: " + folder + " does not exist, creating it");
+            directory.mkdir();
+        }
+    }
+
+    /**
+     * @param bufferSize buffer size (bytes) for each writer opened after this call
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = Math.max(bufferSize, 8 * 1024);
+    }
+
+    /**
+     * @param quoteAll true: all csv values are quoted, false: only values that
+     *                 need quotes
+     */
+    public void setQuoteAll(boolean quoteAll) {
+        this.quoteAll = quoteAll;
+    }
+
+    /**
+     * @param metrics count the bytes written to each file opened after this call
+     */
+    public void setMetrics(ScanMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return true if csv files are written directly to the zip file
+     */
+    public boolean isStreamToZip() {
+        return streamToZip;
+    }
+
+    /**
+     * resume an interrupted scan - files opened after this call are truncated to
+     * these sizes & appended to (files mode only)
+     *
+     * nothing is resumed if a file is missing or shorter than its size (removed,
+     * or the data was not on disk when the scan stopped) - the rows of the steps
+     * already done would be lost
+     *
+     * @param fileSizes file name > size (bytes) at the last checkpoint
+     * @return false if the files can't be resumed (start a new scan)
+     */
+    public synchronized boolean resumeFrom(Map<String, Long> fileSizes) {
+        for (Map.Entry<String, Long> size : fileSizes.entrySet()) {
+            File file = new File(folder + "/" + size.getKey());
+            if (!file.exists() || file.length() < size.getValue()) {
+                log.warn("	unable to resume: " + file + " size=" + (file.exists() ? file.length() : "missing")
+                        + " checkpoint size=" + size.getValue());
+                return false;
+            }
+        }
+        this.resumeSizes = fileSizes;
+        return true;
+    }
+
+    /**
+     * @param fileName
+     * @return true if the file was resumed (already has a header & rows)
+     */
+    public synchronized boolean isResumed(String fileName) {
+        return resumedFiles.contains(fileName);
+    }
+
+    /**
+     * @return the size of each file written to the output folder - call flush()
+     *         or sync() first
+     */
+    public synchronized Map<String, Long> getFileSizes() {
+        Map<String, Long> sizes = new LinkedHashMap<String, Long>();
+        for (Map.Entry<String, File> file : folderFiles.entrySet()) {
+            sizes.put(file.getKey(), file.getValue().length());
+        }
+        return sizes;
+    }
+
+    /**
+     * write any buffered data for all open files to the os
+     *
+     * @throws IOException
+     */
+    public synchronized void flush() throws IOException {
+        for (Writer writer : openWriters) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * flush all open files & force the files in the output folder to disk - so
+     * the data is on disk before a checkpoint records the file sizes
+     *
+     * @throws IOException
+     */
+    public synchronized void sync() throws IOException {
+        flush();
+        for (Map.Entry<String, FileOutputStream> stream : folderStreams.entrySet()) {
+            if (stream.getValue().getFD().valid()) {
+                stream.getValue().getFD().sync();
+            } else {
+                // the writer was already closed
+                FileChannel channel = FileChannel.open(folderFiles.get(stream.getKey()).toPath(),
+                        StandardOpenOption.WRITE);
+                try {
+                    channel.force(true);
+                } finally {
+                    channel.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the path of the zip file
+     */
+    public String getZipFilePath() {
+        return folder + "/" + zipFileName;
+    }
+
+    /**
+     * open a file for writing
+     *
+     * @param fileName the file name (no folder)
+     * @param inZip    true if the file is part of the scanner zip file
+     * @return a buffered writer
+     * @throws IOException
+     */
+    public synchronized Writer openWriter(String fileName, boolean inZip) throws IOException {
+        OutputStream out;
+        if (inZip && streamToZip) {
+            out = Files.newOutputStream(getZipFileSystem().getPath("/" + fileName));
+        } else {
+            File file = new File(folder + "/" + fileName);
+            Long size = resumeSizes == null ? null : resumeSizes.get(fileName);
+            FileOutputStream fileOut;
+            if (size != null) {
+                if (!file.exists() || file.length() < size) {
+                    // changed since resumeFrom() - don't replace the rows of the steps done
+                    throw new IOException("unable to resume: " + file + " is missing or shorter than "
+                            + size + " bytes");
+                }
+                // remove anything written after the last checkpoint
+                RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                try {
+                    raf.setLength(size);
+                } finally {
+                    raf.close();
+                }
+                fileOut = new FileOutputStream(file, true);
+                resumedFiles.add(fileName);
+            } else {
+                fileOut = new FileOutputStream(file);
+            }
+            folderFiles.put(fileName, file);
+            folderStreams.put(fileName, fileOut);
+            out = fileOut;
+        }
+        if (inZip) {
+            zipEntries.add(fileName);
+        }
+        if (metrics != null) {
+            out = metrics.countBytes(fileName, out);
+        }
+
+        return bufferedWriter(out);
+    }
+
+    /**
+     * open a csv file for writing
+     *
+     * @param fileName the file name (no folder)
+     * @param inZip    true if the file is part of the scanner zip file
+     * @return csv writer - using the output.quoteAll setting
+     * @throws IOException
+     */
+    public CSVWriter openCsvWriter(String fileName, boolean inZip) throws IOException {
+        return newCsvWriter(openWriter(fileName, inZip), fileName);
+    }
+
+    /**
+     * open a csv file for writing & write the header (unless the file was resumed)
+     *
+     * @param fileName the file name (no folder)
+     * @param inZip    true if the file is part of the scanner zip file
+     * @param header   the header row
+     * @return csv writer - using the output.quoteAll setting
+     * @throws IOException
+     */
+    public CSVWriter openCsvWriter(String fileName, boolean inZip, String[] header) throws IOException {
+        CSVWriter writer = openCsvWriter(fileName, inZip);
+        if (!isResumed(fileName)) {
+            writer.writeNext(header);
+        }
+        return writer;
+    }
+
+    /**
+     * wrap an output stream (e.g. a file outside of the output folder) with the
+     * output buffers - the writer is closed when the output is closed
+     *
+     * @param out the stream to write to
+     * @return a buffered writer
+     */
+    public synchronized Writer bufferedWriter(OutputStream out) {
+        // large block writes to the os - the char buffer avoids encoding each
+        // value seperately
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new BufferedOutputStream(out, bufferSize)),
+                bufferSize / 2);
+        openWriters.add(writer);
+        return writer;
+    }
+
+    /**
+     * @param writer the writer to use
+     * @return csv writer - using the output.quoteAll setting
+     */
+    public CSVWriter newCsvWriter(Writer writer) {
+        return new RowWriter(writer, quoteAll, null);
+    }
+
+    /**
+     * @param writer   the writer to use
+     * @param fileName the file name (for jfr output batch events)
+     * @return csv writer - using the output.quoteAll setting
+     */
+    public CSVWriter newCsvWriter(Writer writer, String fileName) {
+        return new RowWriter(writer, quoteAll, fileName);
+    }
+
+    /**
+     * csv writer where writeNext(String[]) only quotes all values if quoteAll is
+     * set (opencsv quotes all values by default)
+     *
+     * rows are counted in batches of ScanEvents.OUTPUT_BATCH_ROWS - a
+     * ScanOutputBatch jfr event is written per batch (when recording)
+     */
+    protected static class RowWriter extends CSVWriter {
+        private final boolean quoteAll;
+        private final String fileName;
+        private ScanEvents.OutputBatch batch = null;
+        private int batchRows = 0;
+
+        public RowWriter(Writer writer, boolean quoteAll, String fileName) {
+            super(writer);
+            this.quoteAll = quoteAll;
+            this.fileName = fileName;
+        }
+
+        @Override
+        public void writeNext(String[] nextLine) {
+            writeNext(nextLine, quoteAll);
+        }
+
+        @Override
+        public void writeNext(String[] nextLine, boolean applyQuotesToAll) {
+            if (batchRows == 0) {
+                // null if not recording - checked once per batch
+                batch = ScanEvents.outputBatch(fileName);
+            }
+            super.writeNext(nextLine, applyQuotesToAll);
+            if (++batchRows >= ScanEvents.OUTPUT_BATCH_ROWS) {
+                endBatch();
+            }
+        }
+
+        private void endBatch() {
+            if (batch != null) {
+                batch.finish(batchRows);
+                batch = null;
+            }
+            batchRows = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            endBatch();
+            super.close();
+        }
+    }
+
+    /**
+     * the zip file is opened as a zip filesystem - any existing zip is replaced
+     */
+    private FileSystem getZipFileSystem() throws IOException {
+        if (zipFileSystem == null) {
+            Path zipPath = Paths.get(folder, zipFileName).toAbsolutePath();
+            Files.deleteIfExists(zipPath);
+            log.info("\tcreating zip file: " + zipPath);
+
+            Map<String, Object> env = new HashMap<String, Object>();
+            env.put("create", "true");
+            // spool each (compressed) entry to a temp file, not to memory
+            env.put("useTempFile", Boolean.TRUE);
+            zipFileSystem = FileSystems.newFileSystem(URI.create("jar:" + zipPath.toUri()), env);
+        }
+        return zipFileSystem;
+    }
+
+    /**
+     * close all files that are still open & finish the zip file
+     *
+     * @return true if successful
+     */
+    public synchronized boolean close() {
+        boolean closed = true;
+        for (Writer writer : openWriters) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                closed = false;
+                e.printStackTrace();
+            }
+        }
+        openWriters.clear();
+
+        if (zipFileSystem != null) {
+            // the entries are copied to the zip file when the filesystem is closed
+            try {
+                log.info("finishing zip file: " + getZipFilePath());
+                zipFileSystem.close();
+            } catch (IOException e) {
+                closed = false;
+                e.printStackTrace();
+            }
+            zipFileSystem = null;
+        } else if (!zipEntries.isEmpty()) {
+            closed = zipFiles() && closed;
+        }
+
+        return closed;
+    }
+
+    /**
+     * files mode - zip the csv files that were written to the output folder
+     */
+    private boolean zipFiles() {
+        log.info("creating zip file: " + getZipFilePath());
+        byte[] bytes = new byte[COPY_BUFFER_SIZE];
+        try {
+            ZipOutputStream zipOut = new ZipOutputStream(new FileOutputStream(getZipFilePath()));
+            try {
+                for (String fileName : zipEntries) {
+                    FileInputStream fis = new FileInputStream(folder + "/" + fileName);
+                    try {
+                        zipOut.putNextEntry(new ZipEntry(fileName));
+                        int length;
+                        while ((length = fis.read(bytes)) >= 0) {
+                            zipOut.write(bytes, 0, length);
+                        }
+                        zipOut.closeEntry();
+                    } finally {
+                        fis.close();
+                    }
+                }
+            } finally {
+                zipOut.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        return true;
+    }
+
+}
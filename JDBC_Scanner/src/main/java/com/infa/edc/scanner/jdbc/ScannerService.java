@@ -0,0 +1,553 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * scanner service - a long running jvm that scans resources (property files) on
+ * a schedule & on demand. the jvm, the jdbc drivers & the state from the last
+ * scan of each resource stay loaded between scans:-
+ * <ul>
+ * <li>incremental=true - the fingerprint index of the last scan is kept in
+ * memory (the index file is only read again if it was changed outside the
+ * service)</li>
+ * <li>denodo - the wrapper & datasource caches are kept (an entry is only
+ * re-used if the vql did not change)</li>
+ * </ul>
+ *
+ * usage: ScannerService [-parallel n] [-port n] [-watch folder] [-out folder]
+ * &lt;property file|folder&gt;... [agreeToDisclaimer]
+ * <ul>
+ * <li>service.schedule in a property file - cron schedule (minute hour day
+ * month weekday) e.g. *&#47;30 * * * * (see CronSchedule). resources without a
+ * schedule are only scanned on demand</li>
+ * <li>-port - http trigger on localhost: GET /status, POST /scan/&lt;resource&gt;
+ * (or /scan for all), POST /stop</li>
+ * <li>-watch - a file named &lt;resource&gt;.scan (or all.scan) created in the
+ * folder starts a scan (the file is removed)</li>
+ * </ul>
+ * the property file is read again for each scan (changes are used by the next
+ * scan). a resource is never scanned twice at the same time - a trigger while
+ * it is running queues 1 more scan
+ */
+public class ScannerService {
+    private static final ScanLogger log = ScanLogger.getLogger(ScannerService.class);
+    public static final String TRIGGER_SUFFIX = ".scan";
+    public static final String TRIGGER_ALL = "all";
+
+    protected int parallel = 2;
+    protected int port = 0;
+    protected String watchFolder = null;
+    protected String outFolder = null;
+
+    protected final Map<String, ServiceResource> resources = new LinkedHashMap<String, ServiceResource>();
+    // scanners that can't run concurrently (static state) - 1 lock per class
+    private final Map<String, Object> exclusiveLocks = new HashMap<String, Object>();
+
+    private ExecutorService scanPool;
+    private ScheduledExecutorService timer;
+    private HttpServer httpServer;
+    private Thread watchThread;
+    private volatile boolean stopped = false;
+    // the last minute checked for scheduled scans (minutes since 1970)
+    private long lastScheduleMinute = 0;
+
+    /**
+     * a resource scanned by the service & the state kept between scans
+     */
+    protected static class ServiceResource {
+        final String name;
+        final String propertyFile;
+        // running, queued & lastTrigger are guarded by the service, the rest are
+        // written by the scan thread
+        volatile CronSchedule schedule = null;
+        boolean running = false;
+        boolean queued = false;
+        String lastTrigger = "";
+        volatile int scans = 0;
+        volatile String lastStatus = "";
+        volatile long lastStart = 0;
+        volatile long lastMillis = 0;
+        FingerprintIndex fingerprints = null;
+
+        ServiceResource(String name, String propertyFile) {
+            this.name = name;
+            this.propertyFile = propertyFile;
+        }
+    }
+
+    /**
+     * @param file a property file, or a folder with *.properties files
+     */
+    public void addResource(String file) {
+        File path = new File(file);
+        if (path.isDirectory()) {
+            for (File propertyFile : BatchScanner.findPropertyFiles(path)) {
+                addResource(propertyFile.getPath());
+            }
+            return;
+        }
+        String name = BatchScanner.getResourceName(path);
+        if (resources.containsKey(name) || name.equals(TRIGGER_ALL)) {
+            log.error("resource name is already used: " + name + " - " + file + " ignored");
+            return;
+        }
+        ServiceResource resource = new ServiceResource(name, path.getPath());
+        resources.put(name, resource);
+        readSchedule(resource);
+    }
+
+    /**
+     * read service.schedule from the property file
+     */
+    protected void readSchedule(ServiceResource resource) {
+        Properties prop = new Properties();
+        try {
+            FileInputStream in = new FileInputStream(resource.propertyFile);
+            try {
+                prop.load(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            log.error("unable to read property file: " + resource.propertyFile + " " + e.getMessage());
+            return;
+        }
+        String schedule = prop.getProperty("service.schedule", "").trim();
+        try {
+            resource.schedule = schedule.isEmpty() ? null : new CronSchedule(schedule);
+        } catch (IllegalArgumentException e) {
+            log.error(resource.name + ": " + e.getMessage() + " - only scanned on demand");
+            resource.schedule = null;
+        }
+    }
+
+    /**
+     * start the scheduler, http endpoint & folder watcher
+     */
+    public void start() throws IOException {
+        scanPool = Executors.newFixedThreadPool(Math.max(parallel, 1));
+        log.info("scanner service: " + resources.size() + " resources, parallel=" + parallel);
+        for (ServiceResource resource : resources.values()) {
+            log.info("\t" + resource.name + " schedule="
+                    + (resource.schedule == null ? "on demand" : resource.schedule.toString()) + " ("
+                    + resource.propertyFile + ")");
+        }
+
+        lastScheduleMinute = TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+        timer = Executors.newSingleThreadScheduledExecutor();
+        timer.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                checkSchedules();
+            }
+        }, 10, 10, TimeUnit.SECONDS);
+
+        if (port > 0) {
+            startHttpServer();
+        }
+        if (watchFolder != null) {
+            startWatcher();
+        }
+    }
+
+    /**
+     * start the scans for every minute since the last check that matches a
+     * schedule
+     */
+    protected void checkSchedules() {
+        long minute = TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+        while (lastScheduleMinute < minute && !stopped) {
+            lastScheduleMinute++;
+            Calendar time = Calendar.getInstance();
+            time.setTimeInMillis(TimeUnit.MINUTES.toMillis(lastScheduleMinute));
+            for (ServiceResource resource : resources.values()) {
+                if (resource.schedule != null && resource.schedule.matches(time)) {
+                    trigger(resource.name, "schedule");
+                }
+            }
+        }
+    }
+
+    /**
+     * start a scan (or queue 1 more if it is running)
+     *
+     * @param name    the resource name (or all)
+     * @param trigger what started the scan (schedule, http, watch)
+     * @return false if there is no resource with the name
+     */
+    public synchronized boolean trigger(String name, String trigger) {
+        if (TRIGGER_ALL.equals(name)) {
+            for (String resourceName : resources.keySet()) {
+                trigger(resourceName, trigger);
+            }
+            return true;
+        }
+        final ServiceResource resource = resources.get(name);
+        if (resource == null) {
+            log.warn("scan requested for unknown resource: " + name + " (" + trigger + ")");
+            return false;
+        }
+        if (stopped) {
+            return true;
+        }
+        if (resource.running) {
+            if (!resource.queued) {
+                log.info(name + ": scan running - 1 more scan queued (" + trigger + ")");
+            }
+            resource.queued = true;
+            return true;
+        }
+        resource.running = true;
+        resource.lastTrigger = trigger;
+        log.info(name + ": scan requested (" + trigger + ")");
+        scanPool.execute(new Runnable() {
+            @Override
+            public void run() {
+                scan(resource);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * run 1 scan - a new scanner (the property file is read again), with the
+     * state kept from the last scan
+     */
+    protected void scan(ServiceResource resource) {
+        long start = System.currentTimeMillis();
+        resource.lastStart = start;
+        resource.lastStatus = "running";
+        ScanLogger.setContext(resource.name);
+        try {
+            readSchedule(resource);
+            Properties prop = new Properties();
+            FileInputStream in = new FileInputStream(resource.propertyFile);
+            try {
+                prop.load(in);
+            } finally {
+                in.close();
+            }
+            String scannerClass = prop.getProperty("scanner.class", BatchScanner.DEFAULT_SCANNER).trim();
+            GenericScanner scanner = (GenericScanner) Class.forName(scannerClass).getConstructor(String.class)
+                    .newInstance(resource.propertyFile);
+            scanner.setScanName(resource.name);
+            if (outFolder != null) {
+                scanner.setOutputFolder(outFolder + "/" + resource.name);
+            }
+            scanner.setFingerprintIndex(resource.fingerprints);
+
+            if (scanner.supportsConcurrentScans()) {
+                scanner.run();
+            } else {
+                synchronized (getExclusiveLock(scannerClass)) {
+                    scanner.run();
+                }
+            }
+            if (scanner.isScanCompleted()) {
+                resource.lastStatus = "ok";
+                resource.fingerprints = scanner.getFingerprintIndex();
+            } else {
+                resource.lastStatus = "failed";
+                // the index file is read again by the next scan
+                resource.fingerprints = null;
+            }
+        } catch (Throwable t) {
+            log.error("scan failed: " + t);
+            t.printStackTrace();
+            resource.lastStatus = "failed: " + t.getMessage();
+            resource.fingerprints = null;
+        } finally {
+            resource.lastMillis = System.currentTimeMillis() - start;
+            resource.scans++;
+            log.info("scan finished: status=" + resource.lastStatus + " time=" + resource.lastMillis / 1000 + "s");
+            ScanLogger.setContext(null);
+            finished(resource);
+        }
+    }
+
+    private synchronized Object getExclusiveLock(String scannerClass) {
+        Object lock = exclusiveLocks.get(scannerClass);
+        if (lock == null) {
+            lock = new Object();
+            exclusiveLocks.put(scannerClass, lock);
+        }
+        return lock;
+    }
+
+    private synchronized void finished(ServiceResource resource) {
+        resource.running = false;
+        if (resource.queued) {
+            resource.queued = false;
+            trigger(resource.name, "queued");
+        }
+    }
+
+    /**
+     * @return the status of each resource (1 line per resource, tab separated)
+     */
+    public synchronized String getStatus() {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        StringBuilder status = new StringBuilder(
+                "resource\tstatus\tscans\tlast trigger\tlast start\tseconds\tnext scheduled\tschedule\n");
+        for (ServiceResource resource : resources.values()) {
+            Calendar next = resource.schedule == null ? null : resource.schedule.next(Calendar.getInstance());
+            status.append(resource.name).append('\t')
+                    .append(resource.running ? "running" : resource.lastStatus).append('\t')
+                    .append(resource.scans).append('\t')
+                    .append(resource.lastTrigger).append('\t')
+                    .append(resource.lastStart == 0 ? "" : format.format(new Date(resource.lastStart))).append('\t')
+                    .append(resource.lastMillis / 1000).append('\t')
+                    .append(next == null ? "" : format.format(next.getTime())).append('\t')
+                    .append(resource.schedule == null ? "on demand" : resource.schedule.toString()).append('\n');
+        }
+        return status.toString();
+    }
+
+    /**
+     * http endpoint (localhost only) - GET /status, POST /scan/&lt;resource&gt;,
+     * POST /scan (all), POST /stop
+     */
+    protected void startHttpServer() throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        httpServer.createContext("/status", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                respond(exchange, 200, getStatus());
+            }
+        });
+        httpServer.createContext("/scan", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                    respond(exchange, 405, "use POST /scan/<resource>\n");
+                    return;
+                }
+                String name = exchange.getRequestURI().getPath().substring("/scan".length());
+                name = name.startsWith("/") ? name.substring(1) : name;
+                if (name.isEmpty()) {
+                    name = TRIGGER_ALL;
+                }
+                if (trigger(name, "http")) {
+                    respond(exchange, 202, "scan requested: " + name + "\n");
+                } else {
+                    respond(exchange, 404, "unknown resource: " + name + "\n");
+                }
+            }
+        });
+        httpServer.createContext("/stop", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                    respond(exchange, 405, "use POST /stop\n");
+                    return;
+                }
+                respond(exchange, 202, "stopping - running scans will finish\n");
+                stop();
+            }
+        });
+        httpServer.setExecutor(Executors.newSingleThreadExecutor());
+        httpServer.start();
+        log.info("\thttp trigger: http://localhost:" + httpServer.getAddress().getPort() + "/status");
+    }
+
+    private static void respond(HttpExchange exchange, int code, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(code, bytes.length);
+        OutputStream out = exchange.getResponseBody();
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * watch a folder for &lt;resource&gt;.scan files (existing files are
+     * processed when the service starts)
+     */
+    protected void startWatcher() throws IOException {
+        final File folder = new File(watchFolder);
+        folder.mkdirs();
+        final WatchService watcher = FileSystems.getDefault().newWatchService();
+        folder.toPath().register(watcher, StandardWatchEventKinds.ENTRY_CREATE);
+        File[] existing = folder.listFiles();
+        if (existing != null) {
+            for (File file : existing) {
+                triggerFile(file);
+            }
+        }
+        watchThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (!stopped) {
+                        WatchKey key = watcher.take();
+                        for (WatchEvent<?> event : key.pollEvents()) {
+                            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                                continue;
+                            }
+                            triggerFile(new File(folder, ((Path) event.context()).toString()));
+                        }
+                        if (!key.reset()) {
+                            log.error("watch folder is no longer available: " + folder);
+                            return;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    // stopped
+                } finally {
+                    try {
+                        watcher.close();
+                    } catch (IOException e) {
+                        // ignore
+                    }
+                }
+            }
+        }, "scanner-service-watch");
+        watchThread.setDaemon(true);
+        watchThread.start();
+        log.info("\twatch folder: " + folder.getAbsolutePath() + " (create <resource>" + TRIGGER_SUFFIX
+                + " to start a scan)");
+    }
+
+    private void triggerFile(File file) {
+        String fileName = file.getName();
+        if (!fileName.endsWith(TRIGGER_SUFFIX)) {
+            return;
+        }
+        if (!file.delete()) {
+            log.warn("unable to remove trigger file: " + file);
+        }
+        trigger(fileName.substring(0, fileName.length() - TRIGGER_SUFFIX.length()), "watch");
+    }
+
+    /**
+     * stop the service - no new scans are started, running scans finish
+     */
+    public void stop() {
+        synchronized (this) {
+            if (stopped) {
+                return;
+            }
+            stopped = true;
+            notifyAll();
+        }
+        log.info("scanner service stopping");
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+        if (httpServer != null) {
+            // the /stop response is sent before this is called
+            httpServer.stop(1);
+            ((ExecutorService) httpServer.getExecutor()).shutdown();
+        }
+        scanPool.shutdown();
+    }
+
+    /**
+     * wait until the service is stopped & the running scans finished
+     */
+    public void awaitStop() throws InterruptedException {
+        synchronized (this) {
+            while (!stopped) {
+                wait();
+            }
+        }
+        scanPool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        log.info("scanner service stopped");
+    }
+
+    public static void main(String[] args) {
+        final ScannerService service = new ScannerService();
+        boolean agreed = false;
+        String logLevel = "INFO";
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equalsIgnoreCase("-parallel") && i + 1 < args.length) {
+                service.parallel = Math.max(Integer.parseInt(args[++i]), 1);
+            } else if (arg.equalsIgnoreCase("-port") && i + 1 < args.length) {
+                service.port = Integer.parseInt(args[++i]);
+            } else if (arg.equalsIgnoreCase("-watch") && i + 1 < args.length) {
+                service.watchFolder = args[++i];
+            } else if (arg.equalsIgnoreCase("-out") && i + 1 < args.length) {
+                service.outFolder = args[++i];
+            } else if (arg.equalsIgnoreCase("-logLevel") && i + 1 < args.length) {
+                logLevel = args[++i];
+            } else if (arg.equalsIgnoreCase("agreeToDisclaimer")) {
+                agreed = true;
+            } else {
+                service.addResource(arg);
+            }
+        }
+        // logging is configured once for all scans (the log.* properties of each scan
+        // are ignored)
+        ScanLogger.configure(logLevel, true, ScanLogger.DEFAULT_BUFFER_SIZE);
+        if (service.resources.isEmpty()) {
+            log.info("Scanner service for EDC: no property files: usage:  ScannerService [-parallel n] [-port n] "
+                    + "[-watch folder] [-out folder] [-logLevel level] <property file|folder>... [agreeToDisclaimer]");
+            System.exit(0);
+        }
+
+        if (agreed) {
+            log.info("the following disclaimer was agreed to by passing 'agreeToDisclaimer'");
+            log.info(GenericScanner.DISCLAIMER);
+        }
+        if (agreed || GenericScanner.showDisclaimer()) {
+            try {
+                service.start();
+                Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        service.stop();
+                    }
+                }));
+                service.awaitStop();
+            } catch (IOException e) {
+                log.error("unable to start the scanner service: " + e.getMessage());
+                e.printStackTrace();
+                service.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else {
+            log.info("Disclaimer was declined - exiting");
+        }
+        ScanLogger.shutdown();
+        System.exit(0);
+    }
+
+}
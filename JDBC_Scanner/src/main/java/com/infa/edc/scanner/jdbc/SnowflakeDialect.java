@@ -0,0 +1,109 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Snowflake - each database has it's own INFORMATION_SCHEMA, so the catalog
+ * queries are run against <database>.INFORMATION_SCHEMA (TABLES, VIEWS &
+ * COLUMNS - 3 queries per database, instead of a SHOW COLUMNS for every
+ * getColumns call). VIEW_DEFINITION is used for the view ddl, COMMENT for the
+ * descriptions, LAST_ALTERED for incremental scans
+ *
+ * snowflake can refuse information_schema queries that return too much data -
+ * if the columns query for the database fails, the columns are read per schema
+ *
+ * not selected automatically (metadata.dialect=snowflake) - the column types &
+ * sizes are the INFORMATION_SCHEMA values (e.g. TEXT & 16777216, NUMBER & 38,
+ * no size for dates/floats), not the jdbc driver getColumns values (VARCHAR,
+ * ...) written by the generic extraction
+ */
+public class SnowflakeDialect extends InformationSchemaDialect {
+    private static final ScanLogger log = ScanLogger.getLogger(SnowflakeDialect.class);
+
+    @Override
+    public String getName() {
+        return "snowflake";
+    }
+
+    @Override
+    public boolean supports(String dbProductName) {
+        return false;
+    }
+
+    @Override
+    protected String getInformationSchema(String catalogName) {
+        return "\"" + catalogName.replace("\"", "\"\"") + "\".INFORMATION_SCHEMA.";
+    }
+
+    @Override
+    protected String getRemarksColumn() {
+        return "COMMENT";
+    }
+
+    /**
+     * LAST_ALTERED - changes for ddl (& dml), so a table may be read when only the
+     * data changed
+     */
+    @Override
+    protected String getLastAlteredColumn() {
+        return "TO_VARCHAR(LAST_ALTERED)";
+    }
+
+    /**
+     * the information_schema is already for 1 database
+     */
+    @Override
+    protected String getCatalogCondition(String catalogName) {
+        return "";
+    }
+
+    @Override
+    protected int extractColumns(GenericScanner scanner, Connection connection, String catalogName,
+            Map<String, Map<String, Boolean>> extracted) throws SQLException {
+        QueryFilter filter = getFilter(scanner, catalogName, extracted.keySet());
+        ResultSet rs = null;
+        try {
+            rs = executeQuery(scanner, "columns", connection, getColumnsQuery(connection, catalogName, filter), filter,
+                    catalogName);
+        } catch (SQLException e) {
+            // query failed before any rows were read (e.g. too much data) - retry 1
+            // schema at a time
+            log.warn("\t" + getName() + ": columns query for database " + catalogName + " failed: "
+                    + e.getMessage() + " - reading columns per schema");
+        }
+        if (rs != null) {
+            try {
+                return writeColumns(scanner, rs, catalogName, extracted);
+            } finally {
+                close(rs);
+            }
+        }
+
+        int colCount = 0;
+        for (String schemaName : extracted.keySet()) {
+            if (extracted.get(schemaName).isEmpty()) {
+                continue;
+            }
+            // the same filters - for 1 schema (TABLE_SCHEMA IN (?))
+            QueryFilter schemaFilter = getFilter(scanner, catalogName, Collections.singleton(schemaName));
+            ResultSet schemaColumns = null;
+            try {
+                schemaColumns = executeQuery(scanner, "columns", connection,
+                        getColumnsQuery(connection, catalogName, schemaFilter), schemaFilter,
+                        GenericScanner.objectName(catalogName, schemaName));
+                colCount += writeColumns(scanner, schemaColumns, catalogName, extracted);
+            } finally {
+                close(schemaColumns);
+            }
+        }
+        return colCount;
+    }
+
+}
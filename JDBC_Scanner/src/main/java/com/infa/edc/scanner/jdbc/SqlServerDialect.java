@@ -0,0 +1,181 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * SQL Server - reads the sys.* catalog views of each database (sys.schemas,
+ * sys.objects, sys.columns, sys.types, sys.sql_modules & sys.extended_properties
+ * for MS_Description) - 3 queries per database, instead of a getColumns call
+ * per table (very slow with SelectMethod=cursor). sys.objects.modify_date is
+ * the last altered timestamp for incremental scans
+ *
+ * the fetch size starts small and grows while rows are read (server cursors
+ * fetch getFetchSize() rows per round trip) - from 256 (or the fetchSize
+ * setting if smaller) up to 16384 (or the fetchSize setting if larger).
+ * fetchSize=0 uses the driver default
+ */
+public class SqlServerDialect extends InformationSchemaDialect {
+    protected static final int INITIAL_FETCH_SIZE = 256;
+    protected static final int MAX_FETCH_SIZE = 16384;
+    // column size of (max) & lob types
+    protected static final int CHAR_MAX = 2147483647;
+    protected static final int NCHAR_MAX = 1073741823;
+
+    @Override
+    public String getName() {
+        return "sqlserver";
+    }
+
+    @Override
+    public boolean supports(String dbProductName) {
+        return dbProductName != null && dbProductName.startsWith("Microsoft SQL Server");
+    }
+
+    @Override
+    protected int getFetchSize(GenericScanner scanner) {
+        return Math.min(INITIAL_FETCH_SIZE, scanner.fetchSize);
+    }
+
+    @Override
+    protected int getMaxFetchSize(GenericScanner scanner) {
+        return scanner.fetchSize <= 0 ? 0 : Math.max(MAX_FETCH_SIZE, scanner.fetchSize);
+    }
+
+    /**
+     * @return [database].sys.
+     */
+    protected String getSys(String catalogName) {
+        return "[" + catalogName.replace("]", "]]") + "].sys.";
+    }
+
+    /**
+     * sys views are already for 1 database
+     */
+    @Override
+    protected String getCatalogCondition(String catalogName) {
+        return "";
+    }
+
+    @Override
+    protected String getSchemaColumn() {
+        return "s.name";
+    }
+
+    @Override
+    protected String getTableColumn() {
+        return "o.name";
+    }
+
+    /**
+     * [ starts a character range in a sql server LIKE pattern
+     */
+    @Override
+    protected String escapeLikePattern(String pattern) {
+        return pattern.replace("[", "[[]");
+    }
+
+    /**
+     * MS_Description for an object (minor_id=0) or column (minor_id=column_id)
+     */
+    protected String getDescriptionJoin(String catalogName, String minorId) {
+        return " LEFT JOIN " + getSys(catalogName) + "extended_properties ep ON ep.class = 1 AND ep.major_id = o.object_id"
+                + " AND ep.minor_id = " + minorId + " AND ep.name = 'MS_Description'";
+    }
+
+    @Override
+    protected String getTablesQuery(Connection connection, String catalogName, QueryFilter filter) {
+        String sys = getSys(catalogName);
+        return "SELECT s.name AS TABLE_SCHEMA, o.name AS TABLE_NAME,"
+                + " CASE o.type WHEN 'V' THEN 'VIEW' ELSE 'TABLE' END AS TABLE_TYPE,"
+                + " CAST(ep.value AS NVARCHAR(4000)) AS REMARKS,"
+                + " CONVERT(VARCHAR(23), o.modify_date, 121) AS LAST_ALTERED" + " FROM " + sys + "objects o JOIN " + sys
+                + "schemas s ON s.schema_id = o.schema_id" + getDescriptionJoin(catalogName, "0")
+                + " WHERE o.type IN ('U', 'V') AND o.is_ms_shipped = 0" + filter.and() + " ORDER BY s.name, o.name";
+    }
+
+    @Override
+    protected String getCountQuery(Connection connection, String catalogName, QueryFilter filter) {
+        String sys = getSys(catalogName);
+        return "SELECT s.name AS TABLE_SCHEMA, o.name AS TABLE_NAME,"
+                + " CASE o.type WHEN 'V' THEN 'VIEW' ELSE 'TABLE' END AS TABLE_TYPE FROM " + sys + "objects o JOIN "
+                + sys + "schemas s ON s.schema_id = o.schema_id WHERE o.type IN ('U', 'V') AND o.is_ms_shipped = 0"
+                + filter.and();
+    }
+
+    @Override
+    protected String getViewsQuery(Connection connection, String catalogName, QueryFilter filter) {
+        String sys = getSys(catalogName);
+        return "SELECT s.name AS TABLE_SCHEMA, o.name AS TABLE_NAME, m.definition AS VIEW_DEFINITION FROM " + sys
+                + "sql_modules m JOIN " + sys + "objects o ON o.object_id = m.object_id JOIN " + sys
+                + "schemas s ON s.schema_id = o.schema_id WHERE o.type = 'V' AND o.is_ms_shipped = 0" + filter.and();
+    }
+
+    /**
+     * the raw type, max_length (bytes), precision & identity flag - mapped to the
+     * driver getColumns() values by getTypeName/getColumnSize
+     */
+    @Override
+    protected String getColumnsQuery(Connection connection, String catalogName, QueryFilter filter) {
+        String sys = getSys(catalogName);
+        return "SELECT s.name AS TABLE_SCHEMA, o.name AS TABLE_NAME, c.name AS COLUMN_NAME, t.name AS TYPE_NAME,"
+                + " c.max_length AS MAX_LENGTH, c.precision AS NUMERIC_PRECISION, c.is_identity AS IS_IDENTITY,"
+                + " c.column_id AS ORDINAL_POSITION, CAST(ep.value AS NVARCHAR(4000)) AS REMARKS" + " FROM " + sys
+                + "columns c JOIN " + sys + "objects o ON o.object_id = c.object_id JOIN " + sys
+                + "schemas s ON s.schema_id = o.schema_id JOIN " + sys + "types t ON t.user_type_id = c.user_type_id"
+                + getDescriptionJoin(catalogName, "c.column_id")
+                + " WHERE o.type IN ('U', 'V') AND o.is_ms_shipped = 0" + filter.and()
+                + " ORDER BY s.name, o.name, c.column_id";
+    }
+
+    /**
+     * identity columns are e.g. "int identity" (as the driver getColumns)
+     */
+    @Override
+    protected String getTypeName(ResultSet rs) throws SQLException {
+        String typeName = rs.getString("TYPE_NAME");
+        return rs.getInt("IS_IDENTITY") == 1 ? typeName + " identity" : typeName;
+    }
+
+    @Override
+    protected String getColumnSize(ResultSet rs) throws SQLException {
+        return Integer.toString(
+                getColumnSize(rs.getString("TYPE_NAME"), rs.getInt("MAX_LENGTH"), rs.getInt("NUMERIC_PRECISION")));
+    }
+
+    /**
+     * column size - the same values as the jdbc driver getColumns(): characters
+     * for n types, the largest size for (max) & lob types, precision for numbers
+     * & dates/times
+     *
+     * @param typeName  sys.types name
+     * @param maxLength sys.columns max_length (bytes, -1 = max)
+     * @param precision sys.columns precision
+     */
+    protected static int getColumnSize(String typeName, int maxLength, int precision) {
+        String type = typeName == null ? "" : typeName.toLowerCase();
+        if (type.equals("nchar") || type.equals("nvarchar")) {
+            return maxLength == -1 ? NCHAR_MAX : maxLength / 2;
+        } else if (type.equals("char") || type.equals("varchar") || type.equals("binary")
+                || type.equals("varbinary")) {
+            return maxLength == -1 ? CHAR_MAX : maxLength;
+        } else if (type.equals("text") || type.equals("image")) {
+            return CHAR_MAX;
+        } else if (type.equals("ntext") || type.equals("xml")) {
+            return NCHAR_MAX;
+        } else if (type.equals("uniqueidentifier")) {
+            // the string form
+            return 36;
+        } else if (type.equals("sql_variant")) {
+            return 8000;
+        } else if (precision > 0) {
+            return precision;
+        }
+        return maxLength == -1 ? CHAR_MAX : maxLength;
+    }
+
+}
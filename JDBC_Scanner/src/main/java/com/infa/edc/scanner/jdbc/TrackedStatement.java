@@ -0,0 +1,90 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * statement returned by GenericScanner.createStatement/prepareStatement - when
+ * the statement is closed (or executed again), the tracked result sets from it
+ * (see GenericScanner.executeQuery) are closed first, so their throttle permits
+ * are released even if the caller only closes the statement (jdbc closes the
+ * driver's result set, not the CountingResultSet wrapping it)
+ *
+ * a proxy - the methods are called a few times per statement, not per row
+ */
+class TrackedStatement implements InvocationHandler {
+    private final Statement stmt;
+    private final List<ResultSet> resultSets = new ArrayList<ResultSet>();
+
+    private TrackedStatement(Statement stmt) {
+        this.stmt = stmt;
+    }
+
+    /**
+     * @return the statement, closing the tracked result sets when it is closed
+     */
+    static Statement wrap(Statement stmt) {
+        return (Statement) Proxy.newProxyInstance(TrackedStatement.class.getClassLoader(),
+                new Class<?>[] { Statement.class }, new TrackedStatement(stmt));
+    }
+
+    /**
+     * @return the prepared statement, closing the tracked result sets when it is
+     *         closed
+     */
+    static PreparedStatement wrap(PreparedStatement stmt) {
+        return (PreparedStatement) Proxy.newProxyInstance(TrackedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, new TrackedStatement(stmt));
+    }
+
+    /**
+     * close a tracked result set with the statement it was returned by (nothing is
+     * done if the statement was not wrapped)
+     */
+    static void register(Statement stmt, ResultSet tracked) {
+        if (stmt != null && Proxy.isProxyClass(stmt.getClass())) {
+            InvocationHandler handler = Proxy.getInvocationHandler(stmt);
+            if (handler instanceof TrackedStatement) {
+                ((TrackedStatement) handler).add(tracked);
+            }
+        }
+    }
+
+    private synchronized void add(ResultSet tracked) {
+        resultSets.add(tracked);
+    }
+
+    private synchronized void closeResultSets() {
+        GenericScanner.closeQuietly(resultSets.toArray(new ResultSet[resultSets.size()]));
+        resultSets.clear();
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (name.equals("close") || name.startsWith("execute")) {
+            // jdbc closes the current result set of the statement
+            closeResultSets();
+        } else if (name.equals("equals") && args != null && args.length == 1) {
+            return proxy == args[0];
+        } else if (name.equals("hashCode") && args == null) {
+            return System.identityHashCode(proxy);
+        }
+        try {
+            return method.invoke(stmt, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * checkpoint=true - a schema with a failed metadata call (or anything after it)
+ * must not be recorded as done
+ */
+public class CheckpointTest {
+    private static final String URL = "jdbc:h2:mem:checkpoint_test;DB_CLOSE_DELAY=-1";
+    // the in-memory database is dropped when the last connection is closed
+    private static Connection connection;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void createDatabase() throws Exception {
+        connection = DriverManager.getConnection(URL, "sa", "");
+        Statement stmt = connection.createStatement();
+        try {
+            for (String schema : new String[] { "S1", "S2", "S3" }) {
+                stmt.execute("CREATE SCHEMA " + schema);
+                stmt.execute("CREATE TABLE " + schema + ".T (ID INTEGER)");
+            }
+        } finally {
+            stmt.close();
+        }
+    }
+
+    @AfterClass
+    public static void dropDatabase() throws Exception {
+        connection.close();
+    }
+
+    /**
+     * scan the database - getTables fails for schema S2
+     *
+     * @return the checkpoint journal (empty if there is none)
+     */
+    private String scan(boolean incremental) throws Exception {
+        Properties settings = new Properties();
+        settings.setProperty("driverClass", "org.h2.Driver");
+        settings.setProperty("URL", URL);
+        settings.setProperty("excluded.schemas", "INFORMATION_SCHEMA");
+        settings.setProperty("metadata.dialect", JdbcDialects.GENERIC);
+        settings.setProperty("checkpoint", "true");
+        File journal = new File(folder.getRoot(), "scan.checkpoint");
+        settings.setProperty("checkpoint.file", journal.getPath());
+        settings.setProperty("incremental", Boolean.toString(incremental));
+        GenericScanner scanner = new GenericScanner(ScanOutputFiles.writeProperties(folder.getRoot(), settings)) {
+            @Override
+            protected DatabaseMetaData currentMetaData() {
+                return failGetTables(super.currentMetaData(), "S2");
+            }
+        };
+        scanner.run();
+        assertFalse(scanner.isScanCompleted());
+        return journal.exists() ? new String(Files.readAllBytes(journal.toPath()), StandardCharsets.UTF_8) : "";
+    }
+
+    private static DatabaseMetaData failGetTables(final DatabaseMetaData metaData, final String schema) {
+        return (DatabaseMetaData) Proxy.newProxyInstance(CheckpointTest.class.getClassLoader(),
+                new Class<?>[] { DatabaseMetaData.class }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if (method.getName().equals("getTables") && schema.equals(args[1])) {
+                            throw new SQLException("getTables failed for " + schema);
+                        }
+                        try {
+                            return method.invoke(metaData, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+    }
+
+    @Test
+    public void failedSchemaIsNotCheckpointed() throws Exception {
+        String journal = scan(false);
+        assertTrue(journal, journal.contains("\tschema/CHECKPOINT_TEST/S1\t"));
+        // S3 is after the failure - the files hold the partial output of S2
+        assertFalse(journal, journal.contains("schema/CHECKPOINT_TEST/S2"));
+        assertFalse(journal, journal.contains("schema/CHECKPOINT_TEST/S3"));
+        assertFalse(journal, journal.contains("catalog/CHECKPOINT_TEST"));
+    }
+
+    @Test
+    public void notUsedWithIncremental() throws Exception {
+        assertFalse(scan(true).contains("schema/"));
+    }
+
+}
@@ -0,0 +1,88 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+import org.junit.Test;
+
+/**
+ * service.schedule - matching & the next scan time
+ */
+public class CronScheduleTest {
+
+    // 2026-10-17 is a saturday
+    private static Calendar time(int day, int hour, int minute) {
+        return new GregorianCalendar(2026, Calendar.OCTOBER, day, hour, minute);
+    }
+
+    @Test
+    public void steps() {
+        CronSchedule schedule = new CronSchedule("*/30 * * * *");
+        assertEquals(time(17, 10, 30).getTime(), schedule.next(time(17, 10, 5)).getTime());
+        assertEquals(time(17, 11, 0).getTime(), schedule.next(time(17, 10, 30)).getTime());
+
+        schedule = new CronSchedule("0 8-18/5 * * *");
+        assertTrue(schedule.matches(time(17, 8, 0)));
+        assertTrue(schedule.matches(time(17, 13, 0)));
+        assertTrue(schedule.matches(time(17, 18, 0)));
+        assertFalse(schedule.matches(time(17, 9, 0)));
+        assertFalse(schedule.matches(time(17, 13, 1)));
+    }
+
+    @Test
+    public void weekdays() {
+        // saturday - the next scan is monday 6am
+        CronSchedule schedule = new CronSchedule("0 6 * * 1-5");
+        assertEquals(time(19, 6, 0).getTime(), schedule.next(time(17, 6, 0)).getTime());
+        // 0 & 7 are sunday
+        assertTrue(new CronSchedule("0 0 * * 0").matches(time(18, 0, 0)));
+        assertTrue(new CronSchedule("0 0 * * 7").matches(time(18, 0, 0)));
+        assertFalse(new CronSchedule("0 0 * * 7").matches(time(17, 0, 0)));
+    }
+
+    @Test
+    public void dayFields() {
+        // both restricted - the 1st of the month or a monday
+        CronSchedule schedule = new CronSchedule("0 0 1 * 1");
+        assertTrue(schedule.matches(time(1, 0, 0)));
+        assertTrue(schedule.matches(time(19, 0, 0)));
+        assertFalse(schedule.matches(time(20, 0, 0)));
+
+        // */2 is not restricted - odd days that are mondays
+        schedule = new CronSchedule("0 0 */2 * 1");
+        assertTrue(schedule.matches(time(19, 0, 0)));
+        assertFalse(schedule.matches(time(26, 0, 0)));
+        assertFalse(schedule.matches(time(21, 0, 0)));
+        schedule = new CronSchedule("0 0 1 * */2");
+        assertTrue(schedule.matches(time(1, 0, 0)));
+        assertFalse(schedule.matches(time(2, 0, 0)));
+    }
+
+    @Test
+    public void noMatch() {
+        assertNull(new CronSchedule("0 0 31 2 *").next(time(17, 0, 0)));
+    }
+
+    @Test
+    public void invalid() {
+        for (String expression : new String[] { "* * *", "60 * * * *", "5-1 * * * *", "* * 0 * *", "*/0 * * * *",
+                "mon * * * *" }) {
+            try {
+                new CronSchedule(expression);
+                fail("not valid: " + expression);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Properties;
+
+/**
+ * benchmark harness (not a unit test) - creates an in-memory h2 database & scans
+ * it with the DatabaseMetaData extraction (1 getColumns call per table), bulk
+ * columns (1 getColumns call per schema) & the h2 dialect (3 queries per
+ * catalog). prints the time & the number of metadata calls for each.
+ *
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.infa.edc.scanner.jdbc.DialectBenchmark -Dexec.args="10 100 20"
+ *
+ * args: schemas (default 10), tables per schema (100), columns per table (20)
+ */
+public class DialectBenchmark {
+    private static final String URL = "jdbc:h2:mem:dialect_benchmark;DB_CLOSE_DELAY=-1";
+
+    public static void main(String[] args) throws Exception {
+        int schemas = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int tables = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int columns = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        Connection connection = DriverManager.getConnection(URL, "sa", "");
+        try {
+            createTables(connection, schemas, tables, columns);
+            System.out.println("h2: " + schemas + " schemas x " + tables + " tables x " + columns + " columns");
+
+            File folder = Files.createTempDirectory("dialect_benchmark").toFile();
+            // 1st run warms up the jvm & h2 - not reported
+            scan(folder, "warmup", JdbcDialects.GENERIC, false);
+            report("generic", scan(folder, "generic", JdbcDialects.GENERIC, false));
+            report("bulk.columns", scan(folder, "bulk", JdbcDialects.GENERIC, true));
+            report("h2 dialect", scan(folder, "h2", "h2", false));
+        } finally {
+            connection.close();
+        }
+    }
+
+    private static void createTables(Connection connection, int schemas, int tables, int columns)
+            throws Exception {
+        Statement stmt = connection.createStatement();
+        try {
+            for (int s = 0; s < schemas; s++) {
+                stmt.execute("CREATE SCHEMA S" + s);
+                for (int t = 0; t < tables; t++) {
+                    StringBuilder ddl = new StringBuilder("CREATE TABLE S" + s + ".T" + t + " (ID INTEGER");
+                    for (int c = 1; c < columns; c++) {
+                        ddl.append(", C").append(c).append(c % 2 == 0 ? " VARCHAR(100)" : " DECIMAL(12, 2)");
+                    }
+                    stmt.execute(ddl.append(")").toString());
+                }
+            }
+        } finally {
+            stmt.close();
+        }
+    }
+
+    private static GenericScanner scan(File folder, String name, String dialect, boolean bulkColumns)
+            throws Exception {
+        File scanFolder = new File(folder, name);
+        scanFolder.mkdirs();
+        Properties settings = new Properties();
+        settings.setProperty("driverClass", "org.h2.Driver");
+        settings.setProperty("URL", URL);
+        settings.setProperty("excluded.schemas", "INFORMATION_SCHEMA");
+        settings.setProperty("metadata.dialect", dialect);
+        settings.setProperty("bulk.columns", Boolean.toString(bulkColumns));
+        GenericScanner scanner = new GenericScanner(ScanOutputFiles.writeProperties(scanFolder, settings));
+        scanner.run();
+        return scanner;
+    }
+
+    private static void report(String name, GenericScanner scanner) {
+        ScanMetrics metrics = scanner.getMetrics();
+        System.out.println(String.format("%-14s %6d ms %7d calls %8d rows  completed=%s", name,
+                metrics.getElapsedMillis(), metrics.getTotalCalls(), metrics.getTotalRows(),
+                scanner.isScanCompleted()));
+    }
+
+}
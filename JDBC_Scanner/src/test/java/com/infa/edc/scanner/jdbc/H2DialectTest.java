@@ -0,0 +1,124 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * the h2 dialect (3 INFORMATION_SCHEMA queries per catalog) must write the same
+ * objects & links as the DatabaseMetaData extraction (metadata.dialect=generic)
+ * - except the view ddl, which only the dialect reads
+ */
+public class H2DialectTest {
+    private static final String URL = "jdbc:h2:mem:dialect_test;DB_CLOSE_DELAY=-1";
+    // the in-memory database is dropped when the last connection is closed
+    private static Connection connection;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void createDatabase() throws Exception {
+        connection = DriverManager.getConnection(URL, "sa", "");
+        Statement stmt = connection.createStatement();
+        try {
+            stmt.execute("CREATE SCHEMA SALES");
+            stmt.execute("CREATE TABLE SALES.CUSTOMER (ID INTEGER PRIMARY KEY, NAME VARCHAR(100) NOT NULL,"
+                    + " CREDIT_LIMIT DECIMAL(12, 2), CREATED TIMESTAMP)");
+            stmt.execute("COMMENT ON TABLE SALES.CUSTOMER IS 'customers'");
+            stmt.execute("COMMENT ON COLUMN SALES.CUSTOMER.NAME IS 'customer name'");
+            stmt.execute("CREATE TABLE SALES.ORDERS (ID INTEGER PRIMARY KEY, CUSTOMER_ID INTEGER, TOTAL DOUBLE,"
+                    + " NOTE CLOB)");
+            stmt.execute("CREATE VIEW SALES.BIG_CUSTOMERS AS SELECT ID, NAME FROM SALES.CUSTOMER"
+                    + " WHERE CREDIT_LIMIT > 1000");
+            stmt.execute("CREATE SCHEMA HR");
+            stmt.execute("CREATE TABLE HR.EMPLOYEE (ID BIGINT, FIRST_NAME VARCHAR(50), HIRED DATE)");
+            stmt.execute("CREATE TABLE HR.\"MixedCase\" (\"Id\" INTEGER)");
+        } finally {
+            stmt.close();
+        }
+    }
+
+    @AfterClass
+    public static void dropDatabase() throws Exception {
+        connection.close();
+    }
+
+    /**
+     * run a scan of the database
+     *
+     * @param dialect metadata.dialect setting
+     * @return the folder with the properties & output (out)
+     */
+    private File scan(String dialect) throws Exception {
+        File scanFolder = folder.newFolder(dialect);
+        Properties settings = new Properties();
+        settings.setProperty("driverClass", "org.h2.Driver");
+        settings.setProperty("URL", URL);
+        settings.setProperty("excluded.schemas", "INFORMATION_SCHEMA");
+        settings.setProperty("metadata.dialect", dialect);
+        GenericScanner scanner = new GenericScanner(ScanOutputFiles.writeProperties(scanFolder, settings));
+        scanner.run();
+        assertTrue("scan completed using " + dialect, scanner.isScanCompleted());
+        return scanFolder;
+    }
+
+    /**
+     * the count (progress estimate) uses the same type & name filters as the
+     * extraction
+     */
+    @Test
+    public void countMatchesExtraction() throws Exception {
+        File scanFolder = folder.newFolder("count");
+        Properties settings = new Properties();
+        settings.setProperty("driverClass", "org.h2.Driver");
+        settings.setProperty("URL", URL);
+        settings.setProperty("excluded.schemas", "INFORMATION_SCHEMA");
+        settings.setProperty("excluded.tables", "ORDERS");
+        settings.setProperty("tableTypes", "TABLE");
+        settings.setProperty("metadata.dialect", "h2");
+        GenericScanner scanner = new GenericScanner(ScanOutputFiles.writeProperties(scanFolder, settings));
+
+        // SALES.CUSTOMER, HR.EMPLOYEE & HR."MixedCase" - not ORDERS or the view
+        assertEquals(3, new H2Dialect().countObjects(scanner, connection, "DIALECT_TEST",
+                Arrays.asList("SALES", "HR")));
+        scanner.run();
+        assertTrue(scanner.isScanCompleted());
+        assertEquals(3, ScanOutputFiles.read(scanFolder, "objects-tables.csv").size());
+        assertEquals(0, ScanOutputFiles.read(scanFolder, "objects-views.csv").size());
+    }
+
+    @Test
+    public void dialectMatchesDatabaseMetaData() throws Exception {
+        File generic = scan(JdbcDialects.GENERIC);
+        File h2 = scan("h2");
+
+        for (String fileName : new String[] { "objects-catalogAndSchemas.csv", "objects-tables.csv",
+                "objects-columns.csv", "objects-viewColumns.csv", "links.csv" }) {
+            assertEquals(fileName, ScanOutputFiles.read(generic, fileName), ScanOutputFiles.read(h2, fileName));
+        }
+        // class, identity, name, description, ddl (generic extraction has no ddl)
+        assertEquals(ScanOutputFiles.read(generic, "objects-views.csv", 4),
+                ScanOutputFiles.read(h2, "objects-views.csv", 4));
+        List<List<String>> views = ScanOutputFiles.read(h2, "objects-views.csv");
+        assertEquals(1, views.size());
+        assertTrue(views.get(0).get(4), views.get(0).get(4).contains("CREDIT_LIMIT"));
+    }
+
+}
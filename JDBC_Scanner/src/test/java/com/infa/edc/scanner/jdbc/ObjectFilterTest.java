@@ -0,0 +1,104 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * the objects scanned must be the same with or without filter.pushdown - h2
+ * stores un-quoted identifiers in upper case, but a quoted identifier in any
+ * case
+ */
+public class ObjectFilterTest {
+    private static final String URL = "jdbc:h2:mem:filter_test;DB_CLOSE_DELAY=-1";
+    // the in-memory database is dropped when the last connection is closed
+    private static Connection connection;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void createDatabase() throws Exception {
+        connection = DriverManager.getConnection(URL, "sa", "");
+        Statement stmt = connection.createStatement();
+        try {
+            stmt.execute("CREATE SCHEMA SALES");
+            stmt.execute("CREATE TABLE SALES.SALES_2021 (ID INTEGER)");
+            stmt.execute("CREATE TABLE SALES.\"Sales_2020\" (ID INTEGER)");
+            stmt.execute("CREATE TABLE SALES.OTHER (ID INTEGER)");
+        } finally {
+            stmt.close();
+        }
+    }
+
+    @AfterClass
+    public static void dropDatabase() throws Exception {
+        connection.close();
+    }
+
+    private File scan(String dialect, boolean pushdown) throws Exception {
+        File scanFolder = folder.newFolder(dialect + "-" + pushdown);
+        Properties settings = new Properties();
+        settings.setProperty("driverClass", "org.h2.Driver");
+        settings.setProperty("URL", URL);
+        settings.setProperty("schema", "SALES");
+        settings.setProperty("tables", "SALES*");
+        settings.setProperty("filter.pushdown", Boolean.toString(pushdown));
+        settings.setProperty("metadata.dialect", dialect);
+        GenericScanner scanner = new GenericScanner(ScanOutputFiles.writeProperties(scanFolder, settings));
+        scanner.run();
+        assertTrue("scan completed", scanner.isScanCompleted());
+        return scanFolder;
+    }
+
+    @Test
+    public void pushdownMatchesQuotedIdentifiers() throws Exception {
+        assertEquals(ObjectFilter.ALL,
+                new ObjectFilter("SALES*", "").getSearchPatterns(connection.getMetaData()));
+
+        File pushed = scan(JdbcDialects.GENERIC, true);
+        File filtered = scan(JdbcDialects.GENERIC, false);
+        for (String fileName : new String[] { "objects-tables.csv", "objects-columns.csv", "links.csv" }) {
+            assertEquals(fileName, ScanOutputFiles.read(filtered, fileName), ScanOutputFiles.read(pushed, fileName));
+        }
+        List<List<String>> tables = ScanOutputFiles.read(pushed, "objects-tables.csv");
+        assertEquals(2, tables.size());
+        assertTrue(tables.toString(), tables.toString().contains("Sales_2020"));
+    }
+
+    /**
+     * the dialect queries filter on UPPER(TABLE_NAME) LIKE 'SALES%'
+     */
+    @Test
+    public void dialectMatchesQuotedIdentifiers() throws Exception {
+        assertEquals("[SALES%]", new ObjectFilter("Sales*", "").getLikePatterns().toString());
+
+        File generic = scan(JdbcDialects.GENERIC, false);
+        File h2 = scan("h2", true);
+        for (String fileName : new String[] { "objects-tables.csv", "objects-columns.csv", "links.csv" }) {
+            assertEquals(fileName, ScanOutputFiles.read(generic, fileName), ScanOutputFiles.read(h2, fileName));
+        }
+    }
+
+    @Test
+    public void entriesWithoutLettersArePushedDown() throws Exception {
+        assertEquals("[2020%, %_01]",
+                new ObjectFilter("2020*, *?01", "").getSearchPatterns(connection.getMetaData()).toString());
+    }
+
+}
@@ -0,0 +1,225 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * stub jdbc Connection that replays recorded query results - for testing the
+ * dialects of databases that are not available locally (e.g. snowflake)
+ *
+ * a query is matched by a fragment of the sql (& optionally the value of the
+ * 1st parameter) - the first matching recording is used. DatabaseMetaData
+ * returns the product name, the catalogs & the schemas for each catalog. the
+ * sql executed (with the 1st parameter) is kept in getExecuted()
+ */
+class ReplayDatabase {
+    private final String productName;
+    private final Map<String, List<String>> catalogs = new LinkedHashMap<String, List<String>>();
+    private final List<Recording> recordings = new ArrayList<Recording>();
+    private final List<String> executed = Collections.synchronizedList(new ArrayList<String>());
+
+    private static class Recording {
+        final String sqlFragment;
+        final String parameter;
+        final String[] columns;
+        final String[][] rows;
+        final String error;
+
+        Recording(String sqlFragment, String parameter, String[] columns, String[][] rows, String error) {
+            this.sqlFragment = sqlFragment;
+            this.parameter = parameter;
+            this.columns = columns;
+            this.rows = rows;
+            this.error = error;
+        }
+    }
+
+    ReplayDatabase(String productName) {
+        this.productName = productName;
+    }
+
+    /**
+     * add a catalog & it's schemas (DatabaseMetaData.getCatalogs/getSchemas)
+     */
+    ReplayDatabase catalog(String catalog, String... schemas) {
+        catalogs.put(catalog, Arrays.asList(schemas));
+        return this;
+    }
+
+    /**
+     * record the result of a query
+     *
+     * @param sqlFragment part of the sql
+     * @param parameter   value of the 1st parameter (null = any)
+     * @param columns     the column labels
+     * @param rows        the rows (values in column order)
+     */
+    ReplayDatabase rows(String sqlFragment, String parameter, String[] columns, String[]... rows) {
+        recordings.add(new Recording(sqlFragment, parameter, columns, rows, null));
+        return this;
+    }
+
+    /**
+     * record a query that fails (executeQuery throws a SQLException)
+     */
+    ReplayDatabase fails(String sqlFragment, String parameter, String message) {
+        recordings.add(new Recording(sqlFragment, parameter, null, null, message));
+        return this;
+    }
+
+    /**
+     * @return the queries executed - sql [1st parameter]
+     */
+    List<String> getExecuted() {
+        return executed;
+    }
+
+    Connection connect() {
+        return proxy(Connection.class, new InvocationHandler() {
+            private final DatabaseMetaData metaData = proxy(DatabaseMetaData.class, new MetaData());
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+                if (name.equals("getMetaData")) {
+                    return metaData;
+                } else if (name.equals("prepareStatement")) {
+                    return proxy(PreparedStatement.class, new Query((String) args[0]));
+                } else if (name.equals("createStatement")) {
+                    return proxy(Statement.class, new Query(null));
+                } else if (name.equals("isValid")) {
+                    return true;
+                }
+                return defaultValue(method);
+            }
+        });
+    }
+
+    private class MetaData implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("getDatabaseProductName")) {
+                return productName;
+            } else if (name.equals("getCatalogs")) {
+                List<String[]> rows = new ArrayList<String[]>();
+                for (String catalog : catalogs.keySet()) {
+                    rows.add(new String[] { catalog });
+                }
+                return resultSet(null, new String[] { "TABLE_CAT" }, rows.toArray(new String[0][]));
+            } else if (name.equals("getSchemas") && args != null) {
+                List<String[]> rows = new ArrayList<String[]>();
+                List<String> schemas = catalogs.get(args[0]);
+                for (String schema : schemas == null ? Collections.<String> emptyList() : schemas) {
+                    rows.add(new String[] { schema, (String) args[0] });
+                }
+                return resultSet(null, new String[] { "TABLE_SCHEM", "TABLE_CATALOG" }, rows.toArray(new String[0][]));
+            }
+            return defaultValue(method);
+        }
+    }
+
+    /**
+     * a Statement or PreparedStatement - executeQuery replays a recording
+     */
+    private class Query implements InvocationHandler {
+        private final String sql;
+        private String parameter = null;
+
+        Query(String sql) {
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("setString") && ((Integer) args[0]) == 1) {
+                parameter = (String) args[1];
+            } else if (name.equals("executeQuery")) {
+                String query = args == null ? sql : (String) args[0];
+                executed.add(query + (parameter == null ? "" : " [" + parameter + "]"));
+                for (Recording recording : recordings) {
+                    if (query.contains(recording.sqlFragment)
+                            && (recording.parameter == null || recording.parameter.equals(parameter))) {
+                        if (recording.error != null) {
+                            throw new SQLException(recording.error);
+                        }
+                        return resultSet((Statement) proxy, recording.columns, recording.rows);
+                    }
+                }
+                throw new SQLException("no recording for: " + query + " [" + parameter + "]");
+            }
+            return defaultValue(method);
+        }
+    }
+
+    private static ResultSet resultSet(final Statement statement, final String[] columns, final String[][] rows) {
+        return proxy(ResultSet.class, new InvocationHandler() {
+            private int row = -1;
+            private boolean wasNull = false;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+                if (name.equals("next")) {
+                    return ++row < rows.length;
+                } else if (name.equals("getStatement")) {
+                    return statement;
+                } else if (name.equals("wasNull")) {
+                    return wasNull;
+                } else if (name.equals("getString") || name.equals("getLong") || name.equals("getInt")) {
+                    int column = args[0] instanceof Integer ? (Integer) args[0] - 1
+                            : Arrays.asList(columns).indexOf(((String) args[0]).toUpperCase());
+                    if (column < 0) {
+                        throw new SQLException("no column: " + args[0]);
+                    }
+                    String value = rows[row][column];
+                    wasNull = value == null;
+                    if (name.equals("getString")) {
+                        return value;
+                    }
+                    long number = value == null ? 0 : Long.parseLong(value);
+                    return name.equals("getLong") ? (Object) number : (Object) (int) number;
+                }
+                return defaultValue(method);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(ReplayDatabase.class.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+    /**
+     * anything else - nothing is done (false, 0 or null)
+     */
+    private static Object defaultValue(Method method) {
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+}
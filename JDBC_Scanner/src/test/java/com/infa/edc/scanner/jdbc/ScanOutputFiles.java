@@ -0,0 +1,111 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvException;
+
+/**
+ * test helpers - write a scanner property file & read the csv files written by
+ * a scan
+ */
+class ScanOutputFiles {
+
+    private ScanOutputFiles() {
+    }
+
+    /**
+     * write the scanner settings to folder/scanner.properties - output is written
+     * to folder/out (no jmx, no metrics report)
+     *
+     * @return the property file name
+     */
+    static String writeProperties(File folder, Properties settings) throws IOException {
+        Properties prop = new Properties();
+        prop.setProperty("user", "sa");
+        prop.setProperty("pwd", "");
+        prop.setProperty("customMetadata.folder", new File(folder, "out").getPath());
+        prop.setProperty("log.level", "WARN");
+        prop.setProperty("log.async", "false");
+        prop.setProperty("log.summary.interval", "0");
+        prop.setProperty("metrics.jmx", "false");
+        prop.setProperty("metrics.report", "false");
+        prop.putAll(settings);
+        File file = new File(folder, "scanner.properties");
+        OutputStream out = new FileOutputStream(file);
+        try {
+            prop.store(out, null);
+        } finally {
+            out.close();
+        }
+        return file.getPath();
+    }
+
+    /**
+     * @param folder   the folder passed to writeProperties
+     * @param fileName e.g. objects-tables.csv
+     * @return the rows (without the header) - sorted, since the order of the
+     *         objects depends on the extraction
+     */
+    static List<List<String>> read(File folder, String fileName) throws IOException, CsvException {
+        return read(folder, fileName, -1);
+    }
+
+    /**
+     * @param skipColumn a column left out of the rows (-1 = none)
+     * @see #read(File, String)
+     */
+    static List<List<String>> read(File folder, String fileName, int skipColumn) throws IOException, CsvException {
+        CSVReader reader = new CSVReader(new FileReader(new File(new File(folder, "out"), fileName)));
+        List<String[]> lines;
+        try {
+            lines = reader.readAll();
+        } finally {
+            reader.close();
+        }
+        List<List<String>> rows = new ArrayList<List<String>>();
+        for (String[] line : lines.subList(1, lines.size())) {
+            List<String> row = new ArrayList<String>(Arrays.asList(line));
+            if (skipColumn >= 0) {
+                row.remove(skipColumn);
+            }
+            rows.add(row);
+        }
+        return sort(rows);
+    }
+
+    /**
+     * @return the expected rows of a file - sorted like read()
+     */
+    static List<List<String>> rows(String[]... expected) {
+        List<List<String>> rows = new ArrayList<List<String>>();
+        for (String[] row : expected) {
+            rows.add(Arrays.asList(row));
+        }
+        return sort(rows);
+    }
+
+    private static List<List<String>> sort(List<List<String>> rows) {
+        Collections.sort(rows, new Comparator<List<String>>() {
+            @Override
+            public int compare(List<String> a, List<String> b) {
+                return a.toString().compareTo(b.toString());
+            }
+        });
+        return rows;
+    }
+
+}
@@ -0,0 +1,66 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * resuming the output files of an interrupted scan (checkpoint=true)
+ */
+public class ScannerOutputTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Map<String, Long> writeFile(String text) throws Exception {
+        ScannerOutput output = new ScannerOutput(folder.getRoot().getPath(), "test.zip", ScannerOutput.MODE_FILES);
+        Writer writer = output.openWriter("rows.csv", false);
+        writer.write(text);
+        output.sync();
+        Map<String, Long> sizes = output.getFileSizes();
+        output.close();
+        return sizes;
+    }
+
+    @Test
+    public void resumeTruncatesToCheckpoint() throws Exception {
+        Map<String, Long> sizes = writeFile("header\nrow 1\n");
+        assertEquals(Long.valueOf(13), sizes.get("rows.csv"));
+        writeFile("header\nrow 1\nrow 2 - after the checkpoint\n");
+
+        ScannerOutput output = new ScannerOutput(folder.getRoot().getPath(), "test.zip", ScannerOutput.MODE_FILES);
+        assertTrue(output.resumeFrom(sizes));
+        Writer writer = output.openWriter("rows.csv", false);
+        assertTrue(output.isResumed("rows.csv"));
+        writer.write("row 2\n");
+        output.close();
+        assertEquals(13 + 6, new File(folder.getRoot(), "rows.csv").length());
+    }
+
+    @Test
+    public void resumeRefusedForShortOrMissingFile() throws Exception {
+        writeFile("header\n");
+        ScannerOutput output = new ScannerOutput(folder.getRoot().getPath(), "test.zip", ScannerOutput.MODE_FILES);
+        assertFalse(output.resumeFrom(Collections.singletonMap("rows.csv", 100L)));
+        assertFalse(output.resumeFrom(Collections.singletonMap("missing.csv", 0L)));
+
+        // not resumed - the file is written from the start
+        output.openWriter("rows.csv", false);
+        assertFalse(output.isResumed("rows.csv"));
+        output.close();
+        assertEquals(0, new File(folder.getRoot(), "rows.csv").length());
+    }
+
+}
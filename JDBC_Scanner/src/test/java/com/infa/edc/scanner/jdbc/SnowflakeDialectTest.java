@@ -0,0 +1,135 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.sql.Connection;
+import java.util.Properties;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * snowflake dialect - replays recorded INFORMATION_SCHEMA results for 1
+ * database (2 schemas). the columns query for the database fails (too much
+ * data), so the columns are read per schema. the queries only ask for the
+ * schemas being scanned
+ */
+public class SnowflakeDialectTest {
+    private static final String DB = "SALES_DB";
+    private static final String VIEW_DDL = "create or replace view BIG_CUSTOMERS as\n"
+            + "select ID from CUSTOMER where CREDIT > 1000;";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ReplayDatabase recordedDatabase() {
+        String[] columns = new String[] { "TABLE_SCHEMA", "TABLE_NAME", "COLUMN_NAME", "TYPE_NAME", "COLUMN_SIZE",
+                "ORDINAL_POSITION", "REMARKS" };
+        return new ReplayDatabase("Snowflake").catalog(DB, "INFORMATION_SCHEMA", "PUBLIC", "STAGE")
+                .rows("TABLE_TYPE FROM \"SALES_DB\".INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA IN (?, ?)", "PUBLIC",
+                        new String[] { "TABLE_SCHEMA", "TABLE_NAME", "TABLE_TYPE" },
+                        new String[] { "PUBLIC", "BIG_CUSTOMERS", "VIEW" },
+                        new String[] { "PUBLIC", "CUSTOMER", "BASE TABLE" }, new String[] { "STAGE", "RAW", "BASE TABLE" })
+                .rows("\"SALES_DB\".INFORMATION_SCHEMA.VIEWS", null,
+                        new String[] { "TABLE_SCHEMA", "TABLE_NAME", "VIEW_DEFINITION" },
+                        new String[] { "INFORMATION_SCHEMA", "TABLES", "" },
+                        new String[] { "PUBLIC", "BIG_CUSTOMERS", VIEW_DDL })
+                .rows("\"SALES_DB\".INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA IN (?, ?) ORDER BY", "PUBLIC",
+                        new String[] { "TABLE_SCHEMA", "TABLE_NAME", "TABLE_TYPE", "REMARKS", "LAST_ALTERED" },
+                        new String[] { "INFORMATION_SCHEMA", "TABLES", "VIEW", "", "2024-01-01" },
+                        new String[] { "PUBLIC", "BIG_CUSTOMERS", "VIEW", "big customers", "2024-03-01" },
+                        new String[] { "PUBLIC", "CUSTOMER", "BASE TABLE", "customers", "2024-02-01" },
+                        new String[] { "STAGE", "RAW", "BASE TABLE", null, "2024-02-01" })
+                .fails("\"SALES_DB\".INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA IN (?, ?) ORDER BY", null,
+                        "Information schema query returned too much data."
+                                + " Please repeat query with more selective predicates.")
+                .rows("COLUMNS WHERE TABLE_SCHEMA IN (?) ORDER BY", "PUBLIC", columns,
+                        new String[] { "PUBLIC", "BIG_CUSTOMERS", "ID", "NUMBER", "38", "1", null },
+                        new String[] { "PUBLIC", "CUSTOMER", "ID", "NUMBER", "38", "1", "customer id" },
+                        new String[] { "PUBLIC", "CUSTOMER", "NAME", "TEXT", "100", "2", null })
+                .rows("COLUMNS WHERE TABLE_SCHEMA IN (?) ORDER BY", "STAGE", columns,
+                        new String[] { "STAGE", "RAW", "LINE", "TEXT", "16777216", "1", null });
+    }
+
+    @Test
+    public void extractDatabase() throws Exception {
+        final ReplayDatabase database = recordedDatabase();
+        Properties settings = new Properties();
+        settings.setProperty("driverClass", "net.snowflake.client.jdbc.SnowflakeDriver");
+        settings.setProperty("URL", "jdbc:snowflake://replay");
+        settings.setProperty("excluded.schemas", "INFORMATION_SCHEMA");
+        // not selected automatically - the type names & sizes differ from getColumns
+        settings.setProperty("metadata.dialect", "snowflake");
+        GenericScanner scanner = new GenericScanner(ScanOutputFiles.writeProperties(folder.getRoot(), settings)) {
+            @Override
+            public Connection getConnection(String classType, String url, String user, String pwd) {
+                return database.connect();
+            }
+        };
+        scanner.run();
+        assertTrue(scanner.isScanCompleted());
+
+        File out = folder.getRoot();
+        assertEquals(ScanOutputFiles.rows(
+                new String[] { "com.infa.ldm.relational.Database", DB, DB, "Relational", "Snowflake" },
+                new String[] { "com.infa.ldm.relational.Schema", DB + "/PUBLIC", "PUBLIC", "", "" },
+                new String[] { "com.infa.ldm.relational.Schema", DB + "/STAGE", "STAGE", "", "" }),
+                ScanOutputFiles.read(out, "objects-catalogAndSchemas.csv"));
+        assertEquals(ScanOutputFiles.rows(
+                new String[] { "com.infa.ldm.relational.Table", DB + "/PUBLIC/CUSTOMER", "CUSTOMER", "customers" },
+                new String[] { "com.infa.ldm.relational.Table", DB + "/STAGE/RAW", "RAW", "" }),
+                ScanOutputFiles.read(out, "objects-tables.csv"));
+        // VIEW_DEFINITION is the view ddl
+        assertEquals(ScanOutputFiles.rows(new String[] { "com.infa.ldm.relational.View", DB + "/PUBLIC/BIG_CUSTOMERS",
+                "BIG_CUSTOMERS", "big customers", VIEW_DDL, "" }), ScanOutputFiles.read(out, "objects-views.csv"));
+        assertEquals(ScanOutputFiles.rows(
+                new String[] { "com.infa.ldm.relational.Column", DB + "/PUBLIC/CUSTOMER/ID", "ID", "NUMBER", "38", "1",
+                        DB + "/PUBLIC/CUSTOMER", "customer id" },
+                new String[] { "com.infa.ldm.relational.Column", DB + "/PUBLIC/CUSTOMER/NAME", "NAME", "TEXT", "100",
+                        "2", DB + "/PUBLIC/CUSTOMER", "" },
+                new String[] { "com.infa.ldm.relational.Column", DB + "/STAGE/RAW/LINE", "LINE", "TEXT", "16777216",
+                        "1", DB + "/STAGE/RAW", "" }),
+                ScanOutputFiles.read(out, "objects-columns.csv"));
+        assertEquals(ScanOutputFiles.rows(new String[] { "com.infa.ldm.relational.ViewColumn",
+                DB + "/PUBLIC/BIG_CUSTOMERS/ID", "ID", "NUMBER", "38", "1", DB + "/PUBLIC/BIG_CUSTOMERS", "" }),
+                ScanOutputFiles.read(out, "objects-viewColumns.csv"));
+        assertEquals(ScanOutputFiles.rows(new String[] { "core.ResourceParentChild", "", DB },
+                new String[] { "com.infa.ldm.relational.DatabaseSchema", DB, DB + "/PUBLIC" },
+                new String[] { "com.infa.ldm.relational.DatabaseSchema", DB, DB + "/STAGE" },
+                new String[] { "com.infa.ldm.relational.SchemaTable", DB + "/PUBLIC", DB + "/PUBLIC/CUSTOMER" },
+                new String[] { "com.infa.ldm.relational.SchemaTable", DB + "/STAGE", DB + "/STAGE/RAW" },
+                new String[] { "com.infa.ldm.relational.SchemaView", DB + "/PUBLIC", DB + "/PUBLIC/BIG_CUSTOMERS" },
+                new String[] { "com.infa.ldm.relational.TableColumn", DB + "/PUBLIC/CUSTOMER",
+                        DB + "/PUBLIC/CUSTOMER/ID" },
+                new String[] { "com.infa.ldm.relational.TableColumn", DB + "/PUBLIC/CUSTOMER",
+                        DB + "/PUBLIC/CUSTOMER/NAME" },
+                new String[] { "com.infa.ldm.relational.TableColumn", DB + "/STAGE/RAW", DB + "/STAGE/RAW/LINE" },
+                new String[] { "com.infa.ldm.relational.ViewViewColumn", DB + "/PUBLIC/BIG_CUSTOMERS",
+                        DB + "/PUBLIC/BIG_CUSTOMERS/ID" }),
+                ScanOutputFiles.read(out, "links.csv"));
+
+        // the database columns query failed - 1 query per schema
+        int schemaQueries = 0;
+        for (String sql : database.getExecuted()) {
+            if (sql.contains("COLUMNS WHERE TABLE_SCHEMA IN (?) ORDER BY")) {
+                schemaQueries++;
+                assertTrue(sql, sql.endsWith("[PUBLIC]") || sql.endsWith("[STAGE]"));
+            }
+        }
+        assertEquals(2, schemaQueries);
+    }
+
+    @Test
+    public void notSelectedAutomatically() {
+        assertNull(JdbcDialects.find(JdbcDialects.AUTO, "Snowflake"));
+        assertEquals("snowflake", JdbcDialects.find("snowflake", "Snowflake").getName());
+    }
+
+}
@@ -0,0 +1,126 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * sql server dialect - replays recorded sys.* results for 1 database. the
+ * column types & sizes written must be the values the mssql-jdbc driver
+ * getColumns returns (the generic extraction)
+ */
+public class SqlServerDialectTest {
+    private static final String DB = "SALES";
+    private static final String VIEW_DDL = "CREATE VIEW dbo.CUSTOMER_NAMES AS SELECT ID, NAME FROM dbo.CUSTOMER";
+
+    // column, sys.types name, max_length, precision, is_identity - driver TYPE_NAME & COLUMN_SIZE
+    private static final String[][] COLUMNS = new String[][] {
+            { "ID", "int", "4", "10", "1", "int identity", "10" },
+            { "NAME", "nvarchar", "100", "0", "0", "nvarchar", "50" },
+            { "NOTES", "nvarchar", "-1", "0", "0", "nvarchar", "1073741823" },
+            { "DATA", "varchar", "-1", "0", "0", "varchar", "2147483647" },
+            { "CODE", "char", "3", "0", "0", "char", "3" },
+            { "CREDIT", "decimal", "9", "12", "0", "decimal", "12" },
+            { "CREATED", "datetime", "8", "23", "0", "datetime", "23" },
+            { "UPDATED", "datetime2", "8", "27", "0", "datetime2", "27" },
+            { "BIRTH", "date", "3", "10", "0", "date", "10" },
+            { "ACTIVE", "bit", "1", "1", "0", "bit", "1" },
+            { "SCORE", "float", "8", "53", "0", "float", "53" },
+            { "GUID", "uniqueidentifier", "16", "0", "0", "uniqueidentifier", "36" },
+            { "DOC", "xml", "-1", "0", "0", "xml", "1073741823" },
+            { "LEGACY", "text", "16", "0", "0", "text", "2147483647" },
+            { "LEGACY_N", "ntext", "16", "0", "0", "ntext", "1073741823" },
+            { "PHOTO", "image", "16", "0", "0", "image", "2147483647" },
+            { "EXTRA", "sql_variant", "8016", "0", "0", "sql_variant", "8000" },
+            { "ROW_VERSION", "timestamp", "8", "0", "0", "timestamp", "8" } };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ReplayDatabase recordedDatabase() {
+        List<String[]> columnRows = new ArrayList<String[]>();
+        for (int i = 0; i < COLUMNS.length; i++) {
+            String[] column = COLUMNS[i];
+            columnRows.add(new String[] { "dbo", "CUSTOMER", column[0], column[1], column[2], column[3], column[4],
+                    Integer.toString(i + 1), i == 0 ? "customer id" : null });
+        }
+        columnRows.add(new String[] { "dbo", "CUSTOMER_NAMES", "ID", "int", "4", "10", "0", "1", null });
+        return new ReplayDatabase("Microsoft SQL Server").catalog(DB, "dbo", "sys")
+                .rows("TABLE_TYPE FROM [SALES].sys.objects", "dbo",
+                        new String[] { "TABLE_SCHEMA", "TABLE_NAME", "TABLE_TYPE" },
+                        new String[] { "dbo", "CUSTOMER", "TABLE" }, new String[] { "dbo", "CUSTOMER_NAMES", "VIEW" })
+                .rows("[SALES].sys.sql_modules", "dbo",
+                        new String[] { "TABLE_SCHEMA", "TABLE_NAME", "VIEW_DEFINITION" },
+                        new String[] { "dbo", "CUSTOMER_NAMES", VIEW_DDL })
+                .rows("AS LAST_ALTERED FROM [SALES].sys.objects", "dbo",
+                        new String[] { "TABLE_SCHEMA", "TABLE_NAME", "TABLE_TYPE", "REMARKS", "LAST_ALTERED" },
+                        new String[] { "dbo", "CUSTOMER", "TABLE", "customers", "2024-02-01 10:00:00.000" },
+                        new String[] { "dbo", "CUSTOMER_NAMES", "VIEW", null, "2024-03-01 10:00:00.000" })
+                .rows("[SALES].sys.columns", "dbo",
+                        new String[] { "TABLE_SCHEMA", "TABLE_NAME", "COLUMN_NAME", "TYPE_NAME", "MAX_LENGTH",
+                                "NUMERIC_PRECISION", "IS_IDENTITY", "ORDINAL_POSITION", "REMARKS" },
+                        columnRows.toArray(new String[0][]));
+    }
+
+    @Test
+    public void extractDatabase() throws Exception {
+        final ReplayDatabase database = recordedDatabase();
+        Properties settings = new Properties();
+        settings.setProperty("driverClass", "com.microsoft.sqlserver.jdbc.SQLServerDriver");
+        settings.setProperty("URL", "jdbc:sqlserver://replay");
+        settings.setProperty("excluded.schemas", "sys");
+        settings.setProperty("tables", "CUSTOMER*");
+        GenericScanner scanner = new GenericScanner(ScanOutputFiles.writeProperties(folder.getRoot(), settings)) {
+            @Override
+            public Connection getConnection(String classType, String url, String user, String pwd) {
+                return database.connect();
+            }
+        };
+        scanner.run();
+        assertTrue(scanner.isScanCompleted());
+
+        File out = folder.getRoot();
+        assertEquals(ScanOutputFiles.rows(
+                new String[] { "com.infa.ldm.relational.Table", DB + "/dbo/CUSTOMER", "CUSTOMER", "customers" }),
+                ScanOutputFiles.read(out, "objects-tables.csv"));
+        assertEquals(ScanOutputFiles.rows(new String[] { "com.infa.ldm.relational.View", DB + "/dbo/CUSTOMER_NAMES",
+                "CUSTOMER_NAMES", "", VIEW_DDL, "" }), ScanOutputFiles.read(out, "objects-views.csv"));
+
+        // the driver getColumns values
+        String[][] expected = new String[COLUMNS.length][];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            String[] column = COLUMNS[i];
+            expected[i] = new String[] { "com.infa.ldm.relational.Column", DB + "/dbo/CUSTOMER/" + column[0],
+                    column[0], column[5], column[6], Integer.toString(i + 1), DB + "/dbo/CUSTOMER",
+                    i == 0 ? "customer id" : "" };
+        }
+        assertEquals(ScanOutputFiles.rows(expected), ScanOutputFiles.read(out, "objects-columns.csv"));
+        assertEquals(ScanOutputFiles.rows(new String[] { "com.infa.ldm.relational.ViewColumn",
+                DB + "/dbo/CUSTOMER_NAMES/ID", "ID", "int", "10", "1", DB + "/dbo/CUSTOMER_NAMES", "" }),
+                ScanOutputFiles.read(out, "objects-viewColumns.csv"));
+
+        // 1 query each for the count, views, tables & columns - filtered on the schema & tables
+        assertEquals(database.getExecuted().toString(), 4, database.getExecuted().size());
+        for (String sql : database.getExecuted()) {
+            assertTrue(sql, sql.contains(" AND s.name IN (?) AND (UPPER(o.name) LIKE ?)") && sql.endsWith("[dbo]"));
+        }
+    }
+
+    @Test
+    public void likePatternsAreEscaped() {
+        assertEquals("ORDERS[[]1]%", new SqlServerDialect().escapeLikePattern("ORDERS[1]%"));
+    }
+
+}
@@ -0,0 +1,145 @@
+/**
+ *
+ */
+package com.infa.edc.scanner.jdbc;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * throttle permits held by result sets (throttle=true, 1 call at a time) -
+ * result sets that are not read to the end or closed (only the statement is
+ * closed) must not keep the permit
+ */
+public class TrackedStatementTest {
+    private static final String SQL = "SELECT NAME FROM OBJECTS";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private GenericScanner scanner;
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        Properties settings = new Properties();
+        settings.setProperty("driverClass", "replay");
+        settings.setProperty("URL", "jdbc:replay");
+        settings.setProperty("throttle", "true");
+        settings.setProperty("throttle.maxConcurrency", "1");
+        scanner = new GenericScanner(ScanOutputFiles.writeProperties(folder.getRoot(), settings));
+        connection = new ReplayDatabase("Replay").rows(SQL, null, new String[] { "NAME" }, new String[] { "A" },
+                new String[] { "B" }, new String[] { "C" }).connect();
+    }
+
+    private String summary() {
+        return scanner.limiter.getSummary();
+    }
+
+    /**
+     * another thread can start a call (waits for the permit if it was leaked)
+     */
+    private void assertPermitFree() throws Exception {
+        assertTrue(summary(), summary().contains("in flight=0,"));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    scanner.endCall("other", scanner.startCall(), false);
+                    return null;
+                }
+            }).get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void breakClosingOnlyTheStatement() throws Exception {
+        PreparedStatement stmt = scanner.prepareStatement(connection, SQL);
+        try {
+            ResultSet rs = scanner.executeQuery("test", null, stmt);
+            while (rs.next()) {
+                if (rs.getString("NAME").equals("A")) {
+                    break;
+                }
+            }
+        } finally {
+            GenericScanner.closeQuietly(stmt);
+        }
+        assertPermitFree();
+    }
+
+    @Test
+    public void exceptionInLoopBody() throws Exception {
+        PreparedStatement stmt = scanner.prepareStatement(connection, SQL);
+        try {
+            ResultSet rs = scanner.executeQuery("test", null, stmt);
+            while (rs.next()) {
+                throw new IllegalStateException("bad row: " + rs.getString(1));
+            }
+            fail("no exception");
+        } catch (IllegalStateException e) {
+            // expected
+        } finally {
+            stmt.close();
+        }
+        assertPermitFree();
+    }
+
+    @Test
+    public void executedAgain() throws Exception {
+        PreparedStatement stmt = scanner.prepareStatement(connection, SQL);
+        try {
+            ResultSet first = scanner.executeQuery("test", null, stmt);
+            first.next();
+            // the first result set is closed by jdbc - & it's permit released
+            ResultSet second = scanner.executeQuery("test", null, stmt);
+            while (second.next()) {
+                assertTrue(summary(), summary().contains("in flight=1,"));
+            }
+        } finally {
+            GenericScanner.closeQuietly(stmt);
+        }
+        assertPermitFree();
+    }
+
+    @Test
+    public void getterErrorIsNotAFailedCall() throws Exception {
+        PreparedStatement stmt = scanner.prepareStatement(connection, SQL);
+        try {
+            ResultSet rs = scanner.executeQuery("test", null, stmt);
+            rs.next();
+            try {
+                rs.getString("MISSING");
+                fail("no exception");
+            } catch (SQLException e) {
+                // expected - e.g. a conversion error for 1 value
+            }
+            while (rs.next()) {
+                rs.getString("NAME");
+            }
+        } finally {
+            GenericScanner.closeQuietly(stmt);
+        }
+        assertTrue(summary(), summary().contains("errors=0,"));
+        assertPermitFree();
+    }
+
+}
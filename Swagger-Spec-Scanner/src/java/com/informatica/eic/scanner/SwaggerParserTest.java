@@ -14,6 +14,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.log4j.AsyncAppender;
+import org.apache.log4j.ConsoleAppender;
+import org.apache.log4j.Level;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+
 import com.opencsv.CSVWriter;
 
 import io.swagger.models.*;
@@ -51,6 +58,8 @@ import java.io.FileNotFoundException;
  */
 public class SwaggerParserTest {
 
+	private static final Logger log = Logger.getLogger(SwaggerParserTest.class);
+
 	private static String COLON = ":";
 	private static String SLASH = "/";
 
@@ -72,7 +81,7 @@ public class SwaggerParserTest {
 
 		try {
 			writer.close();
-			System.out.println("File Written/updated: " + fileName);
+			log.info("File Written/updated: " + fileName);
 		} catch (IOException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
@@ -83,18 +92,21 @@ public class SwaggerParserTest {
 	 * @param args
 	 */
 	public static void main(String[] args) {
-		// switch off log4j Warnings (not using any logging)
+		// switch off log4j Warnings (swagger parser logging) - scanner messages use
+		// their own console appender (-loglevel DEBUG for every tag/endpoint/parameter)
 		org.apache.log4j.Logger.getRootLogger().setLevel(org.apache.log4j.Level.OFF);
+		initLogging();
 
 		if (args.length < 2) {
-			System.out.println(
+			log.info(
 					"Proper Usage is: java -jar Swagger-Spec-Scanner-Demo-0.1.0-SNAPSHOT.jar -swagger <path_to_swagger_file> -out <output folder>\n\t default output folder is output");
+			LogManager.shutdown();
 			System.exit(0);
 		}
 
-		System.out.println("Swagger Parser Scanner demonstration version");
+		log.info("Swagger Parser Scanner demonstration version");
 		printDisplaimer();
-		System.out.println("");
+		log.info("");
 
 		String fileToRead = "";
 		String fldrToWrite = "output";
@@ -104,11 +116,13 @@ public class SwaggerParserTest {
 				if (args.length >= i + 2) {
 					fileToRead = args[i + 1];
 					if (fileToRead.startsWith("-")) {
-						System.out.println("no swagger spec file passed after -swagger parameter.  exiting");
+						log.info("no swagger spec file passed after -swagger parameter.  exiting");
+						LogManager.shutdown();
 						System.exit(0);
 					}
 				} else {
-					System.out.println("no swagger spec file passed after -swagger parameter.  exiting");
+					log.info("no swagger spec file passed after -swagger parameter.  exiting");
+					LogManager.shutdown();
 					System.exit(0);
 				}
 
@@ -117,17 +131,21 @@ public class SwaggerParserTest {
 				if (args.length >= i + 2) {
 					fldrToWrite = args[i + 1];
 				} else {
-					System.out.println("no folder passed after -out parameter.  exiting");
+					log.info("no folder passed after -out parameter.  exiting");
+					LogManager.shutdown();
 					System.exit(0);
 				}
 			}
+			if (args[i].equalsIgnoreCase("-loglevel") && args.length >= i + 2) {
+				log.setLevel(Level.toLevel(args[i + 1], Level.INFO));
+			}
 		}
 
-		System.out.println("starting to parse:  " + fileToRead + " folder=" + fldrToWrite);
+		log.info("starting to parse:  " + fileToRead + " folder=" + fldrToWrite);
 		// check that the folder exists - if not, create it
 		File directory = new File(String.valueOf(fldrToWrite));
 		if (!directory.exists()) {
-			System.out.println("\tfolder: " + fldrToWrite + " does not exist, creating it");
+			log.info("\tfolder: " + fldrToWrite + " does not exist, creating it");
 			directory.mkdir();
 		}
 
@@ -135,14 +153,15 @@ public class SwaggerParserTest {
 
 		if (swagger == null) {
 			System.err.println("Unable to read the swagger location: " + fileToRead);
+			LogManager.shutdown();
 			System.exit(-1);
 		}
 
-		System.out.println(swagger.getInfo().getTitle());
-		System.out.println(swagger.getInfo().getDescription());
-		System.out.println(swagger.getInfo().getVersion());
-		System.out.println(swagger.getInfo().getContact() != null ? swagger.getInfo().getContact().getEmail() : "");
-		System.out.println("==========");
+		log.info(swagger.getInfo().getTitle());
+		log.info(swagger.getInfo().getDescription());
+		log.info(swagger.getInfo().getVersion());
+		log.info(swagger.getInfo().getContact() != null ? swagger.getInfo().getContact().getEmail() : "");
+		log.info("==========");
 
 		String swaggerHeader = "class,identity,core.name,core.description,com.ldm.custom.swaggerapiv2.email,com.ldm.custom.swaggerapiv2.version";
 
@@ -188,15 +207,15 @@ public class SwaggerParserTest {
 
 		if (tags != null) {
 			for (Tag tag : tags) {
-				System.out.println(tag.getName());
+				log.debug(tag.getName());
 				tagMap.put(tag.getName(), tag);
-				System.out.println(tag.getDescription());
+				log.debug(tag.getDescription());
 				ExternalDocs tagdocs = tag.getExternalDocs();
 				if (tagdocs != null) {
-					System.out.println(tagdocs.getUrl());
+					log.debug(tagdocs.getUrl());
 				}
 
-				System.out.println("==========");
+				log.debug("==========");
 			}
 
 		}
@@ -240,7 +259,7 @@ public class SwaggerParserTest {
 				String tagName = "NO_TAG";
 
 				for (String opTag : opTags) {
-					System.out.println("Tag: " + opTag);
+					log.debug("Tag: " + opTag);
 
 					if (!tagMap.containsKey(opTag)) {
 						Tag ntag = new Tag();
@@ -264,28 +283,28 @@ public class SwaggerParserTest {
 						opName, operation.getDescription() == null ? "" : operation.getDescription(),
 						operation.getSummary() == null ? "" : operation.getSummary() });
 
-				System.out.println(opName);
-				System.out.println(operation.getDescription() == null ? "" : operation.getDescription());
-				System.out.println(operation.getSummary() == null ? "" : operation.getSummary());
+				log.debug(opName);
+				log.debug(operation.getDescription() == null ? "" : operation.getDescription());
+				log.debug(operation.getSummary() == null ? "" : operation.getSummary());
 
 				if (operation.getParameters() != null) {
 
 					for (Parameter param : operation.getParameters()) {
 
-						System.out.println("paramter type=" + param.getClass().getSimpleName());
-						System.out.println("\tp.getIn()" + param.getIn());
-						System.out.println("\tp.getName()" + param.getName());
-						System.out.println("\tp.getAccess()" + param.getAccess());
-						System.out.println("\tp.getDescription()" + param.getDescription());
-						System.out.println("\tp.getPattern()" + param.getPattern());
-						System.out.println("\tp.getRequired()" + param.getRequired());
+						log.debug("paramter type=" + param.getClass().getSimpleName());
+						log.debug("\tp.getIn()" + param.getIn());
+						log.debug("\tp.getName()" + param.getName());
+						log.debug("\tp.getAccess()" + param.getAccess());
+						log.debug("\tp.getDescription()" + param.getDescription());
+						log.debug("\tp.getPattern()" + param.getPattern());
+						log.debug("\tp.getRequired()" + param.getRequired());
 
                         // default parameter type (if cannot find)
 						String paramType = "string";
 
 						if (param instanceof BodyParameter) {
 							BodyParameter bp = (BodyParameter) param;
-							System.out.println("bp=" + bp.getSchema().toString());
+							log.debug("bp=" + bp.getSchema().toString());
 							// printBody(swagger, bp);
 							RefProperty rp = new RefProperty(bp.getSchema().getReference());
 							paramType = rp.getSimpleRef();
@@ -293,20 +312,20 @@ public class SwaggerParserTest {
 
 						if (param instanceof HeaderParameter) {
 							HeaderParameter hp = (HeaderParameter) param;
-							System.out.println("\theader parm type= " + hp.getType());
+							log.debug("\theader parm type= " + hp.getType());
 							paramType = hp.getType();
 							// printHeader(swagger, (HeaderParameter) param);
                         }
 
                         if (param instanceof QueryParameter) {
                             QueryParameter qp = (QueryParameter) param;
-                            System.out.println("\tquery parm type= " + qp.getType());
+                            log.debug("\tquery parm type= " + qp.getType());
                             paramType = qp.getType();
                         }
 
                         if (param instanceof PathParameter) {
                             PathParameter pp = (PathParameter) param;
-                            System.out.println("\tpath parm type= " + pp.getType());
+                            log.debug("\tpath parm type= " + pp.getType());
                             paramType = pp.getType();
                         }
 
@@ -323,15 +342,15 @@ public class SwaggerParserTest {
 								createEICID(swagger.getInfo().getTitle()) + SLASH + createEICID(tagName) + SLASH
 										+ createEICID(opName) + SLASH + createEICID(param.getName()), });
 
-						System.out.println(param.getName());
-						System.out.println(param.getDescription());
-						System.out.println(param.getIn());
-						System.out.println(param.getRequired());
+						log.debug(param.getName());
+						log.debug(param.getDescription());
+						log.debug(param.getIn());
+						log.debug(param.getRequired());
 
 						// Schema schema = param.getSchema();
-						System.out.println(param.getClass().getSimpleName());
-						System.out.println(paramType);
-						System.out.println("=====<>=====");
+						log.debug(param.getClass().getSimpleName());
+						log.debug(paramType);
+						log.debug("=====<>=====");
 					}
 				}
 
@@ -340,7 +359,7 @@ public class SwaggerParserTest {
 					// for (Map.Entry<String, Response> response : responses.entrySet()) {
 					for (String responseName : responses.keySet()) {
 
-						System.out.println(responseName);
+						log.debug(responseName);
 						Response response = responses.get(responseName);
 
 						responseLines.add(new String[] { "com.ldm.custom.swaggerapiv2.Response",
@@ -353,12 +372,12 @@ public class SwaggerParserTest {
 								createEICID(swagger.getInfo().getTitle()) + SLASH + createEICID(tagName) + SLASH
 										+ createEICID(opName) + SLASH + createEICID(responseName), });
 
-						System.out.println(response.getDescription());
+						log.debug(response.getDescription());
 						// System.out.println(response.getContent());
-						System.out.println("==========");
+						log.debug("==========");
 					}
 				}
-				System.out.println("==========");
+				log.debug("==========");
 			}
 
 		}
@@ -390,11 +409,29 @@ public class SwaggerParserTest {
 		writeCSVFile(fldrToWrite + "/links.csv", linkHeader.split(","), linkLines);
 
 		zipFiles(fldrToWrite);
-		System.out.println("");
-		System.out.println("Scan complete");
+		log.info("");
+		log.info("tags=" + tagLines.size() + " endpoints=" + endpointLines.size() + " parameters=" + paramLines.size()
+				+ " responses=" + responseLines.size());
+		log.info("Scan complete");
+		// write any buffered messages
+		LogManager.shutdown();
 
 	}
 
+	/**
+	 * console output for the scanner messages - using an AsyncAppender (the
+	 * messages per endpoint/parameter are only written for -loglevel DEBUG)
+	 */
+	private static void initLogging() {
+		AsyncAppender asyncAppender = new AsyncAppender();
+		// wait when the buffer is full - messages are not discarded
+		asyncAppender.setBlocking(true);
+		asyncAppender.addAppender(new ConsoleAppender(new PatternLayout("%m%n")));
+		log.addAppender(asyncAppender);
+		log.setAdditivity(false);
+		log.setLevel(Level.INFO);
+	}
+
 	public static void zipFiles(String fldrToWrite) {
 		List<String> srcFiles = new ArrayList<String>();
 		srcFiles.add(fldrToWrite + "/objects-swagger.csv");
@@ -405,7 +442,7 @@ public class SwaggerParserTest {
 		srcFiles.add(fldrToWrite + "/links.csv");
 
 		try {
-			System.out.println("creating zip file: " + fldrToWrite + "/edc-swagger-scanner-result.zip");
+			log.info("creating zip file: " + fldrToWrite + "/edc-swagger-scanner-result.zip");
 			FileOutputStream fos = new FileOutputStream(fldrToWrite + "/edc-swagger-scanner-result.zip");
 			ZipOutputStream zipOut = new ZipOutputStream(fos);
 			for (String srcFile : srcFiles) {
@@ -479,25 +516,25 @@ public class SwaggerParserTest {
 	// }
 
 	private static void printDisplaimer() {
-		System.out.println(
+		log.info(
 				"****************************************************************************************************************************");
-		System.out.println("                                                   Disclaimer");
-		System.out.println(
+		log.info("                                                   Disclaimer");
+		log.info(
 				"****************************************************************************************************************************");
-		System.out.println(
+		log.info(
 				"this scanner is not an official product & is not supported by Informatica R&D or GCS (don't create a ticket with GCS)");
-		System.out.println(
+		log.info(
 				"to use it - you will need to build from source (see Build from Source section  in readme.md in github)");
-		System.out.println("\t\thttps://github.com/Informatica-EIC/Custom-Scanners/tree/master/Swagger-Spec-Scanner");
-		System.out.println("if you find an problem or want to make a comment, you can create a issue on github");
-		System.out.println("this scanner is not a 100% coverage of the open-api spec");
-		System.out.println(
+		log.info("\t\thttps://github.com/Informatica-EIC/Custom-Scanners/tree/master/Swagger-Spec-Scanner");
+		log.info("if you find an problem or want to make a comment, you can create a issue on github");
+		log.info("this scanner is not a 100% coverage of the open-api spec");
+		log.info(
 				"\texample:  the structure of responses for endpoints is not created/documented.  this could be extended (see next point)");
-		System.out.println(
+		log.info(
 				"if you want to extend the model/scanner coverage - please feel free to fork/clone the github repository. ");
-		System.out.println(
+		log.info(
 				"if you improve the scanner - then submit a pull request to update it here for all to benefit");
-		System.out.println(
+		log.info(
 				"****************************************************************************************************************************");
 
 	}